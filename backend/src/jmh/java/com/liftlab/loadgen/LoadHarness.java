@@ -0,0 +1,229 @@
+package com.liftlab.loadgen;
+
+import com.liftlab.RealTimeAnalytics;
+import com.liftlab.ingestion.IngestionRunner;
+import com.liftlab.ingestion.source.SyntheticEventSource;
+import com.liftlab.redis.LocalRedisServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * End to end load test of the ingestion and of the dashboard endpoints, runnable offline.
+ * @implNote Starts the application with the ingestion pipeline fed by a {@link SyntheticEventSource}, against the
+ * in-process redis stand-in or a redis given with --redis=host:port. The ingestion runs alone during the warm up, so
+ * that the windows fill up, then keeps running while the clients call the endpoints over HTTP, each one going round
+ * the endpoints as fast as it gets answers. Reports the events ingested per second, the latency percentiles of every
+ * endpoint and the keys and memory of redis. The stand-in is a single synchronized JVM map: its numbers size the
+ * application, a real redis is needed to size redis.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.liftlab.loadgen.LoadHarness
+ * -Djmh.args="--rate=20000 --users=1000000 --clients=16". The other --key=value arguments are application
+ * properties, like --dashboard.config.snapshot-cache.ttl-ms=0.
+ */
+public final class LoadHarness {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "redis", "",
+            "rate", "20000",
+            "users", "1000000",
+            "urls", "10000",
+            "zipf-exponent", "1.0",
+            "pages-per-session", "5",
+            "clients", "16",
+            "warmup-seconds", "30",
+            "duration-seconds", "60");
+
+    private LoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        final Map<String, String> properties = new LinkedHashMap<>();
+        for (final String arg : args) {
+            final String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            if (DEFAULTS.containsKey(option[0])) {
+                options.put(option[0], option[1]);
+            } else {
+                properties.put(option[0], option[1]);
+            }
+        }
+
+        try (LocalRedisServer localRedisServer = options.get("redis").isEmpty() ? new LocalRedisServer() : null) {
+            final String[] redis = Objects.isNull(localRedisServer)
+                    ? options.get("redis").split(":")
+                    : new String[]{localRedisServer.getHost(), String.valueOf(localRedisServer.getPort())};
+            properties.putIfAbsent("spring.data.redis.host", redis[0]);
+            properties.putIfAbsent("spring.data.redis.port", redis[1]);
+            properties.putIfAbsent("spring.data.redis.password", "");
+            properties.putIfAbsent("server.port", "0");
+            properties.putIfAbsent("management.server.port", "0");
+            properties.putIfAbsent("logging.level.com.liftlab", "ERROR");
+            // The stand-in answers the first pipelines of a large load slowly.
+            properties.putIfAbsent("spring.data.redis.timeout", "30s");
+            properties.put("dashboard.ingestion.enabled", "true");
+            properties.put("dashboard.ingestion.source", "synthetic");
+            properties.put("dashboard.ingestion.synthetic.rate", options.get("rate"));
+            properties.put("dashboard.ingestion.synthetic.users", options.get("users"));
+            properties.put("dashboard.ingestion.synthetic.urls", options.get("urls"));
+            properties.put("dashboard.ingestion.synthetic.zipf-exponent", options.get("zipf-exponent"));
+            properties.put("dashboard.ingestion.synthetic.pages-per-session", options.get("pages-per-session"));
+
+            // As arguments, which take precedence over application.yml.
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RealTimeAnalytics.class)
+                    .run(properties.entrySet().stream()
+                            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                            .toArray(String[]::new))) {
+                run(context, options);
+            }
+        }
+    }
+
+    private static void run(final ConfigurableApplicationContext context, final Map<String, String> options)
+            throws InterruptedException {
+        final IngestionRunner ingestionRunner = context.getBean(IngestionRunner.class);
+        final SyntheticEventSource eventSource = context.getBean(SyntheticEventSource.class);
+        final String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/v1/dashboard";
+        final int users = Integer.parseInt(options.get("users"));
+        final Map<String, Supplier<String>> endpoints = new LinkedHashMap<>();
+        if (!options.get("redis").isEmpty()) {
+            // The pages are read by a lua script, which the stand-in does not run.
+            endpoints.put("active-users?limit=1000", () -> "/active-users?limit=1000");
+        }
+        endpoints.put("active-users/count", () -> "/active-users/count");
+        endpoints.put("active-users/count?mode=approximate", () -> "/active-users/count?mode=approximate");
+        endpoints.put("page-views", () -> "/page-views");
+        endpoints.put("page-views/visitors", () -> "/page-views/visitors?pageUrl=/page/0");
+        endpoints.put("users/{userId}/page-views",
+                () -> "/users/usr_" + ThreadLocalRandom.current().nextInt(users) + "/page-views");
+        endpoints.put("sessions/stats", () -> "/sessions/stats");
+        endpoints.put("summary", () -> "/summary");
+
+        final long warmupSeconds = Long.parseLong(options.get("warmup-seconds"));
+        System.out.printf("%nWarming up for %d s at %s events/s...%n", warmupSeconds,
+                Double.parseDouble(options.get("rate")) > 0 ? options.get("rate") : "unbounded");
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+
+        final Map<String, Recorder> recorders = new LinkedHashMap<>();
+        endpoints.keySet().forEach(endpoint -> recorders.put(endpoint, new Recorder()));
+        final List<String> names = List.copyOf(endpoints.keySet());
+        final HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        final long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration-seconds")));
+        final int clients = Integer.parseInt(options.get("clients"));
+        final long ingestedBefore = ingestionRunner.getIngestedEvents();
+        final long start = System.nanoTime();
+        System.out.printf("Running %d clients for %d s...%n", clients, TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        if (clients == 0) {
+            // Ingestion alone.
+            TimeUnit.NANOSECONDS.sleep(durationNanos);
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                final int first = client;
+                executor.execute(() -> {
+                    for (int call = first; System.nanoTime() - start < durationNanos; call++) {
+                        final String name = names.get(call % names.size());
+                        final HttpRequest request = HttpRequest.newBuilder(
+                                URI.create(baseUrl + endpoints.get(name).get())).GET().build();
+                        final long sent = System.nanoTime();
+                        try {
+                            final HttpResponse<byte[]> response = httpClient.send(request,
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                            recorders.get(name).record(System.nanoTime() - sent, response.statusCode() / 100 == 2);
+                        } catch (IOException e) {
+                            recorders.get(name).record(System.nanoTime() - sent, false);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        final long ingested = ingestionRunner.getIngestedEvents() - ingestedBefore;
+
+        System.out.printf("%nIngestion: %.0f events/s (%d events, %d generated and not ingested yet)%n",
+                ingested / elapsedSeconds, ingested, eventSource.getEmitted() - ingestionRunner.getIngestedEvents());
+        System.out.printf("%n%-38s %9s %8s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "Req/s", "p50 ms",
+                "p99 ms", "max ms");
+        recorders.forEach((name, recorder) -> recorder.print(name, elapsedSeconds));
+
+        final StringRedisTemplate redisTemplate = context.getBean(StringRedisTemplate.class);
+        final Long keys = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.serverCommands().dbSize());
+        String memory;
+        try {
+            final Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.serverCommands().info("memory"));
+            memory = Objects.isNull(info) ? "n/a" : info.getProperty("used_memory_human", "n/a");
+        } catch (RuntimeException e) {
+            memory = "n/a (the stand-in has no INFO, use --redis=host:port)";
+        }
+        System.out.printf("%nRedis: %d keys, used memory %s%n", keys, memory);
+    }
+
+    /**
+     * Latencies of an endpoint.
+     */
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private synchronized void record(final long nanos, final boolean success) {
+            if (!success) {
+                this.errors.incrementAndGet();
+            }
+            if (this.count == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+            }
+            this.latencies[this.count++] = nanos;
+        }
+
+        private synchronized void print(final String name, final double elapsedSeconds) {
+            final long[] sorted = Arrays.copyOf(this.latencies, this.count);
+            Arrays.sort(sorted);
+            System.out.printf("%-38s %9d %8d %9.1f %9.2f %9.2f %9.2f%n", name, this.count, this.errors.get(),
+                    this.count / elapsedSeconds, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                    percentile(sorted, 1));
+        }
+
+        private static double percentile(final long[] sorted, final double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.liftlab.loadgen;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SessionsLayout;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Memory of the sessions of the active users in redis, with every {@link SessionsLayout} written by the ingestion
+ * sink.
+ * @implNote Writes the events of the active users of a minute through {@link RedisEventSink}, which also writes the
+ * 5 minute, hourly and daily rollups of the sessions, declared here as they are off by default. It then deletes the
+ * session keys and reports the used memory they freed, per active user, and their number of keys. The other keys
+ * of the events are written too, and left out of the difference. Against a real redis the database must be empty,
+ * and the server otherwise idle, as used_memory is the memory of the whole server. The stand-in has no INFO: only
+ * the keys are reported.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.liftlab.loadgen.SessionsLayoutMemory
+ * -Djmh.args="--redis=localhost:6379 --database=15 --users=100000 --sessions-per-user=1"
+ */
+public final class SessionsLayoutMemory {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "redis", "",
+            "database", "15",
+            "users", "100000",
+            "sessions-per-user", "1");
+
+    private static final int FLUSH_EVENTS = 10_000;
+
+    private SessionsLayoutMemory() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (final String arg : args) {
+            final String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Expected one of --" + DEFAULTS.keySet() + "=value, got " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        final int users = Integer.parseInt(options.get("users"));
+        final int sessionsPerUser = Integer.parseInt(options.get("sessions-per-user"));
+
+        try (LocalRedisServer localRedisServer = options.get("redis").isEmpty() ? new LocalRedisServer() : null) {
+            final LettuceConnectionFactory connectionFactory;
+            if (Objects.isNull(localRedisServer)) {
+                final String[] redis = options.get("redis").split(":");
+                final RedisStandaloneConfiguration configuration =
+                        new RedisStandaloneConfiguration(redis[0], Integer.parseInt(redis[1]));
+                configuration.setDatabase(Integer.parseInt(options.get("database")));
+                connectionFactory = new LettuceConnectionFactory(configuration);
+                connectionFactory.afterPropertiesSet();
+            } else {
+                connectionFactory = localRedisServer.createConnectionFactory();
+            }
+            final StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            if (dbSize(redisTemplate) > 0) {
+                throw new IllegalStateException("The database is not empty, pick another one with --database");
+            }
+
+            System.out.printf("%n%d active users, %d sessions each, in one minute and its rollups%n%n", users,
+                    sessionsPerUser);
+            System.out.printf("%-12s %12s %14s %16s%n", "Layout", "Keys", "Memory", "Bytes per user");
+            for (final SessionsLayout layout : List.of(SessionsLayout.PER_USER, SessionsLayout.PER_BUCKET)) {
+                measure(redisTemplate, layout, users, sessionsPerUser);
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void measure(final StringRedisTemplate redisTemplate, final SessionsLayout layout,
+                                final int users, final int sessionsPerUser) {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        ReflectionTestUtils.setField(redisKeyConfig, "userSessionsLayout", layout.name());
+        final IngestionConfig ingestionConfig = TestUtils.getIngestionConfig();
+        ReflectionTestUtils.setField(ingestionConfig, "rollups", "user-sessions");
+        final RedisEventSink redisEventSink = new RedisEventSink(redisTemplate, redisKeyConfig, ingestionConfig);
+        final String timestamp = OffsetDateTime.now(ZoneOffset.UTC).toString();
+        int events = 0;
+        for (int user = 0; user < users; user++) {
+            for (int session = 0; session < sessionsPerUser; session++) {
+                redisEventSink.accept(UserEvent.builder()
+                        .withTimestamp(timestamp)
+                        .withUserId("usr_" + user)
+                        .withEventType("page_view")
+                        .withPageUrl("/home")
+                        .withSessionId("sess_" + user + "_" + session)
+                        .build());
+                if (++events % FLUSH_EVENTS == 0) {
+                    redisEventSink.flush();
+                }
+            }
+        }
+        redisEventSink.flush();
+
+        final String pattern = (layout == SessionsLayout.PER_USER
+                ? redisKeyConfig.getUserSessionsKey("*")
+                : redisKeyConfig.getUserSessionPairsKey()) + ":*";
+        final List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        final Long before = usedMemory(redisTemplate);
+        for (int from = 0; from < keys.size(); from += FLUSH_EVENTS) {
+            redisTemplate.delete(keys.subList(from, Math.min(keys.size(), from + FLUSH_EVENTS)));
+        }
+        final Long after = usedMemory(redisTemplate);
+        if (Objects.isNull(before) || Objects.isNull(after)) {
+            System.out.printf("%-12s %12d %14s %16s%n", layout, keys.size(), "n/a", "n/a");
+        } else {
+            System.out.printf("%-12s %12d %11.1f MB %16.1f%n", layout, keys.size(), (before - after) / 1e6,
+                    (double) (before - after) / users);
+        }
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static long dbSize(final StringRedisTemplate redisTemplate) {
+        final Long keys = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.serverCommands().dbSize());
+        return Objects.isNull(keys) ? 0 : keys;
+    }
+
+    private static Long usedMemory(final StringRedisTemplate redisTemplate) {
+        try {
+            final Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.serverCommands().info("memory"));
+            return Objects.isNull(info) ? null : Long.valueOf(info.getProperty("used_memory"));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.liftlab.loadgen;
+
+import com.liftlab.redis.LocalRedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Time to the first successful response of a new process of the application, with and without the fast-startup
+ * build.
+ * @implNote Starts the packaged application as a child process, alternately as a plain java -jar and as the
+ * fast-startup mode of the Dockerfile: the jar extracted, with the AppCDS archive of a training run and the AOT
+ * initialization of the context. Polls the endpoint until it answers 2xx, then the readiness probe until it answers
+ * 200, which waits for the redis warm up, and reports both times from the start of the process. The jar must be
+ * built with the fast-startup profile. The children use the in-process redis stand-in or a redis given with
+ * --redis=host:port. The other --key=value arguments are application properties, given to every process: the ones
+ * the conditional beans depend on must be the ones the jar was built with.
+ * <p>
+ * Run with: mvn -Pfast-startup package -DskipTests, then mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark.main=com.liftlab.loadgen.StartupBenchmark -Djmh.args="--runs=5"
+ */
+public final class StartupBenchmark {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "redis", "",
+            "jar", "target/analytics-1.0-SNAPSHOT.jar",
+            "runs", "5",
+            "path", "/api/v1/dashboard/summary",
+            "timeout-seconds", "120");
+
+    private static final String AOT_INITIALIZER =
+            "BOOT-INF/classes/com/liftlab/RealTimeAnalytics__ApplicationContextInitializer.class";
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        final Map<String, String> properties = new LinkedHashMap<>();
+        for (final String arg : args) {
+            final String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            if (DEFAULTS.containsKey(option[0])) {
+                options.put(option[0], option[1]);
+            } else {
+                properties.put(option[0], option[1]);
+            }
+        }
+        final Path jar = Path.of(options.get("jar")).toAbsolutePath();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            if (Objects.isNull(jarFile.getEntry(AOT_INITIALIZER))) {
+                throw new IllegalStateException(jar + " has no AOT classes, build it with mvn -Pfast-startup package");
+            }
+        }
+
+        try (LocalRedisServer localRedisServer = options.get("redis").isEmpty() ? new LocalRedisServer() : null) {
+            final String[] redis = Objects.isNull(localRedisServer)
+                    ? options.get("redis").split(":")
+                    : new String[]{localRedisServer.getHost(), String.valueOf(localRedisServer.getPort())};
+            properties.putIfAbsent("spring.data.redis.host", redis[0]);
+            properties.putIfAbsent("spring.data.redis.port", redis[1]);
+            properties.putIfAbsent("spring.data.redis.password", "");
+            properties.putIfAbsent("logging.level.com.liftlab", "WARN");
+            run(jar, options, properties);
+        }
+    }
+
+    private static void run(final Path jar, final Map<String, String> options, final Map<String, String> properties)
+            throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("startup-benchmark");
+        final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        // The layout and the archive of the Dockerfile.
+        System.out.printf("Extracting %s and training the AppCDS archive in %s...%n", jar, directory);
+        final Path extracted = directory.resolve("application");
+        final Path archive = directory.resolve("application.jsa");
+        execute(directory.resolve("extract.log"), List.of(java, "-Djarmode=tools", "-jar", jar.toString(), "extract",
+                "--destination", extracted.toString()));
+        final String extractedJar = extracted.resolve(jar.getFileName()).toString();
+        execute(directory.resolve("training.log"), command(List.of(java, "-XX:ArchiveClassesAtExit=" + archive,
+                "-Dspring.aot.enabled=true", "-Dspring.context.exit=onRefresh", "-jar", extractedJar), properties, 0));
+
+        final Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("java -jar", List.of(java, "-jar", jar.toString()));
+        modes.put("fast-startup (AOT + AppCDS)", List.of(java, "-XX:SharedArchiveFile=" + archive,
+                "-Dspring.aot.enabled=true", "-jar", extractedJar));
+        final Map<String, List<long[]>> results = new LinkedHashMap<>();
+        modes.keySet().forEach(mode -> results.put(mode, new ArrayList<>()));
+
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        final int runs = Integer.parseInt(options.get("runs"));
+        final long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-seconds")));
+        for (int run = 0; run < runs; run++) {
+            // Alternately, so that the noise of the machine spreads over both modes.
+            for (final Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                final int port = freePort();
+                final long[] times = measure(httpClient, command(mode.getValue(), properties, port), port,
+                        options.get("path"), directory.resolve("run-" + port + ".log"), timeoutNanos);
+                results.get(mode.getKey()).add(times);
+                System.out.printf("Run %d, %s: first response %d ms, ready %d ms%n", run + 1, mode.getKey(),
+                        times[0], times[1]);
+            }
+        }
+
+        System.out.printf("%n%-28s %6s %20s %20s%n", "Mode", "Runs", "First response ms", "Ready ms");
+        System.out.printf("%-28s %6s %20s %20s%n", "", "", "p50 (min-max)", "p50 (min-max)");
+        results.forEach((mode, times) -> System.out.printf("%-28s %6d %20s %20s%n", mode, times.size(),
+                summary(times, 0), summary(times, 1)));
+    }
+
+    /**
+     * Method to start the application and wait for its first successful response and for its readiness.
+     * @return The milliseconds from the start of the process to the first 2xx of the path, and to the readiness
+     */
+    private static long[] measure(final HttpClient httpClient, final List<String> command, final int port,
+                                  final String path, final Path log, final long timeoutNanos)
+            throws IOException, InterruptedException {
+        final String baseUrl = "http://localhost:" + port;
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+        final HttpRequest readiness = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+        final long start = System.nanoTime();
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(log.toFile()).start();
+        try {
+            long firstResponse = -1;
+            long ready = -1;
+            while (firstResponse < 0 || ready < 0) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue()
+                            + ", see " + log);
+                }
+                if (System.nanoTime() - start > timeoutNanos) {
+                    throw new IllegalStateException("The application did not answer in time, see " + log);
+                }
+                if (firstResponse < 0 && status(httpClient, request) / 100 == 2) {
+                    firstResponse = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                if (ready < 0 && status(httpClient, readiness) == 200) {
+                    ready = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                TimeUnit.NANOSECONDS.sleep(POLL_INTERVAL.toNanos());
+            }
+            return new long[]{firstResponse, ready};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int status(final HttpClient httpClient, final HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // Not listening yet.
+            return -1;
+        }
+    }
+
+    private static void execute(final Path log, final List<String> command) throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(log.toFile()).start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " failed, see " + log);
+        }
+    }
+
+    /**
+     * Method to add the application properties and the port to a command.
+     */
+    private static List<String> command(final List<String> java, final Map<String, String> properties,
+                                        final int port) {
+        final List<String> command = new ArrayList<>(java);
+        properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+        command.add("--management.server.port=" + port);
+        command.add("--server.port=" + port);
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    private static String summary(final List<long[]> times, final int index) {
+        final long[] sorted = times.stream().mapToLong(time -> time[index]).sorted().toArray();
+        return String.format("%d (%d-%d)", sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.UserDetailsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the active users read path: the user details with their session counts, the counts, and the
+ * serialization of the response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ActiveUsersBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int userCount;
+
+    @Param({"5", "15"})
+    private int windowMinutes;
+
+    private BenchmarkRedis benchmarkRedis;
+
+    private DashboardService dashboardService;
+
+    private ObjectMapper objectMapper;
+
+    private UserDetailsResponse userDetailsResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.benchmarkRedis = new BenchmarkRedis();
+        // Every user is active in one to three minutes of the window, with a session per minute.
+        final Random random = new Random(42);
+        for (int user = 0; user < this.userCount; user++) {
+            final int minutes = 1 + random.nextInt(3);
+            for (int minute = 0; minute < minutes; minute++) {
+                final int minutesAgo = random.nextInt(this.windowMinutes);
+                this.benchmarkRedis.accept(minutesAgo, "usr_" + user, "/home", "sess_" + user + "_" + minutesAgo);
+            }
+            if (user % 10_000 == 0) {
+                this.benchmarkRedis.flush();
+            }
+        }
+        this.benchmarkRedis.flush();
+
+        this.dashboardService = this.benchmarkRedis.createDashboardService(
+                BenchmarkRedis.getDashboardOffsetConfig(this.windowMinutes, 5));
+        this.objectMapper = new ObjectMapper();
+        this.userDetailsResponse = this.dashboardService.getUserDetails();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.benchmarkRedis.close();
+    }
+
+    @Benchmark
+    public UserDetailsResponse getUserDetails() {
+        return this.dashboardService.getUserDetails();
+    }
+
+    @Benchmark
+    public ActiveUsersCountResponse getActiveUsersCountExact() {
+        return this.dashboardService.getActiveUsersCount(CountMode.EXACT);
+    }
+
+    @Benchmark
+    public ActiveUsersCountResponse getActiveUsersCountApproximate() {
+        return this.dashboardService.getActiveUsersCount(CountMode.APPROXIMATE);
+    }
+
+    @Benchmark
+    public byte[] serializeUserDetailsResponse() throws IOException {
+        return this.objectMapper.writeValueAsBytes(this.userDetailsResponse);
+    }
+}
@@ -0,0 +1,121 @@
+package com.liftlab.service;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Redis stand-in of a benchmark, seeded through the ingestion sink and read at a fixed time, so that the window
+ * does not slide while the benchmark runs.
+ */
+final class BenchmarkRedis implements AutoCloseable {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 7, 16, 34, 30);
+
+    private static final long ONE_DAY_SECONDS = 86_400;
+
+    private final LocalRedisServer localRedisServer;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+
+    private final RedisEventSink redisEventSink;
+
+    private final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+
+    BenchmarkRedis() throws IOException {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param latency The round trip time to the redis stand-in
+     */
+    BenchmarkRedis(final Duration latency) throws IOException {
+        this.localRedisServer = new LocalRedisServer(latency);
+        this.connectionFactory = this.localRedisServer.createConnectionFactory();
+        this.redisTemplate = new StringRedisTemplate(this.connectionFactory);
+
+        final IngestionConfig ingestionConfig = TestUtils.getIngestionConfig();
+        List.of("activeUsersTtlSeconds", "pageViewsTtlSeconds", "userSessionsTtlSeconds", "activeUsersHllTtlSeconds")
+                .forEach(field -> ReflectionTestUtils.setField(ingestionConfig, field, ONE_DAY_SECONDS));
+        this.redisEventSink = new RedisEventSink(this.redisTemplate, this.redisKeyConfig, ingestionConfig);
+    }
+
+    /**
+     * Method to write an event, flushed by {@link #flush()}.
+     * @param minutesAgo The minute of the event, relative to {@link #NOW}
+     * @param userId The id of the user
+     * @param pageUrl The viewed page
+     * @param sessionId The id of the session
+     */
+    void accept(final int minutesAgo, final String userId, final String pageUrl, final String sessionId) {
+        this.redisEventSink.accept(UserEvent.builder()
+                .withTimestamp(NOW.minusMinutes(minutesAgo).atOffset(ZoneOffset.UTC).toString())
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId(sessionId)
+                .build());
+    }
+
+    void flush() {
+        this.redisEventSink.flush();
+    }
+
+    static DashboardOffsetConfig getDashboardOffsetConfig(final int windowMinutes, final int stalenessSeconds) {
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "activeUsersOffset", windowMinutes);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsOffset", windowMinutes);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsOffset", windowMinutes);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsMaxStalenessSeconds", stalenessSeconds);
+        return dashboardOffsetConfig;
+    }
+
+    PageViewsRollingView createPageViewsRollingView(final DashboardOffsetConfig dashboardOffsetConfig) {
+        return new PageViewsRollingView(this.redisTemplate, this.redisKeyConfig, dashboardOffsetConfig,
+                this.dashboardMetrics, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    DashboardService createDashboardService(final DashboardOffsetConfig dashboardOffsetConfig) {
+        return this.createDashboardService(dashboardOffsetConfig, new RedisCallExecutor(dashboardOffsetConfig));
+    }
+
+    DashboardService createDashboardService(final DashboardOffsetConfig dashboardOffsetConfig,
+                                            final RedisCallExecutor redisCallExecutor) {
+        return new DashboardService(this.redisTemplate, this.redisKeyConfig, dashboardOffsetConfig,
+                this.createPageViewsRollingView(dashboardOffsetConfig), Optional.empty(), Optional.empty(),
+                this.dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig),
+                redisCallExecutor) {
+            @Override
+            protected List<String> getMinuteBuckets(final int minutesOffset) {
+                return MinuteBuckets.latest(NOW, minutesOffset);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.connectionFactory.destroy();
+        this.localRedisServer.close();
+    }
+}
@@ -0,0 +1,101 @@
+package com.liftlab.service;
+
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.models.UserDetailsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the active users endpoint in the blocking mode and in the virtual threads mode: the benchmark
+ * threads are the clients, and every request is handed to a server executor like tomcat does, a fixed pool of
+ * platform threads in the blocking mode and a virtual thread per request in the virtual threads mode, which also
+ * runs the pipelines of the user sessions concurrently. The redis stand-in answers after a network round trip.
+ * Reports the requests per second and the latency percentiles, p0.99 among them.
+ */
+@State(Scope.Benchmark)
+@Threads(64)
+public class ExecutionModeBenchmark {
+
+    private static final int WINDOW_MINUTES = 5;
+
+    @Param({"blocking", "virtual-threads"})
+    private String mode;
+
+    @Param({"1000"})
+    private int userCount;
+
+    @Param({"2000"})
+    private int roundTripMicros;
+
+    /** Size of the request thread pool of the blocking mode. */
+    @Param({"16"})
+    private int serverThreads;
+
+    private BenchmarkRedis benchmarkRedis;
+
+    private DashboardService dashboardService;
+
+    private RedisCallExecutor redisCallExecutor;
+
+    private ExecutorService server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.benchmarkRedis = new BenchmarkRedis(Duration.of(this.roundTripMicros, ChronoUnit.MICROS));
+        for (int user = 0; user < this.userCount; user++) {
+            this.benchmarkRedis.accept(user % WINDOW_MINUTES, "usr_" + user, "/home", "sess_" + user);
+        }
+        this.benchmarkRedis.flush();
+
+        final boolean virtualThreads = "virtual-threads".equals(this.mode);
+        final DashboardOffsetConfig dashboardOffsetConfig = BenchmarkRedis.getDashboardOffsetConfig(WINDOW_MINUTES, 5);
+        // A pipeline of user sessions per 100 users.
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsBatchSize", 100);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "redisCallsConcurrency", virtualThreads ? 8 : 1);
+        this.redisCallExecutor = new RedisCallExecutor(dashboardOffsetConfig);
+        this.dashboardService = this.benchmarkRedis.createDashboardService(dashboardOffsetConfig,
+                this.redisCallExecutor);
+        this.server = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(this.serverThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.server.shutdownNow();
+        this.redisCallExecutor.destroy();
+        this.benchmarkRedis.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public UserDetailsResponse requestsPerSecond() throws ExecutionException, InterruptedException {
+        return this.server.submit(() -> this.dashboardService.getUserDetails()).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UserDetailsResponse latency() throws ExecutionException, InterruptedException {
+        return this.server.submit(() -> this.dashboardService.getUserDetails()).get();
+    }
+}
@@ -0,0 +1,54 @@
+package com.liftlab.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the key generation, which runs on every request. Run with -prof gc for the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RedisKeysBenchmark {
+
+    @Param({"5", "15", "60"})
+    private int windowMinutes;
+
+    private DashboardService dashboardService;
+
+    private List<String> minuteBuckets;
+
+    @Setup
+    public void setUp() {
+        this.dashboardService = new DashboardService(null, null, null, null, Optional.empty(), Optional.empty(), null,
+                null, null);
+        this.minuteBuckets = MinuteBuckets.latest(BenchmarkRedis.NOW, this.windowMinutes);
+    }
+
+    @Benchmark
+    public List<String> getMinuteBuckets() {
+        return MinuteBuckets.latest(LocalDateTime.now(ZoneOffset.UTC), this.windowMinutes);
+    }
+
+    @Benchmark
+    public List<String> getRedisKeys() {
+        return this.dashboardService.getRedisKeys(this.windowMinutes, "active_users");
+    }
+
+    @Benchmark
+    public List<String> getRedisKeysOfBuckets() {
+        return this.dashboardService.getRedisKeys(this.minuteBuckets, "active_users");
+    }
+}
@@ -0,0 +1,76 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserDetailsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of the encoding of the dashboard responses in JSON and in the columnar CBOR, for large lists. The wire
+ * size of each response is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ResponseEncodingBenchmark {
+
+    @Param({"JSON", "CBOR"})
+    private ResponseFormat format;
+
+    @Param({"10000", "100000"})
+    private int elements;
+
+    private ResponseEncoder responseEncoder;
+
+    private UserDetailsResponse userDetailsResponse;
+
+    private PageViewsResponse pageViewsResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.responseEncoder = new ResponseEncoder(new ObjectMapper());
+        this.userDetailsResponse = UserDetailsResponse.builder()
+                .withUserDetails(IntStream.range(0, this.elements)
+                        .mapToObj(user -> UserDetails.builder()
+                                .withUserId("usr_" + user)
+                                .withSessionCount(1 + user % 3)
+                                .build())
+                        .toList())
+                .build();
+        // Zipf like counts over the pages of the catalog.
+        this.pageViewsResponse = PageViewsResponse.builder()
+                .withPageViews(IntStream.range(0, this.elements)
+                        .mapToObj(page -> PageViewCount.builder()
+                                .withPageUrl("/products/category-" + page % 50 + "/item-" + page)
+                                .withCount(1 + 100_000 / (page + 1))
+                                .build())
+                        .toList())
+                .build();
+        System.out.printf("%n%s, %d elements: active users %d bytes, page views %d bytes%n", this.format,
+                this.elements, this.userDetails().length, this.pageViews().length);
+    }
+
+    @Benchmark
+    public byte[] userDetails() throws IOException {
+        return this.responseEncoder.encode(this.userDetailsResponse, this.format);
+    }
+
+    @Benchmark
+    public byte[] pageViews() throws IOException {
+        return this.responseEncoder.encode(this.pageViewsResponse, this.format);
+    }
+}
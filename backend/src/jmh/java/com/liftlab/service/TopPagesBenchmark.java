@@ -0,0 +1,88 @@
+package com.liftlab.service;
+
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.models.PageViewCount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the top pages read path: a warm rolling view within its staleness, a refresh of the hot buckets,
+ * and a cold view which reads the whole window.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TopPagesBenchmark {
+
+    private static final int OFFSET = 5;
+
+    @Param({"100", "10000"})
+    private int urlCardinality;
+
+    @Param({"15", "60"})
+    private int windowMinutes;
+
+    private BenchmarkRedis benchmarkRedis;
+
+    private DashboardOffsetConfig dashboardOffsetConfig;
+
+    private PageViewsRollingView warmView;
+
+    private PageViewsRollingView refreshingView;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.benchmarkRedis = new BenchmarkRedis();
+        // Zipf like views: page i gets about 100 / (i + 1) views per minute, at least one.
+        final Random random = new Random(42);
+        for (int minutesAgo = 0; minutesAgo < this.windowMinutes; minutesAgo++) {
+            for (int page = 0; page < this.urlCardinality; page++) {
+                final int views = 1 + random.nextInt(1 + 100 / (page + 1));
+                for (int view = 0; view < views; view++) {
+                    this.benchmarkRedis.accept(minutesAgo, "usr_" + view, "/page/" + page, "sess_" + view);
+                }
+            }
+            this.benchmarkRedis.flush();
+        }
+
+        this.dashboardOffsetConfig = BenchmarkRedis.getDashboardOffsetConfig(this.windowMinutes, 5);
+        this.warmView = this.benchmarkRedis.createPageViewsRollingView(this.dashboardOffsetConfig);
+        this.warmView.getTopPages(OFFSET);
+        this.refreshingView = this.benchmarkRedis.createPageViewsRollingView(
+                BenchmarkRedis.getDashboardOffsetConfig(this.windowMinutes, 0));
+        this.refreshingView.getTopPages(OFFSET);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.benchmarkRedis.close();
+    }
+
+    @Benchmark
+    public List<PageViewCount> getTopPagesWarm() {
+        return this.warmView.getTopPages(OFFSET);
+    }
+
+    @Benchmark
+    public List<PageViewCount> getTopPagesRefresh() {
+        return this.refreshingView.getTopPages(OFFSET);
+    }
+
+    @Benchmark
+    public List<PageViewCount> getTopPagesCold() {
+        return this.benchmarkRedis.createPageViewsRollingView(this.dashboardOffsetConfig).getTopPages(OFFSET);
+    }
+}
@@ -0,0 +1,187 @@
+package com.liftlab.coldtier;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.ColdTierConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.service.MinuteBuckets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Copies the closed minute buckets from redis to the {@link ColdTierStore}, before their keys expire.
+ * @implNote Every dashboard.cold-tier.interval-ms, the minutes which closed since the last run are read in one
+ * pipeline, the active users with SMEMBERS and the page views with ZRANGE, and appended as one segment. A minute
+ * is closed dashboard.cold-tier.grace-minutes after its end, once the late events of the ingestion flushes landed.
+ * After a restart, the minutes whose active users are still in redis are caught up, the older ones are lost. The
+ * archiver must run in a single process, the ingestion one.
+ */
+@Component
+@ConditionalOnProperty(name = {"dashboard.cold-tier.enabled", "dashboard.cold-tier.writer.enabled"},
+        havingValue = "true")
+@Slf4j
+public class ColdTierArchiver implements SmartLifecycle {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final ColdTierConfig coldTierConfig;
+
+    private final ColdTierStore coldTierStore;
+
+    private final Clock clock;
+
+    private volatile boolean running;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ColdTierArchiver(final StringRedisTemplate redisTemplate,
+                            final RedisKeyConfig redisKeyConfig,
+                            final IngestionConfig ingestionConfig,
+                            final ColdTierConfig coldTierConfig,
+                            final ColdTierStore coldTierStore) {
+        this(redisTemplate, redisKeyConfig, ingestionConfig, coldTierConfig, coldTierStore, Clock.systemUTC());
+    }
+
+    ColdTierArchiver(final StringRedisTemplate redisTemplate,
+                     final RedisKeyConfig redisKeyConfig,
+                     final IngestionConfig ingestionConfig,
+                     final ColdTierConfig coldTierConfig,
+                     final ColdTierStore coldTierStore,
+                     final Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.redisKeyConfig = redisKeyConfig;
+        this.ingestionConfig = ingestionConfig;
+        this.coldTierConfig = coldTierConfig;
+        this.coldTierStore = coldTierStore;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "cold-tier-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                this.archive();
+            } catch (Exception e) {
+                // The minutes are still in redis, the next run retries them.
+                log.error("Failed to archive the minute buckets", e);
+            }
+        }, this.coldTierConfig.getIntervalMillis(), this.coldTierConfig.getIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Method to archive the minutes closed since the last run, then compact and expire the segments.
+     * @return The number of archived minutes
+     * @throws IOException when the cold tier cannot be written
+     */
+    int archive() throws IOException {
+        final long now = ColdTierStore.epochMinute(LocalDateTime.now(this.clock));
+        final long closed = now - this.coldTierConfig.getGraceMinutes();
+        // The minutes whose active users expired cannot be archived anymore.
+        final long oldest = now - Duration.ofSeconds(this.ingestionConfig.getActiveUsersTtlSeconds()).toMinutes() + 1;
+        final long from = Math.max(oldest, this.coldTierStore.getLastMinute().orElse(Long.MIN_VALUE) + 1);
+
+        final List<MinuteSnapshot> minutes = from < closed
+                ? this.read(LongStream.range(from, closed).boxed().toList()).stream()
+                        .filter(minute -> !minute.isEmpty())
+                        .toList()
+                : List.of();
+        this.coldTierStore.append(minutes);
+        this.coldTierStore.compact(closed);
+        this.coldTierStore.expire(now - Duration.ofDays(this.coldTierConfig.getRetentionDays()).toMinutes());
+        return minutes.size();
+    }
+
+    /**
+     * Method to read minute buckets from redis.
+     * @param epochMinutes The minutes
+     * @return The minutes, in the same order
+     */
+    private List<MinuteSnapshot> read(final List<Long> epochMinutes) {
+        final List<String> buckets = epochMinutes.stream()
+                .map(minute -> MinuteBuckets.format(ColdTierStore.minute(minute)))
+                .toList();
+        final List<Object> results = this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                final RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                buckets.forEach(bucket -> {
+                    stringOperations.opsForSet().members(
+                            String.format("%s:%s", redisKeyConfig.getActiveUsersKey(), bucket));
+                    stringOperations.opsForZSet().rangeWithScores(
+                            String.format("%s:%s", redisKeyConfig.getPageViewsKey(), bucket), 0, -1);
+                });
+                return null;
+            }
+        });
+
+        final ImmutableList.Builder<MinuteSnapshot> minutes = ImmutableList.builder();
+        for (int index = 0; index < epochMinutes.size(); index++) {
+            final Set<String> activeUsers = new HashSet<>();
+            if (results.get(2 * index) instanceof Collection<?> members) {
+                members.forEach(member -> activeUsers.add(member.toString()));
+            }
+            final Map<String, Long> pageViews = new HashMap<>();
+            if (results.get(2 * index + 1) instanceof Collection<?> tuples) {
+                for (final Object tuple : tuples) {
+                    final ZSetOperations.TypedTuple<?> typedTuple = (ZSetOperations.TypedTuple<?>) tuple;
+                    if (typedTuple.getValue() != null && typedTuple.getScore() != null) {
+                        pageViews.put(typedTuple.getValue().toString(), typedTuple.getScore().longValue());
+                    }
+                }
+            }
+            minutes.add(new MinuteSnapshot(epochMinutes.get(index), pageViews, activeUsers));
+        }
+        return minutes.build();
+    }
+}
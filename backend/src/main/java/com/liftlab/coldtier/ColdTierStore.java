@@ -0,0 +1,307 @@
+package com.liftlab.coldtier;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.ColdTierConfig;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.service.MinuteBuckets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier of the closed minute buckets, kept after their redis keys expired, in a directory of {@link Segment}
+ * files named after their time range, for example segment-202508071600-202508071659.seg.
+ * @implNote Segments are never modified: the archiver appends a segment per run, and the small segments of a closed
+ * compaction period, an hour by default, are merged into one. A query prunes the segments on their names before
+ * mapping them, and skips a segment whose range is covered by a wider one, which is a merged segment whose parts
+ * are not deleted yet. Mapped segments are kept open, the directory is listed again on every query.
+ */
+@Component
+@ConditionalOnProperty(name = "dashboard.cold-tier.enabled", havingValue = "true")
+@Slf4j
+public class ColdTierStore {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{12})-(\\d{12})\\.seg");
+
+    private final Path directory;
+
+    private final int compactionMinutes;
+
+    private final Map<Path, Segment> segments = new ConcurrentHashMap<>();
+
+    public ColdTierStore(final ColdTierConfig coldTierConfig) {
+        this.directory = Path.of(coldTierConfig.getDirectory());
+        this.compactionMinutes = coldTierConfig.getCompactionMinutes();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to append minutes to the cold tier.
+     * @param minutes The minutes, in order, after the last archived minute
+     * @throws IOException when the segment cannot be written
+     */
+    public synchronized void append(final List<MinuteSnapshot> minutes) throws IOException {
+        if (minutes.isEmpty()) {
+            return;
+        }
+        final Path path = this.directory.resolve(name(minutes.getFirst().epochMinute(),
+                minutes.getLast().epochMinute()));
+        Segment.write(path, minutes);
+        log.debug("Archived {} minutes to {}", minutes.size(), path);
+    }
+
+    /**
+     * Method to get the last archived minute.
+     * @return The minute since the epoch, empty when nothing is archived
+     * @throws IOException when the directory cannot be listed
+     */
+    public OptionalLong getLastMinute() throws IOException {
+        return this.list().stream().mapToLong(range -> range.last).max();
+    }
+
+    /**
+     * Method to merge the segments of each closed compaction period into one.
+     * @implNote The segments covered by a wider one, the parts of a merged segment left by a compaction which did not
+     * complete, are deleted without being merged again, and the merged segment never deletes itself when it has the
+     * name of one of its inputs.
+     * @param before The first minute which may still be appended, the periods which end after it are left alone
+     * @throws IOException when a segment cannot be read or written
+     */
+    public synchronized void compact(final long before) throws IOException {
+        final Map<Long, List<Range>> periods = new TreeMap<>();
+        for (final Range range : this.list()) {
+            final long period = Math.floorDiv(range.first, this.compactionMinutes);
+            if (Math.floorDiv(range.last, this.compactionMinutes) == period
+                    && (period + 1) * this.compactionMinutes <= before) {
+                periods.computeIfAbsent(period, key -> new ArrayList<>()).add(range);
+            }
+        }
+        for (final List<Range> ranges : periods.values()) {
+            final List<Range> inputs = new ArrayList<>(uncovered(ranges));
+            final List<Range> deleted = new ArrayList<>(ranges);
+            if (inputs.size() > 1) {
+                inputs.sort(Comparator.comparingLong(range -> range.first));
+                final TreeMap<Long, MinuteSnapshot> minutes = new TreeMap<>();
+                for (final Range range : inputs) {
+                    this.segment(range).getMinutes().forEach(minute -> minutes.merge(minute.epochMinute(), minute,
+                            ColdTierStore::merge));
+                }
+                final List<MinuteSnapshot> merged = ImmutableList.copyOf(minutes.values());
+                final Path path = this.directory.resolve(name(merged.getFirst().epochMinute(),
+                        merged.getLast().epochMinute()));
+                Segment.write(path, merged);
+                this.segments.remove(path);
+                deleted.removeIf(range -> range.path.equals(path));
+                log.debug("Compacted {} segments of {} minutes", inputs.size(), merged.size());
+            } else {
+                deleted.removeAll(inputs);
+            }
+            for (final Range range : deleted) {
+                this.segments.remove(range.path);
+                Files.deleteIfExists(range.path);
+            }
+        }
+    }
+
+    /**
+     * Method to delete the segments which end before a time.
+     * @param before The first minute to keep
+     * @throws IOException when a segment cannot be deleted
+     */
+    public synchronized void expire(final long before) throws IOException {
+        for (final Range range : this.list()) {
+            if (range.last < before) {
+                this.segments.remove(range.path);
+                Files.deleteIfExists(range.path);
+            }
+        }
+    }
+
+    /**
+     * Method to get the most viewed pages of a time range.
+     * @param from The first minute in UTC, inclusive
+     * @param to The last minute in UTC, exclusive
+     * @param offset The number of pages to be returned
+     * @return Response with the top pages, most viewed first
+     * @throws IOException when a segment cannot be read
+     */
+    public PageViewsResponse getTopPages(final LocalDateTime from, final LocalDateTime to, final int offset)
+            throws IOException {
+        final long fromMinute = epochMinute(from);
+        final long toMinute = epochMinute(to);
+        final Map<String, Long> totals = new HashMap<>();
+        for (final Segment segment : this.segments(fromMinute, toMinute)) {
+            final long[] counts = new long[segment.getUrlCount()];
+            segment.addPageViews(fromMinute, toMinute, counts);
+            for (int url = 0; url < counts.length; url++) {
+                if (counts[url] > 0) {
+                    totals.merge(segment.getUrl(url), counts[url], Long::sum);
+                }
+            }
+        }
+        return PageViewsResponse.builder()
+                .withPageViews(totals.entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                                .thenComparing(Map.Entry.comparingByKey()))
+                        .limit(offset)
+                        .map(entry -> PageViewCount.builder()
+                                .withPageUrl(entry.getKey())
+                                .withCount(entry.getValue())
+                                .build())
+                        .collect(ImmutableList.toImmutableList()))
+                .build();
+    }
+
+    /**
+     * Method to count the distinct active users of a time range.
+     * @implNote Within a segment the users are ids of its dictionary, counted with a bitmap. Only a range which
+     * spans several segments decodes the ids, to union them by value.
+     * @param from The first minute in UTC, inclusive
+     * @param to The last minute in UTC, exclusive
+     * @return Response with the exact number of active users
+     * @throws IOException when a segment cannot be read
+     */
+    public ActiveUsersCountResponse getActiveUsersCount(final LocalDateTime from, final LocalDateTime to)
+            throws IOException {
+        final long fromMinute = epochMinute(from);
+        final long toMinute = epochMinute(to);
+        final List<Segment> segments = this.segments(fromMinute, toMinute);
+        long activeUsers = 0;
+        if (segments.size() == 1) {
+            final BitSet users = new BitSet(segments.getFirst().getUserCount());
+            segments.getFirst().addUsers(fromMinute, toMinute, users);
+            activeUsers = users.cardinality();
+        } else if (segments.size() > 1) {
+            final Set<String> userIds = new HashSet<>();
+            for (final Segment segment : segments) {
+                final BitSet users = new BitSet(segment.getUserCount());
+                segment.addUsers(fromMinute, toMinute, users);
+                users.stream().forEach(user -> userIds.add(segment.getUserId(user)));
+            }
+            activeUsers = userIds.size();
+        }
+        return ActiveUsersCountResponse.builder()
+                .withActiveUsers(activeUsers)
+                .withMode(CountMode.EXACT)
+                .build();
+    }
+
+    /**
+     * Method to get the segments of a time range.
+     * @param from The first minute, inclusive
+     * @param to The last minute, exclusive
+     * @return The mapped segments, without the ones covered by a wider segment
+     * @throws IOException when the directory cannot be listed or a segment cannot be mapped
+     */
+    List<Segment> segments(final long from, final long to) throws IOException {
+        final List<Range> ranges = this.list().stream()
+                .filter(range -> range.first < to && from <= range.last)
+                .toList();
+        final ImmutableList.Builder<Segment> segments = ImmutableList.builder();
+        for (final Range range : uncovered(ranges)) {
+            try {
+                segments.add(this.segment(range));
+            } catch (NoSuchFileException e) {
+                // Compacted since the listing, the merged segment is listed now.
+                return this.segments(from, to);
+            }
+        }
+        return segments.build();
+    }
+
+    private Segment segment(final Range range) throws IOException {
+        final Segment cached = this.segments.get(range.path);
+        if (cached != null) {
+            return cached;
+        }
+        final Segment segment = Segment.open(range.path);
+        this.segments.put(range.path, segment);
+        return segment;
+    }
+
+    private List<Range> list() throws IOException {
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            final List<Range> ranges = new ArrayList<>();
+            paths.forEach(path -> {
+                final Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    ranges.add(new Range(path, epochMinute(MinuteBuckets.parse(matcher.group(1))),
+                            epochMinute(MinuteBuckets.parse(matcher.group(2)))));
+                }
+            });
+            // Forgets the segments deleted by a compaction or the retention.
+            this.segments.keySet().removeIf(path -> ranges.stream().noneMatch(range -> range.path.equals(path)));
+            return ranges;
+        }
+    }
+
+    /**
+     * Method to drop the ranges covered by a wider one.
+     * @param ranges The ranges
+     * @return The ranges not covered by another one, widest first
+     */
+    private static List<Range> uncovered(final List<Range> ranges) {
+        final List<Range> selected = new ArrayList<>();
+        ranges.stream()
+                .sorted(Comparator.comparingLong((Range range) -> range.last - range.first).reversed())
+                .forEach(range -> {
+                    if (selected.stream().noneMatch(wider -> wider.first <= range.first && range.last <= wider.last)) {
+                        selected.add(range);
+                    }
+                });
+        return selected;
+    }
+
+    private static MinuteSnapshot merge(final MinuteSnapshot first, final MinuteSnapshot second) {
+        final Map<String, Long> pageViews = new HashMap<>(first.pageViews());
+        second.pageViews().forEach((url, count) -> pageViews.merge(url, count, Long::sum));
+        final Set<String> activeUsers = new HashSet<>(first.activeUsers());
+        activeUsers.addAll(second.activeUsers());
+        return new MinuteSnapshot(first.epochMinute(), pageViews, activeUsers);
+    }
+
+    private static String name(final long first, final long last) {
+        return String.format("segment-%s-%s.seg", MinuteBuckets.format(minute(first)),
+                MinuteBuckets.format(minute(last)));
+    }
+
+    public static long epochMinute(final LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    public static LocalDateTime minute(final long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private record Range(Path path, long first, long last) {
+    }
+}
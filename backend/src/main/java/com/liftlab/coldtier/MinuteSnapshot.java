@@ -0,0 +1,17 @@
+package com.liftlab.coldtier;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Closed minute bucket, as archived in the cold tier.
+ * @param epochMinute The minute, in minutes since the epoch in UTC
+ * @param pageViews The number of page views by url
+ * @param activeUsers The ids of the active users
+ */
+public record MinuteSnapshot(long epochMinute, Map<String, Long> pageViews, Set<String> activeUsers) {
+
+    public boolean isEmpty() {
+        return this.pageViews.isEmpty() && this.activeUsers.isEmpty();
+    }
+}
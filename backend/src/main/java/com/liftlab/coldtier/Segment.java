@@ -0,0 +1,335 @@
+package com.liftlab.coldtier;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable segment file of the cold tier, with the minutes of a time range in a columnar layout, read through a
+ * memory mapping.
+ * @implNote The layout is, in big endian:
+ * <pre>
+ * header        magic, version, first minute, last minute, minute count, url count, user count,
+ *               page view count, user entry count
+ * minute index  per minute and a sentinel: epoch minute, first page view, first user entry
+ * urls          sorted dictionary: url count + 1 offsets, then the UTF-8 bytes
+ * users         sorted dictionary: user count + 1 offsets, then the UTF-8 bytes
+ * page views    the url ids, then the counts, of all the minutes one after the other
+ * users         the user ids of all the minutes one after the other
+ * </pre>
+ * A url or a user id is written once per segment, and the minutes only hold 4 bytes ids. A query reads the columns
+ * of its minutes in place, with absolute reads on the mapping, and only decodes the strings of its results. The
+ * pages of the mapping are loaded by the OS on demand and shared with its page cache.
+ */
+public final class Segment {
+
+    static final int MAGIC = 0x4C4C4354;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 48;
+
+    private static final int MINUTE_INDEX_ENTRY_BYTES = 16;
+
+    private final Path path;
+
+    private final ByteBuffer buffer;
+
+    private final long firstMinute;
+
+    private final long lastMinute;
+
+    private final int minuteCount;
+
+    private final int urlCount;
+
+    private final int userCount;
+
+    private final int urlOffsets;
+
+    private final int urlBytes;
+
+    private final int userOffsets;
+
+    private final int userBytes;
+
+    private final int pageViewUrlIds;
+
+    private final int pageViewCounts;
+
+    private final int userIds;
+
+    private Segment(final Path path, final ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a cold tier segment: " + path);
+        }
+        this.firstMinute = buffer.getLong(8);
+        this.lastMinute = buffer.getLong(16);
+        this.minuteCount = buffer.getInt(24);
+        this.urlCount = buffer.getInt(28);
+        this.userCount = buffer.getInt(32);
+        final int pageViewCount = buffer.getInt(36);
+        this.urlOffsets = HEADER_BYTES + (this.minuteCount + 1) * MINUTE_INDEX_ENTRY_BYTES;
+        this.urlBytes = this.urlOffsets + (this.urlCount + 1) * Integer.BYTES;
+        this.userOffsets = this.urlBytes + buffer.getInt(this.urlOffsets + this.urlCount * Integer.BYTES);
+        this.userBytes = this.userOffsets + (this.userCount + 1) * Integer.BYTES;
+        this.pageViewUrlIds = this.userBytes + buffer.getInt(this.userOffsets + this.userCount * Integer.BYTES);
+        this.pageViewCounts = this.pageViewUrlIds + pageViewCount * Integer.BYTES;
+        this.userIds = this.pageViewCounts + pageViewCount * Integer.BYTES;
+    }
+
+    /**
+     * Method to open a segment file.
+     * @param path The file
+     * @return The segment, mapped until it is garbage collected
+     * @throws IOException when the file cannot be read
+     */
+    public static Segment open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Method to write a segment file.
+     * @implNote The file is written under a temporary name and then renamed, so a reader never sees it partially
+     * written.
+     * @param path The file, which must not exist
+     * @param minutes The minutes, in order, without duplicates
+     * @throws IOException when the file cannot be written
+     */
+    public static void write(final Path path, final List<MinuteSnapshot> minutes) throws IOException {
+        if (minutes.isEmpty()) {
+            throw new IllegalArgumentException("A segment has at least one minute");
+        }
+        final List<String> urls = ImmutableList.copyOf(new TreeSet<>(minutes.stream()
+                .flatMap(minute -> minute.pageViews().keySet().stream())
+                .toList()));
+        final List<String> users = ImmutableList.copyOf(new TreeSet<>(minutes.stream()
+                .flatMap(minute -> minute.activeUsers().stream())
+                .toList()));
+        final Map<String, Integer> urlIds = ids(urls);
+        final Map<String, Integer> userIds = ids(users);
+        final byte[][] encodedUrls = encode(urls);
+        final byte[][] encodedUsers = encode(users);
+        final int pageViewCount = minutes.stream().mapToInt(minute -> minute.pageViews().size()).sum();
+        final int userEntryCount = minutes.stream().mapToInt(minute -> minute.activeUsers().size()).sum();
+
+        final long size = (long) HEADER_BYTES + (long) (minutes.size() + 1) * MINUTE_INDEX_ENTRY_BYTES
+                + dictionaryBytes(encodedUrls) + dictionaryBytes(encodedUsers)
+                + 2L * pageViewCount * Integer.BYTES + (long) userEntryCount * Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment of " + size + " bytes, split the minutes");
+        }
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(minutes.getFirst().epochMinute())
+                    .putLong(minutes.getLast().epochMinute())
+                    .putInt(minutes.size())
+                    .putInt(urls.size())
+                    .putInt(users.size())
+                    .putInt(pageViewCount)
+                    .putInt(userEntryCount)
+                    .putInt(0);
+
+            int firstPageView = 0;
+            int firstUser = 0;
+            for (final MinuteSnapshot minute : minutes) {
+                buffer.putLong(minute.epochMinute()).putInt(firstPageView).putInt(firstUser);
+                firstPageView += minute.pageViews().size();
+                firstUser += minute.activeUsers().size();
+            }
+            buffer.putLong(minutes.getLast().epochMinute() + 1).putInt(firstPageView).putInt(firstUser);
+
+            putDictionary(buffer, encodedUrls);
+            putDictionary(buffer, encodedUsers);
+            for (final MinuteSnapshot minute : minutes) {
+                minute.pageViews().keySet().forEach(url -> buffer.putInt(urlIds.get(url)));
+            }
+            for (final MinuteSnapshot minute : minutes) {
+                minute.pageViews().values().forEach(count -> buffer.putInt(Math.toIntExact(count)));
+            }
+            for (final MinuteSnapshot minute : minutes) {
+                minute.activeUsers().forEach(user -> buffer.putInt(userIds.get(user)));
+            }
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public long getFirstMinute() {
+        return this.firstMinute;
+    }
+
+    public long getLastMinute() {
+        return this.lastMinute;
+    }
+
+    public int getUrlCount() {
+        return this.urlCount;
+    }
+
+    public int getUserCount() {
+        return this.userCount;
+    }
+
+    /**
+     * Method to check whether the segment has minutes within a time range.
+     * @param from The first minute, inclusive
+     * @param to The last minute, exclusive
+     * @return true when the ranges overlap
+     */
+    public boolean overlaps(final long from, final long to) {
+        return this.firstMinute < to && from <= this.lastMinute;
+    }
+
+    /**
+     * Method to add the page views of a time range.
+     * @param from The first minute, inclusive
+     * @param to The last minute, exclusive
+     * @param counts The counts by url id, of {@link #getUrlCount()} elements, to add to
+     */
+    public void addPageViews(final long from, final long to, final long[] counts) {
+        final int start = this.buffer.getInt(this.minuteIndex(this.search(from)) + 8);
+        final int end = this.buffer.getInt(this.minuteIndex(this.search(to)) + 8);
+        for (int pageView = start; pageView < end; pageView++) {
+            counts[this.buffer.getInt(this.pageViewUrlIds + pageView * Integer.BYTES)] +=
+                    this.buffer.getInt(this.pageViewCounts + pageView * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Method to add the active users of a time range.
+     * @param from The first minute, inclusive
+     * @param to The last minute, exclusive
+     * @param users The user ids to add to
+     */
+    public void addUsers(final long from, final long to, final BitSet users) {
+        final int start = this.buffer.getInt(this.minuteIndex(this.search(from)) + 12);
+        final int end = this.buffer.getInt(this.minuteIndex(this.search(to)) + 12);
+        for (int user = start; user < end; user++) {
+            users.set(this.buffer.getInt(this.userIds + user * Integer.BYTES));
+        }
+    }
+
+    public String getUrl(final int id) {
+        return this.string(this.urlOffsets, this.urlBytes, id);
+    }
+
+    public String getUserId(final int id) {
+        return this.string(this.userOffsets, this.userBytes, id);
+    }
+
+    /**
+     * Method to read all the minutes back, to merge segments.
+     * @return The minutes, in order
+     */
+    public List<MinuteSnapshot> getMinutes() {
+        final ImmutableList.Builder<MinuteSnapshot> minutes = ImmutableList.builder();
+        for (int index = 0; index < this.minuteCount; index++) {
+            final int entry = this.minuteIndex(index);
+            final int next = this.minuteIndex(index + 1);
+            final Map<String, Long> pageViews = new HashMap<>();
+            for (int pageView = this.buffer.getInt(entry + 8); pageView < this.buffer.getInt(next + 8); pageView++) {
+                pageViews.put(this.getUrl(this.buffer.getInt(this.pageViewUrlIds + pageView * Integer.BYTES)),
+                        (long) this.buffer.getInt(this.pageViewCounts + pageView * Integer.BYTES));
+            }
+            final Set<String> users = new HashSet<>();
+            for (int user = this.buffer.getInt(entry + 12); user < this.buffer.getInt(next + 12); user++) {
+                users.add(this.getUserId(this.buffer.getInt(this.userIds + user * Integer.BYTES)));
+            }
+            minutes.add(new MinuteSnapshot(this.buffer.getLong(entry), pageViews, users));
+        }
+        return minutes.build();
+    }
+
+    private int minuteIndex(final int index) {
+        return HEADER_BYTES + index * MINUTE_INDEX_ENTRY_BYTES;
+    }
+
+    /**
+     * Method to find the first minute at or after a time.
+     * @param minute The minute
+     * @return The index of the minute, the sentinel when all the minutes are before it
+     */
+    private int search(final long minute) {
+        int low = 0;
+        int high = this.minuteCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (this.buffer.getLong(this.minuteIndex(middle)) < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private String string(final int offsets, final int bytes, final int id) {
+        final int start = this.buffer.getInt(offsets + id * Integer.BYTES);
+        final int end = this.buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+        final byte[] value = new byte[end - start];
+        this.buffer.get(bytes + start, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> ids(final List<String> values) {
+        final Map<String, Integer> ids = new HashMap<>(values.size() * 2);
+        for (int id = 0; id < values.size(); id++) {
+            ids.put(values.get(id), id);
+        }
+        return ids;
+    }
+
+    private static byte[][] encode(final Collection<String> values) {
+        return values.stream().map(value -> value.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    }
+
+    private static long dictionaryBytes(final byte[][] values) {
+        long bytes = (long) (values.length + 1) * Integer.BYTES;
+        for (final byte[] value : values) {
+            bytes += value.length;
+        }
+        return bytes;
+    }
+
+    private static void putDictionary(final ByteBuffer buffer, final byte[][] values) {
+        int offset = 0;
+        for (final byte[] value : values) {
+            buffer.putInt(offset);
+            offset += value.length;
+        }
+        buffer.putInt(offset);
+        for (final byte[] value : values) {
+            buffer.put(value);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.liftlab.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class ColdTierConfig {
+
+    @Value("${dashboard.cold-tier.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dashboard.cold-tier.writer.enabled:false}")
+    private boolean writerEnabled;
+
+    @Value("${dashboard.cold-tier.directory:cold-tier}")
+    private String directory;
+
+    @Value("${dashboard.cold-tier.interval-ms:60000}")
+    private long intervalMillis;
+
+    @Value("${dashboard.cold-tier.grace-minutes:2}")
+    private int graceMinutes;
+
+    @Value("${dashboard.cold-tier.compaction-minutes:60}")
+    private int compactionMinutes;
+
+    @Value("${dashboard.cold-tier.retention-days:90}")
+    private int retentionDays;
+}
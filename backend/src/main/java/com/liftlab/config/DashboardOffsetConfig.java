@@ -17,4 +17,61 @@ public class DashboardOffsetConfig {
 
     @Value("${dashboard.config.offset.user-sessions}")
     private int userSessionsOffset;
+
+    @Value("${dashboard.config.offset.session-stats:15}")
+    private int sessionStatsOffset;
+
+    @Value("${dashboard.config.offset.trending:5}")
+    private int trendingOffset;
+
+    @Value("${dashboard.config.offset.dimensions:15}")
+    private int dimensionsOffset;
+
+    @Value("${dashboard.config.staleness.page-views:5}")
+    private int pageViewsMaxStalenessSeconds;
+
+    @Value("${dashboard.config.trending.min-views:10}")
+    private int trendingMinViews;
+
+    @Value("${dashboard.config.batch-size.user-sessions:500}")
+    private int userSessionsBatchSize;
+
+    @Value("${dashboard.config.snapshot-ttl.active-users:120}")
+    private long activeUsersSnapshotTtlSeconds;
+
+    @Value("${dashboard.config.mode.page-views:redis}")
+    private String pageViewsMode;
+
+    @Value("${dashboard.config.mode.active-users:redis}")
+    private String activeUsersMode;
+
+    @Value("${dashboard.config.count-mode.active-users:exact}")
+    private String activeUsersCountMode;
+
+    @Value("${dashboard.config.window.max-minutes:10080}")
+    private int maxWindowMinutes;
+
+    @Value("${dashboard.config.concurrency.redis-calls:1}")
+    private int redisCallsConcurrency;
+
+    @Value("${dashboard.config.snapshot-cache.ttl-ms:1000}")
+    private long snapshotCacheTtlMillis;
+
+    @Value("${dashboard.config.snapshot-cache.max-stale-ms:300000}")
+    private long snapshotCacheMaxStaleMillis;
+
+    @Value("${dashboard.config.latency-budget-ms:250}")
+    private long latencyBudgetMillis;
+
+    @Value("${dashboard.config.circuit-breaker.failure-threshold:5}")
+    private int circuitBreakerFailureThreshold;
+
+    @Value("${dashboard.config.circuit-breaker.slow-call-ms:1000}")
+    private long circuitBreakerSlowCallMillis;
+
+    @Value("${dashboard.config.circuit-breaker.open-ms:5000}")
+    private long circuitBreakerOpenMillis;
+
+    @Value("${dashboard.config.warmup.timeout-ms:30000}")
+    private long warmupTimeoutMillis;
 }
@@ -0,0 +1,62 @@
+package com.liftlab.config;
+
+import com.google.common.base.Splitter;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dimensions of the dimension counts, declared as a comma separated list of dimension names and cardinality caps,
+ * for example 'event_type:50,page_url:1000'. An empty list writes no dimension counts. Writers and readers must
+ * agree on the settings.
+ */
+@Configuration
+@Getter
+public class DimensionsConfig {
+
+    @Value("${dashboard.dimensions.declared:event_type:50,page_url:1000}")
+    private String declared;
+
+    /**
+     * Method to get the declared dimensions.
+     * @return The cardinality cap of every dimension, in the declared order
+     * @throws IllegalArgumentException When a dimension is unknown, or its cap is not a positive number
+     */
+    public Map<EventDimension, Integer> getDimensions() {
+        final Map<EventDimension, Integer> dimensions = new LinkedHashMap<>();
+        for (final String declaration : Splitter.on(',').trimResults().omitEmptyStrings().split(this.declared)) {
+            final List<String> parts = Splitter.on(':').trimResults().splitToList(declaration);
+            final int cap;
+            try {
+                cap = parts.size() == 2 ? Integer.parseInt(parts.get(1)) : 0;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cardinality cap of dimension: " + declaration, e);
+            }
+            if (cap <= 0) {
+                throw new IllegalArgumentException("Expected a dimension and its cardinality cap, like "
+                        + "event_type:50, got " + declaration);
+            }
+            dimensions.put(EventDimension.fromValue(parts.get(0)), cap);
+        }
+        return Collections.unmodifiableMap(dimensions);
+    }
+
+    /**
+     * Method to get a declared dimension from its name.
+     * @param name The name of the dimension, for example 'event_type'
+     * @return The dimension
+     * @throws IllegalArgumentException When the dimension is unknown or not declared
+     */
+    public EventDimension getDeclared(final String name) {
+        final EventDimension dimension = EventDimension.fromValue(name);
+        if (!this.getDimensions().containsKey(dimension)) {
+            throw new IllegalArgumentException("Dimension not declared: " + name + ", declared " + this.declared);
+        }
+        return dimension;
+    }
+}
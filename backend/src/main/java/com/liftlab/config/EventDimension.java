@@ -0,0 +1,104 @@
+package com.liftlab.config;
+
+import com.google.common.base.Splitter;
+import com.liftlab.models.UserEvent;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Attributes of the user events which the dimension counts can be filtered and grouped by, see
+ * dashboard.dimensions.declared.
+ */
+public enum EventDimension {
+
+    EVENT_TYPE(UserEvent::getEventType),
+    PAGE_URL(UserEvent::getPageUrl);
+
+    /** Value counted for the values of a dimension past its cardinality cap. */
+    public static final String OTHER = "(other)";
+
+    /**
+     * Separator of the dimensions of a field of the dimension counts, the ASCII unit separator. The events are not
+     * checked for it, so the values containing it are counted as {@link #OTHER}, see DimensionCounter.
+     */
+    public static final char FIELD_SEPARATOR = '\u001F';
+
+    private final Function<UserEvent, String> attribute;
+
+    EventDimension(final Function<UserEvent, String> attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * Method to get the value of the dimension of an event.
+     * @param userEvent The event
+     * @return The value, empty when the event has none
+     */
+    public String value(final UserEvent userEvent) {
+        final String value = this.attribute.apply(userEvent);
+        return Objects.isNull(value) ? "" : value;
+    }
+
+    /**
+     * Method to get the name of the dimension, which is the name of the attribute in the events.
+     * @return The name, for example 'event_type'
+     */
+    public String getName() {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Method to get the field of the dimension counts of a combination of values.
+     * @param values The value of every dimension
+     * @return The field, the names and values of the dimensions, for example 'event_type=purchase\x1Fpage_url=/cart'
+     */
+    public static String field(final Map<EventDimension, String> values) {
+        final StringBuilder field = new StringBuilder();
+        values.forEach((dimension, value) -> {
+            if (!field.isEmpty()) {
+                field.append(FIELD_SEPARATOR);
+            }
+            field.append(dimension.getName()).append('=').append(value);
+        });
+        return field.toString();
+    }
+
+    /**
+     * Method to parse a field of the dimension counts.
+     * @param field The field
+     * @return The value of every dimension of the field, without the dimensions which are not known
+     */
+    public static Map<EventDimension, String> parseField(final String field) {
+        final Map<EventDimension, String> values = new EnumMap<>(EventDimension.class);
+        for (final String part : Splitter.on(FIELD_SEPARATOR).split(field)) {
+            final int equals = part.indexOf('=');
+            if (equals > 0) {
+                final String name = part.substring(0, equals);
+                Arrays.stream(values())
+                        .filter(dimension -> dimension.getName().equals(name))
+                        .findFirst()
+                        .ifPresent(dimension -> values.put(dimension, part.substring(equals + 1)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Method to get the dimension from its name, ignoring the case.
+     * @param value The name of the dimension, for example 'event_type'
+     * @return The dimension
+     * @throws IllegalArgumentException If there is no such dimension
+     */
+    public static EventDimension fromValue(final String value) {
+        return Arrays.stream(values())
+                .filter(dimension -> dimension.name().equals(value.trim().replace('-', '_').toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown dimension: " + value + ", expected event_type or page_url"));
+    }
+}
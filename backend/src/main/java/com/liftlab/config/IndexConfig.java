@@ -0,0 +1,13 @@
+package com.liftlab.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class IndexConfig {
+
+    @Value("${dashboard.index.active-users.max-users:2000000}")
+    private int activeUsersMaxUsers;
+}
@@ -0,0 +1,135 @@
+package com.liftlab.config;
+
+import com.google.common.base.Splitter;
+import com.liftlab.service.Granularity;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+@Configuration
+@Getter
+public class IngestionConfig {
+
+    @Value("${dashboard.ingestion.source:kafka}")
+    private String source;
+
+    @Value("${dashboard.ingestion.kafka.bootstrap-servers:localhost:9094}")
+    private String kafkaBootstrapServers;
+
+    @Value("${dashboard.ingestion.kafka.topic:user-events}")
+    private String kafkaTopic;
+
+    @Value("${dashboard.ingestion.kafka.group-id:event-processor}")
+    private String kafkaGroupId;
+
+    @Value("${dashboard.ingestion.kafka.replay-minutes:0}")
+    private int kafkaReplayMinutes;
+
+    @Value("${dashboard.ingestion.file.path:events.jsonl}")
+    private String filePath;
+
+    @Value("${dashboard.ingestion.file.loop:false}")
+    private boolean fileLoop;
+
+    @Value("${dashboard.ingestion.memory.capacity:100000}")
+    private int memoryCapacity;
+
+    @Value("${dashboard.ingestion.synthetic.rate:1000}")
+    private double syntheticRate;
+
+    @Value("${dashboard.ingestion.synthetic.users:1000000}")
+    private int syntheticUsers;
+
+    @Value("${dashboard.ingestion.synthetic.urls:10000}")
+    private int syntheticUrls;
+
+    @Value("${dashboard.ingestion.synthetic.zipf-exponent:1.0}")
+    private double syntheticZipfExponent;
+
+    @Value("${dashboard.ingestion.synthetic.pages-per-session:5}")
+    private double syntheticPagesPerSession;
+
+    @Value("${dashboard.ingestion.synthetic.seed:42}")
+    private long syntheticSeed;
+
+    @Value("${dashboard.ingestion.max-poll-records:5000}")
+    private int maxPollRecords;
+
+    @Value("${dashboard.ingestion.poll-timeout-ms:200}")
+    private long pollTimeoutMillis;
+
+    @Value("${dashboard.ingestion.flush.interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${dashboard.ingestion.flush.max-events:20000}")
+    private int flushMaxEvents;
+
+    @Value("${dashboard.ingestion.ttl.active-users:300}")
+    private long activeUsersTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.page-views:900}")
+    private long pageViewsTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.user-sessions:300}")
+    private long userSessionsTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.active-users-hll:3600}")
+    private long activeUsersHllTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.page-visitors:900}")
+    private long pageVisitorsTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.user-pages:900}")
+    private long userPagesTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.dimension-counts:900}")
+    private long dimensionCountsTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.session-stats:900}")
+    private long sessionStatsTtlSeconds;
+
+    @Value("${dashboard.ingestion.sessions.inactivity-timeout-minutes:30}")
+    private int sessionInactivityTimeoutMinutes;
+
+    @Value("${dashboard.ingestion.ttl.rollup.five-minutes:90000}")
+    private long fiveMinutesRollupTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.rollup.hour:691200}")
+    private long hourRollupTtlSeconds;
+
+    @Value("${dashboard.ingestion.ttl.rollup.day:691200}")
+    private long dayRollupTtlSeconds;
+
+    @Value("${dashboard.ingestion.rollups:active-users,active-users-hll,page-views,page-visitors,session-stats,"
+            + "dimension-counts}")
+    private String rollups;
+
+    /**
+     * Method to get the key families which have rollups.
+     * @return The families declared in dashboard.ingestion.rollups
+     * @throws IllegalArgumentException When a family is unknown
+     */
+    public Set<KeyFamily> getRollupFamilies() {
+        final Set<KeyFamily> families = EnumSet.noneOf(KeyFamily.class);
+        Splitter.on(',').trimResults().omitEmptyStrings().split(this.rollups)
+                .forEach(family -> families.add(KeyFamily.fromValue(family)));
+        return families;
+    }
+
+    /**
+     * Method to get the TTL of the keys of a rollup.
+     * @param granularity The granularity of the rollup
+     * @return The TTL in seconds
+     */
+    public long getRollupTtlSeconds(final Granularity granularity) {
+        return switch (granularity) {
+            case FIVE_MINUTES -> this.fiveMinutesRollupTtlSeconds;
+            case HOUR -> this.hourRollupTtlSeconds;
+            case DAY -> this.dayRollupTtlSeconds;
+            case MINUTE -> throw new IllegalArgumentException("Minute buckets have a TTL per key");
+        };
+    }
+}
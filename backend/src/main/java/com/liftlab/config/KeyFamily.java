@@ -0,0 +1,56 @@
+package com.liftlab.config;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Families of the keys written per bucket, whose 5 minute, hourly and daily rollups are written only when declared in
+ * dashboard.ingestion.rollups. A family without rollups answers a window from its minute buckets which still exist.
+ */
+public enum KeyFamily {
+
+    /** active_users, a SET of the user ids of a bucket. */
+    ACTIVE_USERS,
+
+    /** active_users_hll, a HyperLogLog of the user ids of a bucket. */
+    ACTIVE_USERS_HLL,
+
+    /** page_views, a ZSET of the urls of a bucket by count. */
+    PAGE_VIEWS,
+
+    /** user_sessions or user_session_pairs, depending on the layout, the session ids of every user of a bucket. */
+    USER_SESSIONS,
+
+    /** page_visitors, a HyperLogLog of the user ids per url and bucket. */
+    PAGE_VISITORS,
+
+    /** user_pages, a ZSET of the urls by count per user and bucket. */
+    USER_PAGES,
+
+    /** session_stats, a HASH of the number and duration of the sessions closed during a bucket. */
+    SESSION_STATS,
+
+    /** dim_counts, a HASH of the number of events per combination of dimensions of a bucket. */
+    DIMENSION_COUNTS;
+
+    /**
+     * Method to get the name of the family, as declared in dashboard.ingestion.rollups.
+     * @return The name, for example 'user-sessions'
+     */
+    public String getName() {
+        return this.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Method to get the family from its name, ignoring the case.
+     * @param value The name of the family, for example 'user-sessions'
+     * @return The family
+     * @throws IllegalArgumentException If there is no such family
+     */
+    public static KeyFamily fromValue(final String value) {
+        return Arrays.stream(values())
+                .filter(family -> family.name().equals(value.trim().replace('-', '_').toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown key family: " + value));
+    }
+}
@@ -4,6 +4,19 @@ import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Prefixes of the redis keys, which are followed by the time bucket.
+ * @implNote With dashboard.redis.keys.hash-tags, for Redis Cluster, the prefixes of the keys read with multi-key
+ * commands are hash tags: all the buckets of the active users, which are unioned with SUNION and SUNIONSTORE, share
+ * the slot of '{active_users}', all the HyperLogLogs, counted with PFCOUNT, the slot of '{active_users_hll}', and the
+ * snapshots are stored in the slot of the active users. The session and page keys of a user share the slot of the
+ * user id, and the visitor HyperLogLogs of a page the slot of the url, so the users and the pages are spread over
+ * the shards. The page views are only read one key at a time and are not tagged, so
+ * their minutes are spread over the shards too. The user and session pairs of the PER_BUCKET sessions layout, see
+ * {@link SessionsLayout}, are unioned like the active users and share the slot of '{user_session_pairs}'. The
+ * dimension counts are read one key at a time, like the page views, and are not tagged. Writers
+ * and readers must agree on the settings.
+ */
 @Configuration
 @Getter
 public class RedisKeyConfig {
@@ -16,4 +29,84 @@ public class RedisKeyConfig {
 
     @Value("${dashboard.redis.keys.user-sessions}")
     private String userSessionsKey;
+
+    @Value("${dashboard.redis.keys.active-users-hll:active_users_hll}")
+    private String activeUsersHllKey;
+
+    @Value("${dashboard.redis.keys.active-users-snapshot:active_users_snapshot}")
+    private String activeUsersSnapshotKey;
+
+    @Value("${dashboard.redis.keys.page-visitors:page_visitors}")
+    private String pageVisitorsKey;
+
+    @Value("${dashboard.redis.keys.user-pages:user_pages}")
+    private String userPagesKey;
+
+    @Value("${dashboard.redis.keys.session-stats:session_stats}")
+    private String sessionStatsKey;
+
+    @Value("${dashboard.redis.keys.dimension-counts:dim_counts}")
+    private String dimensionCountsKey;
+
+    @Value("${dashboard.redis.keys.user-session-pairs:user_session_pairs}")
+    private String userSessionPairsKey;
+
+    @Value("${dashboard.redis.keys.user-sessions-layout:per-user}")
+    private String userSessionsLayout;
+
+    @Value("${dashboard.redis.keys.hash-tags:false}")
+    private boolean hashTags;
+
+    public String getActiveUsersKey() {
+        return this.hashTags ? hashTag(this.activeUsersKey) : this.activeUsersKey;
+    }
+
+    public String getActiveUsersHllKey() {
+        return this.hashTags ? hashTag(this.activeUsersHllKey) : this.activeUsersHllKey;
+    }
+
+    public String getActiveUsersSnapshotKey() {
+        return this.hashTags
+                ? String.format("%s:%s", this.getActiveUsersKey(), this.activeUsersSnapshotKey)
+                : this.activeUsersSnapshotKey;
+    }
+
+    public String getUserSessionPairsKey() {
+        return this.hashTags ? hashTag(this.userSessionPairsKey) : this.userSessionPairsKey;
+    }
+
+    public SessionsLayout getUserSessionsLayout() {
+        return SessionsLayout.fromValue(this.userSessionsLayout);
+    }
+
+    /**
+     * Method to get the prefix of the session keys of a user.
+     * @param userId The id of the user
+     * @return The prefix, to be followed by the time bucket
+     */
+    public String getUserSessionsKey(final String userId) {
+        return String.format("%s:%s", this.userSessionsKey, this.hashTags ? hashTag(userId) : userId);
+    }
+
+    /**
+     * Method to get the prefix of the visitor HyperLogLog keys of a page.
+     * @param pageUrl The url of the page
+     * @return The prefix, to be followed by the time bucket
+     */
+    public String getPageVisitorsKey(final String pageUrl) {
+        return String.format("%s:%s", this.pageVisitorsKey, this.hashTags ? hashTag(pageUrl) : pageUrl);
+    }
+
+    /**
+     * Method to get the prefix of the page view keys of a user.
+     * @param userId The id of the user
+     * @return The prefix, to be followed by the time bucket
+     */
+    public String getUserPagesKey(final String userId) {
+        return String.format("%s:%s", this.userPagesKey, this.hashTags ? hashTag(userId) : userId);
+    }
+
+    private static String hashTag(final String value) {
+        return "{" + value + "}";
+    }
 }
@@ -0,0 +1,69 @@
+package com.liftlab.config;
+
+import org.springframework.data.domain.Range;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Layout of the sessions of the users in redis.
+ */
+public enum SessionsLayout {
+
+    /**
+     * user_sessions:{user}:{bucket}, a SET of session ids per user and bucket. Every active user costs a key per
+     * bucket, and the per key overhead of redis is several times the size of its few session ids.
+     */
+    PER_USER,
+
+    /**
+     * user_session_pairs:{bucket}, a single sorted set per bucket of the user and session id pairs, so the active
+     * users of a bucket cost one key. The pairs all have the score 0, so they are ordered by user id and the pairs of
+     * a user are a ZRANGEBYLEX range. The sessions of all the users of a window are read with a single ZUNION.
+     */
+    PER_BUCKET,
+
+    /**
+     * Migration from PER_USER to PER_BUCKET: the sessions are written PER_BUCKET and read from both layouts, until
+     * the PER_USER keys of the longest window expired.
+     */
+    MIGRATING;
+
+    /**
+     * Separator of the user id and the session id of a pair, the ASCII unit separator which the ids do not contain.
+     */
+    public static final char PAIR_SEPARATOR = '\u001F';
+
+    /**
+     * Method to get a user and session id pair.
+     * @param userId The id of the user
+     * @param sessionId The id of the session
+     * @return The pair, a member of the PER_BUCKET sorted sets
+     */
+    public static String pair(final String userId, final String sessionId) {
+        return userId + PAIR_SEPARATOR + sessionId;
+    }
+
+    /**
+     * Method to get the range of the pairs of a user, in the lexicographic order of the PER_BUCKET sorted sets.
+     * @param userId The id of the user
+     * @return The range, from the user id and the separator included to the next separator excluded
+     */
+    public static Range<String> pairsOf(final String userId) {
+        return Range.rightOpen(userId + PAIR_SEPARATOR, userId + (char) (PAIR_SEPARATOR + 1));
+    }
+
+    /**
+     * Method to get the layout from its name, ignoring the case.
+     * @param value The name of the layout, for example 'per-bucket'
+     * @return The layout
+     * @throws IllegalArgumentException If there is no such layout
+     */
+    public static SessionsLayout fromValue(final String value) {
+        return Arrays.stream(values())
+                .filter(layout -> layout.name().equals(value.trim().replace('-', '_').toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown sessions layout: " + value + ", expected per-user, per-bucket or migrating"));
+    }
+}
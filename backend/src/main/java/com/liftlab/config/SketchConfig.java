@@ -0,0 +1,22 @@
+package com.liftlab.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class SketchConfig {
+
+    @Value("${dashboard.sketch.page-views.epsilon:0.0005}")
+    private double pageViewsEpsilon;
+
+    @Value("${dashboard.sketch.page-views.delta:0.01}")
+    private double pageViewsDelta;
+
+    @Value("${dashboard.sketch.page-views.capacity:1000}")
+    private int pageViewsCapacity;
+
+    @Value("${dashboard.sketch.page-views.max-memory-mb:32}")
+    private int pageViewsMaxMemoryMb;
+}
@@ -0,0 +1,25 @@
+package com.liftlab.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class StreamConfig {
+
+    @Value("${dashboard.stream.tick-ms:2000}")
+    private long tickMillis;
+
+    @Value("${dashboard.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${dashboard.stream.page-views-offset:5}")
+    private int pageViewsOffset;
+
+    @Value("${dashboard.stream.max-skipped-ticks:15}")
+    private int maxSkippedTicks;
+
+    @Value("${dashboard.stream.sender-threads:4}")
+    private int senderThreads;
+}
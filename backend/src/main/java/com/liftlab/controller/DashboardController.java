@@ -1,15 +1,53 @@
 package com.liftlab.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.EventDimension;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.DimensionCountsResponse;
+import com.liftlab.models.UserDetails;
 import com.liftlab.models.UserDetailsResponse;
 import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.PageVisitorsResponse;
+import com.liftlab.models.SessionStatsResponse;
+import com.liftlab.models.SummaryResponse;
+import com.liftlab.models.TrendingPagesResponse;
+import com.liftlab.models.UserPageViewsResponse;
 import com.liftlab.service.DashboardService;
+import com.liftlab.service.DashboardSnapshotCache;
+import com.liftlab.service.DashboardStreamService;
+import com.liftlab.service.RedisCircuitBreaker;
+import com.liftlab.service.RedisUnavailableException;
+import com.liftlab.service.ResponseEncoder;
+import com.liftlab.service.ResponseFormat;
+import com.liftlab.service.SnapshotExpiredException;
+import com.liftlab.service.TrendingPagesView;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/v1/dashboard")
@@ -17,21 +55,107 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
 
+    private static final int DEFAULT_PAGE_LIMIT = 1000;
+
+    static final String STALE_HEADER = "X-Dashboard-Stale";
+
+    private static final Splitter DIMENSIONS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
     private final DashboardService dashboardService;
 
-    public DashboardController(final DashboardService dashboardService) {
+    private final DashboardStreamService dashboardStreamService;
+
+    private final ObjectMapper objectMapper;
+
+    private final DashboardSnapshotCache dashboardSnapshotCache;
+
+    private final ResponseEncoder responseEncoder;
+
+    private final RedisCircuitBreaker redisCircuitBreaker;
+
+    private final DimensionsConfig dimensionsConfig;
+
+    private final TrendingPagesView trendingPagesView;
+
+    public DashboardController(final DashboardService dashboardService,
+                               final DashboardStreamService dashboardStreamService,
+                               final ObjectMapper objectMapper,
+                               final DashboardSnapshotCache dashboardSnapshotCache,
+                               final ResponseEncoder responseEncoder,
+                               final RedisCircuitBreaker redisCircuitBreaker,
+                               final DimensionsConfig dimensionsConfig,
+                               final TrendingPagesView trendingPagesView) {
         this.dashboardService = dashboardService;
+        this.dashboardStreamService = dashboardStreamService;
+        this.objectMapper = objectMapper;
+        this.dashboardSnapshotCache = dashboardSnapshotCache;
+        this.responseEncoder = responseEncoder;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.dimensionsConfig = dimensionsConfig;
+        this.trendingPagesView = trendingPagesView;
     }
 
     /**
      * Method to get the active users
-     * @return Http response with user details
+     * @param limit The number of users per page, as a hint. When neither limit nor cursor is given, all the users
+     *              are returned in one response
+     * @param cursor The cursor of the next page, returned with the previous page
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured window
+     * @param accept The Accept header, application/cbor for the columnar CBOR encoding. Default will be JSON
+     * @return Http response with user details, and the cursor of the next page when paginated. Without pagination
+     * the response is a shared snapshot with an ETag, and 304 when it matches If-None-Match
      */
     @GetMapping("/active-users")
-    public ResponseEntity<UserDetailsResponse> getActiveUsers() {
+    public ResponseEntity<?> getActiveUsers(
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "window", required = false) String window,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        if (Objects.nonNull(limit) && limit <= 0) {
+            log.warn("Invalid limit: {}", limit);
+            return ResponseEntity.badRequest().build();
+        }
+        final ResponseFormat format;
+        try {
+            format = ResponseFormat.fromAccept(accept);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid accept: {}", accept);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (Objects.nonNull(cursor)) {
+                this.dashboardService.validateCursor(cursor);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor: {}", cursor);
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            final UserDetailsResponse userDetailsResponse = this.dashboardService.getUserDetails();
-            return ResponseEntity.ok(userDetailsResponse);
+            if (Objects.isNull(limit) && Objects.isNull(cursor)) {
+                return snapshot(this.dashboardSnapshotCache.get("active-users", duration, 0, format,
+                        () -> Objects.isNull(duration)
+                                ? this.dashboardService.getUserDetails()
+                                : this.dashboardService.getUserDetails(duration)));
+            }
+            final UserDetailsResponse page = this.redisCircuitBreaker.call(() -> this.dashboardService
+                    .getUserDetails(Objects.isNull(limit) ? DEFAULT_PAGE_LIMIT : limit, cursor, duration));
+            return ResponseEntity.ok()
+                    .contentType(format.getMediaType())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(this.responseEncoder.encode(page, format));
+        } catch (SnapshotExpiredException e) {
+            log.warn("Expired cursor: {}", cursor);
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
         } catch (Exception e) {
             log.error("Failed to fetch the details", e);
             return ResponseEntity.internalServerError()
@@ -41,18 +165,131 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Method to stream all the active users
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured window
+     * @return Http response with user details, written one batch at a time
+     */
+    @GetMapping(path = "/active-users", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamActiveUsers(
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("userDetails");
+                generator.flush();
+                this.dashboardService.scanUserDetails(duration, userDetails -> {
+                    try {
+                        for (final UserDetails user : userDetails) {
+                            generator.writeObject(user);
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } catch (Exception e) {
+                // The status is already sent, the client gets a truncated document.
+                log.error("Failed to fetch the details", e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Method to get the number of active users
+     * @param mode The count mode, exact or approximate. Default will be the configured mode
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured window
+     * @return Http response with the number of active users
+     */
+    @GetMapping("/active-users/count")
+    public ResponseEntity<?> getActiveUsersCount(
+            @RequestParam(name = "mode", required = false) String mode,
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        final CountMode countMode;
+        try {
+            countMode = Objects.isNull(mode) ? null : CountMode.fromValue(mode);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid count mode: {}", mode);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return snapshot(this.dashboardSnapshotCache.get("active-users-count", duration, String.valueOf(countMode),
+                    ResponseFormat.JSON, () -> {
+                        if (Objects.nonNull(duration)) {
+                            return this.dashboardService.getActiveUsersCount(countMode, duration);
+                        }
+                        return Objects.isNull(countMode)
+                                ? this.dashboardService.getActiveUsersCount()
+                                : this.dashboardService.getActiveUsersCount(countMode);
+                    }));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(ActiveUsersCountResponse.builder()
+                            .withActiveUsers(0)
+                            .withMode(countMode)
+                            .build());
+        }
+    }
+
     /**
      * Method to the viewed pages
      * @param offset The number of results to be returned. Default will be 5
-     * @return Http response with page viewed
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured window
+     * @param accept The Accept header, application/cbor for the columnar CBOR encoding. Default will be JSON
+     * @return Http response with page viewed, a shared snapshot with an ETag, and 304 when it matches If-None-Match
      */
     @GetMapping("/page-views")
-    public ResponseEntity<PageViewsResponse> getPageViews(
-            @RequestParam(name = "offset", defaultValue = "5") int offset
+    public ResponseEntity<?> getPageViews(
+            @RequestParam(name = "offset", defaultValue = "5") int offset,
+            @RequestParam(name = "window", required = false) String window,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
     ) {
+        final ResponseFormat format;
+        try {
+            format = ResponseFormat.fromAccept(accept);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid accept: {}", accept);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            final PageViewsResponse pageViewsResponse = this.dashboardService.getTopPages(offset);
-            return ResponseEntity.ok(pageViewsResponse);
+            return snapshot(this.dashboardSnapshotCache.get("page-views", duration, offset, format,
+                    () -> Objects.isNull(duration)
+                            ? this.dashboardService.getTopPages(offset)
+                            : this.dashboardService.getTopPages(offset, duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
         } catch (Exception e) {
             log.error("Failed to fetch the details", e);
             return ResponseEntity.internalServerError()
@@ -62,4 +299,290 @@ public class DashboardController {
         }
 
     }
+
+    /**
+     * Method to get the rising pages
+     * @param offset The number of results to be returned. Default will be 5
+     * @return Http response with the pages whose views grew the most over the trending window, against the window
+     * before it
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingPagesResponse> getTrendingPages(
+            @RequestParam(name = "offset", defaultValue = "5") int offset
+    ) {
+        if (offset <= 0) {
+            log.warn("Invalid offset: {}", offset);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.redisCircuitBreaker.call(() ->
+                    this.trendingPagesView.getTrendingPages(offset)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(TrendingPagesResponse.builder()
+                            .withPages(ImmutableList.of())
+                            .build());
+        }
+    }
+
+    /**
+     * Method to get the number of unique visitors of a page
+     * @param pageUrl The url of the page, like /checkout/success
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured page views window
+     * @return Http response with the approximate number of distinct users who viewed the page
+     */
+    @GetMapping("/page-views/visitors")
+    public ResponseEntity<PageVisitorsResponse> getPageVisitors(
+            @RequestParam(name = "pageUrl") String pageUrl,
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        if (pageUrl.isBlank()) {
+            log.warn("Invalid page url: {}", pageUrl);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.redisCircuitBreaker.call(() ->
+                    this.dashboardService.getPageVisitors(pageUrl, duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(PageVisitorsResponse.builder()
+                            .withPageUrl(pageUrl)
+                            .build());
+        }
+    }
+
+    /**
+     * Method to get the pages viewed by a user
+     * @param userId The id of the user
+     * @param offset The number of results to be returned. Default will be 5
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured page views window
+     * @return Http response with the most viewed pages of the user
+     */
+    @GetMapping("/users/{userId}/page-views")
+    public ResponseEntity<UserPageViewsResponse> getUserPageViews(
+            @PathVariable(name = "userId") String userId,
+            @RequestParam(name = "offset", defaultValue = "5") int offset,
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        if (offset <= 0) {
+            log.warn("Invalid offset: {}", offset);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.redisCircuitBreaker.call(() ->
+                    this.dashboardService.getUserTopPages(userId, offset, duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(UserPageViewsResponse.builder()
+                            .withUserId(userId)
+                            .withPageViews(ImmutableList.of())
+                            .build());
+        }
+    }
+
+    /**
+     * Method to get the session aggregates
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured session stats window
+     * @return Http response with the number, the average duration, the pages per session and the bounce rate of the
+     * sessions closed during the window
+     */
+    @GetMapping("/sessions/stats")
+    public ResponseEntity<?> getSessionStats(
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return snapshot(this.dashboardSnapshotCache.get("session-stats", duration, 0, ResponseFormat.JSON,
+                    () -> this.dashboardService.getSessionStats(duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(SessionStatsResponse.builder().build());
+        }
+    }
+
+    /**
+     * Method to get the event counts grouped by some dimensions
+     * @param groupBy The comma separated dimensions to group by, like event_type,page_url
+     * @param filters The values of the dimensions to filter by, like event_type:purchase, repeatable
+     * @param offset The number of groups to be returned. Default will be 10
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured dimensions window
+     * @return Http response with the groups with the most events, among the events matching the filters. 400 when a
+     * dimension is not declared in dashboard.dimensions.declared
+     */
+    @GetMapping("/dimensions")
+    public ResponseEntity<DimensionCountsResponse> getDimensionCounts(
+            @RequestParam(name = "groupBy") String groupBy,
+            @RequestParam(name = "filter", required = false) List<String> filters,
+            @RequestParam(name = "offset", defaultValue = "10") int offset,
+            @RequestParam(name = "window", required = false) String window
+    ) {
+        if (offset <= 0) {
+            log.warn("Invalid offset: {}", offset);
+            return ResponseEntity.badRequest().build();
+        }
+        final List<EventDimension> dimensions;
+        final Map<EventDimension, String> values = new EnumMap<>(EventDimension.class);
+        try {
+            dimensions = DIMENSIONS_SPLITTER.splitToStream(groupBy)
+                    .map(this.dimensionsConfig::getDeclared)
+                    .distinct()
+                    .toList();
+            for (final String filter : Objects.isNull(filters) ? List.<String>of() : filters) {
+                final int colon = filter.indexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Expected a filter like event_type:purchase, got " + filter);
+                }
+                values.put(this.dimensionsConfig.getDeclared(filter.substring(0, colon)), filter.substring(colon + 1));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid dimensions: {} where {}: {}", groupBy, filters, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (dimensions.isEmpty()) {
+            log.warn("Invalid group by: {}", groupBy);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.redisCircuitBreaker.call(() ->
+                    this.dashboardService.getDimensionCounts(dimensions, values, offset, duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(DimensionCountsResponse.builder()
+                            .withCounts(ImmutableList.of())
+                            .build());
+        }
+    }
+
+    /**
+     * Method to get the summary of the dashboard
+     * @param offset The number of pages to be returned. Default will be 5
+     * @param window The window, like 90m, 6h or 7d. Default will be the configured windows
+     * @param accept The Accept header, application/cbor for the columnar CBOR encoding. Default will be JSON
+     * @return Http response with the active users, their sessions and the top pages of the same minute, as a shared
+     * snapshot with an ETag, and 304 when it matches If-None-Match
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(
+            @RequestParam(name = "offset", defaultValue = "5") int offset,
+            @RequestParam(name = "window", required = false) String window,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        if (offset <= 0) {
+            log.warn("Invalid offset: {}", offset);
+            return ResponseEntity.badRequest().build();
+        }
+        final ResponseFormat format;
+        try {
+            format = ResponseFormat.fromAccept(accept);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid accept: {}", accept);
+            return ResponseEntity.badRequest().build();
+        }
+        final Duration duration;
+        try {
+            duration = Objects.isNull(window) ? null : this.dashboardService.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid window: {}", window);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return snapshot(this.dashboardSnapshotCache.get("summary", duration, offset, format,
+                    () -> this.dashboardService.getSummary(offset, duration)));
+        } catch (RedisUnavailableException e) {
+            return unavailable(e);
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(SummaryResponse.builder()
+                            .withUserDetails(ImmutableList.of())
+                            .withPageViews(ImmutableList.of())
+                            .build());
+        }
+    }
+
+    /**
+     * Method to stream the dashboard
+     * @return Server-sent events with a full snapshot of the dashboard, followed by the changes of every tick
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return this.dashboardStreamService.subscribe();
+    }
+
+    /**
+     * Method to respond with a snapshot
+     * @implNote The bytes are written as they are, and the ETag lets spring answer 304 to a matching If-None-Match.
+     * no-cache makes the browsers revalidate every time instead of reusing a snapshot which may be outdated, and
+     * the caches keep the JSON and the CBOR snapshots apart with Vary. A stale snapshot, served while redis is slow
+     * or down, has an X-Dashboard-Stale header and its Age in seconds.
+     * @param snapshot The snapshot
+     * @return Http response with the snapshot
+     */
+    private static ResponseEntity<byte[]> snapshot(final DashboardSnapshotCache.Snapshot snapshot) {
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(snapshot.format().getMediaType())
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (snapshot.stale()) {
+            builder.header(STALE_HEADER, "true")
+                    .header(HttpHeaders.AGE, String.valueOf(Math.max(0,
+                            (System.currentTimeMillis() - snapshot.createdAt()) / 1000)));
+        }
+        return builder.body(snapshot.body());
+    }
+
+    /**
+     * Method to respond that redis is unavailable
+     * @param e The rejection of the circuit breaker
+     * @return Http response 503, with the time until redis is tried again
+     */
+    private static <T> ResponseEntity<T> unavailable(final RedisUnavailableException e) {
+        log.warn("Redis unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
 }
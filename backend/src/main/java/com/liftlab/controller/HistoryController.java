@@ -0,0 +1,119 @@
+package com.liftlab.controller;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.coldtier.ColdTierStore;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Historical queries over the cold tier, for the minutes whose redis keys expired.
+ */
+@RestController
+@RequestMapping("/api/v1/dashboard/history")
+@ConditionalOnProperty(name = "dashboard.cold-tier.enabled", havingValue = "true")
+@Slf4j
+public class HistoryController {
+
+    private final ColdTierStore coldTierStore;
+
+    public HistoryController(final ColdTierStore coldTierStore) {
+        this.coldTierStore = coldTierStore;
+    }
+
+    /**
+     * Method to get the viewed pages of a time range
+     * @param from The start of the range, like 2025-08-07T16:00:00Z, inclusive
+     * @param to The end of the range, exclusive
+     * @param offset The number of results to be returned. Default will be 5
+     * @return Http response with page viewed
+     */
+    @GetMapping("/page-views")
+    public ResponseEntity<PageViewsResponse> getPageViews(
+            @RequestParam(name = "from") String from,
+            @RequestParam(name = "to") String to,
+            @RequestParam(name = "offset", defaultValue = "5") int offset
+    ) {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        try {
+            start = parse(from);
+            end = parse(to);
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid range: {} to {}", from, to);
+            return ResponseEntity.badRequest().build();
+        }
+        if (!start.isBefore(end) || offset <= 0) {
+            log.warn("Invalid range: {} to {}, offset {}", from, to, offset);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.coldTierStore.getTopPages(start, end, offset));
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(PageViewsResponse.builder()
+                            .withPageViews(ImmutableList.of())
+                            .build());
+        }
+    }
+
+    /**
+     * Method to get the number of active users of a time range
+     * @param from The start of the range, like 2025-08-07T16:00:00Z, inclusive
+     * @param to The end of the range, exclusive
+     * @return Http response with the exact number of active users
+     */
+    @GetMapping("/active-users/count")
+    public ResponseEntity<ActiveUsersCountResponse> getActiveUsersCount(
+            @RequestParam(name = "from") String from,
+            @RequestParam(name = "to") String to
+    ) {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        try {
+            start = parse(from);
+            end = parse(to);
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid range: {} to {}", from, to);
+            return ResponseEntity.badRequest().build();
+        }
+        if (!start.isBefore(end)) {
+            log.warn("Invalid range: {} to {}", from, to);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(this.coldTierStore.getActiveUsersCount(start, end));
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+            return ResponseEntity.internalServerError()
+                    .body(ActiveUsersCountResponse.builder()
+                            .withActiveUsers(0)
+                            .withMode(CountMode.EXACT)
+                            .build());
+        }
+    }
+
+    /**
+     * Method to parse a bound of a range
+     * @param time The time with an offset
+     * @return The minute of the time in UTC
+     */
+    private static LocalDateTime parse(final String time) {
+        return OffsetDateTime.parse(time).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                .truncatedTo(ChronoUnit.MINUTES);
+    }
+}
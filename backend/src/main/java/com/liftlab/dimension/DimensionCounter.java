@@ -0,0 +1,152 @@
+package com.liftlab.dimension;
+
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.EventDimension;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.KeyFamily;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.Granularity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Event sink which counts the events per combination of the values of the declared dimensions, see
+ * {@link DimensionsConfig}: dim_counts:{minute} (HASH of the number of events by combination), and the same hashes
+ * for the 5 minute, hourly and daily rollups, see {@link Granularity}, unless {@link KeyFamily#DIMENSION_COUNTS} is
+ * left out of dashboard.ingestion.rollups. A field is the names and values of the dimensions, see
+ * {@link EventDimension#field(Map)}, so that the counts can be read whatever the declared dimensions of the reader.
+ * @implNote The cardinality of a dimension is capped per hour of event time: the first values of the hour are
+ * counted as they are, up to the cap of the dimension, and the next ones as {@link EventDimension#OTHER}, so a
+ * minute or an hour has at most the cap plus one values per dimension, and a day 24 times that. The values of the
+ * two latest hours are kept, and the events of older hours count as (other) for every dimension. The values are
+ * admitted per ingestion process, so with several processes a dimension has up to the cap per process. The counts
+ * are summed with HINCRBY, so a window of buckets is read with one HGETALL per bucket whatever the number of events.
+ * A value containing {@link EventDimension#FIELD_SEPARATOR}, which nothing else rejects in the events, counts as
+ * {@link EventDimension#OTHER} too, so that a page url cannot forge the field of another combination.
+ */
+@Slf4j
+public class DimensionCounter implements EventSink {
+
+    /** Hours of event time whose admitted values are kept. */
+    private static final int ADMITTED_HOURS = 2;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final Map<EventDimension, Integer> dimensions;
+
+    /** Counts which are not written yet, by minute and field. */
+    private final Map<LocalDateTime, Map<String, Long>> pending = new LinkedHashMap<>();
+
+    /** Values admitted per hour of event time and dimension. */
+    private final NavigableMap<LocalDateTime, Map<EventDimension, Set<String>>> admitted = new TreeMap<>();
+
+    public DimensionCounter(final StringRedisTemplate redisTemplate,
+                            final RedisKeyConfig redisKeyConfig,
+                            final IngestionConfig ingestionConfig,
+                            final DimensionsConfig dimensionsConfig) {
+        this.redisTemplate = redisTemplate;
+        this.redisKeyConfig = redisKeyConfig;
+        this.ingestionConfig = ingestionConfig;
+        this.dimensions = dimensionsConfig.getDimensions();
+        log.info("Dimension counts of {}", this.dimensions);
+    }
+
+    @Override
+    public void accept(final UserEvent userEvent) {
+        if (this.dimensions.isEmpty()) {
+            return;
+        }
+        final LocalDateTime minute = Granularity.MINUTE.truncate(
+                LocalDateTime.ofInstant(UserEventParser.instant(userEvent), ZoneOffset.UTC));
+        final Map<EventDimension, Set<String>> hourAdmitted = this.getAdmitted(Granularity.HOUR.truncate(minute));
+        final Map<EventDimension, String> values = new EnumMap<>(EventDimension.class);
+        this.dimensions.forEach((dimension, cap) -> {
+            final String value = dimension.value(userEvent);
+            // A value with the separator would be read back as other dimensions, see EventDimension#field(Map).
+            if (Objects.isNull(hourAdmitted) || value.indexOf(EventDimension.FIELD_SEPARATOR) >= 0) {
+                values.put(dimension, EventDimension.OTHER);
+                return;
+            }
+            final Set<String> admittedValues = hourAdmitted.computeIfAbsent(dimension, key -> new HashSet<>());
+            values.put(dimension, admittedValues.contains(value) || admittedValues.size() < cap
+                    && admittedValues.add(value) ? value : EventDimension.OTHER);
+        });
+        this.pending.computeIfAbsent(minute, key -> new HashMap<>())
+                .merge(EventDimension.field(values), 1L, Long::sum);
+    }
+
+    @Override
+    public void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final Map<String, Map<String, Long>> buckets = new LinkedHashMap<>();
+        final Map<String, Duration> ttls = new LinkedHashMap<>();
+        final boolean rollups = this.ingestionConfig.getRollupFamilies().contains(KeyFamily.DIMENSION_COUNTS);
+        this.pending.forEach((minute, counts) -> {
+            for (final Granularity granularity : Granularity.values()) {
+                if (granularity != Granularity.MINUTE && !rollups) {
+                    continue;
+                }
+                final String bucket = granularity.bucket(minute);
+                final Map<String, Long> bucketCounts = buckets.computeIfAbsent(bucket, key -> new HashMap<>());
+                counts.forEach((field, count) -> bucketCounts.merge(field, count, Long::sum));
+                ttls.put(bucket, Duration.ofSeconds(granularity == Granularity.MINUTE
+                        ? this.ingestionConfig.getDimensionCountsTtlSeconds()
+                        : this.ingestionConfig.getRollupTtlSeconds(granularity)));
+            }
+        });
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                final RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                buckets.forEach((bucket, counts) -> {
+                    final String key = String.format("%s:%s", redisKeyConfig.getDimensionCountsKey(), bucket);
+                    counts.forEach((field, count) -> stringOperations.opsForHash().increment(key, field, count));
+                    stringOperations.expire(key, ttls.get(bucket));
+                });
+                return null;
+            }
+        });
+        // Kept when the pipeline failed, and written with the next flush.
+        this.pending.clear();
+    }
+
+    /**
+     * Method to get the values admitted during an hour of event time.
+     * @param hour The first minute of the hour
+     * @return Set of values by dimension, null when the hour is older than the hours kept
+     */
+    private Map<EventDimension, Set<String>> getAdmitted(final LocalDateTime hour) {
+        if (!this.admitted.containsKey(hour)) {
+            this.admitted.put(hour, new EnumMap<>(EventDimension.class));
+            while (this.admitted.size() > ADMITTED_HOURS) {
+                this.admitted.pollFirstEntry();
+            }
+        }
+        return this.admitted.get(hour);
+    }
+}
@@ -0,0 +1,278 @@
+package com.liftlab.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.IndexConfig;
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the active users and of their sessions over the configured windows, fed by the ingestion
+ * pipeline.
+ * @implNote The user ids are encoded to dense ints by a {@link UserDictionary}. Every minute of the longest of the
+ * active users and user sessions windows has a slot in a ring, with a Roaring bitmap of the ids of its active users
+ * and a 64 bit Roaring bitmap of its sessions, the id of the user in the high 32 bits and a 32 bit hash of the
+ * session id in the low ones. A window is the OR of the bitmaps of its minutes. The sessions are sorted by user, so
+ * the session counts are read by walking the users and the sessions together, without any map. Two sessions of a
+ * user are counted once when their hashes collide, about once in 4 billion pairs of sessions of a user.
+ * <p>
+ * When a minute leaves the ring its slot is reset, and the users of no other minute are removed from the dictionary,
+ * so the memory is the users and sessions of the window. The dictionary holds at most
+ * dashboard.index.active-users.max-users users: the events of the other users are dropped, and a window with a
+ * minute which dropped events is not answered, the caller reads redis instead. The queries read under a shared lock
+ * and the flushes write under an exclusive one, as an id is given to another user once its user is removed.
+ */
+@Component
+@ConditionalOnProperty(name = "dashboard.config.mode.active-users", havingValue = "index")
+@Slf4j
+public class ActiveUsersIndex implements EventSink {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32_fixed();
+
+    /** Users expected in the dictionary, it grows past them. */
+    private static final int EXPECTED_USERS = 1 << 16;
+
+    private final Clock clock;
+
+    private final int maxUsers;
+
+    private final int activeUsersMinutes;
+
+    private final int userSessionsMinutes;
+
+    private final MinuteBitmaps[] ring;
+
+    private final UserDictionary userDictionary = new UserDictionary(EXPECTED_USERS);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Events accepted since the last flush, only touched by the ingestion thread. */
+    private final List<UserEvent> pending = new ArrayList<>();
+
+    @Autowired
+    public ActiveUsersIndex(final DashboardOffsetConfig dashboardOffsetConfig, final IndexConfig indexConfig) {
+        this(dashboardOffsetConfig, indexConfig, Clock.systemUTC());
+    }
+
+    ActiveUsersIndex(final DashboardOffsetConfig dashboardOffsetConfig,
+                     final IndexConfig indexConfig,
+                     final Clock clock) {
+        this.clock = clock;
+        this.maxUsers = indexConfig.getActiveUsersMaxUsers();
+        this.activeUsersMinutes = Math.max(1, dashboardOffsetConfig.getActiveUsersOffset());
+        this.userSessionsMinutes = Math.max(1, dashboardOffsetConfig.getUserSessionsOffset());
+
+        final int minutes = Math.max(this.activeUsersMinutes, this.userSessionsMinutes);
+        this.ring = new MinuteBitmaps[minutes];
+        for (int slot = 0; slot < minutes; slot++) {
+            this.ring[slot] = new MinuteBitmaps();
+        }
+        log.info("Active users index: {} minutes of at most {} users", minutes, this.maxUsers);
+    }
+
+    @Override
+    public void accept(final UserEvent userEvent) {
+        this.pending.add(userEvent);
+    }
+
+    @Override
+    public void flush() {
+        this.lock.writeLock().lock();
+        try {
+            final long currentMinute = this.currentMinute();
+            for (final MinuteBitmaps minuteBitmaps : this.ring) {
+                if (minuteBitmaps.minute != Long.MIN_VALUE
+                        && minuteBitmaps.minute <= currentMinute - this.ring.length) {
+                    this.evict(minuteBitmaps, Long.MIN_VALUE);
+                }
+            }
+            for (final UserEvent userEvent : this.pending) {
+                this.add(userEvent, currentMinute);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.pending.clear();
+    }
+
+    /**
+     * Method to get the number of active users of the active users window.
+     * @return The number of users, empty when a minute of the window dropped events
+     */
+    public OptionalLong getActiveUsersCount() {
+        this.lock.readLock().lock();
+        try {
+            final RoaringBitmap users = this.getUsers(this.currentMinute());
+            return Objects.isNull(users) ? OptionalLong.empty() : OptionalLong.of(users.getLongCardinality());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to get the active users of the active users window, with their sessions of the user sessions window.
+     * @return List of UserDetails, one per user, empty when a minute of the windows dropped events
+     */
+    public Optional<List<UserDetails>> getUserDetails() {
+        this.lock.readLock().lock();
+        try {
+            final long currentMinute = this.currentMinute();
+            final RoaringBitmap users = this.getUsers(currentMinute);
+            final Roaring64Bitmap sessions = this.getSessions(currentMinute);
+            if (Objects.isNull(users) || Objects.isNull(sessions)) {
+                return Optional.empty();
+            }
+
+            final ImmutableList.Builder<UserDetails> userDetails =
+                    ImmutableList.builderWithExpectedSize(users.getCardinality());
+            final PeekableIntIterator ids = users.getIntIterator();
+            final PeekableLongIterator userSessions = sessions.getLongIterator();
+            while (ids.hasNext()) {
+                final int id = ids.next();
+                userSessions.advanceIfNeeded((long) id << 32);
+                int sessionCount = 0;
+                while (userSessions.hasNext() && userSessions.peekNext() >>> 32 == id) {
+                    userSessions.next();
+                    sessionCount++;
+                }
+                userDetails.add(UserDetails.builder()
+                        .withUserId(this.userDictionary.userId(id))
+                        .withSessionCount(sessionCount)
+                        .build());
+            }
+            return Optional.of(userDetails.build());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void add(final UserEvent userEvent, final long currentMinute) {
+        final long minute = Duration.ofMillis(UserEventParser.instant(userEvent).toEpochMilli()).toMinutes();
+        if (minute > currentMinute || minute <= currentMinute - this.ring.length) {
+            return;
+        }
+        final MinuteBitmaps minuteBitmaps = this.ring[(int) Math.floorMod(minute, (long) this.ring.length)];
+        if (minuteBitmaps.minute != minute) {
+            this.evict(minuteBitmaps, minute);
+        }
+        int id = this.userDictionary.idOf(userEvent.getUserId());
+        if (id < 0) {
+            if (this.userDictionary.size() >= this.maxUsers) {
+                if (minuteBitmaps.complete) {
+                    log.warn("Active users index full with {} users, dropping the new users of minute {}",
+                            this.userDictionary.size(), minute);
+                    minuteBitmaps.complete = false;
+                }
+                return;
+            }
+            id = this.userDictionary.add(userEvent.getUserId());
+        }
+        minuteBitmaps.users.add(id);
+        minuteBitmaps.sessions.addLong((long) id << 32
+                | HASH_FUNCTION.hashString(userEvent.getSessionId(), StandardCharsets.UTF_8).asInt() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Method to reset a slot of the ring, removing its users which are in no other minute from the dictionary.
+     * @param evicted The slot
+     * @param minute The minute the slot is reset to, Long.MIN_VALUE for none
+     */
+    private void evict(final MinuteBitmaps evicted, final long minute) {
+        if (evicted.minute != Long.MIN_VALUE) {
+            final RoaringBitmap retained = new RoaringBitmap();
+            for (final MinuteBitmaps minuteBitmaps : this.ring) {
+                if (minuteBitmaps != evicted && minuteBitmaps.minute != Long.MIN_VALUE) {
+                    retained.or(minuteBitmaps.users);
+                }
+            }
+            final PeekableIntIterator removed = RoaringBitmap.andNot(evicted.users, retained).getIntIterator();
+            while (removed.hasNext()) {
+                this.userDictionary.remove(removed.next());
+            }
+        }
+        evicted.users.clear();
+        evicted.sessions.clear();
+        evicted.complete = true;
+        evicted.minute = minute;
+    }
+
+    /**
+     * Method to get the union of the active users of the active users window.
+     * @param currentMinute The current minute since the epoch
+     * @return The ids of the users, null when a minute of the window dropped events
+     */
+    private RoaringBitmap getUsers(final long currentMinute) {
+        final RoaringBitmap users = new RoaringBitmap();
+        for (final MinuteBitmaps minuteBitmaps : this.ring) {
+            if (minuteBitmaps.minute <= currentMinute
+                    && minuteBitmaps.minute > currentMinute - this.activeUsersMinutes) {
+                if (!minuteBitmaps.complete) {
+                    return null;
+                }
+                users.or(minuteBitmaps.users);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Method to get the union of the sessions of the user sessions window.
+     * @param currentMinute The current minute since the epoch
+     * @return The sessions, null when a minute of the window dropped events
+     */
+    private Roaring64Bitmap getSessions(final long currentMinute) {
+        final Roaring64Bitmap sessions = new Roaring64Bitmap();
+        for (final MinuteBitmaps minuteBitmaps : this.ring) {
+            if (minuteBitmaps.minute <= currentMinute
+                    && minuteBitmaps.minute > currentMinute - this.userSessionsMinutes) {
+                if (!minuteBitmaps.complete) {
+                    return null;
+                }
+                sessions.or(minuteBitmaps.sessions);
+            }
+        }
+        return sessions;
+    }
+
+    private long currentMinute() {
+        return Duration.ofMillis(this.clock.millis()).toMinutes();
+    }
+
+    /**
+     * Bitmaps of a minute of the ring.
+     */
+    private static final class MinuteBitmaps {
+
+        private final RoaringBitmap users = new RoaringBitmap();
+
+        private final Roaring64Bitmap sessions = new Roaring64Bitmap();
+
+        private long minute = Long.MIN_VALUE;
+
+        /** False once events of the minute were dropped. */
+        private boolean complete = true;
+    }
+}
@@ -0,0 +1,159 @@
+package com.liftlab.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Dictionary encoding of the user ids to dense ints, in an open addressing hash table.
+ * @implNote A slot of the table holds the id of a user plus one, 0 for a free slot, and the user id of an id is an
+ * entry of an array, so a user costs the String of its id and about 12 bytes, with no entry nor Integer object.
+ * Collisions are resolved by linear probing, and a removed slot is refilled by shifting back the following slots of
+ * its run, so that no tombstone is left behind. The ids of the removed users are reused, lowest first, so the ids
+ * stay dense and the bitmaps of ids stay small. The table doubles when it is three quarters full. Not thread safe.
+ */
+public class UserDictionary {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Free slot of the table. */
+    private static final int FREE = 0;
+
+    /** Id plus one of the slots. */
+    private int[] table;
+
+    /** User id of every id, null for a free id. */
+    private String[] userIds;
+
+    /** Ids below the next id which were removed, and are free for new users. */
+    private final RoaringBitmap freeIds = new RoaringBitmap();
+
+    private int nextId;
+
+    private int mask;
+
+    private int size;
+
+    public UserDictionary(final int expectedUsers) {
+        final int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedUsers * 4 / 3) - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        this.userIds = new String[Math.max(MIN_CAPACITY, expectedUsers)];
+    }
+
+    /**
+     * Method to get the id of a user.
+     * @param userId The id of the user
+     * @return The id, -1 when the user is not in the dictionary
+     */
+    public int idOf(final String userId) {
+        int slot = this.slot(userId);
+        while (this.table[slot] != FREE) {
+            final int id = this.table[slot] - 1;
+            if (this.userIds[id].equals(userId)) {
+                return id;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to get the id of a user, adding the user when it is not in the dictionary.
+     * @param userId The id of the user
+     * @return The id
+     */
+    public int add(final String userId) {
+        int slot = this.slot(userId);
+        while (this.table[slot] != FREE) {
+            final int id = this.table[slot] - 1;
+            if (this.userIds[id].equals(userId)) {
+                return id;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        final int id;
+        if (this.freeIds.isEmpty()) {
+            id = this.nextId++;
+            if (id == this.userIds.length) {
+                this.userIds = Arrays.copyOf(this.userIds, id * 2);
+            }
+        } else {
+            id = this.freeIds.first();
+            this.freeIds.remove(id);
+        }
+        this.userIds[id] = userId;
+        this.table[slot] = id + 1;
+        if (++this.size > this.table.length * 3 / 4) {
+            this.resize(this.table.length << 1);
+        }
+        return id;
+    }
+
+    /**
+     * Method to get the user of an id.
+     * @param id The id
+     * @return The id of the user, null when the id is free
+     */
+    public String userId(final int id) {
+        return id >= 0 && id < this.nextId ? this.userIds[id] : null;
+    }
+
+    /**
+     * Method to remove a user, whose id may be given to another user.
+     * @param id The id of the user
+     */
+    public void remove(final int id) {
+        final String userId = this.userId(id);
+        if (Objects.isNull(userId)) {
+            return;
+        }
+        int slot = this.slot(userId);
+        while (this.table[slot] != id + 1) {
+            slot = (slot + 1) & this.mask;
+        }
+        int free = slot;
+        while (true) {
+            slot = (slot + 1) & this.mask;
+            if (this.table[slot] == FREE) {
+                break;
+            }
+            final int home = this.slot(this.userIds[this.table[slot] - 1]);
+            // The user may move to the free slot when its home is not between the free slot and its slot.
+            if (((slot - home) & this.mask) >= ((slot - free) & this.mask)) {
+                this.table[free] = this.table[slot];
+                free = slot;
+            }
+        }
+        this.table[free] = FREE;
+        this.userIds[id] = null;
+        this.freeIds.add(id);
+        this.size--;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void resize(final int capacity) {
+        final int[] oldTable = this.table;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (final int entry : oldTable) {
+            if (entry != FREE) {
+                int slot = this.slot(this.userIds[entry - 1]);
+                while (this.table[slot] != FREE) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.table[slot] = entry;
+            }
+        }
+    }
+
+    private int slot(final String userId) {
+        final int hash = userId.hashCode();
+        // The high bits are folded in for the small tables.
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+}
@@ -0,0 +1,108 @@
+package com.liftlab.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.dimension.DimensionCounter;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.ingestion.source.EventSource;
+import com.liftlab.ingestion.source.FileReplayEventSource;
+import com.liftlab.ingestion.source.InMemoryEventSource;
+import com.liftlab.ingestion.source.KafkaEventSource;
+import com.liftlab.ingestion.source.SyntheticEventSource;
+import com.liftlab.session.Sessionizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Beans of the ingestion pipeline, which are only created when dashboard.ingestion.enabled is set. The pipeline
+ * runs in its own process with the 'ingestion' profile, see application-ingestion.yml. The sinks writing redis are
+ * opt-in, enabled by that profile only: the API processes of the sketch and index profiles run the pipeline too, and
+ * would add their events to the counts of the ingestion process, again on every restart replay.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dashboard.ingestion.enabled", havingValue = "true")
+public class IngestionConfiguration {
+
+    @Bean
+    public UserEventParser userEventParser(final ObjectMapper objectMapper) {
+        return new UserEventParser(objectMapper);
+    }
+
+    /**
+     * Method to create the event source configured by dashboard.ingestion.source.
+     * @return The event source, closed by the ingestion runner
+     */
+    @Bean(destroyMethod = "")
+    public EventSource eventSource(final IngestionConfig ingestionConfig, final UserEventParser userEventParser) {
+        return switch (ingestionConfig.getSource()) {
+            case "kafka" -> new KafkaEventSource(
+                    ingestionConfig.getKafkaBootstrapServers(),
+                    ingestionConfig.getKafkaTopic(),
+                    ingestionConfig.getKafkaGroupId(),
+                    ingestionConfig.getMaxPollRecords(),
+                    userEventParser,
+                    Duration.ofMinutes(ingestionConfig.getKafkaReplayMinutes()),
+                    Map.of());
+            case "file" -> new FileReplayEventSource(
+                    Path.of(ingestionConfig.getFilePath()),
+                    userEventParser,
+                    ingestionConfig.getMaxPollRecords(),
+                    ingestionConfig.isFileLoop());
+            case "memory" -> new InMemoryEventSource(
+                    ingestionConfig.getMemoryCapacity(),
+                    ingestionConfig.getMaxPollRecords());
+            case "synthetic" -> new SyntheticEventSource(
+                    ingestionConfig.getSyntheticRate(),
+                    ingestionConfig.getSyntheticUsers(),
+                    ingestionConfig.getSyntheticUrls(),
+                    ingestionConfig.getSyntheticZipfExponent(),
+                    ingestionConfig.getSyntheticPagesPerSession(),
+                    ingestionConfig.getSyntheticSeed(),
+                    ingestionConfig.getMaxPollRecords());
+            default -> throw new IllegalArgumentException("Unknown event source: " + ingestionConfig.getSource()
+                    + ", expected kafka, file, memory or synthetic");
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dashboard.ingestion.redis-sink.enabled", havingValue = "true")
+    public RedisEventSink redisEventSink(final StringRedisTemplate redisTemplate,
+                                         final RedisKeyConfig redisKeyConfig,
+                                         final IngestionConfig ingestionConfig) {
+        return new RedisEventSink(redisTemplate, redisKeyConfig, ingestionConfig);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dashboard.ingestion.sessions.enabled", havingValue = "true")
+    public Sessionizer sessionizer(final StringRedisTemplate redisTemplate,
+                                   final RedisKeyConfig redisKeyConfig,
+                                   final IngestionConfig ingestionConfig) {
+        return new Sessionizer(redisTemplate, redisKeyConfig, ingestionConfig);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dashboard.ingestion.dimensions.enabled", havingValue = "true")
+    public DimensionCounter dimensionCounter(final StringRedisTemplate redisTemplate,
+                                             final RedisKeyConfig redisKeyConfig,
+                                             final IngestionConfig ingestionConfig,
+                                             final DimensionsConfig dimensionsConfig) {
+        return new DimensionCounter(redisTemplate, redisKeyConfig, ingestionConfig, dimensionsConfig);
+    }
+
+    @Bean
+    public IngestionRunner ingestionRunner(final EventSource eventSource,
+                                           final List<EventSink> eventSinks,
+                                           final IngestionConfig ingestionConfig) {
+        return new IngestionRunner(eventSource, eventSinks, ingestionConfig);
+    }
+}
@@ -0,0 +1,164 @@
+package com.liftlab.ingestion;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.ingestion.source.EventSource;
+import com.liftlab.models.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingestion pipeline, which polls the event source on a dedicated thread and hands every event to the sinks.
+ * @implNote The sinks are flushed when the flush interval elapsed or enough events are pending, and the source is
+ * committed only after every sink flushed. While a flush keeps failing no more events are received, so the memory
+ * held by the sinks stays bounded when redis is down: between two attempts a source which can pause, like Kafka,
+ * is paused and still polled, so that its consumer stays in the group, and the others are not polled at all.
+ */
+@Slf4j
+public class IngestionRunner implements SmartLifecycle {
+
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(1);
+
+    private final EventSource eventSource;
+
+    private final List<EventSink> eventSinks;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final AtomicLong ingestedEvents = new AtomicLong();
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    public IngestionRunner(final EventSource eventSource,
+                           final List<EventSink> eventSinks,
+                           final IngestionConfig ingestionConfig) {
+        this.eventSource = eventSource;
+        this.eventSinks = ImmutableList.copyOf(eventSinks);
+        this.ingestionConfig = ingestionConfig;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        log.info("Starting ingestion with sinks: {}", this.eventSinks);
+        this.running = true;
+        this.thread = new Thread(this::run, "ingestion");
+        this.thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        try {
+            this.thread.join(Duration.ofSeconds(30).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped ingestion after {} events", this.ingestedEvents.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Method to get the number of events flushed to all the sinks so far.
+     * @return The number of events
+     */
+    public long getIngestedEvents() {
+        return this.ingestedEvents.get();
+    }
+
+    private void run() {
+        final Duration pollTimeout = Duration.ofMillis(this.ingestionConfig.getPollTimeoutMillis());
+        final long flushIntervalNanos = Duration.ofMillis(this.ingestionConfig.getFlushIntervalMillis()).toNanos();
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        int pendingEvents = 0;
+
+        try {
+            while (this.running) {
+                try {
+                    final boolean flushDue = System.nanoTime() - nextFlush >= 0;
+                    if (pendingEvents > 0 && (flushDue || pendingEvents >= this.ingestionConfig.getFlushMaxEvents())) {
+                        this.flush();
+                        this.ingestedEvents.addAndGet(pendingEvents);
+                        pendingEvents = 0;
+                    }
+                    if (flushDue) {
+                        nextFlush = System.nanoTime() + flushIntervalNanos;
+                    }
+
+                    final List<UserEvent> userEvents = this.eventSource.poll(pollTimeout);
+                    for (final UserEvent userEvent : userEvents) {
+                        this.eventSinks.forEach(eventSink -> eventSink.accept(userEvent));
+                    }
+                    pendingEvents += userEvents.size();
+                } catch (Exception e) {
+                    log.error("Ingestion failed, {} events pending, retrying in {}", pendingEvents, FAILURE_BACKOFF, e);
+                    pendingEvents += this.backOff();
+                }
+            }
+
+            if (pendingEvents > 0) {
+                this.flush();
+                this.ingestedEvents.addAndGet(pendingEvents);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Failed to flush {} events on shutdown", pendingEvents, e);
+        } finally {
+            this.eventSource.close();
+        }
+    }
+
+    /**
+     * Method to wait before the next attempt, polling the source paused when it can pause.
+     * @return The number of events a paused source returned anyway, handed to the sinks
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private int backOff() throws InterruptedException {
+        final long end = System.nanoTime() + FAILURE_BACKOFF.toNanos();
+        int polledEvents = 0;
+        try {
+            if (this.eventSource.pause()) {
+                for (long remaining = end - System.nanoTime(); remaining > 0 && this.running;
+                     remaining = end - System.nanoTime()) {
+                    final List<UserEvent> userEvents = this.eventSource.poll(Duration.ofNanos(remaining));
+                    for (final UserEvent userEvent : userEvents) {
+                        this.eventSinks.forEach(eventSink -> eventSink.accept(userEvent));
+                    }
+                    polledEvents += userEvents.size();
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll the paused source", e);
+        } finally {
+            this.eventSource.resume();
+        }
+        Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())));
+        return polledEvents;
+    }
+
+    private void flush() {
+        this.eventSinks.forEach(EventSink::flush);
+        this.eventSource.commit();
+    }
+}
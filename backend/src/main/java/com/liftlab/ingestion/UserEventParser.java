@@ -0,0 +1,102 @@
+package com.liftlab.ingestion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.MinuteBuckets;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Parser and validator of the raw user events. An event is valid when it is a JSON object with all the fields of
+ * {@link UserEvent} as strings and an ISO-8601 timestamp, which are the same rules the python consumer applied.
+ */
+public class UserEventParser {
+
+    private static final List<String> REQUIRED_FIELDS =
+            ImmutableList.of("timestamp", "user_id", "event_type", "page_url", "session_id");
+
+    private final ObjectMapper objectMapper;
+
+    public UserEventParser(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Method to parse and validate a raw event.
+     * @param rawEvent The event as JSON
+     * @return The instance of UserEvent
+     * @throws IllegalArgumentException If the event is not valid
+     */
+    public UserEvent parse(final String rawEvent) {
+        final JsonNode event;
+        try {
+            event = this.objectMapper.readTree(rawEvent);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage(), e);
+        }
+        if (event == null || !event.isObject()) {
+            throw new IllegalArgumentException("Event should be a JSON object");
+        }
+
+        final List<String> missingFields = REQUIRED_FIELDS.stream()
+                .filter(field -> !event.has(field))
+                .toList();
+        if (!missingFields.isEmpty()) {
+            throw new IllegalArgumentException("Missing fields: " + missingFields);
+        }
+        REQUIRED_FIELDS.stream()
+                .filter(field -> !event.get(field).isTextual())
+                .findFirst()
+                .ifPresent(field -> {
+                    throw new IllegalArgumentException(String.format("Field '%s' should be str", field));
+                });
+
+        final UserEvent userEvent = UserEvent.builder()
+                .withTimestamp(event.get("timestamp").asText())
+                .withUserId(event.get("user_id").asText())
+                .withEventType(event.get("event_type").asText())
+                .withPageUrl(event.get("page_url").asText())
+                .withSessionId(event.get("session_id").asText())
+                .build();
+        minuteBucket(userEvent);
+        return userEvent;
+    }
+
+    /**
+     * Method to get the minute bucket of an event.
+     * @param userEvent The event
+     * @return The minute bucket in UTC
+     * @throws IllegalArgumentException If the timestamp is not ISO-8601
+     */
+    public static String minuteBucket(final UserEvent userEvent) {
+        return MinuteBuckets.format(LocalDateTime.ofInstant(instant(userEvent), ZoneOffset.UTC));
+    }
+
+    /**
+     * Method to get the time of an event.
+     * @param userEvent The event
+     * @implNote Timestamps without an offset are treated as UTC.
+     * @return The time of the event
+     * @throws IllegalArgumentException If the timestamp is not ISO-8601
+     */
+    public static Instant instant(final UserEvent userEvent) {
+        final String timestamp = userEvent.getTimestamp();
+        try {
+            return OffsetDateTime.parse(timestamp).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(timestamp).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException invalid) {
+                throw new IllegalArgumentException("Invalid timestamp: " + timestamp, invalid);
+            }
+        }
+    }
+}
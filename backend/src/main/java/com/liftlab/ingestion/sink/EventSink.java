@@ -0,0 +1,24 @@
+package com.liftlab.ingestion.sink;
+
+import com.liftlab.models.UserEvent;
+
+/**
+ * Consumer of the user events polled by the ingestion pipeline.
+ * @implNote Sinks are called from the single ingestion thread. A sink may buffer the accepted events, but it must
+ * have persisted or applied all of them when {@link #flush()} returns, as the events are acknowledged to the
+ * source afterwards.
+ */
+public interface EventSink {
+
+    /**
+     * Method to accept a valid event.
+     * @param userEvent The event
+     */
+    void accept(UserEvent userEvent);
+
+    /**
+     * Method to persist or apply the accepted events.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,125 @@
+package com.liftlab.ingestion.sink;
+
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.Granularity;
+import com.liftlab.service.MinuteBuckets;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory pre-aggregation of the user events per minute bucket, between two flushes.
+ * @implNote Thousands of events of the same minute collapse into one set of active users, one count per url, one
+ * set of visitors per url, one set of sessions per user and one count per url of each user, so a flush writes each
+ * redis key once no matter how many events it received.
+ */
+public class MinuteBucketAggregator {
+
+    private final Map<String, MinuteBucket> minuteBuckets = new LinkedHashMap<>();
+
+    private int events;
+
+    /**
+     * Method to add an event to its minute bucket.
+     * @param userEvent The event
+     */
+    public void add(final UserEvent userEvent) {
+        final MinuteBucket minuteBucket = this.minuteBuckets.computeIfAbsent(
+                UserEventParser.minuteBucket(userEvent), MinuteBucket::new);
+        minuteBucket.activeUsers.add(userEvent.getUserId());
+        minuteBucket.pageViews.merge(userEvent.getPageUrl(), 1L, Long::sum);
+        minuteBucket.userSessions.computeIfAbsent(userEvent.getUserId(), userId -> new HashSet<>())
+                .add(userEvent.getSessionId());
+        minuteBucket.pageVisitors.computeIfAbsent(userEvent.getPageUrl(), pageUrl -> new HashSet<>())
+                .add(userEvent.getUserId());
+        minuteBucket.userPageViews.computeIfAbsent(userEvent.getUserId(), userId -> new HashMap<>())
+                .merge(userEvent.getPageUrl(), 1L, Long::sum);
+        this.events++;
+    }
+
+    /**
+     * Method to get the aggregated minute buckets.
+     * @return Map of minute buckets by bucket.
+     */
+    public Map<String, MinuteBucket> getMinuteBuckets() {
+        return this.minuteBuckets;
+    }
+
+    /**
+     * Method to get the aggregated buckets of a granularity.
+     * @param granularity The granularity
+     * @implNote The rollups are merged from the minute buckets, so the cost depends on the distinct members of a
+     *           flush rather than on its number of events. A flush usually covers one or two minutes, so it writes
+     *           one bucket per rollup.
+     * @return Map of buckets by bucket.
+     */
+    public Map<String, MinuteBucket> getBuckets(final Granularity granularity) {
+        if (granularity == Granularity.MINUTE) {
+            return this.minuteBuckets;
+        }
+        final Map<String, MinuteBucket> buckets = new LinkedHashMap<>();
+        this.minuteBuckets.values().forEach(minuteBucket -> buckets
+                .computeIfAbsent(granularity.bucket(MinuteBuckets.parse(minuteBucket.bucket)), MinuteBucket::new)
+                .merge(minuteBucket));
+        return buckets;
+    }
+
+    /**
+     * Method to get the number of events aggregated since the last clear.
+     * @return The number of events
+     */
+    public int getEvents() {
+        return this.events;
+    }
+
+    public boolean isEmpty() {
+        return this.events == 0;
+    }
+
+    public void clear() {
+        this.minuteBuckets.clear();
+        this.events = 0;
+    }
+
+    /**
+     * Aggregated events of a minute, or of a rollup of minutes.
+     */
+    @Getter
+    public static class MinuteBucket {
+
+        private final String bucket;
+
+        private final Set<String> activeUsers = new HashSet<>();
+
+        private final Map<String, Long> pageViews = new HashMap<>();
+
+        private final Map<String, Set<String>> userSessions = new HashMap<>();
+
+        private final Map<String, Set<String>> pageVisitors = new HashMap<>();
+
+        private final Map<String, Map<String, Long>> userPageViews = new HashMap<>();
+
+        MinuteBucket(final String bucket) {
+            this.bucket = bucket;
+        }
+
+        private MinuteBucket merge(final MinuteBucket other) {
+            this.activeUsers.addAll(other.activeUsers);
+            other.pageViews.forEach((pageUrl, count) -> this.pageViews.merge(pageUrl, count, Long::sum));
+            other.userSessions.forEach((userId, sessions) ->
+                    this.userSessions.computeIfAbsent(userId, key -> new HashSet<>()).addAll(sessions));
+            other.pageVisitors.forEach((pageUrl, visitors) ->
+                    this.pageVisitors.computeIfAbsent(pageUrl, key -> new HashSet<>()).addAll(visitors));
+            other.userPageViews.forEach((userId, pageViews) -> {
+                final Map<String, Long> merged = this.userPageViews.computeIfAbsent(userId, key -> new HashMap<>());
+                pageViews.forEach((pageUrl, count) -> merged.merge(pageUrl, count, Long::sum));
+            });
+            return this;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.liftlab.ingestion.sink;
+
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.KeyFamily;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SessionsLayout;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.Granularity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Event sink which writes the per minute keys read by the dashboard:
+ * active_users:{minute} (SET of user ids), active_users_hll:{minute} (HyperLogLog of user ids),
+ * page_views:{minute} (ZSET of urls by count), user_sessions:{user}:{minute} (SET of session ids),
+ * page_visitors:{url}:{minute} (HyperLogLog of the user ids of a page) and user_pages:{user}:{minute} (ZSET of the
+ * urls of a user by count). With the PER_BUCKET and MIGRATING sessions layouts, see {@link SessionsLayout}, the
+ * sessions are written to user_session_pairs:{minute} (ZSET of user and session id pairs) instead of the
+ * user_sessions keys.
+ * The same keys are written for the 5 minute, hourly and daily rollups, for example active_users:1h:{hour}, so
+ * that long windows are read from a few coarse keys, see {@link Granularity}. Only the key families declared in
+ * dashboard.ingestion.rollups have rollups, see {@link KeyFamily}: the per user keys, user_sessions and user_pages,
+ * cost a key per user and rollup, kept for days, and are left out by default.
+ * @implNote The events are pre-aggregated per minute bucket and every flush is sent as a single pipeline, with one
+ * SADD/ZINCRBY per member and one EXPIRE per key. When a flush fails the aggregated events are kept and retried
+ * with the next flush.
+ */
+@Slf4j
+public class RedisEventSink implements EventSink {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final MinuteBucketAggregator aggregator = new MinuteBucketAggregator();
+
+    private final SessionsLayout sessionsLayout;
+
+    /** Key families written for the rollups. */
+    private final Set<KeyFamily> rollupFamilies;
+
+    public RedisEventSink(final StringRedisTemplate redisTemplate,
+                          final RedisKeyConfig redisKeyConfig,
+                          final IngestionConfig ingestionConfig) {
+        this.redisTemplate = redisTemplate;
+        this.redisKeyConfig = redisKeyConfig;
+        this.ingestionConfig = ingestionConfig;
+        this.sessionsLayout = redisKeyConfig.getUserSessionsLayout();
+        this.rollupFamilies = ingestionConfig.getRollupFamilies();
+    }
+
+    @Override
+    public void accept(final UserEvent userEvent) {
+        this.aggregator.add(userEvent);
+    }
+
+    @Override
+    public void flush() {
+        if (this.aggregator.isEmpty()) {
+            return;
+        }
+        final Collection<MinuteBucketAggregator.MinuteBucket> minuteBuckets =
+                this.aggregator.getMinuteBuckets().values();
+        final Map<Granularity, Collection<MinuteBucketAggregator.MinuteBucket>> rollups =
+                new EnumMap<>(Granularity.class);
+        Granularity.ROLLUPS.forEach(granularity ->
+                rollups.put(granularity, this.aggregator.getBuckets(granularity).values()));
+        final long start = System.nanoTime();
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                final RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                final Ttls minuteTtls = new Ttls(
+                        Duration.ofSeconds(ingestionConfig.getActiveUsersTtlSeconds()),
+                        Duration.ofSeconds(ingestionConfig.getActiveUsersHllTtlSeconds()),
+                        Duration.ofSeconds(ingestionConfig.getPageViewsTtlSeconds()),
+                        Duration.ofSeconds(ingestionConfig.getUserSessionsTtlSeconds()),
+                        Duration.ofSeconds(ingestionConfig.getPageVisitorsTtlSeconds()),
+                        Duration.ofSeconds(ingestionConfig.getUserPagesTtlSeconds()));
+                final Set<KeyFamily> minuteFamilies = EnumSet.allOf(KeyFamily.class);
+                minuteBuckets.forEach(minuteBucket ->
+                        write(stringOperations, minuteBucket, minuteFamilies, minuteTtls));
+                rollups.forEach((granularity, buckets) -> {
+                    final Duration ttl = Duration.ofSeconds(ingestionConfig.getRollupTtlSeconds(granularity));
+                    final Ttls rollupTtls = new Ttls(ttl, ttl, ttl, ttl, ttl, ttl);
+                    buckets.forEach(bucket -> write(stringOperations, bucket, rollupFamilies, rollupTtls));
+                });
+                return null;
+            }
+        });
+        log.debug("Flushed {} events of {} minute buckets in {} ms", this.aggregator.getEvents(),
+                minuteBuckets.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        this.aggregator.clear();
+    }
+
+    /**
+     * Method to queue the writes of a bucket on the pipeline.
+     * @param operations The pipelined operations
+     * @param minuteBucket The aggregated events of the minute, or of the rollup
+     * @param families The key families to be written
+     * @param ttls The TTLs of the keys
+     */
+    private void write(final RedisOperations<String, String> operations,
+                       final MinuteBucketAggregator.MinuteBucket minuteBucket,
+                       final Set<KeyFamily> families,
+                       final Ttls ttls) {
+        final String bucket = minuteBucket.getBucket();
+
+        // Active Users
+        if (families.contains(KeyFamily.ACTIVE_USERS)) {
+            final String activeUsersKey = String.format("%s:%s", this.redisKeyConfig.getActiveUsersKey(), bucket);
+            operations.opsForSet().add(activeUsersKey, minuteBucket.getActiveUsers().toArray(String[]::new));
+            operations.expire(activeUsersKey, ttls.activeUsers());
+        }
+
+        // Approximate Active Users
+        if (families.contains(KeyFamily.ACTIVE_USERS_HLL)) {
+            final String activeUsersHllKey = String.format("%s:%s", this.redisKeyConfig.getActiveUsersHllKey(), bucket);
+            operations.opsForHyperLogLog().add(activeUsersHllKey, minuteBucket.getActiveUsers().toArray(String[]::new));
+            operations.expire(activeUsersHllKey, ttls.activeUsersHll());
+        }
+
+        // Page Views by URL
+        if (families.contains(KeyFamily.PAGE_VIEWS)) {
+            final String pageViewsKey = String.format("%s:%s", this.redisKeyConfig.getPageViewsKey(), bucket);
+            minuteBucket.getPageViews().forEach((pageUrl, count) ->
+                    operations.opsForZSet().incrementScore(pageViewsKey, pageUrl, count));
+            operations.expire(pageViewsKey, ttls.pageViews());
+        }
+
+        // Active Sessions per User
+        if (families.contains(KeyFamily.USER_SESSIONS)) {
+            if (this.sessionsLayout == SessionsLayout.PER_USER) {
+                minuteBucket.getUserSessions().forEach((userId, sessions) -> {
+                    final String userSessionsKey = String.format("%s:%s",
+                            this.redisKeyConfig.getUserSessionsKey(userId), bucket);
+                    operations.opsForSet().add(userSessionsKey, sessions.toArray(String[]::new));
+                    operations.expire(userSessionsKey, ttls.userSessions());
+                });
+            } else {
+                final String userSessionPairsKey = String.format("%s:%s",
+                        this.redisKeyConfig.getUserSessionPairsKey(), bucket);
+                operations.opsForZSet().add(userSessionPairsKey, minuteBucket.getUserSessions().entrySet().stream()
+                        .flatMap(userSessions -> userSessions.getValue().stream()
+                                .map(sessionId -> ZSetOperations.TypedTuple.of(
+                                        SessionsLayout.pair(userSessions.getKey(), sessionId), 0.0)))
+                        .collect(Collectors.toSet()));
+                operations.expire(userSessionPairsKey, ttls.userSessions());
+            }
+        }
+
+        // Approximate Unique Visitors per URL
+        if (families.contains(KeyFamily.PAGE_VISITORS)) {
+            minuteBucket.getPageVisitors().forEach((pageUrl, visitors) -> {
+                final String pageVisitorsKey = String.format("%s:%s",
+                        this.redisKeyConfig.getPageVisitorsKey(pageUrl), bucket);
+                operations.opsForHyperLogLog().add(pageVisitorsKey, visitors.toArray(String[]::new));
+                operations.expire(pageVisitorsKey, ttls.pageVisitors());
+            });
+        }
+
+        // Page Views by URL per User
+        if (families.contains(KeyFamily.USER_PAGES)) {
+            minuteBucket.getUserPageViews().forEach((userId, pageViews) -> {
+                final String userPagesKey = String.format("%s:%s", this.redisKeyConfig.getUserPagesKey(userId), bucket);
+                pageViews.forEach((pageUrl, count) ->
+                        operations.opsForZSet().incrementScore(userPagesKey, pageUrl, count));
+                operations.expire(userPagesKey, ttls.userPages());
+            });
+        }
+    }
+
+    /**
+     * TTLs of the keys of a bucket.
+     */
+    private record Ttls(Duration activeUsers, Duration activeUsersHll, Duration pageViews, Duration userSessions,
+                        Duration pageVisitors, Duration userPages) {
+    }
+}
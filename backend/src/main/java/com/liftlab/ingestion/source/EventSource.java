@@ -0,0 +1,48 @@
+package com.liftlab.ingestion.source;
+
+import com.liftlab.models.UserEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Source of user events for the ingestion pipeline.
+ * @implNote Sources are polled by a single thread. Events returned by {@link #poll(Duration)} are acknowledged with
+ * {@link #commit()} only after they are written by every sink, so a source which supports replay (Kafka) delivers
+ * them at least once.
+ */
+public interface EventSource extends AutoCloseable {
+
+    /**
+     * Method to poll the next batch of valid events.
+     * @param timeout The maximum time to wait when no events are available
+     * @return List of events, empty when none arrived within the timeout.
+     */
+    List<UserEvent> poll(Duration timeout);
+
+    /**
+     * Method to acknowledge all the events polled so far.
+     */
+    default void commit() {
+    }
+
+    /**
+     * Method to stop receiving events while the sinks cannot flush, until {@link #resume()}.
+     * @implNote A paused source must still be polled, the polls then returning no events, when it has to show it is
+     * alive, like a Kafka consumer which is removed from its group after max.poll.interval.ms without a poll.
+     * @return True when the source is paused and must be polled, false when it cannot pause and must not be polled
+     */
+    default boolean pause() {
+        return false;
+    }
+
+    /**
+     * Method to receive events again after {@link #pause()}.
+     */
+    default void resume() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
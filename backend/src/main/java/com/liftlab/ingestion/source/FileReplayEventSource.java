@@ -0,0 +1,105 @@
+package com.liftlab.ingestion.source;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.models.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event source which replays a file with one JSON event per line, for example a dump of the Kafka topic. Invalid
+ * lines are logged and dropped, like invalid Kafka records.
+ */
+@Slf4j
+public class FileReplayEventSource implements EventSource {
+
+    private final Path path;
+
+    private final UserEventParser userEventParser;
+
+    private final int maxPollRecords;
+
+    private final boolean loop;
+
+    private BufferedReader reader;
+
+    /** Whether the current pass over the file returned any valid event, a loop stops on passes without one. */
+    private boolean validEventsInPass;
+
+    public FileReplayEventSource(final Path path,
+                                 final UserEventParser userEventParser,
+                                 final int maxPollRecords,
+                                 final boolean loop) {
+        this.path = path;
+        this.userEventParser = userEventParser;
+        this.maxPollRecords = maxPollRecords;
+        this.loop = loop;
+    }
+
+    @Override
+    public List<UserEvent> poll(final Duration timeout) {
+        try {
+            if (this.reader == null) {
+                this.open();
+            }
+            final List<UserEvent> userEvents = new ArrayList<>();
+            while (userEvents.size() < this.maxPollRecords) {
+                final String line = this.reader.readLine();
+                if (line == null) {
+                    if (!this.loop || !this.validEventsInPass) {
+                        break;
+                    }
+                    this.close();
+                    this.open();
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    userEvents.add(this.userEventParser.parse(line));
+                    this.validEventsInPass = true;
+                } catch (IllegalArgumentException e) {
+                    log.warn("Invalid event: {} ({})", line, e.getMessage());
+                }
+            }
+            if (userEvents.isEmpty()) {
+                // End of the file, behave like an idle source.
+                Thread.sleep(timeout.toMillis());
+                return ImmutableList.of();
+            }
+            return userEvents;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay events from " + this.path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ImmutableList.of();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.reader != null) {
+            try {
+                this.reader.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", this.path, e);
+            }
+            this.reader = null;
+        }
+    }
+
+    private void open() throws IOException {
+        this.reader = Files.newBufferedReader(this.path, StandardCharsets.UTF_8);
+        this.validEventsInPass = false;
+    }
+}
@@ -0,0 +1,74 @@
+package com.liftlab.ingestion.source;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.models.UserEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event source backed by an in-memory queue. Events are published by the same process, which makes it suitable
+ * for tests and offline load generation.
+ */
+public class InMemoryEventSource implements EventSource {
+
+    private final BlockingQueue<UserEvent> queue;
+
+    private final int maxPollRecords;
+
+    public InMemoryEventSource(final int capacity, final int maxPollRecords) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    /**
+     * Method to publish an event, waiting for space when the queue is full.
+     * @param userEvent The event
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void publish(final UserEvent userEvent) throws InterruptedException {
+        this.queue.put(userEvent);
+    }
+
+    /**
+     * Method to publish events, waiting for space when the queue is full.
+     * @param userEvents The events
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void publishAll(final Collection<UserEvent> userEvents) throws InterruptedException {
+        for (final UserEvent userEvent : userEvents) {
+            this.queue.put(userEvent);
+        }
+    }
+
+    /**
+     * Method to get the number of events waiting to be polled.
+     * @return The number of events
+     */
+    public int size() {
+        return this.queue.size();
+    }
+
+    @Override
+    public List<UserEvent> poll(final Duration timeout) {
+        final UserEvent first;
+        try {
+            first = this.queue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ImmutableList.of();
+        }
+        if (first == null) {
+            return ImmutableList.of();
+        }
+        final List<UserEvent> userEvents = new ArrayList<>();
+        userEvents.add(first);
+        this.queue.drainTo(userEvents, this.maxPollRecords - 1);
+        return userEvents;
+    }
+}
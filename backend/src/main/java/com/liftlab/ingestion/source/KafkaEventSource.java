@@ -0,0 +1,178 @@
+package com.liftlab.ingestion.source;
+
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.models.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Event source which consumes the user events topic. Offsets are committed only on {@link #commit()}, that is
+ * after the polled events are flushed, so events are delivered at least once across restarts.
+ * When a replay period is set, the consumer starts from the events of that period instead of the committed offsets
+ * whenever partitions get assigned. This is used by the in-memory consumers, which keep no state across restarts.
+ * Without a group id the consumer joins no group: it is assigned all the partitions of the topic, as they are when
+ * it starts, and commits no offsets, so the per-instance consumers of the in-memory views leave nothing behind on the
+ * broker when they stop.
+ * While the sinks cannot flush the partitions are paused, the ones assigned by a rebalance included, and the
+ * consumer keeps polling, so it stays in its group however long redis is down instead of being removed after
+ * max.poll.interval.ms and having its partitions delivered again elsewhere.
+ */
+@Slf4j
+public class KafkaEventSource implements EventSource {
+
+    private final KafkaConsumer<String, String> consumer;
+
+    private final UserEventParser userEventParser;
+
+    private final boolean grouped;
+
+    private boolean paused;
+
+    public KafkaEventSource(final String bootstrapServers,
+                            final String topic,
+                            final String groupId,
+                            final int maxPollRecords,
+                            final UserEventParser userEventParser) {
+        this(bootstrapServers, topic, groupId, maxPollRecords, userEventParser, Duration.ZERO, Map.of());
+    }
+
+    public KafkaEventSource(final String bootstrapServers,
+                            final String topic,
+                            final String groupId,
+                            final int maxPollRecords,
+                            final UserEventParser userEventParser,
+                            final Duration replay,
+                            final Map<String, Object> overrides) {
+        final Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        this.grouped = !groupId.isEmpty();
+        if (this.grouped) {
+            properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        }
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.putAll(overrides);
+
+        this.consumer = new KafkaConsumer<>(properties);
+        this.userEventParser = userEventParser;
+        final RebalanceListener rebalanceListener = new RebalanceListener(replay);
+        if (this.grouped) {
+            this.consumer.subscribe(Set.of(topic), rebalanceListener);
+            log.info("Consuming topic {} from {} with consumer group {}", topic, bootstrapServers, groupId);
+            return;
+        }
+        final List<TopicPartition> partitions = this.consumer.partitionsFor(topic).stream()
+                .map(partitionInfo -> new TopicPartition(topic, partitionInfo.partition()))
+                .toList();
+        if (partitions.isEmpty()) {
+            this.consumer.close();
+            throw new IllegalStateException("Topic " + topic + " has no partitions");
+        }
+        this.consumer.assign(partitions);
+        rebalanceListener.onPartitionsAssigned(partitions);
+        log.info("Consuming the {} partitions of topic {} from {} without a consumer group", partitions.size(), topic,
+                bootstrapServers);
+    }
+
+    @Override
+    public List<UserEvent> poll(final Duration timeout) {
+        final ConsumerRecords<String, String> records = this.consumer.poll(timeout);
+        final List<UserEvent> userEvents = new ArrayList<>(records.count());
+        for (final ConsumerRecord<String, String> record : records) {
+            try {
+                userEvents.add(this.userEventParser.parse(record.value()));
+            } catch (IllegalArgumentException e) {
+                // Just log these, the audit consumer keeps a copy of every invalid event.
+                log.warn("Invalid event: {} ({})", record.value(), e.getMessage());
+            }
+        }
+        return userEvents;
+    }
+
+    @Override
+    public void commit() {
+        if (this.grouped) {
+            this.consumer.commitSync();
+        }
+    }
+
+    @Override
+    public boolean pause() {
+        this.paused = true;
+        this.consumer.pause(this.consumer.assignment());
+        return true;
+    }
+
+    @Override
+    public void resume() {
+        this.paused = false;
+        this.consumer.resume(this.consumer.paused());
+    }
+
+    @Override
+    public void close() {
+        this.consumer.close();
+    }
+
+    /**
+     * Rebalance listener which pauses the assigned partitions while the source is paused, and seeks them to the
+     * first event of the replay period when one is set.
+     */
+    private final class RebalanceListener implements ConsumerRebalanceListener {
+
+        private final Duration replay;
+
+        private RebalanceListener(final Duration replay) {
+            this.replay = replay;
+        }
+
+        @Override
+        public void onPartitionsAssigned(final Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
+            if (this.replay.isZero()) {
+                return;
+            }
+            final long from = Instant.now().minus(this.replay).toEpochMilli();
+            final Map<TopicPartition, Long> timestamps = new HashMap<>();
+            partitions.forEach(partition -> timestamps.put(partition, from));
+            final Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(timestamps);
+            final List<TopicPartition> atEnd = new ArrayList<>();
+            offsets.forEach((partition, offset) -> {
+                if (offset == null) {
+                    // No event in the replay period yet.
+                    atEnd.add(partition);
+                } else {
+                    consumer.seek(partition, offset.offset());
+                }
+            });
+            consumer.seekToEnd(atEnd);
+            log.info("Replaying the last {} of {} partitions", this.replay, partitions.size());
+        }
+
+        @Override
+        public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
+        }
+    }
+}
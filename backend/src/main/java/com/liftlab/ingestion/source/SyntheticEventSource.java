@@ -0,0 +1,169 @@
+package com.liftlab.ingestion.source;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.models.UserEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Event source which generates page views at a fixed rate, to size redis and the API under a production like load.
+ * @implNote The pages follow a Zipf distribution over the urls, a few pages take most of the views like on a real
+ * site, and are sampled by a binary search of the cumulative distribution. The users are drawn uniformly, and every
+ * event ends the session of its user with a probability of 1 / pages-per-session, so the number of pages of a session
+ * is geometric and the sessions keep churning. The session number of every user is an int, 4 MB per million users.
+ * The events are stamped with the current time and released at the rate since the first poll: a pipeline which falls
+ * behind gets full batches until it catches up, so the events it ingests per second are its throughput. The events
+ * only depend on the seed, apart from their timestamps.
+ */
+public class SyntheticEventSource implements EventSource {
+
+    private final double rate;
+
+    private final int maxPollRecords;
+
+    private final double sessionEndProbability;
+
+    private final double[] urlDistribution;
+
+    /** Current session number of every user. */
+    private final int[] sessions;
+
+    private final SplittableRandom random;
+
+    private final Clock clock;
+
+    private long startMillis = -1;
+
+    /** Written by the polling thread only. */
+    private volatile long emitted;
+
+    /**
+     * @param rate The number of events per second, 0 for as many as polled
+     * @param users The number of users
+     * @param urls The number of urls
+     * @param zipfExponent The exponent of the Zipf distribution of the urls, 0 for a uniform distribution
+     * @param pagesPerSession The mean number of pages of a session
+     * @param seed The seed of the generator
+     * @param maxPollRecords The maximum number of events per poll
+     */
+    public SyntheticEventSource(final double rate,
+                                final int users,
+                                final int urls,
+                                final double zipfExponent,
+                                final double pagesPerSession,
+                                final long seed,
+                                final int maxPollRecords) {
+        this(rate, users, urls, zipfExponent, pagesPerSession, seed, maxPollRecords, Clock.systemUTC());
+    }
+
+    SyntheticEventSource(final double rate,
+                         final int users,
+                         final int urls,
+                         final double zipfExponent,
+                         final double pagesPerSession,
+                         final long seed,
+                         final int maxPollRecords,
+                         final Clock clock) {
+        if (users <= 0 || urls <= 0 || pagesPerSession < 1 || maxPollRecords <= 0) {
+            throw new IllegalArgumentException("Invalid synthetic load: " + users + " users, " + urls + " urls, "
+                    + pagesPerSession + " pages per session");
+        }
+        this.rate = Math.max(0, rate);
+        this.maxPollRecords = maxPollRecords;
+        this.sessionEndProbability = 1 / pagesPerSession;
+        this.urlDistribution = zipf(urls, zipfExponent);
+        this.sessions = new int[users];
+        this.random = new SplittableRandom(seed);
+        this.clock = clock;
+    }
+
+    @Override
+    public List<UserEvent> poll(final Duration timeout) {
+        final long now = this.clock.millis();
+        if (this.startMillis < 0) {
+            this.startMillis = now;
+        }
+        long due = this.due(now);
+        if (due == 0 && !timeout.isZero()) {
+            // Waits for the next event, within the timeout.
+            final long nextMillis = (long) Math.ceil((this.emitted + 1) * 1000 / this.rate)
+                    - (now - this.startMillis);
+            try {
+                Thread.sleep(Math.min(timeout.toMillis(), Math.max(1, nextMillis)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ImmutableList.of();
+            }
+            due = this.due(this.clock.millis());
+        }
+        if (due == 0) {
+            return ImmutableList.of();
+        }
+        final String timestamp = Instant.ofEpochMilli(this.clock.millis()).toString();
+        final List<UserEvent> userEvents = new ArrayList<>((int) due);
+        for (int index = 0; index < due; index++) {
+            userEvents.add(this.next(timestamp));
+        }
+        this.emitted += due;
+        return userEvents;
+    }
+
+    /**
+     * Method to get the number of events generated so far.
+     * @return The number of events
+     */
+    public long getEmitted() {
+        return this.emitted;
+    }
+
+    private long due(final long now) {
+        if (this.rate == 0) {
+            return this.maxPollRecords;
+        }
+        final long total = (long) ((now - this.startMillis) * this.rate / 1000);
+        return Math.min(this.maxPollRecords, Math.max(0, total - this.emitted));
+    }
+
+    private UserEvent next(final String timestamp) {
+        final int user = this.random.nextInt(this.sessions.length);
+        final String sessionId = "sess_" + user + "_" + this.sessions[user];
+        if (this.random.nextDouble() < this.sessionEndProbability) {
+            // The session ends with this page, the next event of the user opens another one.
+            this.sessions[user]++;
+        }
+        final int url = Arrays.binarySearch(this.urlDistribution, this.random.nextDouble());
+        return UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId("usr_" + user)
+                .withEventType("page_view")
+                .withPageUrl("/page/" + (url < 0 ? -url - 1 : url))
+                .withSessionId(sessionId)
+                .build();
+    }
+
+    /**
+     * Method to compute the cumulative distribution of a Zipf distribution.
+     * @param size The number of ranks
+     * @param exponent The exponent, the probability of the rank k is proportional to 1 / k^exponent
+     * @return The probability of every rank or a lower one, 1 for the last one
+     */
+    static double[] zipf(final int size, final double exponent) {
+        final double[] distribution = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            distribution[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            distribution[rank] /= sum;
+        }
+        distribution[size - 1] = 1;
+        return distribution;
+    }
+}
@@ -0,0 +1,21 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class ActiveUsersCountResponse {
+
+    private long activeUsers;
+
+    private CountMode mode;
+
+    /**
+     * Relative standard error of the count, 0 for exact counts.
+     */
+    private double standardError;
+
+}
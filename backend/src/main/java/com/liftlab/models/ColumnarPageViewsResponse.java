@@ -0,0 +1,22 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * {@link PageViewsResponse} with one list per field instead of one object per page, for the binary encoding:
+ * the count of pageUrls[i] is counts[i], in the same order.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class ColumnarPageViewsResponse {
+
+    private List<String> pageUrls;
+
+    private long[] counts;
+
+}
@@ -0,0 +1,32 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * {@link SummaryResponse} with the lists of {@link ColumnarUserDetailsResponse} and
+ * {@link ColumnarPageViewsResponse}, for the binary encoding.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class ColumnarSummaryResponse {
+
+    private String minute;
+
+    private int activeUsers;
+
+    private long sessions;
+
+    private List<String> userIds;
+
+    private int[] sessionCounts;
+
+    private List<String> pageUrls;
+
+    private long[] counts;
+
+}
@@ -0,0 +1,27 @@
+package com.liftlab.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * {@link UserDetailsResponse} with one list per field instead of one object per user, for the binary encoding:
+ * the session count of userIds[i] is sessionCounts[i].
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class ColumnarUserDetailsResponse {
+
+    private List<String> userIds;
+
+    private int[] sessionCounts;
+
+    /** Cursor of the next page of a paginated request, absent on the last page. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+}
@@ -0,0 +1,46 @@
+package com.liftlab.models;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Mode of the active users count.
+ */
+public enum CountMode {
+
+    /**
+     * Exact count, a SUNION of the active user sets of the window.
+     */
+    EXACT(0.0),
+
+    /**
+     * Approximate count, a PFCOUNT of the active user HyperLogLogs of the window. Redis HyperLogLogs use 16384
+     * registers, so the standard error is 1.04 / sqrt(16384) = 0.81%: about 68% of the counts are within 0.81% of
+     * the exact count, 95% within 1.63% and 99.7% within 2.44%.
+     */
+    APPROXIMATE(0.0081);
+
+    private final double standardError;
+
+    CountMode(final double standardError) {
+        this.standardError = standardError;
+    }
+
+    public double getStandardError() {
+        return this.standardError;
+    }
+
+    /**
+     * Method to get the mode from its name, ignoring the case.
+     * @param value The name of the mode, for example 'approximate'
+     * @return The mode
+     * @throws IllegalArgumentException If there is no such mode
+     */
+    public static CountMode fromValue(final String value) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().equals(value.trim().toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown count mode: " + value + ", expected exact or approximate"));
+    }
+}
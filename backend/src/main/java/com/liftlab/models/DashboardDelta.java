@@ -0,0 +1,27 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Changes of the dashboard since the previous sequence. Users are added or updated by user id, page views are
+ * replaced by rank and the page views beyond pageViewsSize are dropped.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class DashboardDelta {
+
+    private long sequence;
+
+    private List<UserDetails> userDetails;
+
+    private List<String> removedUserIds;
+
+    private List<RankedPageView> pageViews;
+
+    private int pageViewsSize;
+}
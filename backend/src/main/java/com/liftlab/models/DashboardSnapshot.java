@@ -0,0 +1,22 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Full state of the dashboard, sent on subscribe and whenever a subscriber missed deltas.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class DashboardSnapshot {
+
+    private long sequence;
+
+    private List<UserDetails> userDetails;
+
+    private List<PageViewCount> pageViews;
+}
@@ -0,0 +1,23 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Number of events of a group of the dimension counts.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class DimensionCount {
+
+    /**
+     * Value of every dimension of the group by its name, '(other)' for the values past the cardinality cap.
+     */
+    private Map<String, String> dimensions;
+
+    private long count;
+}
@@ -0,0 +1,24 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top groups of the events of a window by the values of some dimensions, among the events matching the filters.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class DimensionCountsResponse {
+
+    private List<String> groupBy;
+
+    private Map<String, String> filters;
+
+    private List<DimensionCount> counts;
+
+}
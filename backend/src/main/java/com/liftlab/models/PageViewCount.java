@@ -11,5 +11,5 @@ public class PageViewCount {
 
     private String pageUrl;
 
-    private int count;
+    private long count;
 }
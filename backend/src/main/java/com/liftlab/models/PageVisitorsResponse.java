@@ -0,0 +1,21 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class PageVisitorsResponse {
+
+    private String pageUrl;
+
+    private long uniqueVisitors;
+
+    /**
+     * Relative standard error of the count, see {@link CountMode#APPROXIMATE}.
+     */
+    private double standardError;
+
+}
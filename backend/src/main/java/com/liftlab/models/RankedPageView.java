@@ -0,0 +1,17 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class RankedPageView {
+
+    private int rank;
+
+    private String pageUrl;
+
+    private long count;
+}
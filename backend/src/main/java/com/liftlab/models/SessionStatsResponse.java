@@ -0,0 +1,26 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Aggregates of the sessions closed during a window.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class SessionStatsResponse {
+
+    private long sessions;
+
+    private double averageDurationSeconds;
+
+    private double pagesPerSession;
+
+    /**
+     * Share of the sessions with a single page view, from 0 to 1.
+     */
+    private double bounceRate;
+
+}
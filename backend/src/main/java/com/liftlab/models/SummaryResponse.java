@@ -0,0 +1,29 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Active users, their sessions and the top pages, read from the same minute buckets.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class SummaryResponse {
+
+    /** Latest minute bucket of the windows, the minute the summary belongs to. */
+    private String minute;
+
+    private int activeUsers;
+
+    /** Sum of the session counts of the active users. */
+    private long sessions;
+
+    private List<UserDetails> userDetails;
+
+    private List<PageViewCount> pageViews;
+
+}
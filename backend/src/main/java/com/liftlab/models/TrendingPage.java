@@ -0,0 +1,26 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Page views of a page over the trending window and the window before it.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class TrendingPage {
+
+    private String pageUrl;
+
+    private long views;
+
+    private long previousViews;
+
+    /**
+     * Growth of the views over the previous window, 1.0 for twice the views. The previous views count as at least
+     * dashboard.config.trending.min-views, so that a new page does not grow infinitely.
+     */
+    private double growth;
+}
@@ -0,0 +1,26 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Pages whose views grew the most over the trending window, against the window before it.
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class TrendingPagesResponse {
+
+    /**
+     * Latest minute bucket of the trending window.
+     */
+    private String minute;
+
+    private int windowMinutes;
+
+    private List<TrendingPage> pages;
+
+}
@@ -1,5 +1,6 @@
 package com.liftlab.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
@@ -13,4 +14,8 @@ public class UserDetailsResponse {
 
     private List<UserDetails> userDetails;
 
+    /** Cursor of the next page of a paginated request, absent on the last page. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
 }
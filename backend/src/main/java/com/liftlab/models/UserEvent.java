@@ -0,0 +1,34 @@
+package com.liftlab.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Event emitted by the producers for every user interaction, for example
+ * {"timestamp": "2025-08-07T16:34:10.123+00:00", "user_id": "usr_1", "event_type": "page_view",
+ * "page_url": "/products/electronics", "session_id": "sess_51"}
+ */
+@Getter
+@Builder(setterPrefix = "with")
+@Jacksonized
+@ToString
+public class UserEvent {
+
+    @JsonProperty("timestamp")
+    private String timestamp;
+
+    @JsonProperty("user_id")
+    private String userId;
+
+    @JsonProperty("event_type")
+    private String eventType;
+
+    @JsonProperty("page_url")
+    private String pageUrl;
+
+    @JsonProperty("session_id")
+    private String sessionId;
+}
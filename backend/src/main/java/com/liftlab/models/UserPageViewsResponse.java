@@ -0,0 +1,18 @@
+package com.liftlab.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Builder(setterPrefix = "with")
+@ToString
+public class UserPageViewsResponse {
+
+    private String userId;
+
+    private List<PageViewCount> pageViews;
+
+}
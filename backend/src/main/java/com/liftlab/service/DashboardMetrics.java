@@ -0,0 +1,181 @@
+package com.liftlab.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the dashboard read paths, exposed at /actuator/prometheus.
+ * @implNote The meters are registered once per command and endpoint and cached, so recording costs a map lookup
+ * and a clock reading, next to a redis round trip. The timers publish histogram buckets, so percentiles can be
+ * aggregated across instances in Prometheus.
+ * <ul>
+ *     <li>dashboard.redis.command: timer of every redis command or pipeline, tagged by command and endpoint.</li>
+ *     <li>dashboard.window.keys: number of redis keys of the last window read, tagged by endpoint.</li>
+ *     <li>dashboard.union.cardinality: cardinality of the last union of the window, tagged by endpoint.</li>
+ *     <li>dashboard.redis.temp.keys: number of temporary keys created in redis, tagged by endpoint.</li>
+ *     <li>dashboard.snapshot.cache: number of lookups of the snapshot cache, tagged by endpoint and result: hit,
+ *     coalesced on a computation in flight, miss, or stale when the last good snapshot is served instead.</li>
+ *     <li>dashboard.circuit.breaker.state: state of the redis circuit breaker, 0 closed, 1 open and 2 half
+ *     open.</li>
+ *     <li>dashboard.circuit.breaker.rejections: number of redis calls not made because the breaker is open.</li>
+ * </ul>
+ */
+@Component
+public class DashboardMetrics {
+
+    public static final String ACTIVE_USERS = "active-users";
+
+    public static final String ACTIVE_USERS_PAGE = "active-users-page";
+
+    public static final String ACTIVE_USERS_STREAM = "active-users-stream";
+
+    public static final String ACTIVE_USERS_COUNT = "active-users-count";
+
+    public static final String PAGE_VIEWS = "page-views";
+
+    public static final String PAGE_VISITORS = "page-visitors";
+
+    public static final String USER_PAGE_VIEWS = "user-page-views";
+
+    public static final String SESSION_STATS = "session-stats";
+
+    public static final String SUMMARY = "summary";
+
+    public static final String DIMENSIONS = "dimensions";
+
+    public static final String TRENDING = "trending";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> windowKeys = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> unionCardinalities = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> tempKeys = new ConcurrentHashMap<>();
+
+    private final Map<MeterKey, Counter> snapshotCacheLookups = new ConcurrentHashMap<>();
+
+    private final Counter circuitBreakerRejections;
+
+    public DashboardMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerRejections = Counter.builder("dashboard.circuit.breaker.rejections")
+                .description("Number of redis calls not made because the circuit breaker is open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Method to time a redis call.
+     * @param command The redis command, or 'pipeline:COMMAND' for a pipeline of commands
+     * @param endpoint The endpoint the call is made for
+     * @param call The call
+     * @return The result of the call
+     */
+    public <T> T time(final String command, final String endpoint, final Supplier<T> call) {
+        final Timer timer = this.timers.computeIfAbsent(new MeterKey(command, endpoint), key -> Timer
+                .builder("dashboard.redis.command")
+                .description("Latency of the redis calls of the dashboard")
+                .tag("command", key.name())
+                .tag("endpoint", key.endpoint())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(this.meterRegistry));
+        final long start = this.meterRegistry.config().clock().monotonicTime();
+        try {
+            return call.get();
+        } finally {
+            timer.record(this.meterRegistry.config().clock().monotonicTime() - start,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Method to record the number of keys of a window.
+     * @param endpoint The endpoint the window is read for
+     * @param keys The number of keys
+     */
+    public void recordWindowKeys(final String endpoint, final int keys) {
+        this.gauge(this.windowKeys, "dashboard.window.keys", "Number of redis keys of the last window read",
+                endpoint).set(keys);
+    }
+
+    /**
+     * Method to record the cardinality of a union of the window.
+     * @param endpoint The endpoint the union is made for
+     * @param cardinality The number of members of the union
+     */
+    public void recordUnionCardinality(final String endpoint, final long cardinality) {
+        this.gauge(this.unionCardinalities, "dashboard.union.cardinality",
+                "Cardinality of the last union of the window", endpoint).set(cardinality);
+    }
+
+    /**
+     * Method to count a temporary key created in redis.
+     * @param endpoint The endpoint the key is created for
+     */
+    public void incrementTempKeys(final String endpoint) {
+        this.tempKeys.computeIfAbsent(endpoint, key -> Counter.builder("dashboard.redis.temp.keys")
+                .description("Number of temporary keys created in redis")
+                .tag("endpoint", key)
+                .register(this.meterRegistry)).increment();
+    }
+
+    /**
+     * Method to count a lookup of the snapshot cache.
+     * @param endpoint The endpoint the snapshot is looked up for
+     * @param result The result of the lookup: hit, coalesced, miss or stale
+     */
+    public void incrementSnapshotCache(final String endpoint, final String result) {
+        this.snapshotCacheLookups.computeIfAbsent(new MeterKey(result, endpoint), key -> Counter
+                .builder("dashboard.snapshot.cache")
+                .description("Number of lookups of the dashboard snapshot cache")
+                .tag("endpoint", key.endpoint())
+                .tag("result", key.name())
+                .register(this.meterRegistry)).increment();
+    }
+
+    /**
+     * Method to register the state of the redis circuit breaker.
+     * @param state The ordinal of the state
+     */
+    public void registerCircuitBreakerState(final Supplier<Number> state) {
+        Gauge.builder("dashboard.circuit.breaker.state", state)
+                .description("State of the redis circuit breaker: 0 closed, 1 open, 2 half open")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Method to count a redis call rejected by the open circuit breaker.
+     */
+    public void incrementCircuitBreakerRejections() {
+        this.circuitBreakerRejections.increment();
+    }
+
+    private AtomicLong gauge(final Map<String, AtomicLong> values, final String name, final String description,
+                             final String endpoint) {
+        return values.computeIfAbsent(endpoint, key -> {
+            final AtomicLong value = new AtomicLong();
+            Gauge.builder(name, value, AtomicLong::get)
+                    .description(description)
+                    .tag("endpoint", key)
+                    .register(this.meterRegistry);
+            return value;
+        });
+    }
+
+    private record MeterKey(String name, String endpoint) {
+    }
+}
@@ -1,33 +1,59 @@
 package com.liftlab.service;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.EventDimension;
+import com.liftlab.config.KeyFamily;
 import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SessionsLayout;
+import com.liftlab.dimension.DimensionCounter;
+import com.liftlab.index.ActiveUsersIndex;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.DimensionCount;
+import com.liftlab.models.DimensionCountsResponse;
 import com.liftlab.models.UserDetailsResponse;
 import com.liftlab.models.PageViewCount;
 import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.PageVisitorsResponse;
+import com.liftlab.models.SessionStatsResponse;
+import com.liftlab.models.SummaryResponse;
 import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserPageViewsResponse;
+import com.liftlab.session.Sessionizer;
+import com.liftlab.sketch.HeavyHittersEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Service class for all Dashboard related operations
@@ -36,18 +62,59 @@ import java.util.stream.IntStream;
 @Slf4j
 public class DashboardService {
 
+    private static final String SCAN_START = "0";
+
+    private static final Splitter CURSOR_SPLITTER = Splitter.on(':');
+
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private static final Pattern SCAN_CURSOR = Pattern.compile("[0-9]{1,20}");
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> SSCAN_SNAPSHOT_SCRIPT = (RedisScript) RedisScript.of(
+            new ClassPathResource("scripts/sscan_snapshot.lua"), List.class);
+
+    // The order of ZREVRANGE: by count, then by page in reverse lexicographic order.
+    private static final Comparator<PageViewCount> USER_PAGES_RANKING = Comparator
+            .comparingLong(PageViewCount::getCount).reversed()
+            .thenComparing(PageViewCount::getPageUrl, Comparator.reverseOrder());
+
     private final StringRedisTemplate redisTemplate;
 
     private final RedisKeyConfig redisKeyConfig;
 
     private final DashboardOffsetConfig dashboardOffsetConfig;
 
+    private final PageViewsRollingView pageViewsRollingView;
+
+    private final Optional<HeavyHittersEngine> heavyHittersEngine;
+
+    private final Optional<ActiveUsersIndex> activeUsersIndex;
+
+    private final DashboardMetrics dashboardMetrics;
+
+    private final WindowPlanner windowPlanner;
+
+    private final RedisCallExecutor redisCallExecutor;
+
     public DashboardService(final StringRedisTemplate redisTemplate,
                             final RedisKeyConfig redisKeyConfig,
-                            final DashboardOffsetConfig dashboardOffsetConfig) {
+                            final DashboardOffsetConfig dashboardOffsetConfig,
+                            final PageViewsRollingView pageViewsRollingView,
+                            final Optional<HeavyHittersEngine> heavyHittersEngine,
+                            final Optional<ActiveUsersIndex> activeUsersIndex,
+                            final DashboardMetrics dashboardMetrics,
+                            final WindowPlanner windowPlanner,
+                            final RedisCallExecutor redisCallExecutor) {
         this.redisTemplate = redisTemplate;
         this.redisKeyConfig = redisKeyConfig;
         this.dashboardOffsetConfig = dashboardOffsetConfig;
+        this.pageViewsRollingView = pageViewsRollingView;
+        this.heavyHittersEngine = heavyHittersEngine;
+        this.activeUsersIndex = activeUsersIndex;
+        this.dashboardMetrics = dashboardMetrics;
+        this.windowPlanner = windowPlanner;
+        this.redisCallExecutor = redisCallExecutor;
     }
 
 
@@ -56,20 +123,48 @@ public class DashboardService {
      * @return The instance of UserDetailsResponse
      */
     public UserDetailsResponse getUserDetails() {
+        return this.getUserDetails((Duration) null);
+    }
+
+    /**
+     * Method to get user details over a window.
+     * @param window The window, null for the configured windows
+     * @implNote The active users and their sessions are read from the buckets planned by {@link WindowPlanner}, so
+     *           a long window costs about as many SUNION keys as a short one. When dashboard.config.mode.active-users
+     *           is 'index', the configured windows are answered from memory by {@link ActiveUsersIndex} instead,
+     *           unless the index dropped events of the windows.
+     * @return The instance of UserDetailsResponse
+     */
+    public UserDetailsResponse getUserDetails(final Duration window) {
+        final Optional<List<UserDetails>> indexedUserDetails = this.getIndexedUserDetails(window);
+        if (indexedUserDetails.isPresent()) {
+            this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.ACTIVE_USERS,
+                    indexedUserDetails.get().size());
+            log.info("Fetched {} active users from the index", indexedUserDetails.get().size());
+            return UserDetailsResponse.builder()
+                    .withUserDetails(indexedUserDetails.get())
+                    .build();
+        }
 
         // First get the key for last five minutes
-        final List<String> activeUsersKeys = this.getRedisKeys(this.dashboardOffsetConfig.getActiveUsersOffset(),
+        final List<String> activeUsersKeys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getActiveUsersOffset(),
+                        KeyFamily.ACTIVE_USERS),
                 this.redisKeyConfig.getActiveUsersKey());
 
         log.info("Fetching values for keys: {} to fetch users.", activeUsersKeys);
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.ACTIVE_USERS, activeUsersKeys.size());
 
-        final Set<String> users = this.redisTemplate.opsForSet().union(activeUsersKeys);
+        final Set<String> users = this.dashboardMetrics.time("SUNION", DashboardMetrics.ACTIVE_USERS,
+                () -> this.redisTemplate.opsForSet().union(activeUsersKeys));
         final List<UserDetails> userDetails;
         if (Objects.nonNull(users)) {
-            userDetails = users
-                    .stream()
-                    .map(this::getUserDetails)
-                    .collect(ImmutableList.toImmutableList());
+            this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.ACTIVE_USERS, users.size());
+            final List<String> sessionBuckets =
+                    this.getWindowBuckets(window, this.dashboardOffsetConfig.getUserSessionsOffset(),
+                            KeyFamily.USER_SESSIONS);
+            userDetails = this.getUserDetails(users, sessionBuckets, DashboardMetrics.ACTIVE_USERS,
+                    this.getPairedSessions(sessionBuckets, DashboardMetrics.ACTIVE_USERS));
             log.info("Active users: {}", userDetails);
         } else {
             userDetails = ImmutableList.of();
@@ -82,62 +177,532 @@ public class DashboardService {
     }
 
 
+    /**
+     * Method to get a page of the user details.
+     * @param limit The number of users to be returned, as a hint
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @implNote The first page materializes the union of the active users into a snapshot set with a TTL, and the
+     *           pages are read from it with SSCAN. The snapshot does not change, so a cursor stays valid and no user
+     *           is returned twice or skipped until the snapshot expires. The cursor is the id of the snapshot and
+     *           the SSCAN cursor. Like SSCAN COUNT, the limit is a hint: small sets are returned in one page.
+     * @return The instance of UserDetailsResponse, with the cursor of the next page when there is one
+     */
+    public UserDetailsResponse getUserDetails(final int limit, final String cursor) {
+        return this.getUserDetails(limit, cursor, null);
+    }
+
+    /**
+     * Method to get a page of the user details over a window.
+     * @param limit The number of users to be returned, as a hint
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @param window The window, null for the configured windows. The active users of the snapshot are those of the
+     *               window of the first page, the sessions are counted over the window of every page
+     * @return The instance of UserDetailsResponse, with the cursor of the next page when there is one
+     */
+    public UserDetailsResponse getUserDetails(final int limit, final String cursor, final Duration window) {
+        final String snapshotId;
+        final String scanCursor;
+        if (Objects.isNull(cursor)) {
+            snapshotId = this.createActiveUsersSnapshot(DashboardMetrics.ACTIVE_USERS_PAGE, window);
+            scanCursor = SCAN_START;
+        } else {
+            final List<String> parts = this.parseCursor(cursor);
+            snapshotId = parts.get(0);
+            scanCursor = parts.get(1);
+        }
+
+        if (Objects.isNull(snapshotId)) {
+            log.info("No active users found");
+            return UserDetailsResponse.builder()
+                    .withUserDetails(ImmutableList.of())
+                    .build();
+        }
+
+        final ScanPage scanPage = this.scanActiveUsersSnapshot(DashboardMetrics.ACTIVE_USERS_PAGE, snapshotId,
+                scanCursor, limit);
+        final List<UserDetails> userDetails = this.getUserDetails(scanPage.userIds(),
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getUserSessionsOffset(),
+                        KeyFamily.USER_SESSIONS),
+                DashboardMetrics.ACTIVE_USERS_PAGE);
+        log.info("Fetched {} active users from snapshot {}", userDetails.size(), snapshotId);
+
+        return UserDetailsResponse.builder()
+                .withUserDetails(userDetails)
+                .withNextCursor(SCAN_START.equals(scanPage.cursor())
+                        ? null
+                        : String.format("%s:%s", snapshotId, scanPage.cursor()))
+                .build();
+    }
+
+    /**
+     * Method to scan all the user details, one batch at a time.
+     * @param consumer The consumer of the batches of user details
+     * @implNote The active users are read from a snapshot like {@link #getUserDetails(int, String)}, one batch of
+     *           the configured user sessions batch size at a time, so the memory held does not depend on the number
+     *           of users.
+     */
+    public void scanUserDetails(final Consumer<List<UserDetails>> consumer) {
+        this.scanUserDetails(null, consumer);
+    }
+
+    /**
+     * Method to scan all the user details over a window, one batch at a time.
+     * @param window The window, null for the configured windows
+     * @param consumer The consumer of the batches of user details
+     */
+    public void scanUserDetails(final Duration window, final Consumer<List<UserDetails>> consumer) {
+        final String snapshotId = this.createActiveUsersSnapshot(DashboardMetrics.ACTIVE_USERS_STREAM, window);
+        if (Objects.isNull(snapshotId)) {
+            log.info("No active users found");
+            return;
+        }
+        final int batchSize = Math.max(1, this.dashboardOffsetConfig.getUserSessionsBatchSize());
+        final List<String> sessionBuckets =
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getUserSessionsOffset(),
+                        KeyFamily.USER_SESSIONS);
+        String scanCursor = SCAN_START;
+        long scanned = 0;
+        do {
+            final ScanPage scanPage = this.scanActiveUsersSnapshot(DashboardMetrics.ACTIVE_USERS_STREAM, snapshotId,
+                    scanCursor, batchSize);
+            if (!scanPage.userIds().isEmpty()) {
+                consumer.accept(this.getUserDetails(scanPage.userIds(), sessionBuckets,
+                        DashboardMetrics.ACTIVE_USERS_STREAM));
+                scanned += scanPage.userIds().size();
+            }
+            scanCursor = scanPage.cursor();
+        } while (!SCAN_START.equals(scanCursor));
+        log.info("Streamed {} active users from snapshot {}", scanned, snapshotId);
+    }
+
+    /**
+     * Method to get the number of active users in the configured mode.
+     * @return The instance of ActiveUsersCountResponse
+     */
+    public ActiveUsersCountResponse getActiveUsersCount() {
+        return this.getActiveUsersCount(CountMode.fromValue(this.dashboardOffsetConfig.getActiveUsersCountMode()));
+    }
+
+    /**
+     * Method to get the number of active users, without the session details.
+     * @param mode The count mode
+     * @implNote In exact mode the active user sets of the window are unioned, like {@link #getUserDetails()}. In
+     * approximate mode a single PFCOUNT over the per minute HyperLogLogs of the window is used. PFCOUNT merges the
+     * HyperLogLogs on the fly, so no user id leaves redis and the cost does not depend on the number of users. With
+     * {@link ActiveUsersIndex}, the exact count of the configured window is the cardinality of a union of bitmaps.
+     * @return The instance of ActiveUsersCountResponse
+     */
+    public ActiveUsersCountResponse getActiveUsersCount(final CountMode mode) {
+        return this.getActiveUsersCount(mode, null);
+    }
+
+    /**
+     * Method to get the number of active users over a window, without the session details.
+     * @param countMode The count mode, null for the configured mode
+     * @param window The window, null for the configured window
+     * @return The instance of ActiveUsersCountResponse
+     */
+    public ActiveUsersCountResponse getActiveUsersCount(final CountMode countMode, final Duration window) {
+        final CountMode mode = Objects.isNull(countMode)
+                ? CountMode.fromValue(this.dashboardOffsetConfig.getActiveUsersCountMode())
+                : countMode;
+        final List<String> buckets = this.getWindowBuckets(window, this.dashboardOffsetConfig.getActiveUsersOffset(),
+                mode == CountMode.APPROXIMATE ? KeyFamily.ACTIVE_USERS_HLL : KeyFamily.ACTIVE_USERS);
+        final OptionalLong indexedActiveUsers = mode == CountMode.EXACT && Objects.isNull(window)
+                ? this.activeUsersIndex.map(ActiveUsersIndex::getActiveUsersCount).orElseGet(OptionalLong::empty)
+                : OptionalLong.empty();
+        final long activeUsers;
+        if (indexedActiveUsers.isPresent()) {
+            activeUsers = indexedActiveUsers.getAsLong();
+        } else if (mode == CountMode.APPROXIMATE) {
+            final List<String> keys = this.getRedisKeys(buckets, this.redisKeyConfig.getActiveUsersHllKey());
+            this.dashboardMetrics.recordWindowKeys(DashboardMetrics.ACTIVE_USERS_COUNT, keys.size());
+            final Long size = this.dashboardMetrics.time("PFCOUNT", DashboardMetrics.ACTIVE_USERS_COUNT,
+                    () -> this.redisTemplate.opsForHyperLogLog().size(keys.toArray(String[]::new)));
+            activeUsers = Objects.nonNull(size) ? size : 0L;
+        } else {
+            final List<String> keys = this.getRedisKeys(buckets, this.redisKeyConfig.getActiveUsersKey());
+            this.dashboardMetrics.recordWindowKeys(DashboardMetrics.ACTIVE_USERS_COUNT, keys.size());
+            final Set<String> users = this.dashboardMetrics.time("SUNION", DashboardMetrics.ACTIVE_USERS_COUNT,
+                    () -> this.redisTemplate.opsForSet().union(keys));
+            activeUsers = Objects.nonNull(users) ? users.size() : 0L;
+        }
+        this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.ACTIVE_USERS_COUNT, activeUsers);
+
+        log.info("Active users count ({}): {}", mode, activeUsers);
+
+        return ActiveUsersCountResponse.builder()
+                .withActiveUsers(activeUsers)
+                .withMode(mode)
+                .withStandardError(mode.getStandardError())
+                .build();
+    }
+
+
     /**
      * Method to the get top pages accessed by all users
      * @param offset The number of results to be returned.
-     * @implNote : All the page views are stored in sorted set with count being the score. This method reads the ordered
-     * set unions it based on the score and store in another ordered set with a TTL of 10s. From this new set top N(offset)
-     * is picked.
+     * @implNote : All the page views are stored in sorted set per minute with count being the score. The window of
+     * sorted sets is aggregated by {@link PageViewsRollingView}, which is shared by all the callers and kept up to
+     * date with per minute deltas. From this view top N(offset) is picked. When dashboard.config.mode.page-views is
+     * 'sketch', the top pages are answered from memory by {@link HeavyHittersEngine} instead, with estimated counts.
      * @return The instance of PageViewsResponse
      */
     public PageViewsResponse getTopPages(final int offset) {
 
-        // First get the key
-        final List<String> keys = this.getRedisKeys(
-            this.dashboardOffsetConfig.getPageViewsOffset(),
-            this.redisKeyConfig.getPageViewsKey()
-        );
+        final List<PageViewCount> pageViews = this.heavyHittersEngine
+                .map(engine -> engine.getTopPages(offset))
+                .orElseGet(() -> this.pageViewsRollingView.getTopPages(offset));
+
+        log.info("Fetched top {} pages viewed: {}", offset, pageViews);
+
+        return PageViewsResponse.builder().withPageViews(pageViews).build();
+    }
+
+    /**
+     * Method to get the top pages accessed by all users over a window.
+     * @param offset The number of results to be returned.
+     * @param window The window, null for the configured window
+     * @implNote A window other than the configured one is not kept by the rolling view nor by the sketches: the
+     *           buckets planned by {@link WindowPlanner} are read in a single pipeline and ranked.
+     * @return The instance of PageViewsResponse
+     */
+    public PageViewsResponse getTopPages(final int offset, final Duration window) {
+        if (Objects.isNull(window)) {
+            return this.getTopPages(offset);
+        }
+        final List<String> buckets = this.getWindowBuckets(window, this.dashboardOffsetConfig.getPageViewsOffset(),
+                KeyFamily.PAGE_VIEWS);
+        final List<PageViewCount> pageViews = this.pageViewsRollingView.getTopPages(offset, buckets);
+
+        log.info("Fetched top {} pages viewed over {}: {}", offset, window, pageViews);
+
+        return PageViewsResponse.builder().withPageViews(pageViews).build();
+    }
 
-        log.info("Fetching values for keys: {} to fetch urls.", keys);
+    /**
+     * Method to get the summary of the dashboard: the active users, their sessions and the top pages.
+     * @param offset The number of pages to be returned.
+     * @param window The window, null for the configured windows
+     * @implNote The buckets of all the windows come from a single clock reading, and the union of the active users
+     *           and the page views of the buckets are read in a single pipeline, so both halves of the summary belong
+     *           to the same minute. With the PER_USER sessions layout the sessions depend on the union, they are
+     *           read next by the batched pipelines of {@link #getUserDetails(Collection)}. With the PER_BUCKET layout
+     *           the user and session id pairs of the window are unioned in the same pipeline, and the summary is a
+     *           single round trip. For the configured window the pipeline only reads the page views buckets of a
+     *           refresh of {@link PageViewsRollingView}, the hot buckets and the ones it does not hold yet, and the
+     *           replies refresh the view, so the summary and {@link #getTopPages(int)} agree. When the top pages are
+     *           answered by {@link HeavyHittersEngine}, the pipeline has no page views, and when the active users are
+     *           answered by {@link ActiveUsersIndex}, it has no union.
+     * @return The instance of SummaryResponse
+     */
+    public SummaryResponse getSummary(final int offset, final Duration window) {
+        final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        final boolean sketch = this.heavyHittersEngine.isPresent() && Objects.isNull(window);
+        final Optional<List<UserDetails>> indexedUserDetails = this.getIndexedUserDetails(window);
+        final List<String> activeUsersKeys = indexedUserDetails.isPresent()
+                ? ImmutableList.of()
+                : this.getRedisKeys(this.getWindowBuckets(now, window,
+                        this.dashboardOffsetConfig.getActiveUsersOffset(), KeyFamily.ACTIVE_USERS),
+                        this.redisKeyConfig.getActiveUsersKey());
+        final List<String> userSessionsBuckets =
+                this.getWindowBuckets(now, window, this.dashboardOffsetConfig.getUserSessionsOffset(),
+                        KeyFamily.USER_SESSIONS);
+        final List<String> userSessionPairsKeys = indexedUserDetails.isPresent()
+                || this.redisKeyConfig.getUserSessionsLayout() == SessionsLayout.PER_USER
+                        ? ImmutableList.of()
+                        : this.getRedisKeys(userSessionsBuckets, this.redisKeyConfig.getUserSessionPairsKey());
+        final PageViewsRollingView.Refresh pageViewsRefresh = sketch || Objects.nonNull(window)
+                ? null
+                : this.pageViewsRollingView.planRefresh(now);
+        final List<String> pageViewsBuckets = sketch
+                ? ImmutableList.of()
+                : Objects.nonNull(pageViewsRefresh)
+                        ? pageViewsRefresh.buckets()
+                        : this.getWindowBuckets(now, window, this.dashboardOffsetConfig.getPageViewsOffset(),
+                                KeyFamily.PAGE_VIEWS);
+
+        log.info("Fetching summary of keys: {} {} and page views buckets: {}", activeUsersKeys, userSessionPairsKeys,
+                pageViewsBuckets);
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.SUMMARY,
+                activeUsersKeys.size() + userSessionPairsKeys.size() + pageViewsBuckets.size());
+        // Answered from memory alone with both the index and the sketches.
+        final List<Object> results = activeUsersKeys.isEmpty() && pageViewsBuckets.isEmpty()
+                ? ImmutableList.of()
+                : this.dashboardMetrics.time("pipeline:SUNION+ZRANGE", DashboardMetrics.SUMMARY,
+                        () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                                final RedisOperations<String, String> stringOperations =
+                                        (RedisOperations<String, String>) operations;
+                                if (!activeUsersKeys.isEmpty()) {
+                                    stringOperations.opsForSet().union(activeUsersKeys);
+                                }
+                                if (!userSessionPairsKeys.isEmpty()) {
+                                    stringOperations.opsForZSet().union(userSessionPairsKeys.get(0),
+                                            userSessionPairsKeys.subList(1, userSessionPairsKeys.size()));
+                                }
+                                pageViewsRollingView.readBuckets(stringOperations, pageViewsBuckets);
+                                return null;
+                            }
+                        }));
+
+        final List<UserDetails> userDetails;
+        final int pageViewsStart;
+        if (indexedUserDetails.isPresent()) {
+            userDetails = indexedUserDetails.get();
+            this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.SUMMARY, userDetails.size());
+            pageViewsStart = 0;
+        } else {
+            final List<String> users = !results.isEmpty() && results.get(0) instanceof Collection<?> members
+                    ? members.stream().map(Object::toString).toList()
+                    : ImmutableList.of();
+            this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.SUMMARY, users.size());
+            pageViewsStart = Math.min(userSessionPairsKeys.isEmpty() ? 1 : 2, results.size());
+            final Map<String, Set<String>> pairedSessions = userSessionPairsKeys.isEmpty()
+                    ? null
+                    : groupSessionPairs(results.size() > 1 && results.get(1) instanceof Collection<?> sessionPairs
+                            ? sessionPairs
+                            : ImmutableList.of());
+            userDetails = users.isEmpty()
+                    ? ImmutableList.of()
+                    : this.getUserDetails(users, userSessionsBuckets, DashboardMetrics.SUMMARY, pairedSessions);
+        }
+        final List<PageViewCount> pageViews;
+        if (sketch) {
+            pageViews = this.heavyHittersEngine.get().getTopPages(offset);
+        } else if (Objects.nonNull(pageViewsRefresh)) {
+            pageViews = this.pageViewsRollingView.getTopPagesOfRefresh(offset, pageViewsRefresh,
+                    results.subList(pageViewsStart, results.size()));
+        } else {
+            pageViews = this.pageViewsRollingView.getTopPagesOfReplies(offset,
+                    results.subList(pageViewsStart, results.size()));
+        }
 
-        // Temporary key to store the union
-        final String destKey = "tmp:page_views:rolling:" +
-                ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) +
-                ":" + UUID.randomUUID();
+        log.info("Summary of {} active users and top {} pages", userDetails.size(), pageViews.size());
 
-        // Now combine all sorted set into one.
-        final String first = keys.get(0);
-        final Collection<String> rest = keys.subList(1, keys.size());
-        Long unionCount = redisTemplate.opsForZSet().unionAndStore(first, rest, destKey);
+        return SummaryResponse.builder()
+                .withMinute(MinuteBuckets.format(now))
+                .withActiveUsers(userDetails.size())
+                .withSessions(userDetails.stream().mapToLong(UserDetails::getSessionCount).sum())
+                .withUserDetails(userDetails)
+                .withPageViews(pageViews)
+                .build();
+    }
 
-        if (unionCount == null || unionCount == 0L) {
-            redisTemplate.delete(destKey);
-            return PageViewsResponse.builder().withPageViews(ImmutableList.of()).build();
+    /**
+     * Method to get the number of unique visitors of a page over a window.
+     * @param pageUrl The url of the page
+     * @param window The window, null for the configured page views window
+     * @implNote Every bucket has a HyperLogLog of the visitors of each page, so a single PFCOUNT merges the
+     *           HyperLogLogs of the window in redis, like the approximate active users count. No user id leaves redis
+     *           and the cost depends on the number of buckets, not on the number of visitors.
+     * @return The instance of PageVisitorsResponse
+     */
+    public PageVisitorsResponse getPageVisitors(final String pageUrl, final Duration window) {
+        final List<String> keys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getPageViewsOffset(), KeyFamily.PAGE_VISITORS),
+                this.redisKeyConfig.getPageVisitorsKey(pageUrl));
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.PAGE_VISITORS, keys.size());
+        final Long size = keys.isEmpty() ? null : this.dashboardMetrics.time("PFCOUNT", DashboardMetrics.PAGE_VISITORS,
+                () -> this.redisTemplate.opsForHyperLogLog().size(keys.toArray(String[]::new)));
+        final long uniqueVisitors = Objects.nonNull(size) ? size : 0L;
+        this.dashboardMetrics.recordUnionCardinality(DashboardMetrics.PAGE_VISITORS, uniqueVisitors);
+
+        log.info("Unique visitors of {}: {}", pageUrl, uniqueVisitors);
+
+        return PageVisitorsResponse.builder()
+                .withPageUrl(pageUrl)
+                .withUniqueVisitors(uniqueVisitors)
+                .withStandardError(CountMode.APPROXIMATE.getStandardError())
+                .build();
+    }
+
+    /**
+     * Method to get the top pages of a user over a window.
+     * @param userId The id of the user
+     * @param offset The number of results to be returned
+     * @param window The window, null for the configured page views window
+     * @implNote Every bucket has a sorted set of the pages of each user. The sets of the window are summed by a
+     *           single ZUNION WITHSCORES (redis 6.2), and the top N is sorted in the JVM: no key is created in redis,
+     *           so none is left behind when the client goes away mid-request. The reply holds every page of the user
+     *           over the window, which the pages one user views keep small. The keys of a user share a slot with Redis
+     *           Cluster.
+     * @return The instance of UserPageViewsResponse
+     */
+    public UserPageViewsResponse getUserTopPages(final String userId, final int offset, final Duration window) {
+        final List<String> keys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getPageViewsOffset(), KeyFamily.USER_PAGES),
+                this.redisKeyConfig.getUserPagesKey(userId));
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.USER_PAGE_VIEWS, keys.size());
+        final ImmutableList.Builder<PageViewCount> pageViews = ImmutableList.builder();
+        if (!keys.isEmpty()) {
+            final Set<ZSetOperations.TypedTuple<String>> union = this.dashboardMetrics.time("ZUNION",
+                    DashboardMetrics.USER_PAGE_VIEWS,
+                    () -> this.redisTemplate.opsForZSet().unionWithScores(keys.get(0), keys.subList(1, keys.size())));
+            if (Objects.nonNull(union)) {
+                union.stream()
+                        .filter(typedTuple -> Objects.nonNull(typedTuple.getValue())
+                                && Objects.nonNull(typedTuple.getScore()))
+                        .map(typedTuple -> PageViewCount.builder()
+                                .withPageUrl(typedTuple.getValue())
+                                .withCount(typedTuple.getScore().longValue())
+                                .build())
+                        .sorted(USER_PAGES_RANKING)
+                        .limit(Math.max(offset, 0))
+                        .forEach(pageViews::add);
+            }
         }
 
-        // Expiry as this is short-lived.
-        redisTemplate.expire(destKey, Duration.ofSeconds(10));
+        log.info("Fetched top {} pages viewed by {}", offset, userId);
 
-        // Fetch the top elements
-        final Set<ZSetOperations.TypedTuple<String>> top =
-                redisTemplate.opsForZSet().reverseRangeWithScores(destKey, 0, Math.max(0, offset - 1));
+        return UserPageViewsResponse.builder()
+                .withUserId(userId)
+                .withPageViews(pageViews.build())
+                .build();
+    }
 
-        if (top == null || top.isEmpty()) {
-            redisTemplate.delete(destKey);
-            return PageViewsResponse.builder().withPageViews(ImmutableList.of()).build();
+    /**
+     * Method to get the aggregates of the sessions closed over a window.
+     * @param window The window, null for the configured session stats window
+     * @implNote The sessions are aggregated per minute by {@link Sessionizer} in the ingestion process. The hashes of
+     *           the buckets of the window are read with one HGETALL each, in a single pipeline, and summed, so the cost
+     *           depends on the number of buckets only.
+     * @return The instance of SessionStatsResponse
+     */
+    public SessionStatsResponse getSessionStats(final Duration window) {
+        final List<String> keys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getSessionStatsOffset(),
+                        KeyFamily.SESSION_STATS),
+                this.redisKeyConfig.getSessionStatsKey());
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.SESSION_STATS, keys.size());
+        final List<Object> results = this.dashboardMetrics.time("pipeline:HGETALL", DashboardMetrics.SESSION_STATS,
+                () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        final RedisOperations<String, String> stringOperations =
+                                (RedisOperations<String, String>) operations;
+                        keys.forEach(key -> stringOperations.opsForHash().entries(key));
+                        return null;
+                    }
+                }));
+        final Map<String, Long> totals = new HashMap<>();
+        for (final Object result : results) {
+            if (result instanceof Map<?, ?> fields) {
+                fields.forEach((field, value) -> totals.merge(field.toString(), Long.parseLong(value.toString()),
+                        Long::sum));
+            }
         }
+        final long sessions = totals.getOrDefault(Sessionizer.SESSIONS, 0L);
 
+        log.info("Sessions closed: {}", sessions);
 
-        final List<PageViewCount> pageViews = top.stream()
-                .map(t -> PageViewCount.builder()
-                        .withPageUrl(t.getValue())
-                        .withCount(t.getScore() == null ? 0 : t.getScore().intValue())
-                        .build())
+        return SessionStatsResponse.builder()
+                .withSessions(sessions)
+                .withAverageDurationSeconds(ratio(totals.getOrDefault(Sessionizer.DURATION_MILLIS, 0L) / 1000.0,
+                        sessions))
+                .withPagesPerSession(ratio(totals.getOrDefault(Sessionizer.PAGE_VIEWS, 0L), sessions))
+                .withBounceRate(ratio(totals.getOrDefault(Sessionizer.BOUNCES, 0L), sessions))
+                .build();
+    }
+
+    /**
+     * Method to get the top groups of the events of a window by the values of some dimensions.
+     * @param groupBy The dimensions to group by, declared ones
+     * @param filters The value of the dimensions to filter by, declared ones
+     * @param offset The number of groups to be returned
+     * @param window The window, null for the configured dimensions window
+     * @implNote The events are counted per minute and combination of the values of all the declared dimensions by
+     *           {@link DimensionCounter} in the ingestion process. The hashes of the buckets of the window are read
+     *           with one HGETALL each, in a single pipeline, and the counts of the combinations matching the filters
+     *           summed per group, so the cost depends on the number of buckets and of combinations, which the
+     *           cardinality caps bound, and not on the number of events. A combination written before a dimension
+     *           was declared has no value for it, and is counted as '(other)'.
+     * @return The instance of DimensionCountsResponse
+     */
+    public DimensionCountsResponse getDimensionCounts(final List<EventDimension> groupBy,
+                                                      final Map<EventDimension, String> filters,
+                                                      final int offset,
+                                                      final Duration window) {
+        final List<String> keys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getDimensionsOffset(),
+                        KeyFamily.DIMENSION_COUNTS),
+                this.redisKeyConfig.getDimensionCountsKey());
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.DIMENSIONS, keys.size());
+        final List<Object> results = this.dashboardMetrics.time("pipeline:HGETALL", DashboardMetrics.DIMENSIONS,
+                () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        final RedisOperations<String, String> stringOperations =
+                                (RedisOperations<String, String>) operations;
+                        keys.forEach(key -> stringOperations.opsForHash().entries(key));
+                        return null;
+                    }
+                }));
+        final Map<List<String>, Long> groups = new HashMap<>();
+        for (final Object result : results) {
+            if (result instanceof Map<?, ?> fields) {
+                fields.forEach((field, count) -> {
+                    final Map<EventDimension, String> values = EventDimension.parseField(field.toString());
+                    final boolean matches = filters.entrySet().stream()
+                            .allMatch(filter -> filter.getValue().equals(values.get(filter.getKey())));
+                    if (matches) {
+                        groups.merge(groupBy.stream()
+                                        .map(dimension -> values.getOrDefault(dimension, EventDimension.OTHER))
+                                        .toList(),
+                                Long.parseLong(count.toString()), Long::sum);
+                    }
+                });
+            }
+        }
+        final List<DimensionCount> counts = groups.entrySet().stream()
+                .sorted(Map.Entry.<List<String>, Long>comparingByValue().reversed()
+                        .thenComparing(group -> String.join(String.valueOf(EventDimension.FIELD_SEPARATOR),
+                                group.getKey())))
+                .limit(offset)
+                .map(group -> {
+                    final ImmutableMap.Builder<String, String> dimensions = ImmutableMap.builder();
+                    for (int i = 0; i < groupBy.size(); i++) {
+                        dimensions.put(groupBy.get(i).getName(), group.getKey().get(i));
+                    }
+                    return DimensionCount.builder()
+                            .withDimensions(dimensions.build())
+                            .withCount(group.getValue())
+                            .build();
+                })
                 .collect(ImmutableList.toImmutableList());
 
-        log.info("Fetched top {} pages viewed: {}", offset, pageViews);
+        log.info("Fetched top {} of {} groups by {} where {}", counts.size(), groups.size(), groupBy, filters);
 
-        return PageViewsResponse.builder().withPageViews(pageViews).build();
+        final ImmutableMap.Builder<String, String> filterNames = ImmutableMap.builder();
+        filters.forEach((dimension, value) -> filterNames.put(dimension.getName(), value));
+        return DimensionCountsResponse.builder()
+                .withGroupBy(groupBy.stream().map(EventDimension::getName).collect(ImmutableList.toImmutableList()))
+                .withFilters(filterNames.build())
+                .withCounts(counts)
+                .build();
+    }
+
+    /**
+     * Method to check a cursor of the pages of the user details, before reading the page.
+     * @param cursor The cursor returned with the previous page
+     * @throws IllegalArgumentException When the cursor is malformed
+     */
+    public void validateCursor(final String cursor) {
+        this.parseCursor(cursor);
+    }
+
+    /**
+     * Method to parse a window query parameter.
+     * @param window The window, like '90m', '6h' or '7d'
+     * @return The window as a duration
+     * @throws IllegalArgumentException When the window is malformed or too long
+     */
+    public Duration parseWindow(final String window) {
+        return this.windowPlanner.parse(window);
     }
 
 
@@ -151,14 +716,254 @@ public class DashboardService {
      * @return List of keys to be fetched in redis.
      */
     protected List<String> getRedisKeys(final int minutesOffset, final String keyPrefix) {
-        return IntStream.rangeClosed(0, minutesOffset - 1)
-                .mapToObj(minute -> {
-                    final String minuteKey = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(minute)
-                            .format(DateTimeFormatter.ofPattern("yyyyMMddHHmm"));
+        return this.getRedisKeys(this.getMinuteBuckets(minutesOffset), keyPrefix);
+    }
+
+    /**
+     * Method to get the minute buckets, which are the time part of the redis keys.
+     * @param minutesOffset The offset minutes
+     * @implNote The buckets are computed once from a single clock reading, so that every key generated from them
+     *           refers to the same window even when the minute rolls over while the keys are being built.
+     * @return List of minute buckets, latest first.
+     */
+    protected List<String> getMinuteBuckets(final int minutesOffset) {
+        return MinuteBuckets.latest(LocalDateTime.now(ZoneOffset.UTC), minutesOffset);
+    }
+
+    /**
+     * Method to get the buckets of a window.
+     * @param window The window, null for the configured window
+     * @param minutesOffset The configured window in minutes, which is also the number of minute buckets retained
+     * @param keyFamily The family of the keys to be read
+     * @return List of buckets, minute buckets or rollups.
+     */
+    protected List<String> getWindowBuckets(final Duration window, final int minutesOffset,
+                                            final KeyFamily keyFamily) {
+        return Objects.isNull(window)
+                ? this.getMinuteBuckets(minutesOffset)
+                : this.windowPlanner.plan(LocalDateTime.now(ZoneOffset.UTC), window, minutesOffset, keyFamily);
+    }
+
+    /**
+     * Method to get the buckets of a window at a given time.
+     * @param now The time the window ends at
+     * @param window The window, null for the configured window
+     * @param minutesOffset The configured window in minutes, which is also the number of minute buckets retained
+     * @param keyFamily The family of the keys to be read
+     * @return List of buckets, minute buckets or rollups.
+     */
+    protected List<String> getWindowBuckets(final LocalDateTime now, final Duration window,
+                                            final int minutesOffset, final KeyFamily keyFamily) {
+        return Objects.isNull(window)
+                ? MinuteBuckets.latest(now, minutesOffset)
+                : this.windowPlanner.plan(now, window, minutesOffset, keyFamily);
+    }
+
+    /**
+     * Method to get the redis keys for already computed minute buckets.
+     * @param minuteBuckets The minute buckets
+     * @param keyPrefix The prefix of the key
+     * @return List of keys to be fetched in redis.
+     */
+    protected List<String> getRedisKeys(final List<String> minuteBuckets, final String keyPrefix) {
+        return minuteBuckets.stream()
+                .map(minuteBucket -> String.format("%s:%s", keyPrefix, minuteBucket))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Method to get the user details of a window from {@link ActiveUsersIndex}.
+     * @param window The window, null for the configured windows, which are the only ones the index keeps
+     * @return List of UserDetails, empty when there is no index, for another window or when the index dropped events
+     */
+    private Optional<List<UserDetails>> getIndexedUserDetails(final Duration window) {
+        return Objects.isNull(window)
+                ? this.activeUsersIndex.flatMap(ActiveUsersIndex::getUserDetails)
+                : Optional.empty();
+    }
+
+    /**
+     * Method to get the user details of all the given users from redis cache.
+     * @param userIds The ids of the users
+     * @implNote Instead of one SUNION round trip per user, the SUNIONs of a batch of users are sent in a single
+     *           pipeline. The batch size is configurable so that a very large user set does not buffer all the
+     *           replies at once. The pipelines of the batches are independent, they are run by
+     *           {@link RedisCallExecutor}, concurrently when it is configured to. The order of the returned list
+     *           follows the order of the given user ids.
+     * @return List of UserDetails, one per user.
+     */
+    protected List<UserDetails> getUserDetails(final Collection<String> userIds) {
+        return this.getUserDetails(userIds, this.getMinuteBuckets(this.dashboardOffsetConfig.getUserSessionsOffset()),
+                DashboardMetrics.ACTIVE_USERS);
+    }
+
+    /**
+     * Method to get the user details of all the given users from redis cache.
+     * @param userIds The ids of the users
+     * @param minuteBuckets The buckets of the sessions window
+     * @param endpoint The endpoint the user details are fetched for, to tag the metrics
+     * @implNote The sessions are read for the given users only, so a page or a batch of the users does not read the
+     *           pairs of the whole window.
+     * @return List of UserDetails, one per user.
+     */
+    private List<UserDetails> getUserDetails(final Collection<String> userIds,
+                                             final List<String> minuteBuckets,
+                                             final String endpoint) {
+        return this.getUserDetails(userIds, minuteBuckets, endpoint, null);
+    }
 
-                    return String.format("%s:%s", keyPrefix, minuteKey);
+    /**
+     * Method to get the user details of all the given users from redis cache.
+     * @param userIds The ids of the users
+     * @param minuteBuckets The buckets of the sessions window
+     * @param endpoint The endpoint the user details are fetched for, to tag the metrics
+     * @param pairedSessions The session ids by user id of the pairs of the window, null to read the pairs of the
+     *                       given users, and ignored with the PER_USER sessions layout
+     * @implNote With the PER_BUCKET sessions layout and the pairs of the window at hand, the sessions are counted
+     *           from the pairs, without any other redis call. Otherwise the pairs of every user are read with one
+     *           ZRANGEBYLEX per bucket, in the batched pipelines which read the sets of the PER_USER layout. While
+     *           MIGRATING, the sessions of the pairs and of the PER_USER keys are unioned, so the windows which
+     *           straddle the switch of the writers are complete.
+     * @return List of UserDetails, one per user.
+     */
+    private List<UserDetails> getUserDetails(final Collection<String> userIds,
+                                             final List<String> minuteBuckets,
+                                             final String endpoint,
+                                             final Map<String, Set<String>> pairedSessions) {
+        final SessionsLayout layout = this.redisKeyConfig.getUserSessionsLayout();
+        if (layout == SessionsLayout.PER_BUCKET && Objects.nonNull(pairedSessions)) {
+            return userIds.stream()
+                    .map(userId -> UserDetails.builder()
+                            .withUserId(userId)
+                            .withSessionCount(pairedSessions.getOrDefault(userId, Set.of()).size())
+                            .build())
+                    .collect(ImmutableList.toImmutableList());
+        }
+        final boolean readUserSessions = layout != SessionsLayout.PER_BUCKET;
+        final boolean readPairs = layout != SessionsLayout.PER_USER && Objects.isNull(pairedSessions);
+        final int repliesPerUser = (readUserSessions ? 1 : 0) + (readPairs ? minuteBuckets.size() : 0);
+
+        final int batchSize = Math.max(1, this.dashboardOffsetConfig.getUserSessionsBatchSize());
+
+        final List<List<String>> batches = ImmutableList.copyOf(Iterables.partition(userIds, batchSize));
+        final List<List<Object>> allBatchSessions = this.redisCallExecutor.invokeAll(batches.stream()
+                .<Supplier<List<Object>>>map(batch -> () -> this.getSessions(batch, minuteBuckets, endpoint,
+                        readUserSessions, readPairs))
+                .toList());
+
+        final ImmutableList.Builder<UserDetails> userDetails = ImmutableList.builderWithExpectedSize(userIds.size());
+        for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+            final List<String> batch = batches.get(batchIndex);
+            final List<Object> allSessions = allBatchSessions.get(batchIndex);
+            for (int index = 0; index < batch.size(); index++) {
+                final int first = index * repliesPerUser;
+                final int sessionCount;
+                if (layout == SessionsLayout.PER_USER) {
+                    final Object sessions = first < allSessions.size() ? allSessions.get(first) : null;
+                    sessionCount = sessions instanceof Collection<?> ? ((Collection<?>) sessions).size() : 0;
+                } else {
+                    final Set<String> allUserSessions = new HashSet<>();
+                    if (!readPairs) {
+                        allUserSessions.addAll(pairedSessions.getOrDefault(batch.get(index), Set.of()));
+                    }
+                    for (int reply = first; reply < Math.min(first + repliesPerUser, allSessions.size()); reply++) {
+                        if (allSessions.get(reply) instanceof Collection<?> userSessions) {
+                            final boolean pairs = readPairs && (!readUserSessions || reply > first);
+                            userSessions.forEach(member -> allUserSessions.add(pairs
+                                    ? sessionIdOfPair(member.toString())
+                                    : member.toString()));
+                        }
+                    }
+                    sessionCount = allUserSessions.size();
+                }
+                userDetails.add(UserDetails.builder()
+                        .withUserId(batch.get(index))
+                        .withSessionCount(sessionCount)
+                        .build());
+            }
+        }
+        return userDetails.build();
+    }
 
-                }).collect(ImmutableList.toImmutableList());
+    /**
+     * Method to get the sessions of the user and session id pairs of a window, written with the PER_BUCKET
+     * sessions layout.
+     * @param minuteBuckets The buckets of the sessions window
+     * @param endpoint The endpoint the sessions are fetched for, to tag the metrics
+     * @implNote A single ZUNION reads the sessions of all the users of the window, for the callers which need all
+     *           of them. A page or a batch of the users reads the pairs of its users instead, see
+     *           {@link #getUserDetails(Collection, List, String)}.
+     * @return The session ids by user id, null with the PER_USER sessions layout
+     */
+    private Map<String, Set<String>> getPairedSessions(final List<String> minuteBuckets, final String endpoint) {
+        if (this.redisKeyConfig.getUserSessionsLayout() == SessionsLayout.PER_USER || minuteBuckets.isEmpty()) {
+            return null;
+        }
+        final List<String> userSessionPairsKeys = this.getRedisKeys(minuteBuckets,
+                this.redisKeyConfig.getUserSessionPairsKey());
+        final Set<String> sessionPairs = this.dashboardMetrics.time("ZUNION:pairs", endpoint,
+                () -> this.redisTemplate.opsForZSet().union(userSessionPairsKeys.get(0),
+                        userSessionPairsKeys.subList(1, userSessionPairsKeys.size())));
+        return groupSessionPairs(Objects.isNull(sessionPairs) ? ImmutableSet.of() : sessionPairs);
+    }
+
+    /**
+     * Method to group user and session id pairs by user.
+     * @param sessionPairs The pairs
+     * @return The session ids by user id
+     */
+    private static Map<String, Set<String>> groupSessionPairs(final Collection<?> sessionPairs) {
+        final Map<String, Set<String>> sessions = new HashMap<>();
+        for (final Object sessionPair : sessionPairs) {
+            final String pair = sessionPair.toString();
+            final int separator = pair.indexOf(SessionsLayout.PAIR_SEPARATOR);
+            if (separator > 0) {
+                sessions.computeIfAbsent(pair.substring(0, separator), userId -> new HashSet<>(2))
+                        .add(pair.substring(separator + 1));
+            }
+        }
+        return sessions;
+    }
+
+    private static String sessionIdOfPair(final String pair) {
+        return pair.substring(pair.indexOf(SessionsLayout.PAIR_SEPARATOR) + 1);
+    }
+
+    /**
+     * Method to get the sessions of a batch of users in a single pipeline.
+     * @param batch The ids of the users
+     * @param minuteBuckets The buckets of the sessions window
+     * @param endpoint The endpoint the sessions are fetched for, to tag the metrics
+     * @param readUserSessions Whether to read the sets of the PER_USER sessions layout, with one SUNION per user
+     * @param readPairs Whether to read the pairs of the PER_BUCKET sessions layout, with one ZRANGEBYLEX per user
+     *                  and bucket
+     * @return List of the replies, the SUNION then the ZRANGEBYLEXs of the first user, then those of the next one.
+     */
+    private List<Object> getSessions(final List<String> batch, final List<String> minuteBuckets,
+                                     final String endpoint, final boolean readUserSessions, final boolean readPairs) {
+        final List<String> userSessionPairsKeys = readPairs
+                ? this.getRedisKeys(minuteBuckets, this.redisKeyConfig.getUserSessionPairsKey())
+                : ImmutableList.of();
+        final String command = readUserSessions && readPairs
+                ? "pipeline:SUNION+ZRANGEBYLEX"
+                : readPairs ? "pipeline:ZRANGEBYLEX" : "pipeline:SUNION";
+        return this.dashboardMetrics.time(command, endpoint,
+                () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        final RedisOperations<String, String> stringOperations =
+                                (RedisOperations<String, String>) operations;
+                        for (final String userId : batch) {
+                            if (readUserSessions) {
+                                stringOperations.opsForSet().union(getUserSessionKeys(minuteBuckets, userId));
+                            }
+                            userSessionPairsKeys.forEach(key -> stringOperations.opsForZSet()
+                                    .rangeByLex(key, SessionsLayout.pairsOf(userId)));
+                        }
+                        return null;
+                    }
+                }));
     }
 
     /**
@@ -167,10 +972,16 @@ public class DashboardService {
      * @return The instance of  UserDetails
      */
     protected UserDetails getUserDetails(final String userId) {
-        final List<String> redisUserSessionKey = this.getRedisKeys(this.dashboardOffsetConfig.getUserSessionsOffset(),
-                String.format("%s:%s", this.redisKeyConfig.getUserSessionsKey(), userId));
+        if (this.redisKeyConfig.getUserSessionsLayout() != SessionsLayout.PER_USER) {
+            return this.getUserDetails(ImmutableList.of(userId),
+                    this.getMinuteBuckets(this.dashboardOffsetConfig.getUserSessionsOffset()),
+                    DashboardMetrics.ACTIVE_USERS).get(0);
+        }
+        final List<String> redisUserSessionKey = this.getUserSessionKeys(
+                this.getMinuteBuckets(this.dashboardOffsetConfig.getUserSessionsOffset()), userId);
 
-        final Set<String> allSessions = this.redisTemplate.opsForSet().union(redisUserSessionKey);
+        final Set<String> allSessions = this.dashboardMetrics.time("SUNION", DashboardMetrics.ACTIVE_USERS,
+                () -> this.redisTemplate.opsForSet().union(redisUserSessionKey));
         int totalSessions = 0;
         if(Objects.nonNull(allSessions)) {
             totalSessions = allSessions.size();
@@ -181,4 +992,108 @@ public class DashboardService {
                 .build();
     }
 
+    /**
+     * Method to materialize the active users of the window into a snapshot set.
+     * @param endpoint The endpoint the snapshot is created for, to tag the metrics
+     * @param window The window, null for the configured window
+     * @return The id of the snapshot, null when there are no active users
+     */
+    private String createActiveUsersSnapshot(final String endpoint, final Duration window) {
+        final List<String> activeUsersKeys = this.getRedisKeys(
+                this.getWindowBuckets(window, this.dashboardOffsetConfig.getActiveUsersOffset(),
+                        KeyFamily.ACTIVE_USERS),
+                this.redisKeyConfig.getActiveUsersKey());
+        final String snapshotId = UUID.randomUUID().toString().replace("-", "");
+        final String snapshotKey = this.getSnapshotKey(snapshotId);
+        final Duration snapshotTtl = Duration.ofSeconds(this.dashboardOffsetConfig.getActiveUsersSnapshotTtlSeconds());
+
+        log.info("Creating snapshot {} of keys: {}", snapshotKey, activeUsersKeys);
+        this.dashboardMetrics.recordWindowKeys(endpoint, activeUsersKeys.size());
+        final List<Object> results = this.dashboardMetrics.time("pipeline:SUNIONSTORE", endpoint,
+                () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        final RedisOperations<String, String> stringOperations =
+                                (RedisOperations<String, String>) operations;
+                        stringOperations.opsForSet().unionAndStore(activeUsersKeys, snapshotKey);
+                        stringOperations.expire(snapshotKey, snapshotTtl);
+                        return null;
+                    }
+                }));
+        final long size = !results.isEmpty() && results.get(0) instanceof Number number ? number.longValue() : 0L;
+        this.dashboardMetrics.recordUnionCardinality(endpoint, size);
+        if (size > 0) {
+            // SUNIONSTORE does not create the key of an empty union.
+            this.dashboardMetrics.incrementTempKeys(endpoint);
+            return snapshotId;
+        }
+        return null;
+    }
+
+    /**
+     * Method to read a page of a snapshot of the active users.
+     * @param endpoint The endpoint the page is read for, to tag the metrics
+     * @param snapshotId The id of the snapshot
+     * @param scanCursor The SSCAN cursor
+     * @param count The COUNT hint of SSCAN
+     * @return The page with the next SSCAN cursor, which is 0 at the end of the snapshot
+     * @throws SnapshotExpiredException When the snapshot expired
+     */
+    private ScanPage scanActiveUsersSnapshot(final String endpoint, final String snapshotId, final String scanCursor,
+                                             final int count) {
+        final List<Object> result = this.dashboardMetrics.time("EVAL:SSCAN", endpoint,
+                () -> this.redisTemplate.execute(SSCAN_SNAPSHOT_SCRIPT,
+                        ImmutableList.of(this.getSnapshotKey(snapshotId)), scanCursor,
+                        String.valueOf(Math.max(1, count))));
+        if (Objects.isNull(result) || result.size() != 2) {
+            throw new SnapshotExpiredException("Active users snapshot " + snapshotId + " expired");
+        }
+        final ImmutableList.Builder<String> userIds = ImmutableList.builder();
+        if (result.get(1) instanceof Collection<?> members) {
+            members.forEach(member -> userIds.add(member.toString()));
+        }
+        return new ScanPage(result.get(0).toString(), userIds.build());
+    }
+
+    private static double ratio(final double total, final long count) {
+        return count > 0 ? total / count : 0.0;
+    }
+
+    private String getSnapshotKey(final String snapshotId) {
+        return String.format("%s:%s", this.redisKeyConfig.getActiveUsersSnapshotKey(), snapshotId);
+    }
+
+    /**
+     * Method to get the session keys of a user.
+     * @param minuteBuckets The minute buckets of the window
+     * @param userId The id of the user
+     * @return List of session keys of the user to be fetched in redis.
+     */
+    private List<String> getUserSessionKeys(final List<String> minuteBuckets, final String userId) {
+        return this.getRedisKeys(minuteBuckets, this.redisKeyConfig.getUserSessionsKey(userId));
+    }
+
+    /**
+     * Method to parse a cursor of the pages of the user details.
+     * @param cursor The cursor
+     * @return The id of the snapshot and the SSCAN cursor
+     * @throws IllegalArgumentException When the cursor is malformed
+     */
+    private List<String> parseCursor(final String cursor) {
+        final List<String> parts = CURSOR_SPLITTER.splitToList(cursor);
+        if (parts.size() != 2 || !SNAPSHOT_ID.matcher(parts.get(0)).matches()
+                || !SCAN_CURSOR.matcher(parts.get(1)).matches()) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return parts;
+    }
+
+    /**
+     * Page of a SSCAN.
+     * @param cursor The cursor of the next page
+     * @param userIds The ids of the users of the page
+     */
+    private record ScanPage(String cursor, List<String> userIds) {
+    }
 }
@@ -0,0 +1,265 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.hash.Hashing;
+import com.liftlab.config.DashboardOffsetConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the encoded dashboard responses, shared by all the clients.
+ * @implNote A snapshot is cached per endpoint, window, parameters and format for
+ * dashboard.config.snapshot-cache.ttl-ms. Within that time every request gets the same bytes, without recomputing
+ * nor encoding the response. The concurrent requests of a missing or expired snapshot are coalesced: the first one
+ * computes it while the others wait for it, so a burst of dashboard tabs costs one read of redis. The ETag is a hash
+ * of the bytes, so it only changes when the content does, even across recomputations, and a client revalidating an
+ * unchanged snapshot gets a 304. A failed computation is not cached, every waiting request fails with it and the
+ * next one retries.
+ * <p>
+ * The computations run on virtual threads, through the {@link RedisCircuitBreaker}, and a request waits for one at
+ * most dashboard.config.latency-budget-ms. Past that budget, or when redis fails or the breaker is open, the last
+ * good snapshot is served marked as stale while the computation goes on in the background and refreshes the cache.
+ * The last good snapshots are kept up to dashboard.config.snapshot-cache.max-stale-ms. Without one, the request
+ * waits for the computation and gets its result or its failure, bounded by the redis command timeout.
+ */
+@Component
+@Slf4j
+public class DashboardSnapshotCache implements DisposableBean {
+
+    static final String HIT = "hit";
+
+    static final String COALESCED = "coalesced";
+
+    static final String MISS = "miss";
+
+    static final String STALE = "stale";
+
+    /** Number of snapshots above which the expired ones are evicted, there is one per window and offset asked. */
+    private static final int EVICTION_THRESHOLD = 64;
+
+    private final ResponseEncoder responseEncoder;
+
+    private final DashboardMetrics dashboardMetrics;
+
+    private final RedisCircuitBreaker redisCircuitBreaker;
+
+    private final Duration ttl;
+
+    private final long maxStaleMillis;
+
+    private final long latencyBudgetMillis;
+
+    private final Clock clock;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Last snapshot computed of every key, expired or not. */
+    private final Map<Key, Snapshot> lastGood = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public DashboardSnapshotCache(final ResponseEncoder responseEncoder,
+                                  final DashboardOffsetConfig dashboardOffsetConfig,
+                                  final DashboardMetrics dashboardMetrics,
+                                  final RedisCircuitBreaker redisCircuitBreaker) {
+        this(responseEncoder, dashboardOffsetConfig, dashboardMetrics, redisCircuitBreaker, Clock.systemUTC());
+    }
+
+    DashboardSnapshotCache(final ResponseEncoder responseEncoder,
+                           final DashboardOffsetConfig dashboardOffsetConfig,
+                           final DashboardMetrics dashboardMetrics,
+                           final RedisCircuitBreaker redisCircuitBreaker,
+                           final Clock clock) {
+        this.responseEncoder = responseEncoder;
+        this.dashboardMetrics = dashboardMetrics;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.ttl = Duration.ofMillis(Math.max(0, dashboardOffsetConfig.getSnapshotCacheTtlMillis()));
+        this.maxStaleMillis = Math.max(0, dashboardOffsetConfig.getSnapshotCacheMaxStaleMillis());
+        this.latencyBudgetMillis = Math.max(1, dashboardOffsetConfig.getLatencyBudgetMillis());
+        this.clock = clock;
+    }
+
+    /**
+     * Method to get a snapshot, computing it when it is missing or expired.
+     * @param endpoint The endpoint
+     * @param window The window, null for the configured window
+     * @param offset The number of results, 0 when the endpoint has none
+     * @param format The format of the snapshot
+     * @param response The computation of the response
+     * @return The snapshot, stale when the computation failed or is late and a previous snapshot is kept
+     */
+    public Snapshot get(final String endpoint, final Duration window, final int offset, final ResponseFormat format,
+                        final Supplier<?> response) {
+        return this.get(endpoint, window, String.valueOf(offset), format, response);
+    }
+
+    /**
+     * Method to get a snapshot, computing it when it is missing or expired.
+     * @param endpoint The endpoint
+     * @param window The window, null for the configured window
+     * @param parameters The other parameters of the response
+     * @param format The format of the snapshot
+     * @param response The computation of the response
+     * @return The snapshot, stale when the computation failed or is late and a previous snapshot is kept
+     */
+    public Snapshot get(final String endpoint, final Duration window, final String parameters,
+                        final ResponseFormat format, final Supplier<?> response) {
+        final Key key = new Key(endpoint, window, parameters, format);
+        final long now = this.clock.millis();
+        final Entry[] created = new Entry[1];
+        final Entry entry = this.entries.compute(key, (ignored, current) -> {
+            if (Objects.nonNull(current) && current.isUsable(now)) {
+                return current;
+            }
+            created[0] = new Entry();
+            return created[0];
+        });
+
+        if (entry != created[0]) {
+            if (entry.future.isDone()) {
+                this.dashboardMetrics.incrementSnapshotCache(endpoint, HIT);
+                return join(entry);
+            }
+            this.dashboardMetrics.incrementSnapshotCache(endpoint, COALESCED);
+            return this.await(key, entry);
+        }
+
+        this.dashboardMetrics.incrementSnapshotCache(endpoint, MISS);
+        if (this.entries.size() > EVICTION_THRESHOLD) {
+            this.entries.values().removeIf(expired -> expired.future.isDone() && !expired.isUsable(now));
+            this.lastGood.values().removeIf(snapshot -> now - snapshot.createdAt() > this.maxStaleMillis);
+        }
+        this.executor.execute(() -> this.compute(key, entry, response));
+        return this.await(key, entry);
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    private void compute(final Key key, final Entry entry, final Supplier<?> response) {
+        try {
+            final byte[] body = this.redisCircuitBreaker.call(() -> {
+                try {
+                    return this.responseEncoder.encode(response.get(), key.format());
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            final long now = this.clock.millis();
+            final Snapshot snapshot = new Snapshot(body, key.format(),
+                    "\"" + Hashing.murmur3_128().hashBytes(body) + "\"", now, false);
+            entry.expiresAt = now + this.ttl.toMillis();
+            this.lastGood.put(key, snapshot);
+            entry.future.complete(snapshot);
+        } catch (RuntimeException | Error e) {
+            this.entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Method to wait for a computation within the latency budget.
+     * @param key The key of the snapshot
+     * @param entry The entry being computed
+     * @return The computed snapshot, or the last good one when the computation is late or failed on redis
+     */
+    private Snapshot await(final Key key, final Entry entry) {
+        try {
+            return entry.future.get(this.latencyBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            final Snapshot stale = this.stale(key);
+            if (Objects.nonNull(stale)) {
+                log.warn("Serving a stale {} snapshot, its computation is still running", key.endpoint());
+                return stale;
+            }
+            return join(entry);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataAccessException || e.getCause() instanceof RedisUnavailableException) {
+                final Snapshot stale = this.stale(key);
+                if (Objects.nonNull(stale)) {
+                    log.warn("Serving a stale {} snapshot: {}", key.endpoint(), e.getCause().getMessage());
+                    return stale;
+                }
+            }
+            return join(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a snapshot", e);
+        }
+    }
+
+    private Snapshot stale(final Key key) {
+        final Snapshot snapshot = this.lastGood.get(key);
+        if (Objects.isNull(snapshot) || this.clock.millis() - snapshot.createdAt() > this.maxStaleMillis) {
+            return null;
+        }
+        this.dashboardMetrics.incrementSnapshotCache(key.endpoint(), STALE);
+        return new Snapshot(snapshot.body(), snapshot.format(), snapshot.etag(), snapshot.createdAt(), true);
+    }
+
+    private static Snapshot join(final Entry entry) {
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Encoded response.
+     * @param body The encoded response
+     * @param format The format of the body
+     * @param etag The strong ETag of the response, quoted
+     * @param createdAt The time the response was computed at in millis
+     * @param stale true when the snapshot is served in place of a failed or late computation
+     */
+    public record Snapshot(byte[] body, ResponseFormat format, String etag, long createdAt, boolean stale) {
+    }
+
+    private record Key(String endpoint, Duration window, String parameters, ResponseFormat format) {
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<Snapshot> future = new CompletableFuture<>();
+
+        /** Time the snapshot expires at in millis, set before the future completes. */
+        private volatile long expiresAt;
+
+        /**
+         * Method to check whether the entry can be used instead of computing the snapshot.
+         * @param now The current time in millis
+         * @return true when the snapshot is being computed, or computed and not expired
+         */
+        private boolean isUsable(final long now) {
+            return !this.future.isDone() || (!this.future.isCompletedExceptionally() && now < this.expiresAt);
+        }
+    }
+}
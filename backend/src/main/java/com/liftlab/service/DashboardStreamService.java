@@ -0,0 +1,345 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.StreamConfig;
+import com.liftlab.models.DashboardDelta;
+import com.liftlab.models.DashboardSnapshot;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.RankedPageView;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserDetailsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the dashboard to the subscribers of the stream.
+ * @implNote The dashboard is computed once per tick, whatever the number of subscribers, and only while there is
+ * at least one. A subscriber receives a full snapshot first, then only the users and the ranks which changed
+ * since the previous tick. Every subscriber has at most one send in flight: when it is still busy with a previous
+ * tick, the tick is skipped for it and it gets a fresh snapshot once it caught up, so a slow client never buffers
+ * more than one event. A subscriber which skipped too many ticks in a row is dropped.
+ */
+@Component
+@Slf4j
+public class DashboardStreamService implements SmartLifecycle {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    static final String DELTA_EVENT = "delta";
+
+    private final DashboardService dashboardService;
+
+    private final StreamConfig streamConfig;
+
+    private final RedisCallExecutor redisCallExecutor;
+
+    private final ExecutorService senders;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** State of the last tick, null when there were no subscribers. */
+    private volatile State state;
+
+    private volatile boolean running;
+
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public DashboardStreamService(final DashboardService dashboardService,
+                                  final StreamConfig streamConfig,
+                                  final RedisCallExecutor redisCallExecutor) {
+        this(dashboardService, streamConfig, redisCallExecutor,
+                Executors.newFixedThreadPool(streamConfig.getSenderThreads(), runnable -> {
+                    final Thread thread = new Thread(runnable, "dashboard-stream-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    DashboardStreamService(final DashboardService dashboardService,
+                           final StreamConfig streamConfig,
+                           final RedisCallExecutor redisCallExecutor,
+                           final ExecutorService senders) {
+        this.dashboardService = dashboardService;
+        this.streamConfig = streamConfig;
+        this.redisCallExecutor = redisCallExecutor;
+        this.senders = senders;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "dashboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleWithFixedDelay(this::tick, this.streamConfig.getTickMillis(),
+                this.streamConfig.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.ticker.shutdownNow();
+        this.subscriptions.forEach(this::unsubscribe);
+        this.senders.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Method to subscribe to the dashboard as server-sent events.
+     * @return The emitter of the events, a 'snapshot' event followed by 'delta' events
+     */
+    public SseEmitter subscribe() {
+        final SseEmitter emitter = new SseEmitter(this.streamConfig.getTimeoutMillis());
+        final Subscription subscription = this.subscribe(new StreamSubscriber() {
+            @Override
+            public void send(final String name, final Object data) throws IOException {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> this.subscriptions.remove(subscription));
+        emitter.onTimeout(() -> this.unsubscribe(subscription));
+        emitter.onError(error -> this.subscriptions.remove(subscription));
+        return emitter;
+    }
+
+    /**
+     * Method to add a subscriber, which gets the latest snapshot right away when there is one.
+     * @param subscriber The subscriber
+     * @return The subscription
+     */
+    Subscription subscribe(final StreamSubscriber subscriber) {
+        final Subscription subscription = new Subscription(subscriber);
+        this.subscriptions.add(subscription);
+        final State current = this.state;
+        if (Objects.nonNull(current)) {
+            this.dispatch(subscription, current, null);
+        }
+        log.debug("Dashboard stream has {} subscribers", this.subscriptions.size());
+        return subscription;
+    }
+
+    int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    /**
+     * Method to compute the dashboard and fan it out to the subscribers.
+     * @implNote The active users and the top pages do not depend on each other, they are read by
+     * {@link RedisCallExecutor}, at once when it runs concurrently.
+     */
+    void tick() {
+        try {
+            if (this.subscriptions.isEmpty()) {
+                this.state = null;
+                return;
+            }
+            final State previous = this.state;
+            final RedisCallExecutor.Pair<UserDetailsResponse, PageViewsResponse> dashboard =
+                    this.redisCallExecutor.invokeBoth(this.dashboardService::getUserDetails,
+                            () -> this.dashboardService.getTopPages(this.streamConfig.getPageViewsOffset()));
+            final State current = new State(
+                    this.sequence.get() + 1,
+                    dashboard.first().getUserDetails(),
+                    dashboard.second().getPageViews());
+            final DashboardDelta delta = Objects.isNull(previous) ? null : diff(previous, current);
+            this.sequence.set(current.sequence());
+            this.state = current;
+            this.subscriptions.forEach(subscription -> this.dispatch(subscription, current, delta));
+        } catch (Exception e) {
+            log.error("Failed to fetch the details", e);
+        }
+    }
+
+    /**
+     * Method to send a tick to a subscriber, unless a previous send is still in flight.
+     * @param subscription The subscription
+     * @param current The state of the tick
+     * @param delta The changes since the previous tick, null when there is no previous tick
+     */
+    private void dispatch(final Subscription subscription, final State current, final DashboardDelta delta) {
+        if (!subscription.sending.compareAndSet(false, true)) {
+            if (subscription.skippedTicks.incrementAndGet() > this.streamConfig.getMaxSkippedTicks()) {
+                log.warn("Dropping a dashboard stream subscriber which skipped {} ticks",
+                        subscription.skippedTicks.get());
+                this.unsubscribe(subscription);
+            }
+            return;
+        }
+        subscription.skippedTicks.set(0);
+        try {
+            this.senders.execute(() -> this.send(subscription, current, delta));
+        } catch (RejectedExecutionException e) {
+            subscription.sending.set(false);
+        }
+    }
+
+    private void send(final Subscription subscription, final State current, final DashboardDelta delta) {
+        try {
+            if (Objects.nonNull(delta) && subscription.lastSequence == current.sequence() - 1) {
+                if (!isEmpty(delta)) {
+                    subscription.subscriber.send(DELTA_EVENT, delta);
+                }
+            } else if (subscription.lastSequence != current.sequence()) {
+                // New subscriber, or it missed ticks.
+                subscription.subscriber.send(SNAPSHOT_EVENT, current.snapshot());
+            }
+            subscription.lastSequence = current.sequence();
+        } catch (Exception e) {
+            log.debug("Dashboard stream subscriber is gone: {}", e.getMessage());
+            this.unsubscribe(subscription);
+        } finally {
+            subscription.sending.set(false);
+        }
+    }
+
+    private void unsubscribe(final Subscription subscription) {
+        if (this.subscriptions.remove(subscription)) {
+            try {
+                subscription.subscriber.close();
+            } catch (Exception e) {
+                log.debug("Failed to close a dashboard stream subscriber: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Method to get the changes between two ticks.
+     * @param previous The previous state
+     * @param current The current state
+     * @return The users whose session count changed or who are new, the users who are gone, and the ranks of the
+     * page views which changed.
+     */
+    static DashboardDelta diff(final State previous, final State current) {
+        final Map<String, Integer> previousSessionCounts = previous.sessionCounts();
+        final Map<String, Integer> currentSessionCounts = current.sessionCounts();
+        final List<UserDetails> changedUsers = current.userDetails().stream()
+                .filter(userDetails -> !Objects.equals(previousSessionCounts.get(userDetails.getUserId()),
+                        userDetails.getSessionCount()))
+                .collect(ImmutableList.toImmutableList());
+        final List<String> removedUserIds = previousSessionCounts.keySet().stream()
+                .filter(userId -> !currentSessionCounts.containsKey(userId))
+                .collect(ImmutableList.toImmutableList());
+
+        final ImmutableList.Builder<RankedPageView> changedRanks = ImmutableList.builder();
+        for (int rank = 0; rank < current.pageViews().size(); rank++) {
+            final PageViewCount pageView = current.pageViews().get(rank);
+            if (rank >= previous.pageViews().size() || !samePageView(previous.pageViews().get(rank), pageView)) {
+                changedRanks.add(RankedPageView.builder()
+                        .withRank(rank)
+                        .withPageUrl(pageView.getPageUrl())
+                        .withCount(pageView.getCount())
+                        .build());
+            }
+        }
+
+        return DashboardDelta.builder()
+                .withSequence(current.sequence())
+                .withUserDetails(changedUsers)
+                .withRemovedUserIds(removedUserIds)
+                .withPageViews(changedRanks.build())
+                .withPageViewsSize(current.pageViews().size())
+                .build();
+    }
+
+    private static boolean samePageView(final PageViewCount previous, final PageViewCount current) {
+        return previous.getCount() == current.getCount() && previous.getPageUrl().equals(current.getPageUrl());
+    }
+
+    private static boolean isEmpty(final DashboardDelta delta) {
+        return delta.getUserDetails().isEmpty() && delta.getRemovedUserIds().isEmpty()
+                && delta.getPageViews().isEmpty();
+    }
+
+    /**
+     * Subscriber with its position in the stream.
+     */
+    static final class Subscription {
+
+        private final StreamSubscriber subscriber;
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private final AtomicInteger skippedTicks = new AtomicInteger();
+
+        /** Sequence of the last tick the subscriber is up to date with, only touched by the send in flight. */
+        private long lastSequence = -1;
+
+        private Subscription(final StreamSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+
+    /**
+     * Dashboard computed by a tick.
+     * @param sequence The sequence of the tick
+     * @param userDetails The active users
+     * @param pageViews The top pages, most viewed first
+     */
+    record State(long sequence, List<UserDetails> userDetails, List<PageViewCount> pageViews) {
+
+        State {
+            userDetails = ImmutableList.copyOf(userDetails);
+            pageViews = ImmutableList.copyOf(pageViews);
+        }
+
+        /**
+         * Method to get the session count by user id.
+         * @return Map of session counts
+         */
+        Map<String, Integer> sessionCounts() {
+            final Map<String, Integer> sessionCounts = new HashMap<>();
+            this.userDetails.forEach(userDetails -> sessionCounts.put(userDetails.getUserId(),
+                    userDetails.getSessionCount()));
+            return sessionCounts;
+        }
+
+        DashboardSnapshot snapshot() {
+            return DashboardSnapshot.builder()
+                    .withSequence(this.sequence)
+                    .withUserDetails(this.userDetails)
+                    .withPageViews(this.pageViews)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Granularity of the time buckets of the redis keys. The minute buckets are written for every event, and rolled up
+ * into 5 minute, hourly and daily buckets, aligned in UTC. A rollup bucket is named after its first minute with a
+ * prefix, for example the hour of 2025-08-07T16:00 UTC is '1h:202508071600'.
+ */
+@Getter
+public enum Granularity {
+
+    MINUTE(1, ""),
+    FIVE_MINUTES(5, "5m:"),
+    HOUR(60, "1h:"),
+    DAY(1440, "1d:");
+
+    /** The rollups, finest first. */
+    public static final List<Granularity> ROLLUPS = ImmutableList.of(FIVE_MINUTES, HOUR, DAY);
+
+    private final int minutes;
+
+    private final String prefix;
+
+    Granularity(final int minutes, final String prefix) {
+        this.minutes = minutes;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Method to get the bucket which contains a time.
+     * @param time The time in UTC
+     * @return The bucket, which is the time part of the redis keys
+     */
+    public String bucket(final LocalDateTime time) {
+        return this.prefix + MinuteBuckets.format(this.truncate(time));
+    }
+
+    /**
+     * Method to get the first minute of the bucket which contains a time.
+     * @param time The time in UTC
+     * @return The first minute of the bucket
+     */
+    public LocalDateTime truncate(final LocalDateTime time) {
+        final long epochMinute = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60L);
+        return LocalDateTime.ofEpochSecond((epochMinute - Math.floorMod(epochMinute, this.minutes)) * 60L, 0,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Method to check whether a bucket of this granularity starts at a minute.
+     * @param minute The minute in UTC
+     * @return true when a bucket starts at the minute
+     */
+    public boolean isAligned(final LocalDateTime minute) {
+        return this.truncate(minute).equals(minute);
+    }
+}
@@ -0,0 +1,50 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Helper for the minute buckets, which are the time part of the redis keys. For example the bucket of
+ * 2025-08-07T16:34 UTC is '202508071634'.
+ */
+public final class MinuteBuckets {
+
+    public static final DateTimeFormatter MINUTE_BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private MinuteBuckets() {
+    }
+
+    /**
+     * Method to get the latest minute buckets.
+     * @param now The current time in UTC
+     * @param minutesOffset The number of buckets to be returned
+     * @return List of minute buckets, latest first.
+     */
+    public static List<String> latest(final LocalDateTime now, final int minutesOffset) {
+        return IntStream.rangeClosed(0, minutesOffset - 1)
+                .mapToObj(minute -> format(now.minusMinutes(minute)))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Method to get the minute bucket of a time.
+     * @param time The time in UTC
+     * @return The minute bucket
+     */
+    public static String format(final LocalDateTime time) {
+        return time.format(MINUTE_BUCKET_FORMAT);
+    }
+
+    /**
+     * Method to get the time of a minute bucket.
+     * @param minuteBucket The minute bucket
+     * @return The first second of the minute in UTC
+     */
+    public static LocalDateTime parse(final String minuteBucket) {
+        return LocalDateTime.parse(minuteBucket, MINUTE_BUCKET_FORMAT);
+    }
+}
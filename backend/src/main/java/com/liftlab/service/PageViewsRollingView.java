@@ -0,0 +1,354 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.models.PageViewCount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling view of the page views over the page views window, shared by all the callers of
+ * {@link DashboardService#getTopPages(int)}.
+ * @implNote The page views of every minute are stored in a sorted set per minute. Instead of a ZUNIONSTORE of the
+ * whole window on every request, the view keeps the totals of the minute buckets which no longer change (frozen
+ * buckets) in memory. When the minute rolls over, only the deltas are applied: the bucket which just got frozen is
+ * read once and added, and the bucket which left the window is subtracted. The latest buckets (hot buckets) still
+ * receive events, so they are re-read on every refresh. A refresh happens at most once per configured staleness
+ * period, no matter how many callers there are. {@link DashboardService#getSummary(int, java.time.Duration)} reads
+ * the buckets of a refresh in its own pipeline and refreshes the view with the replies, so the summary and the top
+ * pages agree.
+ */
+@Component
+@Slf4j
+public class PageViewsRollingView {
+
+    /**
+     * Number of latest minute buckets which are still being written. The previous minute is included, as the
+     * events of a minute keep arriving for a few seconds after the minute is over.
+     */
+    static final int HOT_BUCKETS = 2;
+
+    private static final Comparator<PageViewCount> RANKING = Comparator
+            .comparingLong(PageViewCount::getCount).reversed()
+            .thenComparing(PageViewCount::getPageUrl, Comparator.reverseOrder());
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig;
+
+    private final DashboardOffsetConfig dashboardOffsetConfig;
+
+    private final DashboardMetrics dashboardMetrics;
+
+    private final Clock clock;
+
+    /** Page views of the frozen buckets in the window, by minute bucket. */
+    private final Map<String, Map<String, Double>> frozenBuckets = new LinkedHashMap<>();
+
+    /** Sum of the page views of the frozen buckets. */
+    private final Map<String, Double> frozenTotals = new HashMap<>();
+
+    /** Latest minute bucket of the window of the frozen buckets. */
+    private String frozenMinuteBucket;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public PageViewsRollingView(final StringRedisTemplate redisTemplate,
+                                final RedisKeyConfig redisKeyConfig,
+                                final DashboardOffsetConfig dashboardOffsetConfig,
+                                final DashboardMetrics dashboardMetrics) {
+        this(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics, Clock.systemUTC());
+    }
+
+    PageViewsRollingView(final StringRedisTemplate redisTemplate,
+                         final RedisKeyConfig redisKeyConfig,
+                         final DashboardOffsetConfig dashboardOffsetConfig,
+                         final DashboardMetrics dashboardMetrics,
+                         final Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.redisKeyConfig = redisKeyConfig;
+        this.dashboardOffsetConfig = dashboardOffsetConfig;
+        this.dashboardMetrics = dashboardMetrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Method to get the top pages of the window.
+     * @param offset The number of results to be returned.
+     * @return List of page views, most viewed first.
+     */
+    public List<PageViewCount> getTopPages(final int offset) {
+        final List<PageViewCount> ranked = this.getSnapshot().ranked();
+        return ranked.subList(0, Math.min(ranked.size(), Math.max(1, offset)));
+    }
+
+    /**
+     * Method to get the top pages of given buckets, outside of the rolling view.
+     * @param offset The number of results to be returned.
+     * @param buckets The buckets, minute buckets or rollups, which must not overlap
+     * @return List of page views, most viewed first.
+     */
+    public List<PageViewCount> getTopPages(final int offset, final List<String> buckets) {
+        final Map<String, Double> totals = new HashMap<>();
+        this.readBuckets(buckets)
+                .forEach(bucket -> bucket.forEach((pageUrl, count) -> totals.merge(pageUrl, count, Double::sum)));
+        return this.rank(totals).stream()
+                .limit(Math.max(1, offset))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Method to queue the reads of the page views of buckets in a pipeline of the caller.
+     * @param operations The operations of the pipeline
+     * @param buckets The buckets, minute buckets or rollups, which must not overlap
+     */
+    void readBuckets(final RedisOperations<String, String> operations, final List<String> buckets) {
+        final ZSetOperations<String, String> zSetOperations = operations.opsForZSet();
+        buckets.forEach(bucket -> zSetOperations.rangeWithScores(
+                String.format("%s:%s", this.redisKeyConfig.getPageViewsKey(), bucket), 0, -1));
+    }
+
+    /**
+     * Method to get the top pages from the replies of the reads queued by
+     * {@link #readBuckets(RedisOperations, List)}.
+     * @param offset The number of results to be returned.
+     * @param replies The replies of the reads
+     * @return List of page views, most viewed first.
+     */
+    List<PageViewCount> getTopPagesOfReplies(final int offset, final List<?> replies) {
+        final Map<String, Double> totals = new HashMap<>();
+        replies.forEach(reply -> toPageViews(reply)
+                .forEach((pageUrl, count) -> totals.merge(pageUrl, count, Double::sum)));
+        return this.rank(totals).stream()
+                .limit(Math.max(1, offset))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Method to plan a refresh of the view, whose reads the caller queues in its own pipeline.
+     * @param now The time the window ends at
+     * @return The refresh, whose buckets are to be read with {@link #readBuckets(RedisOperations, List)}
+     */
+    synchronized Refresh planRefresh(final LocalDateTime now) {
+        final List<String> minuteBuckets = MinuteBuckets.latest(now, this.dashboardOffsetConfig.getPageViewsOffset());
+        final List<String> hotBuckets = minuteBuckets.subList(0, Math.min(HOT_BUCKETS, minuteBuckets.size()));
+        final List<String> frozenBuckets = minuteBuckets.subList(hotBuckets.size(), minuteBuckets.size());
+        final List<String> missingBuckets = frozenBuckets.stream()
+                .filter(minuteBucket -> !this.frozenBuckets.containsKey(minuteBucket))
+                .toList();
+        return new Refresh(minuteBuckets.isEmpty() ? MinuteBuckets.format(now) : minuteBuckets.get(0), hotBuckets,
+                frozenBuckets, missingBuckets);
+    }
+
+    /**
+     * Method to get the top pages from the replies of the reads of a refresh, which also refreshes the view.
+     * @param offset The number of results to be returned.
+     * @param refresh The refresh, from {@link #planRefresh(LocalDateTime)}
+     * @param replies The replies of the reads of {@link Refresh#buckets()}
+     * @implNote A refresh which a concurrent one for a later minute overtook does not apply, and the top pages come
+     *           from the view instead.
+     * @return List of page views, most viewed first.
+     */
+    List<PageViewCount> getTopPagesOfRefresh(final int offset, final Refresh refresh, final List<?> replies) {
+        final List<PageViewCount> applied = this.applyRefresh(refresh, replies);
+        final List<PageViewCount> ranked = applied != null ? applied : this.getSnapshot().ranked();
+        return ranked.subList(0, Math.min(ranked.size(), Math.max(1, offset)));
+    }
+
+    /**
+     * Method to get a snapshot, which is at most the configured staleness old and belongs to the current minute.
+     * @return The snapshot
+     */
+    private Snapshot getSnapshot() {
+        final Snapshot current = this.snapshot;
+        if (this.isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            if (!this.isFresh(this.snapshot)) {
+                this.refresh();
+            }
+            return this.snapshot;
+        }
+    }
+
+    private boolean isFresh(final Snapshot current) {
+        if (current == null) {
+            return false;
+        }
+        final Instant now = this.clock.instant();
+        final Duration maxStaleness = Duration.ofSeconds(this.dashboardOffsetConfig.getPageViewsMaxStalenessSeconds());
+        return current.minuteBucket().equals(MinuteBuckets.format(LocalDateTime.ofInstant(now, this.clock.getZone())))
+                && current.refreshedAt().plus(maxStaleness).isAfter(now);
+    }
+
+    /**
+     * Method to read the hot buckets and the newly frozen ones in a single round trip, and refresh the view.
+     */
+    private void refresh() {
+        final Refresh refresh = this.planRefresh(LocalDateTime.ofInstant(this.clock.instant(), this.clock.getZone()));
+        log.debug("Refreshing rolling page views with buckets: {}", refresh.buckets());
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.PAGE_VIEWS, refresh.buckets().size());
+        this.applyRefresh(refresh, this.readReplies(refresh.buckets()));
+    }
+
+    /**
+     * Method to apply the deltas of the window since the last refresh, rank the pages and keep them as the snapshot.
+     * @param refresh The refresh
+     * @param replies The replies of the reads of {@link Refresh#buckets()}
+     * @implNote The bucket which left the window is subtracted and the buckets which just got frozen are added, unless
+     *           a concurrent refresh of the same minute added them first. The view never goes back in time: the
+     *           refresh of a minute older than the one of the view is not applied.
+     * @return List of page views, most viewed first, null when the refresh was not applied
+     */
+    private synchronized List<PageViewCount> applyRefresh(final Refresh refresh, final List<?> replies) {
+        if (this.frozenMinuteBucket != null && refresh.minuteBucket().compareTo(this.frozenMinuteBucket) < 0) {
+            return null;
+        }
+        final List<String> buckets = refresh.buckets();
+        final List<Map<String, Double>> pageViews = new ArrayList<>(buckets.size());
+        for (int index = 0; index < buckets.size(); index++) {
+            pageViews.add(toPageViews(index < replies.size() ? replies.get(index) : null));
+        }
+
+        // Subtract the buckets which left the window.
+        final Iterator<Map.Entry<String, Map<String, Double>>> cached = this.frozenBuckets.entrySet().iterator();
+        while (cached.hasNext()) {
+            final Map.Entry<String, Map<String, Double>> bucket = cached.next();
+            if (!refresh.frozenBuckets().contains(bucket.getKey())) {
+                bucket.getValue().forEach((pageUrl, count) -> this.frozenTotals.merge(pageUrl, -count,
+                        (total, delta) -> total + delta > 0 ? total + delta : null));
+                cached.remove();
+            }
+        }
+
+        // Add the buckets which just got frozen.
+        final int hotBuckets = refresh.hotBuckets().size();
+        for (int index = 0; index < refresh.missingBuckets().size(); index++) {
+            final Map<String, Double> bucket = pageViews.get(hotBuckets + index);
+            if (this.frozenBuckets.putIfAbsent(refresh.missingBuckets().get(index), bucket) == null) {
+                bucket.forEach((pageUrl, count) -> this.frozenTotals.merge(pageUrl, count, Double::sum));
+            }
+        }
+        this.frozenMinuteBucket = refresh.minuteBucket();
+
+        final Map<String, Double> totals = new HashMap<>(this.frozenTotals);
+        pageViews.subList(0, hotBuckets)
+                .forEach(bucket -> bucket.forEach((pageUrl, count) -> totals.merge(pageUrl, count, Double::sum)));
+        final List<PageViewCount> ranked = this.rank(totals);
+        this.snapshot = new Snapshot(refresh.minuteBucket(), this.clock.instant(), ranked);
+        return ranked;
+    }
+
+    /**
+     * Method to rank the pages by views.
+     * @param totals The page views by url
+     * @return List of page views, most viewed first.
+     */
+    private List<PageViewCount> rank(final Map<String, Double> totals) {
+        return totals.entrySet().stream()
+                .map(total -> PageViewCount.builder()
+                        .withPageUrl(total.getKey())
+                        .withCount(total.getValue().longValue())
+                        .build())
+                .sorted(RANKING)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Method to read the page views of buckets in a single pipeline.
+     * @param buckets The buckets
+     * @return List of page views by url, one per bucket.
+     */
+    private List<Map<String, Double>> readBuckets(final List<String> buckets) {
+        final List<Object> results = this.readReplies(buckets);
+        final ImmutableList.Builder<Map<String, Double>> pageViews = ImmutableList.builder();
+        for (int index = 0; index < buckets.size(); index++) {
+            pageViews.add(toPageViews(index < results.size() ? results.get(index) : null));
+        }
+        return pageViews.build();
+    }
+
+    /**
+     * Method to read the page views of buckets in a single pipeline.
+     * @param buckets The buckets
+     * @return The replies of the ZRANGE WITHSCORES, one per bucket.
+     */
+    private List<Object> readReplies(final List<String> buckets) {
+        return this.dashboardMetrics.time("pipeline:ZRANGE", DashboardMetrics.PAGE_VIEWS,
+                () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        readBuckets((RedisOperations<String, String>) operations, buckets);
+                        return null;
+                    }
+                }));
+    }
+
+    /**
+     * Method to convert the reply of a ZRANGE WITHSCORES.
+     * @param reply The reply, null when missing
+     * @return The page views by url
+     */
+    static Map<String, Double> toPageViews(final Object reply) {
+        final Map<String, Double> bucket = new HashMap<>();
+        if (reply instanceof Collection<?> tuples) {
+            for (final Object tuple : tuples) {
+                final ZSetOperations.TypedTuple<?> typedTuple = (ZSetOperations.TypedTuple<?>) tuple;
+                if (typedTuple.getValue() != null && typedTuple.getScore() != null) {
+                    bucket.merge(typedTuple.getValue().toString(), typedTuple.getScore(), Double::sum);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Ranked page views of the window at a point in time.
+     * @param minuteBucket The latest minute bucket of the window
+     * @param refreshedAt The time of the refresh
+     * @param ranked The page views, most viewed first
+     */
+    private record Snapshot(String minuteBucket, Instant refreshedAt, List<PageViewCount> ranked) {
+    }
+
+    /**
+     * Reads of a refresh of the window.
+     * @param minuteBucket The latest minute bucket of the window
+     * @param hotBuckets The hot buckets, read on every refresh
+     * @param frozenBuckets The frozen buckets of the window
+     * @param missingBuckets The frozen buckets which the view did not have when the refresh was planned
+     */
+    record Refresh(String minuteBucket, List<String> hotBuckets, List<String> frozenBuckets,
+                   List<String> missingBuckets) {
+
+        /**
+         * Method to get the buckets to read: the hot buckets, then the missing ones.
+         * @return List of minute buckets.
+         */
+        List<String> buckets() {
+            return ImmutableList.<String>builder().addAll(this.hotBuckets).addAll(this.missingBuckets).build();
+        }
+    }
+}
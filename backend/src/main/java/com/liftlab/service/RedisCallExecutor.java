@@ -0,0 +1,139 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent redis calls of a request, one after the other or concurrently on virtual threads.
+ * @implNote With dashboard.config.concurrency.redis-calls above 1, the calls of a request are run by up to that
+ * many virtual threads, so a request waits for about one round trip per wave of calls instead of one per call. A
+ * virtual thread blocked on redis does not hold a carrier thread, so the concurrency costs no platform thread, and
+ * the per request bound keeps a single request from taking all the connections of a pool. With 1, which is the
+ * default, the calls run on the calling thread like before.
+ */
+@Component
+@Slf4j
+public class RedisCallExecutor implements DisposableBean {
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    public RedisCallExecutor(final DashboardOffsetConfig dashboardOffsetConfig) {
+        this.concurrency = Math.max(1, dashboardOffsetConfig.getRedisCallsConcurrency());
+        this.executor = this.concurrency > 1 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        log.info("Running the redis calls of a request with a concurrency of {}", this.concurrency);
+    }
+
+    public int getConcurrency() {
+        return this.concurrency;
+    }
+
+    /**
+     * Method to run independent calls and wait for all of them.
+     * @param calls The calls
+     * @return List of the results, in the order of the calls
+     * @throws RuntimeException The first failure of a call, after the calls in flight are done. The calls which did
+     *                          not start yet are not run.
+     */
+    public <T> List<T> invokeAll(final List<? extends Supplier<T>> calls) {
+        if (Objects.isNull(this.executor) || calls.size() < 2) {
+            return calls.stream().map(Supplier::get).toList();
+        }
+        final Object[] results = new Object[calls.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final int workers = Math.min(this.concurrency, calls.size());
+        final List<Future<?>> futures = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            futures.add(this.executor.submit(() -> {
+                int index;
+                while (!failed.get() && (index = next.getAndIncrement()) < calls.size()) {
+                    try {
+                        results[index] = calls.get(index).get();
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+            }));
+        }
+        this.await(futures);
+        @SuppressWarnings("unchecked")
+        final List<T> list = (List<T>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Method to run two independent calls and wait for both.
+     * @param first The first call
+     * @param second The second call
+     * @return The results
+     */
+    public <A, B> Pair<A, B> invokeBoth(final Supplier<A> first, final Supplier<B> second) {
+        final List<Object> results = this.invokeAll(ImmutableList.<Supplier<Object>>of(first::get, second::get));
+        @SuppressWarnings("unchecked")
+        final Pair<A, B> pair = new Pair<>((A) results.get(0), (B) results.get(1));
+        return pair;
+    }
+
+    @Override
+    public void destroy() {
+        if (Objects.nonNull(this.executor)) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private void await(final List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for redis", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                if (Objects.isNull(failure)) {
+                    failure = e.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException
+                            : new IllegalStateException(e.getCause());
+                }
+            } catch (CancellationException e) {
+                if (Objects.isNull(failure)) {
+                    failure = e;
+                }
+            }
+        }
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Results of two calls.
+     * @param first The result of the first call
+     * @param second The result of the second call
+     */
+    public record Pair<A, B>(A first, B second) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.liftlab.service;
+
+import com.liftlab.config.DashboardOffsetConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker of the redis reads of the dashboard.
+ * @implNote The breaker opens after dashboard.config.circuit-breaker.failure-threshold consecutive failed calls,
+ * a call failing with a {@link DataAccessException} (connection failure, command timeout) or answering after
+ * dashboard.config.circuit-breaker.slow-call-ms. While it is open the calls fail at once with a
+ * {@link RedisUnavailableException} instead of queueing on a stalled connection until the client times out. After
+ * dashboard.config.circuit-breaker.open-ms a single trial call is let through: its success closes the breaker, and
+ * its failure opens it again. Any other exception means redis answered, and counts as a success.
+ */
+@Component
+@Slf4j
+public class RedisCircuitBreaker {
+
+    /** States, their ordinal is the value of the dashboard.circuit.breaker.state gauge. */
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long slowCallMillis;
+
+    private final long openMillis;
+
+    private final DashboardMetrics dashboardMetrics;
+
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long openedAt;
+
+    @Autowired
+    public RedisCircuitBreaker(final DashboardOffsetConfig dashboardOffsetConfig,
+                               final DashboardMetrics dashboardMetrics) {
+        this(dashboardOffsetConfig, dashboardMetrics, Clock.systemUTC());
+    }
+
+    RedisCircuitBreaker(final DashboardOffsetConfig dashboardOffsetConfig,
+                        final DashboardMetrics dashboardMetrics,
+                        final Clock clock) {
+        this.failureThreshold = Math.max(1, dashboardOffsetConfig.getCircuitBreakerFailureThreshold());
+        this.slowCallMillis = dashboardOffsetConfig.getCircuitBreakerSlowCallMillis();
+        this.openMillis = dashboardOffsetConfig.getCircuitBreakerOpenMillis();
+        this.dashboardMetrics = dashboardMetrics;
+        this.clock = clock;
+        dashboardMetrics.registerCircuitBreakerState(() -> this.getState().ordinal());
+    }
+
+    /**
+     * Method to make a redis call through the breaker.
+     * @param call The call
+     * @return The result of the call
+     * @throws RedisUnavailableException When the breaker is open
+     */
+    public <T> T call(final Supplier<T> call) {
+        this.acquire();
+        final long start = this.clock.millis();
+        final T result;
+        try {
+            result = call.get();
+        } catch (DataAccessException e) {
+            this.onFailure();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            this.onSuccess();
+            throw e;
+        }
+        if (this.clock.millis() - start > this.slowCallMillis) {
+            this.onFailure();
+        } else {
+            this.onSuccess();
+        }
+        return result;
+    }
+
+    synchronized State getState() {
+        return this.state;
+    }
+
+    private synchronized void acquire() {
+        if (this.state == State.CLOSED) {
+            return;
+        }
+        final long elapsed = this.clock.millis() - this.openedAt;
+        if (this.state == State.OPEN && elapsed >= this.openMillis) {
+            this.state = State.HALF_OPEN;
+            return;
+        }
+        // Open, or half open with the trial call in flight.
+        this.dashboardMetrics.incrementCircuitBreakerRejections();
+        throw new RedisUnavailableException("The redis circuit breaker is open",
+                Duration.ofMillis(Math.max(0, this.openMillis - elapsed)));
+    }
+
+    private synchronized void onSuccess() {
+        if (this.state == State.HALF_OPEN) {
+            log.info("Closing the redis circuit breaker");
+        }
+        this.state = State.CLOSED;
+        this.failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        if (this.state == State.HALF_OPEN || ++this.failures >= this.failureThreshold) {
+            if (this.state != State.OPEN) {
+                log.warn("Opening the redis circuit breaker for {} ms after {} failed calls", this.openMillis,
+                        this.failures);
+            }
+            this.state = State.OPEN;
+            this.openedAt = this.clock.millis();
+        }
+    }
+}
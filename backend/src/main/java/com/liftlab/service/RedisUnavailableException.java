@@ -0,0 +1,24 @@
+package com.liftlab.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a redis call is not made because the circuit breaker is open.
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RedisUnavailableException(final String message, final Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Method to get the time until the circuit breaker lets a call through again.
+     * @return The time, rounded up to a second
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (this.retryAfter.toMillis() + 999) / 1000);
+    }
+}
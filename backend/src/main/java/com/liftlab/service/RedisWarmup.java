@@ -0,0 +1,100 @@
+package com.liftlab.service;
+
+import com.liftlab.config.DashboardOffsetConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Warm up of the redis connections, before the application reports it is ready to take traffic.
+ * @implNote Spring Boot moves the readiness state to ACCEPTING_TRAFFIC once the application runners returned, so
+ * /actuator/health/readiness answers 503 until the warm up is over, and a new replica gets no traffic while its
+ * first requests would still pay for the connection to redis. The shared connection, which the connection factory
+ * opens on first use, is opened with a PING retried until dashboard.config.warmup.timeout-ms, then a pipelined PING
+ * opens a dedicated connection the way the pipelined reads of the dashboard do. Past the timeout the application
+ * becomes ready anyway, with the reads failing fast through the {@link RedisCircuitBreaker} until redis answers, so
+ * a redis outage does not keep every replica out of the load balancer. A timeout of 0 disables the warm up.
+ */
+@Component
+@Slf4j
+public class RedisWarmup implements ApplicationRunner {
+
+    private static final Duration RETRY_INTERVAL = Duration.ofMillis(500);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final long timeoutMillis;
+
+    private final Clock clock;
+
+    @Autowired
+    public RedisWarmup(final StringRedisTemplate redisTemplate,
+                       final DashboardOffsetConfig dashboardOffsetConfig) {
+        this(redisTemplate, dashboardOffsetConfig, Clock.systemUTC());
+    }
+
+    RedisWarmup(final StringRedisTemplate redisTemplate,
+                final DashboardOffsetConfig dashboardOffsetConfig,
+                final Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.timeoutMillis = dashboardOffsetConfig.getWarmupTimeoutMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        this.warmUp();
+    }
+
+    /**
+     * Method to open the connections to redis, retrying until the timeout.
+     * @return True when redis answered, false when the warm up is disabled or timed out
+     */
+    public boolean warmUp() {
+        if (this.timeoutMillis <= 0) {
+            return false;
+        }
+        final long start = this.clock.millis();
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            try {
+                this.redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+                this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                        operations.execute((RedisCallback<String>) RedisConnection::ping);
+                        return null;
+                    }
+                });
+                log.info("Warmed up the redis connections in {} ms, after {} attempts",
+                        this.clock.millis() - start, attempts);
+                return true;
+            } catch (DataAccessException e) {
+                if (this.clock.millis() - start + RETRY_INTERVAL.toMillis() > this.timeoutMillis) {
+                    log.warn("Redis did not answer the warm up within {} ms, after {} attempts, starting anyway",
+                            this.timeoutMillis, attempts, e);
+                    return false;
+                }
+                log.debug("Redis did not answer the warm up, attempt {}", attempts, e);
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
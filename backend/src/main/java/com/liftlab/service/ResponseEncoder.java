@@ -0,0 +1,85 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.liftlab.models.ColumnarPageViewsResponse;
+import com.liftlab.models.ColumnarSummaryResponse;
+import com.liftlab.models.ColumnarUserDetailsResponse;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.SummaryResponse;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserDetailsResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encoder of the dashboard responses in a {@link ResponseFormat}.
+ * @implNote JSON repeats the field names for every user and page, about half of the bytes of a large response. CBOR
+ * is written with the columnar layout: the ids and the counts are two arrays, so the field names appear once, and the
+ * counts are binary integers, one byte below 24. Both mappers share the modules
+ * and the settings of the application mapper.
+ */
+@Component
+public class ResponseEncoder {
+
+    private final ObjectMapper jsonMapper;
+
+    private final ObjectMapper cborMapper;
+
+    public ResponseEncoder(final ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    /**
+     * Method to encode a response
+     * @param response The response
+     * @param format The format
+     * @return The encoded response
+     * @throws JsonProcessingException when the response cannot be encoded
+     */
+    public byte[] encode(final Object response, final ResponseFormat format) throws JsonProcessingException {
+        return switch (format) {
+            case JSON -> this.jsonMapper.writeValueAsBytes(response);
+            case CBOR -> this.cborMapper.writeValueAsBytes(columnar(response));
+        };
+    }
+
+    /**
+     * Method to convert the lists of a response to the columnar layout
+     * @param response The response
+     * @return The columnar response, or the response itself when it has no list
+     */
+    static Object columnar(final Object response) {
+        if (response instanceof UserDetailsResponse userDetailsResponse) {
+            return ColumnarUserDetailsResponse.builder()
+                    .withUserIds(userDetailsResponse.getUserDetails().stream().map(UserDetails::getUserId).toList())
+                    .withSessionCounts(userDetailsResponse.getUserDetails().stream()
+                            .mapToInt(UserDetails::getSessionCount)
+                            .toArray())
+                    .withNextCursor(userDetailsResponse.getNextCursor())
+                    .build();
+        }
+        if (response instanceof PageViewsResponse pageViewsResponse) {
+            return ColumnarPageViewsResponse.builder()
+                    .withPageUrls(pageViewsResponse.getPageViews().stream().map(PageViewCount::getPageUrl).toList())
+                    .withCounts(pageViewsResponse.getPageViews().stream().mapToLong(PageViewCount::getCount).toArray())
+                    .build();
+        }
+        if (response instanceof SummaryResponse summaryResponse) {
+            return ColumnarSummaryResponse.builder()
+                    .withMinute(summaryResponse.getMinute())
+                    .withActiveUsers(summaryResponse.getActiveUsers())
+                    .withSessions(summaryResponse.getSessions())
+                    .withUserIds(summaryResponse.getUserDetails().stream().map(UserDetails::getUserId).toList())
+                    .withSessionCounts(summaryResponse.getUserDetails().stream()
+                            .mapToInt(UserDetails::getSessionCount)
+                            .toArray())
+                    .withPageUrls(summaryResponse.getPageViews().stream().map(PageViewCount::getPageUrl).toList())
+                    .withCounts(summaryResponse.getPageViews().stream().mapToLong(PageViewCount::getCount).toArray())
+                    .build();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,54 @@
+package com.liftlab.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodings of the dashboard responses, negotiated with the Accept header.
+ */
+public enum ResponseFormat {
+
+    /** Default, one object per element. */
+    JSON(MediaType.APPLICATION_JSON),
+
+    /** CBOR with the columnar layout of the lists. */
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    ResponseFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return this.mediaType;
+    }
+
+    /**
+     * Method to pick the format of an Accept header.
+     * @implNote CBOR is only picked when it is asked explicitly, with a higher quality than any media type which
+     * includes JSON, like application/json or *&#47;*. Anything else, a missing header among them, gets JSON.
+     * @param accept The Accept header, may be null
+     * @return The format
+     * @throws org.springframework.http.InvalidMediaTypeException when the header cannot be parsed
+     */
+    public static ResponseFormat fromAccept(final String accept) {
+        if (Objects.isNull(accept) || accept.isBlank()) {
+            return JSON;
+        }
+        final List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        double cbor = 0;
+        double json = 0;
+        for (final MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                json = Math.max(json, mediaType.getQualityValue());
+            }
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                cbor = Math.max(cbor, mediaType.getQualityValue());
+            }
+        }
+        return cbor > json ? CBOR : JSON;
+    }
+}
@@ -0,0 +1,11 @@
+package com.liftlab.service;
+
+/**
+ * Thrown when a cursor refers to a snapshot which expired.
+ */
+public class SnapshotExpiredException extends RuntimeException {
+
+    public SnapshotExpiredException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.liftlab.service;
+
+import java.io.IOException;
+
+/**
+ * Subscriber of the dashboard stream.
+ */
+public interface StreamSubscriber {
+
+    /**
+     * Method to send an event to the subscriber. It may block while the subscriber is slow.
+     * @param name The name of the event
+     * @param data The payload of the event
+     * @throws IOException When the subscriber is gone
+     */
+    void send(String name, Object data) throws IOException;
+
+    /**
+     * Method to end the subscription.
+     */
+    void close();
+}
@@ -0,0 +1,234 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.models.TrendingPage;
+import com.liftlab.models.TrendingPagesResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Rising pages, ranked by the growth of their views over the trending window against the window before it.
+ * @implNote Only the closed minute buckets are used, the ones before the hot buckets of {@link PageViewsRollingView},
+ * so the two windows only change when the minute rolls over. The page views of the closed buckets of both windows
+ * are kept in memory with the totals of each window. When the minute rolls over, the bucket which just closed is
+ * read once and added to the current window, the bucket which moved to the previous window is moved between the
+ * totals, and the bucket which left the previous window is subtracted, so a refresh reads a single sorted set and
+ * no ZUNIONSTORE is ever run. The ranking is computed once per minute for all the callers. The views of a closed
+ * bucket are not read again, so the events arriving more than a minute late are left out. The minute buckets of
+ * both windows must still exist, that is the page views TTL must cover the hot buckets and two windows.
+ */
+@Component
+@Slf4j
+public class TrendingPagesView {
+
+    private static final Comparator<TrendingPage> RANKING = Comparator
+            .comparingDouble(TrendingPage::getGrowth).reversed()
+            .thenComparing(Comparator.comparingLong(TrendingPage::getViews).reversed())
+            .thenComparing(TrendingPage::getPageUrl);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final PageViewsRollingView pageViewsRollingView;
+
+    private final DashboardMetrics dashboardMetrics;
+
+    private final Clock clock;
+
+    private final int windowMinutes;
+
+    private final int minViews;
+
+    /** Page views of the closed buckets of both windows, by minute bucket. */
+    private final Map<String, Map<String, Double>> buckets = new LinkedHashMap<>();
+
+    /** Closed buckets of the current window. */
+    private Set<String> currentBuckets = new HashSet<>();
+
+    /** Sum of the page views of the current window. */
+    private final Map<String, Double> currentTotals = new HashMap<>();
+
+    /** Sum of the page views of the previous window. */
+    private final Map<String, Double> previousTotals = new HashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public TrendingPagesView(final StringRedisTemplate redisTemplate,
+                             final PageViewsRollingView pageViewsRollingView,
+                             final DashboardOffsetConfig dashboardOffsetConfig,
+                             final IngestionConfig ingestionConfig,
+                             final DashboardMetrics dashboardMetrics) {
+        this(redisTemplate, pageViewsRollingView, dashboardOffsetConfig, ingestionConfig, dashboardMetrics,
+                Clock.systemUTC());
+    }
+
+    TrendingPagesView(final StringRedisTemplate redisTemplate,
+                      final PageViewsRollingView pageViewsRollingView,
+                      final DashboardOffsetConfig dashboardOffsetConfig,
+                      final IngestionConfig ingestionConfig,
+                      final DashboardMetrics dashboardMetrics,
+                      final Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.pageViewsRollingView = pageViewsRollingView;
+        this.dashboardMetrics = dashboardMetrics;
+        this.clock = clock;
+        this.windowMinutes = Math.max(1, dashboardOffsetConfig.getTrendingOffset());
+        this.minViews = Math.max(1, dashboardOffsetConfig.getTrendingMinViews());
+        final long minutes = PageViewsRollingView.HOT_BUCKETS + 2L * this.windowMinutes;
+        if (minutes * 60 > ingestionConfig.getPageViewsTtlSeconds()) {
+            log.warn("Trending window of {} minutes needs {} minutes of page views, but they expire after {} seconds",
+                    this.windowMinutes, minutes, ingestionConfig.getPageViewsTtlSeconds());
+        }
+    }
+
+    /**
+     * Method to get the pages whose views grew the most.
+     * @param offset The number of results to be returned
+     * @return The instance of TrendingPagesResponse, pages with the highest growth first
+     */
+    public TrendingPagesResponse getTrendingPages(final int offset) {
+        final Snapshot current = this.getSnapshot();
+        final List<TrendingPage> ranked = current.ranked();
+        return TrendingPagesResponse.builder()
+                .withMinute(current.windowMinuteBucket())
+                .withWindowMinutes(this.windowMinutes)
+                .withPages(ranked.size() <= Math.max(1, offset) ? ranked : ranked.subList(0, Math.max(1, offset)))
+                .build();
+    }
+
+    /**
+     * Method to get the snapshot of the current minute.
+     * @return The snapshot
+     */
+    private Snapshot getSnapshot() {
+        final LocalDateTime now = LocalDateTime.ofInstant(this.clock.instant(), this.clock.getZone());
+        final String minuteBucket = MinuteBuckets.format(now);
+        final Snapshot current = this.snapshot;
+        if (Objects.nonNull(current) && current.minuteBucket().equals(minuteBucket)) {
+            return current;
+        }
+        synchronized (this) {
+            if (Objects.isNull(this.snapshot) || !this.snapshot.minuteBucket().equals(minuteBucket)) {
+                this.snapshot = this.refresh(now);
+            }
+            return this.snapshot;
+        }
+    }
+
+    /**
+     * Method to apply the buckets which closed since the last refresh and rank the pages.
+     * @param now The time of the refresh
+     * @implNote The buckets which just closed are read before the totals are touched, so a failed read leaves the
+     *           view as it was and the next refresh applies the same deltas again.
+     * @return The new snapshot
+     */
+    private Snapshot refresh(final LocalDateTime now) {
+        final List<String> minuteBuckets = MinuteBuckets.latest(now,
+                PageViewsRollingView.HOT_BUCKETS + 2 * this.windowMinutes);
+        final List<String> closedBuckets = minuteBuckets.subList(PageViewsRollingView.HOT_BUCKETS,
+                minuteBuckets.size());
+        final Set<String> newCurrentBuckets = Set.copyOf(closedBuckets.subList(0, this.windowMinutes));
+
+        // Read the buckets which just closed, a single one once the view is built.
+        final List<String> missingBuckets = closedBuckets.stream()
+                .filter(minuteBucket -> !this.buckets.containsKey(minuteBucket))
+                .toList();
+        log.debug("Refreshing trending pages with buckets: {}", missingBuckets);
+        this.dashboardMetrics.recordWindowKeys(DashboardMetrics.TRENDING, missingBuckets.size());
+        final List<Object> results = missingBuckets.isEmpty()
+                ? List.of()
+                : this.dashboardMetrics.time("pipeline:ZRANGE", DashboardMetrics.TRENDING,
+                        () -> this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                                pageViewsRollingView.readBuckets((RedisOperations<String, String>) operations,
+                                        missingBuckets);
+                                return null;
+                            }
+                        }));
+
+        // Subtract the buckets which left the previous window, and move the ones which left the current window.
+        final Iterator<Map.Entry<String, Map<String, Double>>> cached = this.buckets.entrySet().iterator();
+        while (cached.hasNext()) {
+            final Map.Entry<String, Map<String, Double>> bucket = cached.next();
+            final boolean wasCurrent = this.currentBuckets.contains(bucket.getKey());
+            if (!closedBuckets.contains(bucket.getKey())) {
+                subtract(wasCurrent ? this.currentTotals : this.previousTotals, bucket.getValue());
+                cached.remove();
+            } else if (wasCurrent && !newCurrentBuckets.contains(bucket.getKey())) {
+                subtract(this.currentTotals, bucket.getValue());
+                add(this.previousTotals, bucket.getValue());
+            }
+        }
+
+        // Add the buckets which just closed.
+        for (int index = 0; index < missingBuckets.size(); index++) {
+            final Map<String, Double> bucket = PageViewsRollingView.toPageViews(
+                    index < results.size() ? results.get(index) : null);
+            add(newCurrentBuckets.contains(missingBuckets.get(index)) ? this.currentTotals : this.previousTotals,
+                    bucket);
+            this.buckets.put(missingBuckets.get(index), bucket);
+        }
+        this.currentBuckets = newCurrentBuckets;
+
+        return new Snapshot(minuteBuckets.get(0), minuteBuckets.get(PageViewsRollingView.HOT_BUCKETS), this.rank());
+    }
+
+    /**
+     * Method to rank the pages of the current window with enough views by growth.
+     * @return List of the pages which grew, highest growth first
+     */
+    private List<TrendingPage> rank() {
+        return this.currentTotals.entrySet().stream()
+                .filter(total -> total.getValue() >= this.minViews)
+                .map(total -> {
+                    final double previousViews = this.previousTotals.getOrDefault(total.getKey(), 0.0);
+                    return TrendingPage.builder()
+                            .withPageUrl(total.getKey())
+                            .withViews(total.getValue().longValue())
+                            .withPreviousViews((long) previousViews)
+                            .withGrowth((total.getValue() - previousViews) / Math.max(previousViews, this.minViews))
+                            .build();
+                })
+                .filter(trendingPage -> trendingPage.getGrowth() > 0)
+                .sorted(RANKING)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static void add(final Map<String, Double> totals, final Map<String, Double> bucket) {
+        bucket.forEach((pageUrl, count) -> totals.merge(pageUrl, count, Double::sum));
+    }
+
+    private static void subtract(final Map<String, Double> totals, final Map<String, Double> bucket) {
+        bucket.forEach((pageUrl, count) -> totals.merge(pageUrl, -count,
+                (total, delta) -> total + delta > 0 ? total + delta : null));
+    }
+
+    /**
+     * Ranked pages of the windows at a point in time.
+     * @param minuteBucket The minute of the refresh, which the snapshot is shared for
+     * @param windowMinuteBucket The latest minute bucket of the current window, before the hot buckets
+     * @param ranked The pages which grew, highest growth first
+     */
+    private record Snapshot(String minuteBucket, String windowMinuteBucket, List<TrendingPage> ranked) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.liftlab.service;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.KeyFamily;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plans the buckets to read for a window ending now, from the minute buckets and their rollups.
+ * @implNote The window is walked from its oldest minute, and every step takes the coarsest bucket which starts at
+ * the current minute and still exists in redis. So the bulk of a long window is read from a few daily and hourly
+ * buckets, and the minute and 5 minute buckets are only read at the edges: a one day window takes at most
+ * 36 buckets instead of 1440. The latest bucket of a granularity still receives events, it holds the
+ * minutes up to now. The minute buckets expire after a few minutes, so when the oldest minutes of a long window
+ * are gone the window starts at the first minute of the finest rollup which still holds them: the start of the
+ * window is only as precise as the retention allows. A key family without rollups, see
+ * dashboard.ingestion.rollups, is read from its minute buckets only, so its windows are cut to their retention.
+ */
+@Component
+public class WindowPlanner {
+
+    private static final Pattern WINDOW = Pattern.compile("([1-9][0-9]{0,6})([mhd])");
+
+    private static final List<Granularity> COARSEST_FIRST = ImmutableList.copyOf(Granularity.values()).reverse();
+
+    private final IngestionConfig ingestionConfig;
+
+    private final DashboardOffsetConfig dashboardOffsetConfig;
+
+    public WindowPlanner(final IngestionConfig ingestionConfig, final DashboardOffsetConfig dashboardOffsetConfig) {
+        this.ingestionConfig = ingestionConfig;
+        this.dashboardOffsetConfig = dashboardOffsetConfig;
+    }
+
+    /**
+     * Method to parse a window, like '90m', '6h' or '7d'.
+     * @param window The window
+     * @return The window as a duration
+     * @throws IllegalArgumentException When the window is malformed or longer than the configured maximum
+     */
+    public Duration parse(final String window) {
+        final Matcher matcher = WINDOW.matcher(Objects.requireNonNullElse(window, ""));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+        final long amount = Long.parseLong(matcher.group(1));
+        final Duration duration = switch (matcher.group(2)) {
+            case "d" -> Duration.ofDays(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofMinutes(amount);
+        };
+        if (duration.toMinutes() > this.dashboardOffsetConfig.getMaxWindowMinutes()) {
+            throw new IllegalArgumentException("Window longer than " + this.dashboardOffsetConfig.getMaxWindowMinutes()
+                    + " minutes: " + window);
+        }
+        return duration;
+    }
+
+    /**
+     * Method to plan the buckets of a window.
+     * @param now The current time in UTC
+     * @param window The window, of at least a minute
+     * @param minuteBucketsRetained The number of latest minute buckets which still exist in redis
+     * @param keyFamily The family of the keys read, whose rollups are read only when they are written
+     * @return List of buckets, oldest first, which cover the window without overlapping.
+     */
+    public List<String> plan(final LocalDateTime now, final Duration window, final int minuteBucketsRetained,
+                             final KeyFamily keyFamily) {
+        final LocalDateTime end = Granularity.MINUTE.truncate(now);
+        final List<Granularity> granularities = this.ingestionConfig.getRollupFamilies().contains(keyFamily)
+                ? COARSEST_FIRST
+                : List.of(Granularity.MINUTE);
+        final ImmutableList.Builder<String> buckets = ImmutableList.builder();
+        LocalDateTime minute = end.minusMinutes(Math.max(1, window.toMinutes()) - 1);
+        while (!minute.isAfter(end)) {
+            final Granularity granularity = this.choose(granularities, end, minute, minuteBucketsRetained);
+            if (Objects.isNull(granularity)) {
+                // Expired at every granularity.
+                minute = minute.plusMinutes(1);
+                continue;
+            }
+            buckets.add(granularity.bucket(minute));
+            minute = granularity.truncate(minute).plusMinutes(granularity.getMinutes());
+        }
+        return buckets.build();
+    }
+
+    /**
+     * Method to choose the granularity of the bucket which holds a minute.
+     * @param granularities The granularities written for the key family, coarsest first
+     * @param end The latest minute of the window
+     * @param minute The minute
+     * @param minuteBucketsRetained The number of latest minute buckets which still exist in redis
+     * @return The coarsest granularity with a bucket starting at the minute, else the finest one whose bucket holds
+     * the minute, null when the minute expired at every granularity.
+     */
+    private Granularity choose(final List<Granularity> granularities,
+                               final LocalDateTime end,
+                               final LocalDateTime minute,
+                               final int minuteBucketsRetained) {
+        Granularity finest = null;
+        for (final Granularity granularity : granularities) {
+            final long age = Duration.between(granularity.truncate(minute), end).toMinutes();
+            final long retained = granularity == Granularity.MINUTE
+                    ? minuteBucketsRetained
+                    : this.ingestionConfig.getRollupTtlSeconds(granularity) / 60;
+            if (age < retained) {
+                if (granularity.isAligned(minute)) {
+                    return granularity;
+                }
+                finest = granularity;
+            }
+        }
+        return finest;
+    }
+}
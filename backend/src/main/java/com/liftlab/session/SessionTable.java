@@ -0,0 +1,171 @@
+package com.liftlab.session;
+
+/**
+ * Open sessions, in an open addressing hash table keyed by a 64 bit hash of the session.
+ * @implNote The state of a session is a slot of parallel primitive arrays: the key, the times of its first and
+ * last events and its number of page views, 28 bytes per slot and no object per session. Collisions are resolved by
+ * linear probing, and a removed slot is refilled by shifting back the following slots of its run, so that no
+ * tombstone is left behind. The table doubles when it is three quarters full. Not thread safe.
+ */
+public class SessionTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Key of the free slots, the hash 0 is stored as 1. */
+    private static final long FREE = 0L;
+
+    private long[] keys;
+
+    private long[] firstMillis;
+
+    private long[] lastMillis;
+
+    private int[] pageViews;
+
+    private int mask;
+
+    private int size;
+
+    public SessionTable(final int expectedSessions) {
+        this.allocate(Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSessions * 4 / 3) - 1) << 1);
+    }
+
+    /**
+     * Method to record an event of a session, opening the session when it is not open.
+     * @param key The hash of the session
+     * @param timeMillis The time of the event
+     */
+    public void touch(final long key, final long timeMillis) {
+        final long slotKey = key == FREE ? 1L : key;
+        int slot = this.slot(slotKey);
+        while (this.keys[slot] != FREE) {
+            if (this.keys[slot] == slotKey) {
+                this.firstMillis[slot] = Math.min(this.firstMillis[slot], timeMillis);
+                this.lastMillis[slot] = Math.max(this.lastMillis[slot], timeMillis);
+                this.pageViews[slot]++;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = slotKey;
+        this.firstMillis[slot] = timeMillis;
+        this.lastMillis[slot] = timeMillis;
+        this.pageViews[slot] = 1;
+        if (++this.size > this.keys.length * 3 / 4) {
+            this.resize(this.keys.length << 1);
+        }
+    }
+
+    /**
+     * Method to close the sessions without an event since a time.
+     * @param beforeMillis The sessions whose last event is before this time are closed
+     * @param consumer The consumer of the closed sessions
+     * @return The number of closed sessions
+     */
+    public int evict(final long beforeMillis, final ClosedSessionConsumer consumer) {
+        int evicted = 0;
+        int slot = 0;
+        while (slot < this.keys.length) {
+            if (this.keys[slot] != FREE && this.lastMillis[slot] < beforeMillis) {
+                consumer.accept(this.firstMillis[slot], this.lastMillis[slot], this.pageViews[slot]);
+                evicted++;
+                this.remove(slot);
+                // A session shifted back into the slot is checked too.
+                if (this.keys[slot] == FREE) {
+                    slot++;
+                }
+            } else {
+                slot++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Method to remove a slot, shifting back the following slots of its run.
+     * @param removed The slot
+     */
+    private void remove(final int removed) {
+        int free = removed;
+        int slot = removed;
+        while (true) {
+            slot = (slot + 1) & this.mask;
+            if (this.keys[slot] == FREE) {
+                break;
+            }
+            final int home = this.slot(this.keys[slot]);
+            // The session may move to the free slot when its home is not between the free slot and its slot.
+            if (((slot - home) & this.mask) >= ((slot - free) & this.mask)) {
+                this.move(slot, free);
+                free = slot;
+            }
+        }
+        this.keys[free] = FREE;
+        this.size--;
+    }
+
+    private void move(final int from, final int to) {
+        this.keys[to] = this.keys[from];
+        this.firstMillis[to] = this.firstMillis[from];
+        this.lastMillis[to] = this.lastMillis[from];
+        this.pageViews[to] = this.pageViews[from];
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldKeys = this.keys;
+        final long[] oldFirstMillis = this.firstMillis;
+        final long[] oldLastMillis = this.lastMillis;
+        final int[] oldPageViews = this.pageViews;
+        this.allocate(capacity);
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (oldKeys[index] != FREE) {
+                int slot = this.slot(oldKeys[index]);
+                while (this.keys[slot] != FREE) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys[slot] = oldKeys[index];
+                this.firstMillis[slot] = oldFirstMillis[index];
+                this.lastMillis[slot] = oldLastMillis[index];
+                this.pageViews[slot] = oldPageViews[index];
+                this.size++;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.firstMillis = new long[capacity];
+        this.lastMillis = new long[capacity];
+        this.pageViews = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    private int slot(final long key) {
+        // The keys are hashes already, the high bits are folded in for the small tables.
+        return (int) (key ^ (key >>> 32)) & this.mask;
+    }
+
+    /**
+     * Consumer of a closed session.
+     */
+    @FunctionalInterface
+    public interface ClosedSessionConsumer {
+
+        /**
+         * Method to accept a closed session.
+         * @param firstMillis The time of its first event
+         * @param lastMillis The time of its last event
+         * @param pageViews The number of its events
+         */
+        void accept(long firstMillis, long lastMillis, int pageViews);
+    }
+}
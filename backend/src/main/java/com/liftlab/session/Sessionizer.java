@@ -0,0 +1,179 @@
+package com.liftlab.session;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.KeyFamily;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.Granularity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event sink which groups the events into sessions and writes the per minute aggregates of the closed sessions:
+ * session_stats:{minute} (HASH of the number of sessions, their total duration in milliseconds, their total page
+ * views and the number of sessions of a single page view), and the same hashes for the 5 minute, hourly and daily
+ * rollups, see {@link Granularity}, unless {@link KeyFamily#SESSION_STATS} is left out of dashboard.ingestion.rollups.
+ * @implNote A session is the events of a session id of a user. The open sessions are kept in a {@link SessionTable}
+ * and a session is closed once no event of it was seen for dashboard.ingestion.sessions.inactivity-timeout-minutes
+ * of event time, so a replay gives the same sessions as the live stream. A closed session is counted in the minute
+ * it closed, its last event plus the timeout, which is about the time it is known to be over. The aggregates are
+ * summed with HINCRBY, so a window of buckets is read with one HGETALL per bucket whatever the number of sessions.
+ * The open sessions are lost on a restart, and an event of a session closed already opens a new session.
+ */
+@Slf4j
+public class Sessionizer implements EventSink {
+
+    public static final String SESSIONS = "sessions";
+
+    public static final String DURATION_MILLIS = "duration_ms";
+
+    public static final String PAGE_VIEWS = "page_views";
+
+    public static final String BOUNCES = "bounces";
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /** The open sessions are swept at most once per second of event time. */
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisKeyConfig redisKeyConfig;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final long timeoutMillis;
+
+    private final SessionTable sessionTable = new SessionTable(1 << 16);
+
+    /** Aggregates of the closed sessions which are not written yet, by minute. */
+    private final Map<LocalDateTime, Aggregate> pending = new LinkedHashMap<>();
+
+    /** Latest event time seen. */
+    private long watermarkMillis = Long.MIN_VALUE;
+
+    private long sweptMillis = Long.MIN_VALUE;
+
+    public Sessionizer(final StringRedisTemplate redisTemplate,
+                       final RedisKeyConfig redisKeyConfig,
+                       final IngestionConfig ingestionConfig) {
+        this.redisTemplate = redisTemplate;
+        this.redisKeyConfig = redisKeyConfig;
+        this.ingestionConfig = ingestionConfig;
+        this.timeoutMillis = Duration.ofMinutes(ingestionConfig.getSessionInactivityTimeoutMinutes()).toMillis();
+    }
+
+    @Override
+    public void accept(final UserEvent userEvent) {
+        final long timeMillis = UserEventParser.instant(userEvent).toEpochMilli();
+        this.sessionTable.touch(HASH_FUNCTION.newHasher()
+                .putString(userEvent.getUserId(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(userEvent.getSessionId(), StandardCharsets.UTF_8)
+                .hash()
+                .asLong(), timeMillis);
+        this.watermarkMillis = Math.max(this.watermarkMillis, timeMillis);
+    }
+
+    @Override
+    public void flush() {
+        if (this.watermarkMillis != Long.MIN_VALUE
+                && this.watermarkMillis - SWEEP_INTERVAL_MILLIS >= this.sweptMillis) {
+            final int closed = this.sessionTable.evict(this.watermarkMillis - this.timeoutMillis,
+                    (firstMillis, lastMillis, pageViews) -> this.pending
+                            .computeIfAbsent(Granularity.MINUTE.truncate(LocalDateTime.ofEpochSecond(
+                                    Math.floorDiv(lastMillis + this.timeoutMillis, 1000L), 0, ZoneOffset.UTC)),
+                                    minute -> new Aggregate())
+                            .add(lastMillis - firstMillis, pageViews));
+            this.sweptMillis = this.watermarkMillis;
+            log.debug("Closed {} sessions, {} open", closed, this.sessionTable.size());
+        }
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final Map<String, Aggregate> buckets = new LinkedHashMap<>();
+        final Map<String, Duration> ttls = new LinkedHashMap<>();
+        final boolean rollups = this.ingestionConfig.getRollupFamilies().contains(KeyFamily.SESSION_STATS);
+        this.pending.forEach((minute, aggregate) -> {
+            for (final Granularity granularity : Granularity.values()) {
+                if (granularity != Granularity.MINUTE && !rollups) {
+                    continue;
+                }
+                final String bucket = granularity.bucket(minute);
+                buckets.computeIfAbsent(bucket, key -> new Aggregate()).merge(aggregate);
+                ttls.put(bucket, Duration.ofSeconds(granularity == Granularity.MINUTE
+                        ? this.ingestionConfig.getSessionStatsTtlSeconds()
+                        : this.ingestionConfig.getRollupTtlSeconds(granularity)));
+            }
+        });
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(final RedisOperations<K, V> operations) {
+                final RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                buckets.forEach((bucket, aggregate) -> {
+                    final String key = String.format("%s:%s", redisKeyConfig.getSessionStatsKey(), bucket);
+                    stringOperations.opsForHash().increment(key, SESSIONS, aggregate.sessions);
+                    stringOperations.opsForHash().increment(key, DURATION_MILLIS, aggregate.durationMillis);
+                    stringOperations.opsForHash().increment(key, PAGE_VIEWS, aggregate.pageViews);
+                    stringOperations.opsForHash().increment(key, BOUNCES, aggregate.bounces);
+                    stringOperations.expire(key, ttls.get(bucket));
+                });
+                return null;
+            }
+        });
+        // Kept when the pipeline failed, and written with the next flush.
+        this.pending.clear();
+    }
+
+    /**
+     * Method to get the number of open sessions.
+     * @return The number of sessions
+     */
+    public int getOpenSessions() {
+        return this.sessionTable.size();
+    }
+
+    /**
+     * Aggregate of closed sessions.
+     */
+    private static final class Aggregate {
+
+        private long sessions;
+
+        private long durationMillis;
+
+        private long pageViews;
+
+        private long bounces;
+
+        private void add(final long durationMillis, final int pageViews) {
+            this.sessions++;
+            this.durationMillis += durationMillis;
+            this.pageViews += pageViews;
+            if (pageViews == 1) {
+                this.bounces++;
+            }
+        }
+
+        private void merge(final Aggregate other) {
+            this.sessions += other.sessions;
+            this.durationMillis += other.durationMillis;
+            this.pageViews += other.pageViews;
+            this.bounces += other.bounces;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.liftlab.sketch;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch of string items.
+ * @implNote A sketch of width w = ceil(e / epsilon) and depth d = ceil(ln(1 / delta)) never underestimates a count,
+ * and overestimates it by more than epsilon * N (N being the total count added) with a probability of at most
+ * delta. The d row hashes are derived from one 128-bit murmur3 hash (double hashing), so adding an item hashes it
+ * once. Sketches with the same dimensions can be merged by adding their counters.
+ */
+public class CountMinSketch {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final int width;
+
+    private final int depth;
+
+    private final long[] counters;
+
+    private long totalCount;
+
+    public CountMinSketch(final int width, final int depth) {
+        Preconditions.checkArgument(width > 0 && depth > 0, "Width and depth should be positive");
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Method to get the width for a relative error.
+     * @param epsilon The relative error, as a fraction of the total count
+     * @return The width
+     */
+    public static int width(final double epsilon) {
+        Preconditions.checkArgument(epsilon > 0 && epsilon < 1, "Epsilon should be in (0, 1)");
+        return (int) Math.ceil(Math.E / epsilon);
+    }
+
+    /**
+     * Method to get the depth for a failure probability.
+     * @param delta The probability of an error above epsilon
+     * @return The depth
+     */
+    public static int depth(final double delta) {
+        Preconditions.checkArgument(delta > 0 && delta < 1, "Delta should be in (0, 1)");
+        return (int) Math.ceil(Math.log(1 / delta));
+    }
+
+    /**
+     * Method to add a count to an item.
+     * @param item The item
+     * @param count The count to add
+     */
+    public void add(final String item, final long count) {
+        final ByteBuffer hash = ByteBuffer.wrap(HASH_FUNCTION.hashString(item, StandardCharsets.UTF_8).asBytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final long hash1 = hash.getLong(0);
+        final long hash2 = hash.getLong(Long.BYTES);
+        for (int row = 0; row < this.depth; row++) {
+            this.counters[row * this.width + this.index(hash1, hash2, row)] += count;
+        }
+        this.totalCount += count;
+    }
+
+    /**
+     * Method to estimate the count of an item.
+     * @param item The item
+     * @return The estimated count, never below the real count
+     */
+    public long estimate(final String item) {
+        final ByteBuffer hash = ByteBuffer.wrap(HASH_FUNCTION.hashString(item, StandardCharsets.UTF_8).asBytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final long hash1 = hash.getLong(0);
+        final long hash2 = hash.getLong(Long.BYTES);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            estimate = Math.min(estimate, this.counters[row * this.width + this.index(hash1, hash2, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Method to add all the counts of another sketch with the same dimensions.
+     * @param other The other sketch
+     */
+    public void merge(final CountMinSketch other) {
+        Preconditions.checkArgument(this.width == other.width && this.depth == other.depth,
+                "Only sketches with the same dimensions can be merged");
+        for (int index = 0; index < this.counters.length; index++) {
+            this.counters[index] += other.counters[index];
+        }
+        this.totalCount += other.totalCount;
+    }
+
+    public void clear() {
+        Arrays.fill(this.counters, 0L);
+        this.totalCount = 0;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * Method to get the memory used by the counters.
+     * @return The size in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) this.counters.length * Long.BYTES;
+    }
+
+    private int index(final long hash1, final long hash2, final int row) {
+        return (int) Math.floorMod(hash1 + row * hash2, (long) this.width);
+    }
+}
@@ -0,0 +1,196 @@
+package com.liftlab.sketch;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.SketchConfig;
+import com.liftlab.ingestion.UserEventParser;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory streaming top pages over the page views window, fed by the ingestion pipeline.
+ * @implNote Every minute of the window has a slot in a ring, with a Count-Min Sketch of the page views and a
+ * Space-Saving summary of the most viewed pages of that minute. A slot is reset when its minute leaves the window.
+ * On every flush the sketches of the window are merged, the Space-Saving candidates of all the minutes are ranked
+ * by their merged estimate and the ranking is published as an immutable snapshot, so a query only copies a prefix
+ * of a list. The estimated counts are never below the real counts, and exceed them by at most epsilon times the
+ * views of the window with a probability of 1 - delta.
+ */
+@Component
+@ConditionalOnProperty(name = "dashboard.config.mode.page-views", havingValue = "sketch")
+@Slf4j
+public class HeavyHittersEngine implements EventSink {
+
+    private static final Comparator<PageViewCount> RANKING = Comparator
+            .comparingLong(PageViewCount::getCount).reversed()
+            .thenComparing(PageViewCount::getPageUrl, Comparator.reverseOrder());
+
+    private final Clock clock;
+
+    private final int capacity;
+
+    private final MinuteSketch[] ring;
+
+    /** Sketch of the whole window, rebuilt from the ring on every publish. */
+    private final CountMinSketch window;
+
+    /** Events accepted since the last flush, only touched by the ingestion thread. */
+    private final List<UserEvent> pending = new ArrayList<>();
+
+    private volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, ImmutableList.of());
+
+    @Autowired
+    public HeavyHittersEngine(final DashboardOffsetConfig dashboardOffsetConfig, final SketchConfig sketchConfig) {
+        this(dashboardOffsetConfig, sketchConfig, Clock.systemUTC());
+    }
+
+    HeavyHittersEngine(final DashboardOffsetConfig dashboardOffsetConfig,
+                       final SketchConfig sketchConfig,
+                       final Clock clock) {
+        this.clock = clock;
+        this.capacity = sketchConfig.getPageViewsCapacity();
+
+        final int minutes = Math.max(1, dashboardOffsetConfig.getPageViewsOffset());
+        final int depth = CountMinSketch.depth(sketchConfig.getPageViewsDelta());
+        final long maxCounters = (long) sketchConfig.getPageViewsMaxMemoryMb() * 1024 * 1024 / Long.BYTES;
+        // One sketch per minute plus the merged one share the memory budget.
+        final int maxWidth = (int) Math.max(1, maxCounters / ((long) depth * (minutes + 1)));
+        final int width = Math.min(CountMinSketch.width(sketchConfig.getPageViewsEpsilon()), maxWidth);
+        if (CountMinSketch.width(sketchConfig.getPageViewsEpsilon()) > maxWidth) {
+            log.warn("Page views sketches limited to {} MB, relative error raised from {} to {}",
+                    sketchConfig.getPageViewsMaxMemoryMb(), sketchConfig.getPageViewsEpsilon(), Math.E / width);
+        }
+
+        this.ring = new MinuteSketch[minutes];
+        for (int slot = 0; slot < minutes; slot++) {
+            this.ring[slot] = new MinuteSketch(new CountMinSketch(width, depth), new SpaceSaving(this.capacity));
+        }
+        this.window = new CountMinSketch(width, depth);
+        log.info("Page views sketches: {} minutes of {}x{} counters and {} top pages, {} KB", minutes, width, depth,
+                this.capacity, this.window.getSizeInBytes() * (minutes + 1) / 1024);
+    }
+
+    @Override
+    public void accept(final UserEvent userEvent) {
+        this.pending.add(userEvent);
+    }
+
+    @Override
+    public void flush() {
+        synchronized (this) {
+            final long currentMinute = this.currentMinute();
+            for (final UserEvent userEvent : this.pending) {
+                this.add(userEvent, currentMinute);
+            }
+            this.publish(currentMinute);
+        }
+        this.pending.clear();
+    }
+
+    /**
+     * Method to get the top pages of the window.
+     * @param offset The number of results to be returned.
+     * @return List of page views, most viewed first.
+     */
+    public List<PageViewCount> getTopPages(final int offset) {
+        Snapshot current = this.snapshot;
+        final long currentMinute = this.currentMinute();
+        if (current.minute() != currentMinute) {
+            // No flush since the minute rolled over, drop the minute which left the window.
+            synchronized (this) {
+                if (this.snapshot.minute() != currentMinute) {
+                    this.publish(currentMinute);
+                }
+                current = this.snapshot;
+            }
+        }
+        final List<PageViewCount> ranked = current.ranked();
+        return ranked.subList(0, Math.min(ranked.size(), Math.max(1, offset)));
+    }
+
+    private void add(final UserEvent userEvent, final long currentMinute) {
+        final long minute = Duration.ofMillis(UserEventParser.instant(userEvent).toEpochMilli()).toMinutes();
+        if (minute > currentMinute || minute <= currentMinute - this.ring.length) {
+            return;
+        }
+        final MinuteSketch minuteSketch = this.ring[(int) Math.floorMod(minute, (long) this.ring.length)];
+        if (minuteSketch.minute != minute) {
+            minuteSketch.reset(minute);
+        }
+        minuteSketch.countMinSketch.add(userEvent.getPageUrl(), 1);
+        minuteSketch.spaceSaving.offer(userEvent.getPageUrl(), 1);
+    }
+
+    /**
+     * Method to merge the minutes of the window and publish the ranking.
+     * @param currentMinute The current minute since the epoch
+     */
+    private void publish(final long currentMinute) {
+        this.window.clear();
+        final Set<String> candidates = new HashSet<>();
+        for (final MinuteSketch minuteSketch : this.ring) {
+            if (minuteSketch.minute <= currentMinute && minuteSketch.minute > currentMinute - this.ring.length) {
+                this.window.merge(minuteSketch.countMinSketch);
+                minuteSketch.spaceSaving.items().forEach(candidates::add);
+            }
+        }
+
+        final List<PageViewCount> ranked = candidates.stream()
+                .map(pageUrl -> PageViewCount.builder()
+                        .withPageUrl(pageUrl)
+                        .withCount(this.window.estimate(pageUrl))
+                        .build())
+                .sorted(RANKING)
+                .limit(this.capacity)
+                .collect(ImmutableList.toImmutableList());
+        this.snapshot = new Snapshot(currentMinute, ranked);
+    }
+
+    private long currentMinute() {
+        return Duration.ofMillis(this.clock.millis()).toMinutes();
+    }
+
+    /**
+     * Sketches of a minute of the ring.
+     */
+    private static final class MinuteSketch {
+
+        private final CountMinSketch countMinSketch;
+
+        private final SpaceSaving spaceSaving;
+
+        private long minute = Long.MIN_VALUE;
+
+        private MinuteSketch(final CountMinSketch countMinSketch, final SpaceSaving spaceSaving) {
+            this.countMinSketch = countMinSketch;
+            this.spaceSaving = spaceSaving;
+        }
+
+        private void reset(final long minute) {
+            this.countMinSketch.clear();
+            this.spaceSaving.clear();
+            this.minute = minute;
+        }
+    }
+
+    /**
+     * Ranked page views of the window.
+     * @param minute The current minute since the epoch at the time of the ranking
+     * @param ranked The page views, most viewed first
+     */
+    private record Snapshot(long minute, List<PageViewCount> ranked) {
+    }
+}
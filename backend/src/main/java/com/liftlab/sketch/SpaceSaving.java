@@ -0,0 +1,117 @@
+package com.liftlab.sketch;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving summary of the most frequent string items, with a fixed number of counters.
+ * @implNote When an item without a counter arrives and all the counters are taken, the counter with the lowest
+ * count is given to the new item, which inherits that count as its error. Every item more frequent than
+ * N / capacity is guaranteed to have a counter. The counters are kept ordered by count, so an update costs
+ * O(log capacity).
+ */
+public class SpaceSaving {
+
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingLong(Counter::getCount)
+            .thenComparing(Counter::getItem);
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity should be positive");
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Method to add a count to an item.
+     * @param item The item
+     * @param count The count to add
+     */
+    public void offer(final String item, final long count) {
+        Counter counter = this.counters.get(item);
+        if (counter != null) {
+            this.ordered.remove(counter);
+            counter.count += count;
+        } else if (this.counters.size() < this.capacity) {
+            counter = new Counter(item, count, 0);
+            this.counters.put(item, counter);
+        } else {
+            final Counter evicted = this.ordered.pollFirst();
+            this.counters.remove(evicted.item);
+            counter = new Counter(item, evicted.count + count, evicted.count);
+            this.counters.put(item, counter);
+        }
+        this.ordered.add(counter);
+    }
+
+    /**
+     * Method to get the items which have a counter.
+     * @return The items, in no particular order
+     */
+    public Iterable<String> items() {
+        return this.counters.keySet();
+    }
+
+    /**
+     * Method to get the most frequent items.
+     * @param limit The maximum number of items
+     * @return List of counters, highest count first.
+     */
+    public List<Counter> top(final int limit) {
+        return this.ordered.descendingSet().stream()
+                .limit(limit)
+                .map(counter -> new Counter(counter.item, counter.count, counter.error))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public int size() {
+        return this.counters.size();
+    }
+
+    public void clear() {
+        this.counters.clear();
+        this.ordered.clear();
+    }
+
+    /**
+     * Counter of an item. The real count of the item is between count - error and count.
+     */
+    public static final class Counter {
+
+        private final String item;
+
+        private long count;
+
+        private final long error;
+
+        private Counter(final String item, final long count, final long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getItem() {
+            return this.item;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getError() {
+            return this.error;
+        }
+    }
+}
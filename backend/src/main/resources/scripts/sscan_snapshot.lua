@@ -0,0 +1,8 @@
+-- SSCAN over a materialized snapshot set, which tells an expired snapshot apart from the end of the scan.
+-- KEYS[1]: the snapshot set
+-- ARGV[1]: the scan cursor, ARGV[2]: the COUNT hint
+-- Returns {next cursor, members}, or nil when the snapshot does not exist anymore.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return false
+end
+return redis.call('SSCAN', KEYS[1], ARGV[1], 'COUNT', ARGV[2])
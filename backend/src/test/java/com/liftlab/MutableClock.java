@@ -0,0 +1,38 @@
+package com.liftlab;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * UTC clock which only moves when advanced by the test, and may be read by other threads.
+ */
+public class MutableClock extends Clock {
+
+    private volatile Instant instant;
+
+    public MutableClock(final Instant instant) {
+        this.instant = instant;
+    }
+
+    public void advance(final Duration duration) {
+        this.instant = this.instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return this.instant;
+    }
+}
@@ -1,7 +1,12 @@
 package com.liftlab;
 
+import com.liftlab.config.ColdTierConfig;
 import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.IndexConfig;
+import com.liftlab.config.IngestionConfig;
 import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SketchConfig;
 import org.springframework.test.util.ReflectionTestUtils;
 
 public class TestUtils {
@@ -12,6 +17,14 @@ public class TestUtils {
         ReflectionTestUtils.setField(redisKeyConfig, "activeUsersKey", "active_users");
         ReflectionTestUtils.setField(redisKeyConfig, "pageViewsKey", "page_views");
         ReflectionTestUtils.setField(redisKeyConfig, "userSessionsKey", "user_sessions");
+        ReflectionTestUtils.setField(redisKeyConfig, "activeUsersHllKey", "active_users_hll");
+        ReflectionTestUtils.setField(redisKeyConfig, "activeUsersSnapshotKey", "active_users_snapshot");
+        ReflectionTestUtils.setField(redisKeyConfig, "pageVisitorsKey", "page_visitors");
+        ReflectionTestUtils.setField(redisKeyConfig, "userPagesKey", "user_pages");
+        ReflectionTestUtils.setField(redisKeyConfig, "sessionStatsKey", "session_stats");
+        ReflectionTestUtils.setField(redisKeyConfig, "userSessionPairsKey", "user_session_pairs");
+        ReflectionTestUtils.setField(redisKeyConfig, "dimensionCountsKey", "dim_counts");
+        ReflectionTestUtils.setField(redisKeyConfig, "userSessionsLayout", "per-user");
         return redisKeyConfig;
     }
 
@@ -21,7 +34,86 @@ public class TestUtils {
         ReflectionTestUtils.setField(dashboardOffsetConfig, "activeUsersOffset", 5);
         ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsOffset", 15);
         ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsOffset", 5);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "sessionStatsOffset", 15);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "dimensionsOffset", 15);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "trendingOffset", 5);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "trendingMinViews", 10);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsMaxStalenessSeconds", 5);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsBatchSize", 500);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "activeUsersSnapshotTtlSeconds", 120L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "activeUsersCountMode", "exact");
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsMode", "redis");
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "maxWindowMinutes", 10080);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "redisCallsConcurrency", 1);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "snapshotCacheTtlMillis", 1000L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "snapshotCacheMaxStaleMillis", 300000L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "latencyBudgetMillis", 250L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "circuitBreakerFailureThreshold", 3);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "circuitBreakerSlowCallMillis", 1000L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "circuitBreakerOpenMillis", 5000L);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "warmupTimeoutMillis", 30000L);
         return dashboardOffsetConfig;
     }
 
+
+    public static IngestionConfig getIngestionConfig() {
+        final IngestionConfig ingestionConfig = new IngestionConfig();
+        ReflectionTestUtils.setField(ingestionConfig, "source", "memory");
+        ReflectionTestUtils.setField(ingestionConfig, "memoryCapacity", 1000);
+        ReflectionTestUtils.setField(ingestionConfig, "maxPollRecords", 100);
+        ReflectionTestUtils.setField(ingestionConfig, "pollTimeoutMillis", 10L);
+        ReflectionTestUtils.setField(ingestionConfig, "flushIntervalMillis", 50L);
+        ReflectionTestUtils.setField(ingestionConfig, "flushMaxEvents", 1000);
+        ReflectionTestUtils.setField(ingestionConfig, "activeUsersTtlSeconds", 300L);
+        ReflectionTestUtils.setField(ingestionConfig, "pageViewsTtlSeconds", 900L);
+        ReflectionTestUtils.setField(ingestionConfig, "userSessionsTtlSeconds", 300L);
+        ReflectionTestUtils.setField(ingestionConfig, "activeUsersHllTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(ingestionConfig, "pageVisitorsTtlSeconds", 900L);
+        ReflectionTestUtils.setField(ingestionConfig, "userPagesTtlSeconds", 900L);
+        ReflectionTestUtils.setField(ingestionConfig, "dimensionCountsTtlSeconds", 900L);
+        ReflectionTestUtils.setField(ingestionConfig, "sessionStatsTtlSeconds", 900L);
+        ReflectionTestUtils.setField(ingestionConfig, "sessionInactivityTimeoutMinutes", 30);
+        ReflectionTestUtils.setField(ingestionConfig, "fiveMinutesRollupTtlSeconds", 90000L);
+        ReflectionTestUtils.setField(ingestionConfig, "hourRollupTtlSeconds", 691200L);
+        ReflectionTestUtils.setField(ingestionConfig, "dayRollupTtlSeconds", 691200L);
+        ReflectionTestUtils.setField(ingestionConfig, "rollups",
+                "active-users,active-users-hll,page-views,page-visitors,session-stats,dimension-counts");
+        return ingestionConfig;
+    }
+
+
+    public static SketchConfig getSketchConfig() {
+        final SketchConfig sketchConfig = new SketchConfig();
+        ReflectionTestUtils.setField(sketchConfig, "pageViewsEpsilon", 0.001);
+        ReflectionTestUtils.setField(sketchConfig, "pageViewsDelta", 0.01);
+        ReflectionTestUtils.setField(sketchConfig, "pageViewsCapacity", 100);
+        ReflectionTestUtils.setField(sketchConfig, "pageViewsMaxMemoryMb", 32);
+        return sketchConfig;
+    }
+
+
+    public static IndexConfig getIndexConfig() {
+        final IndexConfig indexConfig = new IndexConfig();
+        ReflectionTestUtils.setField(indexConfig, "activeUsersMaxUsers", 1000);
+        return indexConfig;
+    }
+
+    public static DimensionsConfig getDimensionsConfig() {
+        final DimensionsConfig dimensionsConfig = new DimensionsConfig();
+        ReflectionTestUtils.setField(dimensionsConfig, "declared", "event_type:2,page_url:3");
+        return dimensionsConfig;
+    }
+
+    public static ColdTierConfig getColdTierConfig(final String directory) {
+        final ColdTierConfig coldTierConfig = new ColdTierConfig();
+        ReflectionTestUtils.setField(coldTierConfig, "enabled", true);
+        ReflectionTestUtils.setField(coldTierConfig, "writerEnabled", true);
+        ReflectionTestUtils.setField(coldTierConfig, "directory", directory);
+        ReflectionTestUtils.setField(coldTierConfig, "intervalMillis", 60000L);
+        ReflectionTestUtils.setField(coldTierConfig, "graceMinutes", 2);
+        ReflectionTestUtils.setField(coldTierConfig, "compactionMinutes", 60);
+        ReflectionTestUtils.setField(coldTierConfig, "retentionDays", 90);
+        return coldTierConfig;
+    }
+
 }
@@ -0,0 +1,100 @@
+package com.liftlab.coldtier;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.config.ColdTierConfig;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests of the archiving of the minute buckets written by {@link RedisEventSink}, against a local redis.
+ */
+public class TestColdTierArchiver {
+
+    private static final Instant NOW = Instant.parse("2025-08-07T16:10:30Z");
+
+    @TempDir
+    private Path directory;
+
+    private LocalRedisServer localRedisServer;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+
+    private MutableClock clock;
+
+    private ColdTierStore coldTierStore;
+
+    private ColdTierArchiver coldTierArchiver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.localRedisServer = new LocalRedisServer();
+        this.connectionFactory = this.localRedisServer.createConnectionFactory();
+        this.redisTemplate = new StringRedisTemplate(this.connectionFactory);
+        this.clock = new MutableClock(NOW);
+        final ColdTierConfig coldTierConfig = TestUtils.getColdTierConfig(this.directory.toString());
+        this.coldTierStore = new ColdTierStore(coldTierConfig);
+        this.coldTierArchiver = new ColdTierArchiver(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig(), coldTierConfig, this.coldTierStore, this.clock);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.connectionFactory.destroy();
+        this.localRedisServer.close();
+    }
+
+    @Test
+    public void testClosedMinutesAreArchivedOnce() throws IOException {
+        final RedisEventSink redisEventSink = new RedisEventSink(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig());
+        // From 16:01, too old to still be in redis, to 16:10, still open.
+        for (int minute = 1; minute <= 10; minute++) {
+            final String timestamp = String.format("2025-08-07T16:%02d:15Z", minute);
+            redisEventSink.accept(event(timestamp, "usr_" + minute, "/a"));
+            redisEventSink.accept(event(timestamp, "usr_0", "/b"));
+        }
+        redisEventSink.flush();
+
+        // 16:06 and 16:07: the active users of 16:05 expired, and 16:08 is within the grace minutes.
+        Assertions.assertEquals(2, this.coldTierArchiver.archive());
+        Assertions.assertEquals(0, this.coldTierArchiver.archive());
+        final LocalDateTime from = LocalDateTime.parse("2025-08-07T16:00:00");
+        Assertions.assertEquals(3, this.coldTierStore.getActiveUsersCount(from, from.plusHours(1)).getActiveUsers());
+
+        this.clock.advance(Duration.ofMinutes(2));
+        Assertions.assertEquals(2, this.coldTierArchiver.archive());
+        final List<PageViewCount> pageViews = this.coldTierStore.getTopPages(from, from.plusHours(1), 5)
+                .getPageViews();
+        Assertions.assertEquals(List.of(4L, 4L), pageViews.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(5, this.coldTierStore.getActiveUsersCount(from, from.plusHours(1)).getActiveUsers());
+    }
+
+    private static UserEvent event(final String timestamp, final String userId, final String pageUrl) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId("sess_" + userId)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.liftlab.coldtier;
+
+import com.liftlab.TestUtils;
+import com.liftlab.models.PageViewCount;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class TestColdTierStore {
+
+    private static final LocalDateTime HOUR = LocalDateTime.parse("2025-08-07T16:00:00");
+
+    private static final long FIRST = ColdTierStore.epochMinute(HOUR);
+
+    @TempDir
+    private Path directory;
+
+    private ColdTierStore coldTierStore;
+
+    @BeforeEach
+    public void setUp() {
+        this.coldTierStore = new ColdTierStore(TestUtils.getColdTierConfig(this.directory.toString()));
+    }
+
+    @Test
+    public void testSegmentRoundTrip() throws IOException {
+        final List<MinuteSnapshot> minutes = List.of(
+                new MinuteSnapshot(FIRST, Map.of("/a", 3L, "/é", 1L), Set.of("usr_1", "usr_2")),
+                new MinuteSnapshot(FIRST + 1, Map.of(), Set.of()),
+                new MinuteSnapshot(FIRST + 5, Map.of("/a", 2L, "/b", 7L), Set.of("usr_2", "usr_3")));
+        final Path path = this.directory.resolve("segment.seg");
+        Segment.write(path, minutes);
+
+        final Segment segment = Segment.open(path);
+        Assertions.assertEquals(FIRST, segment.getFirstMinute());
+        Assertions.assertEquals(FIRST + 5, segment.getLastMinute());
+        Assertions.assertEquals(3, segment.getUrlCount());
+        Assertions.assertEquals(3, segment.getUserCount());
+        Assertions.assertEquals(minutes, segment.getMinutes());
+
+        // Sorted dictionaries, read in place.
+        Assertions.assertEquals(List.of("/a", "/b", "/é"), List.of(segment.getUrl(0), segment.getUrl(1),
+                segment.getUrl(2)));
+        final long[] counts = new long[segment.getUrlCount()];
+        segment.addPageViews(FIRST + 1, FIRST + 6, counts);
+        Assertions.assertArrayEquals(new long[]{2, 7, 0}, counts);
+        final BitSet users = new BitSet();
+        segment.addUsers(FIRST, FIRST + 1, users);
+        Assertions.assertEquals("{0, 1}", users.toString());
+
+        Assertions.assertTrue(segment.overlaps(FIRST + 5, FIRST + 6));
+        Assertions.assertFalse(segment.overlaps(FIRST + 6, FIRST + 10));
+        Assertions.assertFalse(segment.overlaps(FIRST - 10, FIRST));
+    }
+
+    @Test
+    public void testQueriesPruneAndSpanSegments() throws IOException {
+        this.coldTierStore.append(List.of(minute(0, "usr_1", "/a", 5), minute(1, "usr_2", "/b", 1)));
+        this.coldTierStore.append(List.of(minute(2, "usr_1", "/b", 3)));
+        this.coldTierStore.append(List.of(minute(90, "usr_3", "/c", 10)));
+
+        Assertions.assertEquals(2, this.coldTierStore.segments(FIRST, FIRST + 3).size());
+        Assertions.assertEquals(1, this.coldTierStore.segments(FIRST + 3, FIRST + 91).size());
+        Assertions.assertEquals(FIRST + 90, this.coldTierStore.getLastMinute().orElseThrow());
+
+        final List<PageViewCount> pageViews = this.coldTierStore.getTopPages(HOUR, HOUR.plusMinutes(3), 5)
+                .getPageViews();
+        Assertions.assertEquals(List.of("/a", "/b"), pageViews.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(5L, 4L), pageViews.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(1, this.coldTierStore.getTopPages(HOUR, HOUR.plusHours(2), 1).getPageViews().size());
+
+        // Within a segment, and across segments with the same user in both.
+        Assertions.assertEquals(2, this.coldTierStore.getActiveUsersCount(HOUR, HOUR.plusMinutes(2))
+                .getActiveUsers());
+        Assertions.assertEquals(2, this.coldTierStore.getActiveUsersCount(HOUR, HOUR.plusMinutes(3))
+                .getActiveUsers());
+        Assertions.assertEquals(3, this.coldTierStore.getActiveUsersCount(HOUR, HOUR.plusDays(1))
+                .getActiveUsers());
+        Assertions.assertEquals(0, this.coldTierStore.getActiveUsersCount(HOUR.minusDays(1), HOUR)
+                .getActiveUsers());
+    }
+
+    @Test
+    public void testCompactionMergesClosedPeriods() throws IOException {
+        for (int minute = 0; minute < 5; minute++) {
+            this.coldTierStore.append(List.of(minute(minute, "usr_" + minute, "/a", 1)));
+        }
+        this.coldTierStore.append(List.of(minute(60, "usr_1", "/a", 1)));
+        this.coldTierStore.append(List.of(minute(61, "usr_1", "/a", 1)));
+
+        // The second hour is still open.
+        this.coldTierStore.compact(FIRST + 62);
+        Assertions.assertEquals(List.of("segment-202508071600-202508071604.seg",
+                "segment-202508071700-202508071700.seg", "segment-202508071701-202508071701.seg"), this.files());
+        Assertions.assertEquals(7, this.coldTierStore.getTopPages(HOUR, HOUR.plusHours(2), 5).getPageViews()
+                .getFirst().getCount());
+        Assertions.assertEquals(5, this.coldTierStore.getActiveUsersCount(HOUR, HOUR.plusHours(2))
+                .getActiveUsers());
+
+        this.coldTierStore.expire(FIRST + 60);
+        Assertions.assertEquals(2, this.files().size());
+    }
+
+    @Test
+    public void testWiderSegmentHidesItsParts() throws IOException {
+        this.coldTierStore.append(List.of(minute(0, "usr_1", "/a", 1)));
+        this.coldTierStore.append(List.of(minute(1, "usr_2", "/a", 1)));
+        // A merged segment whose parts are not deleted yet.
+        Segment.write(this.directory.resolve("segment-202508071600-202508071601.seg"),
+                List.of(minute(0, "usr_1", "/a", 1), minute(1, "usr_2", "/a", 1)));
+
+        Assertions.assertEquals(1, this.coldTierStore.segments(FIRST, FIRST + 60).size());
+        Assertions.assertEquals(2, this.coldTierStore.getTopPages(HOUR, HOUR.plusHours(1), 5).getPageViews()
+                .getFirst().getCount());
+    }
+
+    @Test
+    public void testCompactionAfterAnInterruptedOneKeepsTheMergedSegment() throws IOException {
+        this.coldTierStore.append(List.of(minute(0, "usr_1", "/a", 1)));
+        this.coldTierStore.append(List.of(minute(1, "usr_2", "/a", 1)));
+        // Merged, and stopped before its parts were deleted.
+        Segment.write(this.directory.resolve("segment-202508071600-202508071601.seg"),
+                List.of(minute(0, "usr_1", "/a", 1), minute(1, "usr_2", "/a", 1)));
+
+        this.coldTierStore.compact(FIRST + 60);
+        Assertions.assertEquals(List.of("segment-202508071600-202508071601.seg"), this.files());
+        Assertions.assertEquals(2, this.coldTierStore.getTopPages(HOUR, HOUR.plusHours(1), 5).getPageViews()
+                .getFirst().getCount());
+
+        // A part archived after the merged segment is merged with it, under a new name.
+        this.coldTierStore.append(List.of(minute(2, "usr_3", "/a", 1)));
+        this.coldTierStore.compact(FIRST + 60);
+        Assertions.assertEquals(List.of("segment-202508071600-202508071602.seg"), this.files());
+        Assertions.assertEquals(3, this.coldTierStore.getTopPages(HOUR, HOUR.plusHours(1), 5).getPageViews()
+                .getFirst().getCount());
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static MinuteSnapshot minute(final int minute, final String userId, final String pageUrl,
+                                         final long views) {
+        return new MinuteSnapshot(FIRST + minute, Map.of(pageUrl, views), Set.of(userId));
+    }
+}
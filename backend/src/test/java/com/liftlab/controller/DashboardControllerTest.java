@@ -1,29 +1,69 @@
 package com.liftlab.controller;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.google.common.collect.ImmutableList;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.EventDimension;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.DimensionCount;
+import com.liftlab.models.DimensionCountsResponse;
+import com.liftlab.models.PageViewCount;
 import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.PageVisitorsResponse;
+import com.liftlab.models.SessionStatsResponse;
+import com.liftlab.models.SummaryResponse;
+import com.liftlab.models.TrendingPage;
+import com.liftlab.models.TrendingPagesResponse;
+import com.liftlab.models.UserDetails;
 import com.liftlab.models.UserDetailsResponse;
+import com.liftlab.models.UserPageViewsResponse;
+import com.liftlab.service.DashboardMetrics;
 import com.liftlab.service.DashboardService;
+import com.liftlab.service.DashboardSnapshotCache;
+import com.liftlab.service.DashboardStreamService;
+import com.liftlab.service.RedisCircuitBreaker;
+import com.liftlab.service.RedisUnavailableException;
+import com.liftlab.service.ResponseEncoder;
+import com.liftlab.service.SnapshotExpiredException;
+import com.liftlab.service.TrendingPagesView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * Tests for {@link DashboardController}.
+ * The snapshots expire at once, so that every request reaches the mocked service.
  */
-@WebMvcTest(controllers = DashboardController.class)
+@WebMvcTest(controllers = DashboardController.class, properties = "dashboard.config.snapshot-cache.ttl-ms=0")
+@Import({DashboardSnapshotCache.class, RedisCircuitBreaker.class, ResponseEncoder.class, DashboardOffsetConfig.class,
+        DimensionsConfig.class, DashboardMetrics.class, SimpleMeterRegistry.class})
 class DashboardControllerTest {
 
     @Autowired
@@ -32,6 +72,12 @@ class DashboardControllerTest {
     @MockitoBean
     private DashboardService dashboardService;
 
+    @MockitoBean
+    private DashboardStreamService dashboardStreamService;
+
+    @MockitoBean
+    private TrendingPagesView trendingPagesView;
+
     @Nested
     @DisplayName("GET /api/v1/dashboard/active-users")
     class ActiveUsers {
@@ -66,6 +112,142 @@ class DashboardControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/active-users?limit=&cursor=")
+    class ActiveUsersPages {
+
+        @Test
+        @DisplayName("returns a page with the next cursor")
+        void activeUsersPage_ok() throws Exception {
+            // given
+            when(dashboardService.getUserDetails(eq(2), eq("abc:17"), Mockito.isNull()))
+                    .thenReturn(UserDetailsResponse.builder()
+                            .withUserDetails(ImmutableList.of(UserDetails.builder()
+                                    .withUserId("usr_1")
+                                    .withSessionCount(2)
+                                    .build()))
+                            .withNextCursor("abc:42")
+                            .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("limit", "2").param("cursor", "abc:17"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.userDetails", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor", is("abc:42")));
+        }
+
+        @Test
+        @DisplayName("returns 400 on an invalid limit or cursor and 410 on an expired cursor")
+        void activeUsersPage_badCursor() throws Exception {
+            // given
+            Mockito.doThrow(new IllegalArgumentException("Invalid cursor: bad"))
+                    .when(dashboardService).validateCursor("bad");
+            when(dashboardService.getUserDetails(Mockito.anyInt(), eq("expired:17"), Mockito.isNull()))
+                    .thenThrow(new SnapshotExpiredException("expired"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("cursor", "bad"))
+                    .andExpect(status().isBadRequest());
+            Mockito.verify(dashboardService, Mockito.never())
+                    .getUserDetails(Mockito.anyInt(), eq("bad"), Mockito.any());
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("cursor", "expired:17"))
+                    .andExpect(status().isGone());
+        }
+
+        @Test
+        @DisplayName("returns 500 when reading a page fails on a valid cursor")
+        void activeUsersPage_failure() throws Exception {
+            // given
+            when(dashboardService.getUserDetails(Mockito.anyInt(), eq("abc:17"), Mockito.isNull()))
+                    .thenThrow(new IllegalArgumentException("Unexpected"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("cursor", "abc:17"))
+                    .andExpect(status().isInternalServerError());
+        }
+
+        @Test
+        @DisplayName("streams the users one batch at a time")
+        void activeUsersStream_ok() throws Exception {
+            // given
+            Mockito.doAnswer(invocation -> {
+                final Consumer<List<UserDetails>> consumer = invocation.getArgument(1);
+                consumer.accept(List.of(UserDetails.builder().withUserId("usr_1").withSessionCount(1).build()));
+                consumer.accept(List.of(UserDetails.builder().withUserId("usr_2").withSessionCount(3).build()));
+                return null;
+            }).when(dashboardService).scanUserDetails(Mockito.isNull(), Mockito.any());
+
+            // when/then
+            final MvcResult result = mockMvc.perform(get("/api/v1/dashboard/active-users").param("stream", "true"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.userDetails[*].userId", contains("usr_1", "usr_2")))
+                    .andExpect(jsonPath("$.userDetails[1].sessionCount", is(3)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/active-users/count")
+    class ActiveUsersCount {
+
+        @Test
+        @DisplayName("uses the configured mode when none is given")
+        void activeUsersCount_defaultMode_ok() throws Exception {
+            // given
+            when(dashboardService.getActiveUsersCount()).thenReturn(ActiveUsersCountResponse.builder()
+                    .withActiveUsers(42)
+                    .withMode(CountMode.EXACT)
+                    .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.activeUsers", is(42)))
+                    .andExpect(jsonPath("$.mode", is("EXACT")));
+        }
+
+        @Test
+        @DisplayName("passes the requested mode to service, ignoring the case")
+        void activeUsersCount_approximate_ok() throws Exception {
+            // given
+            when(dashboardService.getActiveUsersCount(CountMode.APPROXIMATE)).thenReturn(ActiveUsersCountResponse.builder()
+                    .withActiveUsers(10_046)
+                    .withMode(CountMode.APPROXIMATE)
+                    .withStandardError(CountMode.APPROXIMATE.getStandardError())
+                    .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count").param("mode", "approximate"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.activeUsers", is(10_046)))
+                    .andExpect(jsonPath("$.standardError", is(0.0081)));
+        }
+
+        @Test
+        @DisplayName("returns 400 on unknown mode")
+        void activeUsersCount_unknownMode() throws Exception {
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count").param("mode", "guess"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("returns 500 with zero count on exception")
+        void activeUsersCount_error() throws Exception {
+            // given
+            when(dashboardService.getActiveUsersCount()).thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.activeUsers", is(0)));
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/v1/dashboard/page-views")
     class PageViews {
@@ -121,4 +303,449 @@ class DashboardControllerTest {
                     .andExpect(jsonPath("$.pageViews", hasSize(0)));
         }
     }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/*?window=")
+    class Windows {
+
+        @Test
+        @DisplayName("passes the parsed window to service and returns 200")
+        void window_ok() throws Exception {
+            // given
+            when(dashboardService.parseWindow("6h")).thenReturn(Duration.ofHours(6));
+            when(dashboardService.getTopPages(5, Duration.ofHours(6))).thenReturn(PageViewsResponse.builder()
+                    .withPageViews(ImmutableList.of())
+                    .build());
+            when(dashboardService.getActiveUsersCount(null, Duration.ofHours(6)))
+                    .thenReturn(ActiveUsersCountResponse.builder()
+                            .withActiveUsers(42)
+                            .withMode(CountMode.EXACT)
+                            .build());
+            when(dashboardService.getUserDetails(Duration.ofHours(6))).thenReturn(UserDetailsResponse.builder()
+                    .withUserDetails(ImmutableList.of())
+                    .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/page-views").param("window", "6h"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count").param("window", "6h"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.activeUsers", is(42)));
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("window", "6h"))
+                    .andExpect(status().isOk());
+
+            Mockito.verify(dashboardService, Mockito.never()).getTopPages(Mockito.anyInt());
+        }
+
+        @Test
+        @DisplayName("returns 400 on an invalid window")
+        void window_invalid() throws Exception {
+            // given
+            when(dashboardService.parseWindow("1y")).thenThrow(new IllegalArgumentException("Invalid window: 1y"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/page-views").param("window", "1y"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/active-users/count").param("window", "1y"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("window", "1y"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/active-users").param("stream", "true").param("window", "1y"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/page-views/visitors and /users/{userId}/page-views")
+    class PageBreakdowns {
+
+        @Test
+        @DisplayName("returns the unique visitors of a page and the top pages of a user")
+        void breakdowns_ok() throws Exception {
+            // given
+            when(dashboardService.parseWindow("1h")).thenReturn(Duration.ofHours(1));
+            when(dashboardService.getPageVisitors("/checkout/success", Duration.ofHours(1)))
+                    .thenReturn(PageVisitorsResponse.builder()
+                            .withPageUrl("/checkout/success")
+                            .withUniqueVisitors(42)
+                            .withStandardError(CountMode.APPROXIMATE.getStandardError())
+                            .build());
+            when(dashboardService.getUserTopPages("usr_1", 3, null)).thenReturn(UserPageViewsResponse.builder()
+                    .withUserId("usr_1")
+                    .withPageViews(ImmutableList.of(PageViewCount.builder()
+                            .withPageUrl("/a")
+                            .withCount(7)
+                            .build()))
+                    .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/page-views/visitors")
+                            .param("pageUrl", "/checkout/success")
+                            .param("window", "1h"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.pageUrl", is("/checkout/success")))
+                    .andExpect(jsonPath("$.uniqueVisitors", is(42)));
+            mockMvc.perform(get("/api/v1/dashboard/users/usr_1/page-views").param("offset", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.userId", is("usr_1")))
+                    .andExpect(jsonPath("$.pageViews[0].count", is(7)));
+        }
+
+        @Test
+        @DisplayName("returns 400 on a missing page url or an invalid offset, 500 on exception")
+        void breakdowns_errors() throws Exception {
+            // given
+            when(dashboardService.getPageVisitors(Mockito.anyString(), Mockito.any()))
+                    .thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/page-views/visitors"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/page-views/visitors").param("pageUrl", " "))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/users/usr_1/page-views").param("offset", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/page-views/visitors").param("pageUrl", "/a"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.uniqueVisitors", is(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/sessions/stats")
+    class Sessions {
+
+        @Test
+        @DisplayName("returns the session aggregates of the window, 500 with zeros on exception")
+        void sessionStats() throws Exception {
+            // given
+            when(dashboardService.parseWindow("1h")).thenReturn(Duration.ofHours(1));
+            when(dashboardService.getSessionStats(Duration.ofHours(1))).thenReturn(SessionStatsResponse.builder()
+                    .withSessions(4)
+                    .withAverageDurationSeconds(90.5)
+                    .withPagesPerSession(2.5)
+                    .withBounceRate(0.25)
+                    .build());
+            when(dashboardService.getSessionStats(null)).thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/sessions/stats").param("window", "1h"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sessions", is(4)))
+                    .andExpect(jsonPath("$.bounceRate", is(0.25)));
+            mockMvc.perform(get("/api/v1/dashboard/sessions/stats"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.sessions", is(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/trending")
+    class Trending {
+
+        @Test
+        @DisplayName("returns the rising pages, 400 on an invalid offset and 500 with an empty list on exception")
+        void trending() throws Exception {
+            // given
+            when(trendingPagesView.getTrendingPages(3)).thenReturn(TrendingPagesResponse.builder()
+                    .withMinute("202508071632")
+                    .withWindowMinutes(5)
+                    .withPages(ImmutableList.of(TrendingPage.builder()
+                            .withPageUrl("/sale")
+                            .withViews(40)
+                            .withPreviousViews(10)
+                            .withGrowth(3.0)
+                            .build()))
+                    .build());
+            when(trendingPagesView.getTrendingPages(5)).thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/trending").param("offset", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.windowMinutes", is(5)))
+                    .andExpect(jsonPath("$.pages[0].pageUrl", is("/sale")))
+                    .andExpect(jsonPath("$.pages[0].growth", is(3.0)));
+            mockMvc.perform(get("/api/v1/dashboard/trending").param("offset", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/trending"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.pages", hasSize(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/dimensions")
+    class Dimensions {
+
+        @Test
+        @DisplayName("passes the declared dimensions and the filters to the service and returns 200")
+        void dimensions_ok() throws Exception {
+            // given
+            when(dashboardService.parseWindow("1h")).thenReturn(Duration.ofHours(1));
+            when(dashboardService.getDimensionCounts(List.of(EventDimension.PAGE_URL),
+                    Map.of(EventDimension.EVENT_TYPE, "purchase"), 3, Duration.ofHours(1)))
+                    .thenReturn(DimensionCountsResponse.builder()
+                            .withGroupBy(ImmutableList.of("page_url"))
+                            .withFilters(Map.of("event_type", "purchase"))
+                            .withCounts(ImmutableList.of(DimensionCount.builder()
+                                    .withDimensions(Map.of("page_url", "/cart"))
+                                    .withCount(12)
+                                    .build()))
+                            .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/dimensions")
+                            .param("groupBy", "page_url")
+                            .param("filter", "event_type:purchase")
+                            .param("offset", "3")
+                            .param("window", "1h"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.filters.event_type", is("purchase")))
+                    .andExpect(jsonPath("$.counts[0].dimensions.page_url", is("/cart")))
+                    .andExpect(jsonPath("$.counts[0].count", is(12)));
+        }
+
+        @Test
+        @DisplayName("returns 400 on an unknown dimension or filter, 500 with an empty list on exception")
+        void dimensions_errors() throws Exception {
+            // given
+            when(dashboardService.getDimensionCounts(List.of(EventDimension.EVENT_TYPE), Map.of(), 10, null))
+                    .thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/dimensions").param("groupBy", "country"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/dimensions").param("groupBy", " , "))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/dimensions")
+                            .param("groupBy", "event_type")
+                            .param("filter", "purchase"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/dashboard/dimensions").param("groupBy", "event_type"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.counts", hasSize(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/summary")
+    class Summary {
+
+        @Test
+        @DisplayName("returns the users and the pages of one minute, 400 on an invalid offset")
+        void summary() throws Exception {
+            // given
+            when(dashboardService.getSummary(3, null)).thenReturn(SummaryResponse.builder()
+                    .withMinute("202501011015")
+                    .withActiveUsers(1)
+                    .withSessions(2)
+                    .withUserDetails(ImmutableList.of(UserDetails.builder()
+                            .withUserId("usr_1")
+                            .withSessionCount(2)
+                            .build()))
+                    .withPageViews(ImmutableList.of(PageViewCount.builder()
+                            .withPageUrl("/home")
+                            .withCount(3)
+                            .build()))
+                    .build());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/summary").param("offset", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"")))
+                    .andExpect(jsonPath("$.minute", is("202501011015")))
+                    .andExpect(jsonPath("$.sessions", is(2)))
+                    .andExpect(jsonPath("$.userDetails[0].userId", is("usr_1")))
+                    .andExpect(jsonPath("$.pageViews[0].pageUrl", is("/home")));
+            mockMvc.perform(get("/api/v1/dashboard/summary").param("offset", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("returns 500 with empty lists on exception")
+        void summary_error() throws Exception {
+            // given
+            when(dashboardService.getSummary(Mockito.anyInt(), Mockito.any())).thenThrow(new RuntimeException("boom"));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/summary").param("offset", "4"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.userDetails", hasSize(0)))
+                    .andExpect(jsonPath("$.pageViews", hasSize(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/* while redis is slow or down")
+    class Degraded {
+
+        @Test
+        @DisplayName("serves the last good snapshot marked as stale when redis fails")
+        void stale_snapshot() throws Exception {
+            // given
+            when(dashboardService.getTopPages(eq(7)))
+                    .thenReturn(PageViewsResponse.builder()
+                            .withPageViews(ImmutableList.of(PageViewCount.builder()
+                                    .withPageUrl("/home")
+                                    .withCount(3)
+                                    .build()))
+                            .build())
+                    .thenThrow(new QueryTimeoutException("Redis command timed out"));
+
+            // when/then
+            final String etag = mockMvc.perform(get("/api/v1/dashboard/page-views").param("offset", "7"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(DashboardController.STALE_HEADER))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            mockMvc.perform(get("/api/v1/dashboard/page-views").param("offset", "7"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(DashboardController.STALE_HEADER, "true"))
+                    .andExpect(header().exists(HttpHeaders.AGE))
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(jsonPath("$.pageViews[0].pageUrl", is("/home")));
+        }
+
+        @Test
+        @DisplayName("returns 503 with Retry-After when the circuit breaker is open")
+        void unavailable() throws Exception {
+            // given
+            when(dashboardService.getUserTopPages("usr_1", 5, null))
+                    .thenThrow(new RedisUnavailableException("open", Duration.ofMillis(1500)));
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/users/usr_1/page-views"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/{active-users,page-views} with If-None-Match")
+    class Snapshots {
+
+        @Test
+        @DisplayName("returns an ETag, and 304 without a body while the snapshot is unchanged")
+        void snapshot_notModified() throws Exception {
+            // given
+            when(dashboardService.getTopPages(eq(5))).thenReturn(PageViewsResponse.builder()
+                    .withPageViews(ImmutableList.of())
+                    .build());
+            when(dashboardService.getUserDetails()).thenReturn(UserDetailsResponse.builder()
+                    .withUserDetails(ImmutableList.of())
+                    .build());
+
+            // when/then
+            for (final String path : List.of("/api/v1/dashboard/page-views", "/api/v1/dashboard/active-users")) {
+                final String etag = mockMvc.perform(get(path))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                        .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"")))
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+                mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string(HttpHeaders.ETAG, etag))
+                        .andExpect(content().string(""));
+                mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, "\"outdated\""))
+                        .andExpect(status().isOk());
+            }
+        }
+
+        @Test
+        @DisplayName("changes the ETag with the snapshot")
+        void snapshot_changed() throws Exception {
+            // given
+            when(dashboardService.getTopPages(eq(5)))
+                    .thenReturn(PageViewsResponse.builder()
+                            .withPageViews(ImmutableList.of())
+                            .build())
+                    .thenReturn(PageViewsResponse.builder()
+                            .withPageViews(ImmutableList.of(PageViewCount.builder()
+                                    .withPageUrl("/home")
+                                    .withCount(3)
+                                    .build()))
+                            .build());
+
+            // when/then
+            final String etag = mockMvc.perform(get("/api/v1/dashboard/page-views"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            mockMvc.perform(get("/api/v1/dashboard/page-views").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                    .andExpect(jsonPath("$.pageViews[0].pageUrl", is("/home")));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/{active-users,page-views} with Accept: application/cbor")
+    class Cbor {
+
+        @Test
+        @DisplayName("returns the columnar CBOR encoding, and JSON by default")
+        void cbor_ok() throws Exception {
+            // given
+            when(dashboardService.getTopPages(eq(5))).thenReturn(PageViewsResponse.builder()
+                    .withPageViews(ImmutableList.of(PageViewCount.builder()
+                            .withPageUrl("/home")
+                            .withCount(3)
+                            .build()))
+                    .build());
+            when(dashboardService.getUserDetails(eq(2), Mockito.isNull(), Mockito.isNull()))
+                    .thenReturn(UserDetailsResponse.builder()
+                            .withUserDetails(ImmutableList.of(UserDetails.builder()
+                                    .withUserId("usr_1")
+                                    .withSessionCount(2)
+                                    .build()))
+                            .withNextCursor("abc:42")
+                            .build());
+
+            // when/then
+            final byte[] pageViews = mockMvc.perform(get("/api/v1/dashboard/page-views")
+                            .accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                    .andReturn().getResponse().getContentAsByteArray();
+            Assertions.assertEquals("{\"pageUrls\":[\"/home\"],\"counts\":[3]}",
+                    new CBORMapper().readTree(pageViews).toString());
+
+            final byte[] page = mockMvc.perform(get("/api/v1/dashboard/active-users").param("limit", "2")
+                            .accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+            Assertions.assertEquals("{\"userIds\":[\"usr_1\"],\"sessionCounts\":[2],\"nextCursor\":\"abc:42\"}",
+                    new CBORMapper().readTree(page).toString());
+
+            mockMvc.perform(get("/api/v1/dashboard/page-views").accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.pageViews[0].pageUrl", is("/home")));
+        }
+
+        @Test
+        @DisplayName("returns 400 on an invalid Accept header")
+        void cbor_invalidAccept() throws Exception {
+            mockMvc.perform(get("/api/v1/dashboard/page-views").header(HttpHeaders.ACCEPT, "application/"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/dashboard/stream")
+    class Stream {
+
+        @Test
+        @DisplayName("starts an event stream from the service")
+        void stream_ok() throws Exception {
+            // given
+            when(dashboardStreamService.subscribe()).thenReturn(new SseEmitter());
+
+            // when/then
+            mockMvc.perform(get("/api/v1/dashboard/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted());
+
+            Mockito.verify(dashboardStreamService).subscribe();
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.liftlab.controller;
+
+import com.google.common.collect.ImmutableList;
+import com.liftlab.coldtier.ColdTierStore;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for {@link HistoryController}.
+ */
+@WebMvcTest(controllers = HistoryController.class, properties = "dashboard.cold-tier.enabled=true")
+class HistoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ColdTierStore coldTierStore;
+
+    @Test
+    @DisplayName("passes the range in UTC minutes to the cold tier and returns 200")
+    void history_ok() throws Exception {
+        // given
+        final LocalDateTime from = LocalDateTime.parse("2025-08-07T16:00:00");
+        final LocalDateTime to = LocalDateTime.parse("2025-08-07T17:00:00");
+        when(coldTierStore.getTopPages(from, to, 5)).thenReturn(PageViewsResponse.builder()
+                .withPageViews(ImmutableList.of(PageViewCount.builder()
+                        .withPageUrl("/home")
+                        .withCount(120)
+                        .build()))
+                .build());
+        when(coldTierStore.getActiveUsersCount(from, to)).thenReturn(ActiveUsersCountResponse.builder()
+                .withActiveUsers(42)
+                .withMode(CountMode.EXACT)
+                .build());
+
+        // when/then
+        mockMvc.perform(get("/api/v1/dashboard/history/page-views")
+                        .param("from", "2025-08-07T18:00:30+02:00")
+                        .param("to", "2025-08-07T17:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pageViews[0].pageUrl", is("/home")));
+        mockMvc.perform(get("/api/v1/dashboard/history/active-users/count")
+                        .param("from", "2025-08-07T16:00:00Z")
+                        .param("to", "2025-08-07T17:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeUsers", is(42)));
+    }
+
+    @Test
+    @DisplayName("returns 400 on an invalid range and 500 with an empty list on exception")
+    void history_errors() throws Exception {
+        // given
+        when(coldTierStore.getTopPages(Mockito.any(), Mockito.any(), Mockito.anyInt()))
+                .thenThrow(new IOException("boom"));
+
+        // when/then
+        mockMvc.perform(get("/api/v1/dashboard/history/page-views")
+                        .param("from", "yesterday")
+                        .param("to", "2025-08-07T17:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/dashboard/history/active-users/count")
+                        .param("from", "2025-08-07T17:00:00Z")
+                        .param("to", "2025-08-07T16:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/dashboard/history/page-views")
+                        .param("from", "2025-08-07T16:00:00Z")
+                        .param("to", "2025-08-07T17:00:00Z"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.pageViews", hasSize(0)));
+    }
+}
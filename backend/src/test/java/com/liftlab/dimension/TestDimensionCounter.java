@@ -0,0 +1,170 @@
+package com.liftlab.dimension;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.EventDimension;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.models.DimensionCount;
+import com.liftlab.models.DimensionCountsResponse;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import com.liftlab.service.DashboardMetrics;
+import com.liftlab.service.DashboardService;
+import com.liftlab.service.Granularity;
+import com.liftlab.service.PageViewsRollingView;
+import com.liftlab.service.RedisCallExecutor;
+import com.liftlab.service.WindowPlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tests of the dimension counts of the events and of their read path, against a local redis.
+ */
+public class TestDimensionCounter {
+
+    private LocalRedisServer localRedisServer;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+
+    private DimensionCounter dimensionCounter;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.localRedisServer = new LocalRedisServer();
+        this.connectionFactory = this.localRedisServer.createConnectionFactory();
+        this.redisTemplate = new StringRedisTemplate(this.connectionFactory);
+        this.dimensionCounter = new DimensionCounter(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig(), TestUtils.getDimensionsConfig());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.connectionFactory.destroy();
+        this.localRedisServer.close();
+    }
+
+    @Test
+    public void testCountsAreFilteredAndGrouped() {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        this.dimensionCounter.accept(event(now, "purchase", "/cart"));
+        this.dimensionCounter.accept(event(now, "purchase", "/cart"));
+        this.dimensionCounter.accept(event(now, "purchase", "/checkout"));
+        this.dimensionCounter.accept(event(now, "page_view", "/home"));
+        this.dimensionCounter.accept(event(now, "page_view", "/home"));
+        this.dimensionCounter.accept(event(now, "page_view", "/cart"));
+        this.dimensionCounter.flush();
+
+        final String minute = Granularity.MINUTE.bucket(now.toLocalDateTime());
+        Assertions.assertEquals("2", this.redisTemplate.<String, String>opsForHash()
+                .entries("dim_counts:" + minute).get("event_type=purchase\u001Fpage_url=/cart"));
+
+        final DashboardService dashboardService = dashboardService(this.redisTemplate);
+        Assertions.assertEquals(List.of(Map.of("page_url", "/cart", "count", 2L),
+                        Map.of("page_url", "/checkout", "count", 1L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.PAGE_URL),
+                        Map.of(EventDimension.EVENT_TYPE, "purchase"), 10, null)));
+        Assertions.assertEquals(List.of(Map.of("event_type", "page_view", "count", 3L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.EVENT_TYPE), Map.of(), 1,
+                        Duration.ofDays(1))));
+        Assertions.assertEquals(List.of(Map.of("event_type", "page_view", "page_url", "/home", "count", 2L),
+                        Map.of("event_type", "page_view", "page_url", "/cart", "count", 1L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.EVENT_TYPE,
+                        EventDimension.PAGE_URL), Map.of(EventDimension.EVENT_TYPE, "page_view"), 10, null)));
+        Assertions.assertTrue(dashboardService.getDimensionCounts(List.of(EventDimension.PAGE_URL),
+                Map.of(EventDimension.EVENT_TYPE, "signup"), 10, null).getCounts().isEmpty());
+    }
+
+    @Test
+    public void testValuesPastTheCapCountAsOther() {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (final String pageUrl : List.of("/a", "/b", "/c", "/d", "/e", "/a")) {
+            this.dimensionCounter.accept(event(now, "page_view", pageUrl));
+        }
+        this.dimensionCounter.accept(event(now, "purchase", "/a"));
+        this.dimensionCounter.accept(event(now, "click", "/b"));
+        this.dimensionCounter.accept(event(now.minusHours(1), "page_view", "/a"));
+        // The values of an hour older than the ones kept are not admitted.
+        this.dimensionCounter.accept(event(now.minusHours(3), "page_view", "/a"));
+        this.dimensionCounter.flush();
+
+        final DashboardService dashboardService = dashboardService(this.redisTemplate);
+        Assertions.assertEquals(List.of(Map.of("page_url", "/a", "count", 4L),
+                        Map.of("page_url", "(other)", "count", 3L),
+                        Map.of("page_url", "/b", "count", 2L),
+                        Map.of("page_url", "/c", "count", 1L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.PAGE_URL), Map.of(), 10,
+                        Duration.ofDays(1))));
+        Assertions.assertEquals(List.of(Map.of("event_type", "page_view", "count", 7L),
+                        Map.of("event_type", "(other)", "count", 2L),
+                        Map.of("event_type", "purchase", "count", 1L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.EVENT_TYPE), Map.of(), 10,
+                        Duration.ofDays(1))));
+    }
+
+    @Test
+    public void testValuesWithTheSeparatorCountAsOther() {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        this.dimensionCounter.accept(event(now, "page_view", "/a"));
+        // Read back as a purchase of /a if it was counted as it is.
+        this.dimensionCounter.accept(event(now, "page_view", "/a\u001Fevent_type=purchase"));
+        this.dimensionCounter.flush();
+
+        final String minute = Granularity.MINUTE.bucket(now.toLocalDateTime());
+        Assertions.assertEquals(Map.of("event_type=page_view\u001Fpage_url=/a", "1",
+                        "event_type=page_view\u001Fpage_url=(other)", "1"),
+                this.redisTemplate.<String, String>opsForHash().entries("dim_counts:" + minute));
+
+        final DashboardService dashboardService = dashboardService(this.redisTemplate);
+        Assertions.assertEquals(List.of(Map.of("event_type", "page_view", "count", 2L)),
+                counts(dashboardService.getDimensionCounts(List.of(EventDimension.EVENT_TYPE), Map.of(), 10, null)));
+    }
+
+    private static List<Map<String, Object>> counts(final DimensionCountsResponse dimensionCountsResponse) {
+        return dimensionCountsResponse.getCounts().stream()
+                .map(TestDimensionCounter::count)
+                .toList();
+    }
+
+    private static Map<String, Object> count(final DimensionCount dimensionCount) {
+        final Map<String, Object> count = new HashMap<>(dimensionCount.getDimensions());
+        count.put("count", dimensionCount.getCount());
+        return count;
+    }
+
+    private static DashboardService dashboardService(final StringRedisTemplate redisTemplate) {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        return new DashboardService(redisTemplate, redisKeyConfig, dashboardOffsetConfig,
+                new PageViewsRollingView(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics),
+                Optional.empty(), Optional.empty(), dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig),
+                new RedisCallExecutor(dashboardOffsetConfig));
+    }
+
+    private static UserEvent event(final OffsetDateTime timestamp, final String eventType, final String pageUrl) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp.toString())
+                .withUserId("usr_1")
+                .withEventType(eventType)
+                .withPageUrl(pageUrl)
+                .withSessionId("sess_1")
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.liftlab.index;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.IndexConfig;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+
+public class TestActiveUsersIndex {
+
+    private MutableClock clock;
+
+    private IndexConfig indexConfig;
+
+    private ActiveUsersIndex activeUsersIndex;
+
+    @BeforeEach
+    public void init() {
+        this.clock = new MutableClock(Instant.parse("2025-08-07T16:34:10Z"));
+        this.indexConfig = TestUtils.getIndexConfig();
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "activeUsersOffset", 2);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsOffset", 3);
+        this.activeUsersIndex = new ActiveUsersIndex(dashboardOffsetConfig, this.indexConfig, this.clock);
+    }
+
+    @Test
+    public void testUsersAndSessionsOfTheWindows() {
+        this.event("2025-08-07T16:34:01Z", "usr_1", "sess_1");
+        this.event("2025-08-07T16:33:01Z", "usr_1", "sess_1");
+        this.event("2025-08-07T16:33:30Z", "usr_1", "sess_2");
+        this.event("2025-08-07T16:33:59Z", "usr_2", "sess_3");
+        // In the sessions window only.
+        this.event("2025-08-07T16:32:10Z", "usr_2", "sess_4");
+        this.event("2025-08-07T16:32:20Z", "usr_3", "sess_5");
+        // Out of the windows.
+        this.event("2025-08-07T16:31:59Z", "usr_1", "sess_6");
+        this.event("2025-08-07T16:35:00Z", "usr_4", "sess_7");
+
+        Assertions.assertEquals(Optional.of(Map.of()), this.sessionCounts());
+        this.activeUsersIndex.flush();
+
+        Assertions.assertEquals(Optional.of(Map.of("usr_1", 2, "usr_2", 2)), this.sessionCounts());
+        Assertions.assertEquals(OptionalLong.of(2), this.activeUsersIndex.getActiveUsersCount());
+    }
+
+    @Test
+    public void testMinuteLeavesTheWindow() {
+        this.event("2025-08-07T16:34:01Z", "usr_1", "sess_1");
+        this.event("2025-08-07T16:33:01Z", "usr_2", "sess_2");
+        this.activeUsersIndex.flush();
+        Assertions.assertEquals(Optional.of(Map.of("usr_1", 1, "usr_2", 1)), this.sessionCounts());
+
+        // No flush since the minute rolled over, 1633 is dropped on read.
+        this.clock.advance(Duration.ofMinutes(1));
+        Assertions.assertEquals(Optional.of(Map.of("usr_1", 1)), this.sessionCounts());
+
+        // usr_2 is removed from the dictionary with 1633, and its id is given to usr_3.
+        this.clock.advance(Duration.ofMinutes(2));
+        this.event("2025-08-07T16:37:05Z", "usr_3", "sess_3");
+        this.activeUsersIndex.flush();
+        Assertions.assertEquals(Optional.of(Map.of("usr_3", 1)), this.sessionCounts());
+    }
+
+    @Test
+    public void testWindowWhichDroppedEventsIsNotAnswered() {
+        ReflectionTestUtils.setField(this.activeUsersIndex, "maxUsers", 2);
+        this.event("2025-08-07T16:33:01Z", "usr_1", "sess_1");
+        this.event("2025-08-07T16:33:02Z", "usr_2", "sess_2");
+        this.event("2025-08-07T16:34:01Z", "usr_3", "sess_3");
+        // Known users are still indexed.
+        this.event("2025-08-07T16:34:02Z", "usr_1", "sess_4");
+        this.activeUsersIndex.flush();
+        Assertions.assertEquals(Optional.empty(), this.sessionCounts());
+        Assertions.assertEquals(OptionalLong.empty(), this.activeUsersIndex.getActiveUsersCount());
+
+        // Once 1634 left the windows, and 1633 with it, the index answers again.
+        this.clock.advance(Duration.ofMinutes(3));
+        this.event("2025-08-07T16:37:01Z", "usr_3", "sess_3");
+        this.activeUsersIndex.flush();
+        Assertions.assertEquals(Optional.of(Map.of("usr_3", 1)), this.sessionCounts());
+    }
+
+    private Optional<Map<String, Integer>> sessionCounts() {
+        return this.activeUsersIndex.getUserDetails().map(userDetails -> userDetails.stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+    }
+
+    private void event(final String timestamp, final String userId, final String sessionId) {
+        this.activeUsersIndex.accept(UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl("/home")
+                .withSessionId(sessionId)
+                .build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.liftlab.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TestUserDictionary {
+
+    @Test
+    public void testAddRemoveAndReuse() {
+        final UserDictionary userDictionary = new UserDictionary(4);
+        Assertions.assertEquals(0, userDictionary.add("usr_a"));
+        Assertions.assertEquals(1, userDictionary.add("usr_b"));
+        Assertions.assertEquals(0, userDictionary.add("usr_a"));
+        Assertions.assertEquals(1, userDictionary.idOf("usr_b"));
+        Assertions.assertEquals(-1, userDictionary.idOf("usr_c"));
+        Assertions.assertEquals("usr_b", userDictionary.userId(1));
+        Assertions.assertEquals(2, userDictionary.size());
+
+        userDictionary.remove(0);
+        Assertions.assertEquals(-1, userDictionary.idOf("usr_a"));
+        Assertions.assertNull(userDictionary.userId(0));
+        Assertions.assertEquals(1, userDictionary.size());
+        // The id of the removed user is given to the next one.
+        Assertions.assertEquals(0, userDictionary.add("usr_c"));
+        Assertions.assertEquals(2, userDictionary.add("usr_a"));
+    }
+
+    @Test
+    public void testMatchesAMapUnderCollisionsAndGrowth() {
+        final UserDictionary userDictionary = new UserDictionary(16);
+        final Map<String, Integer> expected = new HashMap<>();
+        final Random random = new Random(7);
+        for (int step = 0; step < 20_000; step++) {
+            // "Aa" and "BB" have the same hash, so the runs of the table are long.
+            final String userId = (random.nextBoolean() ? "Aa" : "BB") + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                final int id = userDictionary.idOf(userId);
+                Assertions.assertEquals(expected.getOrDefault(userId, -1), id);
+                if (id >= 0) {
+                    userDictionary.remove(id);
+                    expected.remove(userId);
+                }
+            } else {
+                final int id = userDictionary.add(userId);
+                Assertions.assertEquals(id, expected.computeIfAbsent(userId, added -> id));
+            }
+            Assertions.assertEquals(expected.size(), userDictionary.size());
+        }
+        final Set<Integer> ids = new HashSet<>();
+        expected.forEach((userId, id) -> {
+            Assertions.assertEquals(id, userDictionary.idOf(userId));
+            Assertions.assertEquals(userId, userDictionary.userId(id));
+            ids.add(id);
+        });
+        // The ids are dense.
+        Assertions.assertEquals(expected.size(), ids.size());
+        Assertions.assertTrue(ids.stream().allMatch(id -> id < 2 * expected.size()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.liftlab.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liftlab.config.DimensionsConfig;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.dimension.DimensionCounter;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.session.Sessionizer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+public class TestIngestionConfiguration {
+
+    // The application yml files and their profiles, with an in-memory source instead of kafka.
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withUserConfiguration(IngestionConfiguration.class, IngestionConfig.class, RedisKeyConfig.class,
+                    DimensionsConfig.class)
+            .withBean(ObjectMapper.class, ObjectMapper::new)
+            .withBean(StringRedisTemplate.class, () -> Mockito.mock(StringRedisTemplate.class))
+            .withPropertyValues("dashboard.ingestion.source=memory");
+
+    @Test
+    public void testIngestionProfileWritesRedis() {
+        this.contextRunner
+                .withPropertyValues("spring.profiles.active=ingestion")
+                .run(context -> Assertions.assertThat(context)
+                        .hasSingleBean(RedisEventSink.class)
+                        .hasSingleBean(Sessionizer.class)
+                        .hasSingleBean(DimensionCounter.class));
+    }
+
+    @Test
+    public void testApiProfilesDoNotWriteRedis() {
+        for (final String profiles : new String[] {"sketch", "index", "index,sketch"}) {
+            this.contextRunner
+                    .withPropertyValues("spring.profiles.active=" + profiles)
+                    .run(context -> Assertions.assertThat(context)
+                            .hasSingleBean(IngestionRunner.class)
+                            .doesNotHaveBean(RedisEventSink.class)
+                            .doesNotHaveBean(Sessionizer.class)
+                            .doesNotHaveBean(DimensionCounter.class));
+        }
+    }
+
+    @Test
+    public void testRedisSinksAreOptIn() {
+        this.contextRunner
+                .withPropertyValues("dashboard.ingestion.enabled=true")
+                .run(context -> Assertions.assertThat(context)
+                        .hasSingleBean(IngestionRunner.class)
+                        .doesNotHaveBean(RedisEventSink.class)
+                        .doesNotHaveBean(Sessionizer.class)
+                        .doesNotHaveBean(DimensionCounter.class));
+    }
+}
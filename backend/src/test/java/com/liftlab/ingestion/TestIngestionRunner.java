@@ -0,0 +1,173 @@
+package com.liftlab.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liftlab.TestUtils;
+import com.liftlab.ingestion.sink.EventSink;
+import com.liftlab.ingestion.source.EventSource;
+import com.liftlab.ingestion.source.FileReplayEventSource;
+import com.liftlab.ingestion.source.InMemoryEventSource;
+import com.liftlab.models.UserEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class TestIngestionRunner {
+
+    private final UserEventParser userEventParser = new UserEventParser(new ObjectMapper());
+
+    @Test
+    public void testFileReplayDropsInvalidEvents(@TempDir final Path directory) throws Exception {
+        final Path file = directory.resolve("events.jsonl");
+        Files.write(file, List.of(
+                "{\"timestamp\": \"2025-08-07T16:34:10.123+00:00\", \"user_id\": \"usr_1\", \"event_type\": \"page_view\", "
+                        + "\"page_url\": \"/a\", \"session_id\": \"sess_1\"}",
+                "not json",
+                "{\"timestamp\": \"2025-08-07T16:34:11Z\", \"user_id\": \"usr_2\", \"page_url\": \"/a\", "
+                        + "\"session_id\": \"sess_2\"}",
+                "{\"timestamp\": \"2025-08-07T16:34:12Z\", \"user_id\": 3, \"event_type\": \"page_view\", "
+                        + "\"page_url\": \"/a\", \"session_id\": \"sess_2\"}",
+                "{\"timestamp\": \"yesterday\", \"user_id\": \"usr_4\", \"event_type\": \"page_view\", "
+                        + "\"page_url\": \"/a\", \"session_id\": \"sess_2\"}",
+                "",
+                "{\"timestamp\": \"2025-08-07T16:34:13\", \"user_id\": \"usr_5\", \"event_type\": \"page_view\", "
+                        + "\"page_url\": \"/b\", \"session_id\": \"sess_5\"}"));
+
+        try (FileReplayEventSource eventSource = new FileReplayEventSource(file, this.userEventParser, 100, false)) {
+            final List<UserEvent> userEvents = eventSource.poll(Duration.ofMillis(1));
+
+            Assertions.assertEquals(List.of("usr_1", "usr_5"), userEvents.stream().map(UserEvent::getUserId).toList());
+            Assertions.assertEquals("/b", userEvents.get(1).getPageUrl());
+            Assertions.assertTrue(eventSource.poll(Duration.ofMillis(1)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testEventsAreCommittedAfterFlush() throws Exception {
+        final InMemoryEventSource inMemoryEventSource = new InMemoryEventSource(1000, 100);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        final EventSource eventSource = new EventSource() {
+            @Override
+            public List<UserEvent> poll(final Duration timeout) {
+                return inMemoryEventSource.poll(timeout);
+            }
+
+            @Override
+            public void commit() {
+                calls.add("commit");
+            }
+        };
+
+        // The first flush fails, as if redis was down.
+        final AtomicInteger flushes = new AtomicInteger();
+        final List<UserEvent> accepted = Collections.synchronizedList(new ArrayList<>());
+        final EventSink eventSink = new EventSink() {
+            @Override
+            public void accept(final UserEvent userEvent) {
+                accepted.add(userEvent);
+            }
+
+            @Override
+            public void flush() {
+                if (flushes.incrementAndGet() == 1) {
+                    calls.add("failed flush");
+                    throw new IllegalStateException("redis down");
+                }
+                calls.add("flush");
+            }
+        };
+
+        final IngestionRunner ingestionRunner =
+                new IngestionRunner(eventSource, List.of(eventSink), TestUtils.getIngestionConfig());
+        ingestionRunner.start();
+        try {
+            for (int index = 0; index < 10; index++) {
+                inMemoryEventSource.publish(TestRedisEventSink.event("2025-08-07T16:34:10Z", "usr_" + index, "/a", "s"));
+            }
+            final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (ingestionRunner.getIngestedEvents() < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            ingestionRunner.stop();
+        }
+
+        Assertions.assertEquals(10, ingestionRunner.getIngestedEvents());
+        Assertions.assertEquals(10, accepted.size());
+        Assertions.assertEquals(List.of("failed flush", "flush", "commit"), calls.subList(0, 3));
+    }
+
+    @Test
+    public void testPausedSourceIsPolledWhileFlushesFail() throws Exception {
+        final InMemoryEventSource inMemoryEventSource = new InMemoryEventSource(1000, 100);
+        final AtomicBoolean paused = new AtomicBoolean();
+        final AtomicInteger pausedPolls = new AtomicInteger();
+        final EventSource eventSource = new EventSource() {
+            @Override
+            public List<UserEvent> poll(final Duration timeout) {
+                if (paused.get()) {
+                    // Like a paused Kafka consumer, which stays in its group and returns nothing.
+                    pausedPolls.incrementAndGet();
+                    LockSupport.parkNanos(Math.min(timeout.toNanos(), Duration.ofMillis(50).toNanos()));
+                    return List.of();
+                }
+                return inMemoryEventSource.poll(timeout);
+            }
+
+            @Override
+            public boolean pause() {
+                paused.set(true);
+                return true;
+            }
+
+            @Override
+            public void resume() {
+                paused.set(false);
+            }
+        };
+
+        // The first two flushes fail.
+        final AtomicInteger flushes = new AtomicInteger();
+        final EventSink eventSink = new EventSink() {
+            @Override
+            public void accept(final UserEvent userEvent) {
+                Assertions.assertFalse(paused.get());
+            }
+
+            @Override
+            public void flush() {
+                if (flushes.incrementAndGet() <= 2) {
+                    throw new IllegalStateException("redis down");
+                }
+            }
+        };
+
+        final IngestionRunner ingestionRunner =
+                new IngestionRunner(eventSource, List.of(eventSink), TestUtils.getIngestionConfig());
+        ingestionRunner.start();
+        try {
+            for (int index = 0; index < 10; index++) {
+                inMemoryEventSource.publish(TestRedisEventSink.event("2025-08-07T16:34:10Z", "usr_" + index, "/a", "s"));
+            }
+            final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (ingestionRunner.getIngestedEvents() < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            ingestionRunner.stop();
+        }
+
+        Assertions.assertEquals(10, ingestionRunner.getIngestedEvents());
+        Assertions.assertTrue(pausedPolls.get() > 0);
+        Assertions.assertFalse(paused.get());
+    }
+}
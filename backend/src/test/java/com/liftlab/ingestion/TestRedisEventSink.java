@@ -0,0 +1,228 @@
+package com.liftlab.ingestion;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.IngestionConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SessionsLayout;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.UserEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class TestRedisEventSink {
+
+    private StringRedisTemplate redisTemplate;
+
+    private RedisOperations<String, String> operations;
+
+    private SetOperations<String, String> setOperations;
+
+    private ZSetOperations<String, String> zSetOperations;
+
+    private HyperLogLogOperations<String, String> hyperLogLogOperations;
+
+    private RedisEventSink redisEventSink;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void init() {
+        this.redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        this.operations = Mockito.mock(RedisOperations.class);
+        this.setOperations = Mockito.mock(SetOperations.class);
+        this.zSetOperations = Mockito.mock(ZSetOperations.class);
+        Mockito.when(this.operations.opsForSet()).thenReturn(this.setOperations);
+        Mockito.when(this.operations.opsForZSet()).thenReturn(this.zSetOperations);
+        this.hyperLogLogOperations = Mockito.mock(HyperLogLogOperations.class);
+        Mockito.when(this.operations.opsForHyperLogLog()).thenReturn(this.hyperLogLogOperations);
+        Mockito.when(this.redisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<?>>getArgument(0).execute(this.operations);
+            return List.of();
+        });
+        this.redisEventSink = new RedisEventSink(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig());
+    }
+
+    @Test
+    public void testFlushWritesPreAggregatedMinuteBuckets() {
+        this.redisEventSink.accept(event("2025-08-07T16:34:10.123+00:00", "usr_1", "/a", "sess_1"));
+        this.redisEventSink.accept(event("2025-08-07T16:34:20+00:00", "usr_1", "/a", "sess_2"));
+        this.redisEventSink.accept(event("2025-08-07T16:34:30Z", "usr_2", "/b", "sess_3"));
+        this.redisEventSink.accept(event("2025-08-07T18:05:01+01:30", "usr_1", "/a", "sess_1"));
+
+        this.redisEventSink.flush();
+
+        Mockito.verify(this.redisTemplate, Mockito.times(1)).executePipelined(Mockito.any(SessionCallback.class));
+
+        Assertions.assertEquals(Set.of("usr_1", "usr_2"), this.members("active_users:202508071634"));
+        final ArgumentCaptor<String[]> hllUsers = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(this.hyperLogLogOperations).add(Mockito.eq("active_users_hll:202508071634"), hllUsers.capture());
+        Assertions.assertEquals(Set.of("usr_1", "usr_2"), Set.of(hllUsers.getValue()));
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:202508071634", "/a", 2.0);
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:202508071634", "/b", 1.0);
+        Assertions.assertEquals(Set.of("sess_1", "sess_2"), this.members("user_sessions:usr_1:202508071634"));
+        Mockito.verify(this.setOperations).add("user_sessions:usr_2:202508071634", "sess_3");
+        final ArgumentCaptor<String[]> visitors = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(this.hyperLogLogOperations).add(Mockito.eq("page_visitors:/a:202508071634"), visitors.capture());
+        Assertions.assertEquals(Set.of("usr_1"), Set.of(visitors.getValue()));
+        Mockito.verify(this.zSetOperations).incrementScore("user_pages:usr_1:202508071634", "/a", 2.0);
+        Mockito.verify(this.zSetOperations).incrementScore("user_pages:usr_2:202508071634", "/b", 1.0);
+
+        // The event with an offset belongs to the 16:35 UTC bucket.
+        Mockito.verify(this.setOperations).add("active_users:202508071635", "usr_1");
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:202508071635", "/a", 1.0);
+
+        // One EXPIRE per key, no matter how many events were written to it.
+        Mockito.verify(this.operations, Mockito.times(1)).expire("active_users:202508071634", Duration.ofSeconds(300));
+        Mockito.verify(this.operations, Mockito.times(1)).expire("page_views:202508071634", Duration.ofSeconds(900));
+        Mockito.verify(this.operations, Mockito.times(1))
+                .expire("user_sessions:usr_1:202508071634", Duration.ofSeconds(300));
+        Mockito.verify(this.operations, Mockito.times(1))
+                .expire("active_users_hll:202508071634", Duration.ofSeconds(3600));
+        Mockito.verify(this.operations, Mockito.times(1))
+                .expire("page_visitors:/b:202508071634", Duration.ofSeconds(900));
+        Mockito.verify(this.operations, Mockito.times(1))
+                .expire("user_pages:usr_1:202508071634", Duration.ofSeconds(900));
+        // 15 minute keys, and the 19 keys of their rollups without the per user ones.
+        Mockito.verify(this.operations, Mockito.times(34)).expire(Mockito.anyString(), Mockito.any(Duration.class));
+    }
+
+    @Test
+    public void testFlushWritesRollups() {
+        this.redisEventSink.accept(event("2025-08-07T16:34:10Z", "usr_1", "/a", "sess_1"));
+        this.redisEventSink.accept(event("2025-08-07T16:34:20Z", "usr_2", "/b", "sess_2"));
+        this.redisEventSink.accept(event("2025-08-07T16:35:01Z", "usr_1", "/a", "sess_3"));
+
+        this.redisEventSink.flush();
+
+        // 16:34 and 16:35 belong to two 5 minute buckets, but to the same hour and day.
+        Assertions.assertEquals(Set.of("usr_1", "usr_2"), this.members("active_users:5m:202508071630"));
+        Assertions.assertEquals(Set.of("usr_1"), this.members("active_users:5m:202508071635"));
+        Assertions.assertEquals(Set.of("usr_1", "usr_2"), this.members("active_users:1h:202508071600"));
+        Assertions.assertEquals(Set.of("usr_1", "usr_2"), this.members("active_users:1d:202508070000"));
+        Mockito.verify(this.hyperLogLogOperations).add(Mockito.eq("active_users_hll:1h:202508071600"),
+                Mockito.any(String[].class));
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:1h:202508071600", "/a", 2.0);
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:1d:202508070000", "/b", 1.0);
+        Mockito.verify(this.hyperLogLogOperations).add(Mockito.eq("page_visitors:/a:1d:202508070000"),
+                Mockito.any(String[].class));
+
+        Mockito.verify(this.operations).expire("active_users:5m:202508071630", Duration.ofSeconds(90000));
+        Mockito.verify(this.operations).expire("page_views:1h:202508071600", Duration.ofSeconds(691200));
+
+        // The per user keys have no rollups by default, only their minute buckets.
+        Assertions.assertEquals(Set.of("sess_1"), this.members("user_sessions:usr_1:202508071634"));
+        Mockito.verify(this.setOperations, Mockito.never())
+                .add(Mockito.matches("user_sessions:.*:(5m|1h|1d):.*"), Mockito.any(String[].class));
+        Mockito.verify(this.zSetOperations, Mockito.never())
+                .incrementScore(Mockito.matches("user_pages:.*:(5m|1h|1d):.*"), Mockito.anyString(),
+                        Mockito.anyDouble());
+    }
+
+    @Test
+    public void testFlushWritesTheRollupsOfTheDeclaredFamilies() {
+        final IngestionConfig ingestionConfig = TestUtils.getIngestionConfig();
+        ReflectionTestUtils.setField(ingestionConfig, "rollups", "user-sessions, user-pages");
+        final RedisEventSink rollupsEventSink = new RedisEventSink(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                ingestionConfig);
+        rollupsEventSink.accept(event("2025-08-07T16:34:10Z", "usr_1", "/a", "sess_1"));
+        rollupsEventSink.accept(event("2025-08-07T16:35:01Z", "usr_1", "/a", "sess_3"));
+
+        rollupsEventSink.flush();
+
+        Assertions.assertEquals(Set.of("sess_1", "sess_3"), this.members("user_sessions:usr_1:1h:202508071600"));
+        Mockito.verify(this.zSetOperations).incrementScore("user_pages:usr_1:1d:202508070000", "/a", 2.0);
+        Mockito.verify(this.operations).expire("user_sessions:usr_1:1d:202508070000", Duration.ofSeconds(691200));
+        // The minute buckets of every family are still written, the other rollups are not.
+        Mockito.verify(this.setOperations).add("active_users:202508071634", "usr_1");
+        Mockito.verify(this.setOperations, Mockito.never())
+                .add(Mockito.startsWith("active_users:1h:"), Mockito.any(String[].class));
+        Mockito.verify(this.zSetOperations, Mockito.never())
+                .incrementScore(Mockito.startsWith("page_views:1h:"), Mockito.anyString(), Mockito.anyDouble());
+    }
+
+    @Test
+    public void testFlushWritesSessionPairsPerBucket() {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        ReflectionTestUtils.setField(redisKeyConfig, "userSessionsLayout", "per-bucket");
+        final IngestionConfig ingestionConfig = TestUtils.getIngestionConfig();
+        ReflectionTestUtils.setField(ingestionConfig, "rollups", "user-sessions");
+        final RedisEventSink pairsEventSink = new RedisEventSink(this.redisTemplate, redisKeyConfig, ingestionConfig);
+        pairsEventSink.accept(event("2025-08-07T16:34:10Z", "usr_1", "/a", "sess_1"));
+        pairsEventSink.accept(event("2025-08-07T16:34:20Z", "usr_1", "/a", "sess_2"));
+        pairsEventSink.accept(event("2025-08-07T16:34:30Z", "usr_2", "/b", "sess_3"));
+
+        pairsEventSink.flush();
+
+        // One key per bucket instead of one per user and bucket.
+        Assertions.assertEquals(Set.of(SessionsLayout.pair("usr_1", "sess_1"), SessionsLayout.pair("usr_1", "sess_2"),
+                SessionsLayout.pair("usr_2", "sess_3")), this.pairs("user_session_pairs:202508071634"));
+        Assertions.assertEquals(3, this.pairs("user_session_pairs:1h:202508071600").size());
+        Mockito.verify(this.operations).expire("user_session_pairs:202508071634", Duration.ofSeconds(300));
+        Mockito.verify(this.setOperations, Mockito.never())
+                .add(Mockito.startsWith("user_sessions:"), Mockito.any(String[].class));
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        this.redisEventSink.accept(event("2025-08-07T16:34:10Z", "usr_1", "/a", "sess_1"));
+        Mockito.when(this.redisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        Assertions.assertThrows(IllegalStateException.class, this.redisEventSink::flush);
+        Mockito.reset(this.redisTemplate);
+        Mockito.when(this.redisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<?>>getArgument(0).execute(this.operations);
+            return List.of();
+        });
+        this.redisEventSink.accept(event("2025-08-07T16:34:20Z", "usr_1", "/a", "sess_1"));
+        this.redisEventSink.flush();
+
+        Mockito.verify(this.zSetOperations).incrementScore("page_views:202508071634", "/a", 2.0);
+    }
+
+    @Test
+    public void testEmptyFlushSkipsRedis() {
+        this.redisEventSink.flush();
+        Mockito.verifyNoInteractions(this.redisTemplate);
+    }
+
+    private Set<String> members(final String key) {
+        final ArgumentCaptor<String[]> members = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(this.setOperations).add(Mockito.eq(key), members.capture());
+        return Set.of(members.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> pairs(final String key) {
+        final ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> pairs = ArgumentCaptor.forClass(Set.class);
+        Mockito.verify(this.zSetOperations).add(Mockito.eq(key), pairs.capture());
+        // The pairs of a user are a lexicographic range, all the scores are 0.
+        Assertions.assertTrue(pairs.getValue().stream().allMatch(pair -> pair.getScore() == 0.0));
+        return pairs.getValue().stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toSet());
+    }
+
+    static UserEvent event(final String timestamp, final String userId, final String pageUrl, final String sessionId) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId(sessionId)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.liftlab.ingestion.source;
+
+import com.liftlab.MutableClock;
+import com.liftlab.models.UserEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class TestSyntheticEventSource {
+
+    @Test
+    public void testEventsAreReleasedAtTheRate() {
+        final MutableClock clock = new MutableClock(Instant.parse("2025-08-07T16:00:00Z"));
+        final SyntheticEventSource source = new SyntheticEventSource(2000, 1000, 100, 1.0, 5, 42, 500, clock);
+
+        Assertions.assertEquals(0, source.poll(Duration.ZERO).size());
+        clock.advance(Duration.ofMillis(100));
+        final List<UserEvent> userEvents = source.poll(Duration.ZERO);
+        Assertions.assertEquals(200, userEvents.size());
+        Assertions.assertEquals("2025-08-07T16:00:00.100Z", userEvents.getFirst().getTimestamp());
+        Assertions.assertEquals(0, source.poll(Duration.ZERO).size());
+
+        // A pipeline which fell behind gets full batches.
+        clock.advance(Duration.ofSeconds(1));
+        Assertions.assertEquals(500, source.poll(Duration.ZERO).size());
+        Assertions.assertEquals(500, source.poll(Duration.ZERO).size());
+        Assertions.assertEquals(1000, source.poll(Duration.ZERO).size() + source.poll(Duration.ZERO).size());
+        Assertions.assertEquals(2200, source.getEmitted());
+    }
+
+    @Test
+    public void testPagesAreSkewedAndSessionsChurn() {
+        final SyntheticEventSource source = new SyntheticEventSource(0, 100, 1000, 1.0, 4, 42, 100_000,
+                new MutableClock(Instant.parse("2025-08-07T16:00:00Z")));
+        final List<UserEvent> userEvents = source.poll(Duration.ZERO);
+        Assertions.assertEquals(100_000, userEvents.size());
+        // The same seed gives the same events.
+        Assertions.assertEquals(userEvents.stream().map(UserEvent::toString).toList(),
+                new SyntheticEventSource(0, 100, 1000, 1.0, 4, 42, 100_000,
+                        new MutableClock(Instant.parse("2025-08-07T16:00:00Z"))).poll(Duration.ZERO).stream()
+                        .map(UserEvent::toString)
+                        .toList());
+
+        // The first page has 1 / H(1000) of the views, about 13%, and twice the views of the second one.
+        final Map<String, Long> views = userEvents.stream()
+                .collect(Collectors.groupingBy(UserEvent::getPageUrl, Collectors.counting()));
+        Assertions.assertEquals(0.134, views.get("/page/0") / 100_000.0, 0.01);
+        Assertions.assertEquals(2.0, (double) views.get("/page/0") / views.get("/page/1"), 0.2);
+        Assertions.assertTrue(views.size() > 900, "pages viewed: " + views.size());
+
+        // 4 pages per session on average.
+        final Map<String, Long> sessions = userEvents.stream()
+                .collect(Collectors.groupingBy(UserEvent::getSessionId, Collectors.counting()));
+        Assertions.assertEquals(4.0, 100_000.0 / sessions.size(), 0.2);
+        Assertions.assertEquals(100, userEvents.stream().map(UserEvent::getUserId).distinct().count());
+        Assertions.assertTrue(sessions.keySet().stream().allMatch(sessionId -> sessionId.matches("sess_\\d+_\\d+")));
+    }
+
+    @Test
+    public void testZipfDistribution() {
+        final double[] distribution = SyntheticEventSource.zipf(4, 1.0);
+        // 1, 1/2, 1/3 and 1/4 of 25/12.
+        Assertions.assertArrayEquals(new double[]{0.48, 0.72, 0.88, 1.0}, distribution, 1e-9);
+        Assertions.assertArrayEquals(new double[]{0.25, 0.5, 0.75, 1.0}, SyntheticEventSource.zipf(4, 0), 1e-9);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SyntheticEventSource(1000, 0, 10, 1.0, 5, 42, 100));
+    }
+}
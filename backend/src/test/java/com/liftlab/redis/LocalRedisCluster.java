@@ -0,0 +1,98 @@
+package com.liftlab.redis;
+
+import com.google.common.collect.ImmutableList;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in of a Redis Cluster of masters, made of {@link LocalRedisServer} nodes which split the slots in
+ * equal ranges, for the tests of the cluster mode which should run offline.
+ * @implNote There are no replicas and no resharding: the topology never changes.
+ */
+public class LocalRedisCluster implements AutoCloseable {
+
+    private final List<LocalRedisServer> nodes;
+
+    public LocalRedisCluster(final int nodeCount) throws IOException {
+        final ImmutableList.Builder<LocalRedisServer> nodes = ImmutableList.builder();
+        for (int index = 0; index < nodeCount; index++) {
+            nodes.add(new LocalRedisServer());
+        }
+        this.nodes = nodes.build();
+        this.nodes.forEach(node -> node.joinCluster(this));
+    }
+
+    public List<LocalRedisServer> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Method to create a started connection factory to this cluster, to be stopped by the caller.
+     * @return The connection factory
+     */
+    public LettuceConnectionFactory createConnectionFactory() {
+        final LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisClusterConfiguration(this.nodes.stream()
+                        .map(node -> node.getHost() + ":" + node.getPort())
+                        .toList()),
+                LettuceClientConfiguration.builder()
+                        .clientOptions(ClusterClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return connectionFactory;
+    }
+
+    /**
+     * Method to get the keys currently stored on all the nodes, expired ones excluded.
+     * @return The keys
+     */
+    public Set<String> keys() {
+        return this.nodes.stream()
+                .flatMap(node -> node.keys().stream())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    LocalRedisServer getNode(final int slot) {
+        return this.nodes.get(slot * this.nodes.size() / SlotHash.SLOT_COUNT);
+    }
+
+    String nodeId(final LocalRedisServer node) {
+        return String.format("%040d", this.nodes.indexOf(node) + 1);
+    }
+
+    /**
+     * Method to describe the cluster like CLUSTER NODES.
+     * @param myself The node which answers
+     * @return One line per node
+     */
+    String nodes(final LocalRedisServer myself) {
+        final StringBuilder nodes = new StringBuilder();
+        for (int index = 0; index < this.nodes.size(); index++) {
+            final LocalRedisServer node = this.nodes.get(index);
+            final int firstSlot = (index * SlotHash.SLOT_COUNT + this.nodes.size() - 1) / this.nodes.size();
+            final int lastSlot = ((index + 1) * SlotHash.SLOT_COUNT + this.nodes.size() - 1) / this.nodes.size() - 1;
+            nodes.append(String.format("%s %s:%d@%d %s - 0 0 %d connected %d-%d\n", this.nodeId(node),
+                    node.getHost(), node.getPort(), node.getPort() + 10000,
+                    node == myself ? "myself,master" : "master", index + 1, firstSlot, lastSlot));
+        }
+        return nodes.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final LocalRedisServer node : this.nodes) {
+            node.close();
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package com.liftlab.redis;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.protocol.ProtocolVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process stand-in of a redis server, speaking RESP2 over a local socket, for the tests and the benchmarks which
+ * should run offline without a redis binary.
+ * @implNote Only the commands used by this project are implemented, on plain java collections, and commands run
+ * one at a time like in redis. A HyperLogLog is an exact set here, so PFCOUNT has no error. Keys expire lazily on
+ * access. Replies are flushed when no more pipelined commands are pending on the connection. A latency can be set
+ * to stand for the network: the replies are then held back that long without holding back the next commands, so
+ * the requests of a connection overlap like over a real network. A server can also be a node of a
+ * {@link LocalRedisCluster}: it then owns a range of slots, answers MOVED for the keys of the other nodes and
+ * CROSSSLOT for the multi-key commands whose keys are in different slots, like a Redis Cluster node.
+ */
+@Slf4j
+public class LocalRedisServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Map<String, Object> data = new HashMap<>();
+
+    private final Map<String, Long> expiries = new HashMap<>();
+
+    private final Set<Socket> clients = new HashSet<>();
+
+    private final Duration latency;
+
+    private volatile boolean running = true;
+
+    /** Cluster this server is a node of, null when standalone. */
+    private volatile LocalRedisCluster cluster;
+
+    public LocalRedisServer() throws IOException {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param latency The time a flush of replies takes to reach the client, for example a network round trip
+     */
+    public LocalRedisServer(final Duration latency) throws IOException {
+        this.latency = latency;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final Thread acceptor = new Thread(this::accept, "local-redis-" + this.getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public String getHost() {
+        return this.serverSocket.getInetAddress().getHostAddress();
+    }
+
+    /**
+     * Method to create a started connection factory to this server, to be stopped by the caller.
+     * @return The connection factory
+     */
+    public LettuceConnectionFactory createConnectionFactory() {
+        final LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(this.getHost(), this.getPort()),
+                LettuceClientConfiguration.builder()
+                        .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return connectionFactory;
+    }
+
+    void joinCluster(final LocalRedisCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Method to get the keys currently stored, expired ones excluded.
+     * @return The keys
+     */
+    public synchronized Set<String> keys() {
+        this.data.keySet().removeIf(this::isExpired);
+        return Set.copyOf(this.data.keySet());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        this.serverSocket.close();
+        synchronized (this.clients) {
+            for (final Socket client : this.clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (this.running) {
+            try {
+                final Socket client = this.serverSocket.accept();
+                client.setTcpNoDelay(true);
+                synchronized (this.clients) {
+                    this.clients.add(client);
+                }
+                final Thread handler = new Thread(() -> this.serve(client), "local-redis-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (this.running) {
+                    log.warn("Failed to accept a connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(final Socket client) {
+        final ScheduledExecutorService delayedWriter = this.latency.isZero()
+                ? null
+                : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "local-redis-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try (client;
+             InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+            final ByteArrayOutputStream delayed = new ByteArrayOutputStream();
+            while (this.running) {
+                final List<String> command = readCommand(in);
+                if (command.isEmpty()) {
+                    continue;
+                }
+                Object reply;
+                try {
+                    reply = this.execute(command);
+                } catch (RedisError e) {
+                    reply = e;
+                } catch (RuntimeException e) {
+                    reply = new RedisError("ERR " + e.getMessage());
+                }
+                writeReply(Objects.isNull(delayedWriter) ? out : delayed, reply);
+                if (in.available() == 0) {
+                    if (Objects.isNull(delayedWriter)) {
+                        out.flush();
+                    } else {
+                        // Same delay for every flush, so the replies keep their order.
+                        final byte[] replies = delayed.toByteArray();
+                        delayed.reset();
+                        delayedWriter.schedule(() -> write(out, replies), this.latency.toNanos(),
+                                TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // Client is gone.
+        } catch (IOException e) {
+            log.warn("Connection failed", e);
+        } finally {
+            if (Objects.nonNull(delayedWriter)) {
+                delayedWriter.shutdownNow();
+            }
+            synchronized (this.clients) {
+                this.clients.remove(client);
+            }
+        }
+    }
+
+    private static void write(final OutputStream out, final byte[] replies) {
+        try {
+            out.write(replies);
+            out.flush();
+        } catch (IOException e) {
+            // Client is gone.
+        }
+    }
+
+    private synchronized Object execute(final List<String> command) {
+        final String name = command.get(0).toUpperCase(Locale.ROOT);
+        final List<String> args = command.subList(1, command.size());
+        if (Objects.nonNull(this.cluster)) {
+            final Object reply = this.executeClusterCommand(name, args);
+            if (Objects.nonNull(reply)) {
+                return reply;
+            }
+            this.checkSlot(keys(name, args));
+        }
+        return switch (name) {
+            case "PING" -> args.isEmpty() ? new Status("PONG") : args.get(0);
+            case "CLIENT", "SELECT" -> Status.OK;
+            case "HELLO" -> throw new RedisError("ERR unknown command 'HELLO'");
+            case "FLUSHALL", "FLUSHDB" -> {
+                this.data.clear();
+                this.expiries.clear();
+                yield Status.OK;
+            }
+            case "DEL" -> args.stream().filter(key -> this.delete(key)).count();
+            case "EXISTS" -> args.stream().filter(key -> this.get(key) != null).count();
+            case "DBSIZE" -> (long) this.keys().size();
+            case "EXPIRE" -> {
+                if (this.get(args.get(0)) == null) {
+                    yield 0L;
+                }
+                this.expiries.put(args.get(0), System.currentTimeMillis() + Long.parseLong(args.get(1)) * 1000);
+                yield 1L;
+            }
+            case "PEXPIRE" -> {
+                if (this.get(args.get(0)) == null) {
+                    yield 0L;
+                }
+                this.expiries.put(args.get(0), System.currentTimeMillis() + Long.parseLong(args.get(1)));
+                yield 1L;
+            }
+            case "SADD", "PFADD" -> {
+                final Set<String> set = this.getOrCreate(args.get(0), LinkedHashSet::new);
+                final long added = args.subList(1, args.size()).stream().filter(set::add).count();
+                yield name.equals("PFADD") ? (added > 0 ? 1L : 0L) : added;
+            }
+            case "SMEMBERS" -> List.copyOf(this.<Set<String>>getOrEmpty(args.get(0), Set.of()));
+            case "SCARD" -> (long) this.<Set<String>>getOrEmpty(args.get(0), Set.of()).size();
+            case "SUNION" -> List.copyOf(this.union(args));
+            case "PFCOUNT" -> (long) this.union(args).size();
+            case "SUNIONSTORE", "PFMERGE" -> {
+                final Set<String> union = this.union(args.subList(1, args.size()));
+                this.delete(args.get(0));
+                if (!union.isEmpty() || name.equals("PFMERGE")) {
+                    this.data.put(args.get(0), union);
+                }
+                yield name.equals("PFMERGE") ? Status.OK : (Object) (long) union.size();
+            }
+            case "SCAN" -> {
+                // A single page, with the * wildcard only in MATCH.
+                String match = "*";
+                for (int index = 1; index + 1 < args.size(); index += 2) {
+                    if (args.get(index).equalsIgnoreCase("MATCH")) {
+                        match = args.get(index + 1);
+                    }
+                }
+                final Pattern pattern = Pattern.compile(Stream.of(match.split("\\*", -1))
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining(".*")));
+                yield List.of("0", this.keys().stream()
+                        .filter(key -> pattern.matcher(key).matches())
+                        .sorted()
+                        .toList());
+            }
+            case "SSCAN" -> {
+                final List<String> members = new ArrayList<>(this.<Set<String>>getOrEmpty(args.get(0), Set.of()));
+                members.sort(Comparator.naturalOrder());
+                final int cursor = Integer.parseInt(args.get(1));
+                int count = 10;
+                for (int index = 2; index + 1 < args.size(); index += 2) {
+                    if (args.get(index).equalsIgnoreCase("COUNT")) {
+                        count = Integer.parseInt(args.get(index + 1));
+                    }
+                }
+                final int end = Math.min(members.size(), cursor + count);
+                yield List.of(end >= members.size() ? "0" : String.valueOf(end),
+                        List.copyOf(members.subList(Math.min(cursor, members.size()), end)));
+            }
+            case "ZINCRBY" -> {
+                final Map<String, Double> zSet = this.getOrCreate(args.get(0), HashMap::new);
+                yield formatDouble(zSet.merge(args.get(2), Double.parseDouble(args.get(1)), Double::sum));
+            }
+            case "ZADD" -> {
+                final Map<String, Double> zSet = this.getOrCreate(args.get(0), HashMap::new);
+                long added = 0;
+                for (int index = 1; index + 1 < args.size(); index += 2) {
+                    if (zSet.put(args.get(index + 1), Double.parseDouble(args.get(index))) == null) {
+                        added++;
+                    }
+                }
+                yield added;
+            }
+            case "ZRANGEBYLEX" -> this.zRangeByLex(args);
+            case "ZCARD" -> (long) this.<Map<String, Double>>getOrEmpty(args.get(0), Map.of()).size();
+            case "ZRANGE" -> this.zRange(args, false);
+            case "ZREVRANGE" -> this.zRange(args, true);
+            case "ZUNIONSTORE" -> {
+                final Map<String, Double> union = new HashMap<>();
+                args.subList(2, 2 + Integer.parseInt(args.get(1))).forEach(key -> this.<Map<String, Double>>getOrEmpty(
+                        key, Map.of()).forEach((member, score) -> union.merge(member, score, Double::sum)));
+                this.delete(args.get(0));
+                if (!union.isEmpty()) {
+                    this.data.put(args.get(0), union);
+                }
+                yield (long) union.size();
+            }
+            case "ZUNION" -> this.zUnion(args);
+            case "HINCRBY" -> {
+                final Map<String, String> hash = this.getOrCreate(args.get(0), HashMap::new);
+                final long value = Long.parseLong(hash.getOrDefault(args.get(1), "0")) + Long.parseLong(args.get(2));
+                hash.put(args.get(1), String.valueOf(value));
+                yield value;
+            }
+            case "HSET" -> {
+                final Map<String, String> hash = this.getOrCreate(args.get(0), HashMap::new);
+                long added = 0;
+                for (int index = 1; index + 1 < args.size(); index += 2) {
+                    if (hash.put(args.get(index), args.get(index + 1)) == null) {
+                        added++;
+                    }
+                }
+                yield added;
+            }
+            case "HGETALL" -> {
+                final List<String> reply = new ArrayList<>();
+                this.<Map<String, String>>getOrEmpty(args.get(0), Map.of()).forEach((field, value) -> {
+                    reply.add(field);
+                    reply.add(value);
+                });
+                yield reply;
+            }
+            case "EVALSHA" -> throw new RedisError("NOSCRIPT No matching script");
+            default -> throw new RedisError("ERR unknown command '" + command.get(0) + "'");
+        };
+    }
+
+    /**
+     * Method to run the commands of a cluster node.
+     * @return The reply, null when the command is not a cluster command
+     */
+    private Object executeClusterCommand(final String name, final List<String> args) {
+        return switch (name) {
+            case "CLUSTER" -> switch (args.isEmpty() ? "" : args.get(0).toUpperCase(Locale.ROOT)) {
+                case "NODES" -> this.cluster.nodes(this);
+                case "MYID" -> this.cluster.nodeId(this);
+                case "KEYSLOT" -> (long) SlotHash.getSlot(args.get(1));
+                default -> throw new RedisError("ERR unknown subcommand '" + String.join(" ", args) + "'");
+            };
+            case "INFO" -> "# Server\r\nredis_version:7.2.0\r\nredis_mode:cluster\r\n"
+                    + "# Clients\r\nconnected_clients:1\r\n";
+            case "READONLY", "READWRITE", "ASKING" -> Status.OK;
+            default -> null;
+        };
+    }
+
+    /**
+     * Method to check that the keys of a command are in a single slot, owned by this node.
+     * @param keys The keys of the command
+     */
+    private void checkSlot(final List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        final int slot = SlotHash.getSlot(keys.get(0));
+        for (final String key : keys) {
+            if (SlotHash.getSlot(key) != slot) {
+                throw new RedisError("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+        }
+        final LocalRedisServer owner = this.cluster.getNode(slot);
+        if (owner != this) {
+            throw new RedisError(String.format("MOVED %d %s:%d", slot, owner.getHost(), owner.getPort()));
+        }
+    }
+
+    /**
+     * Method to get the keys of a command.
+     * @param name The name of the command
+     * @param args The arguments of the command
+     * @return The keys
+     */
+    private static List<String> keys(final String name, final List<String> args) {
+        return switch (name) {
+            case "DEL", "EXISTS", "SUNION", "SUNIONSTORE", "PFCOUNT", "PFMERGE" -> args;
+            case "EVAL", "EVALSHA" -> args.subList(2, 2 + Integer.parseInt(args.get(1)));
+            case "ZUNION" -> args.subList(1, 1 + Integer.parseInt(args.get(0)));
+            case "ZUNIONSTORE" -> Stream.concat(Stream.of(args.get(0)),
+                    args.subList(2, 2 + Integer.parseInt(args.get(1))).stream()).toList();
+            case "PING", "CLIENT", "SELECT", "HELLO", "FLUSHALL", "FLUSHDB" -> List.of();
+            default -> args.isEmpty() ? List.of() : args.subList(0, 1);
+        };
+    }
+
+    /**
+     * Method to answer ZUNION numkeys key [key ...] [WEIGHTS weight ...] [AGGREGATE SUM|MIN|MAX] [WITHSCORES].
+     */
+    private List<String> zUnion(final List<String> args) {
+        final int numKeys = Integer.parseInt(args.get(0));
+        final List<String> keys = args.subList(1, 1 + numKeys);
+        final double[] weights = new double[numKeys];
+        Arrays.fill(weights, 1);
+        BinaryOperator<Double> aggregate = Double::sum;
+        boolean withScores = false;
+        for (int index = 1 + numKeys; index < args.size(); index++) {
+            switch (args.get(index).toUpperCase(Locale.ROOT)) {
+                case "WEIGHTS" -> {
+                    for (int key = 0; key < numKeys; key++) {
+                        weights[key] = Double.parseDouble(args.get(++index));
+                    }
+                }
+                case "AGGREGATE" -> aggregate = switch (args.get(++index).toUpperCase(Locale.ROOT)) {
+                    case "MIN" -> Math::min;
+                    case "MAX" -> Math::max;
+                    default -> Double::sum;
+                };
+                case "WITHSCORES" -> withScores = true;
+                default -> throw new RedisError("ERR syntax error");
+            }
+        }
+        final Map<String, Double> union = new HashMap<>();
+        for (int key = 0; key < numKeys; key++) {
+            final double weight = weights[key];
+            final BinaryOperator<Double> merge = aggregate;
+            this.<Map<String, Double>>getOrEmpty(keys.get(key), Map.of())
+                    .forEach((member, score) -> union.merge(member, score * weight, merge));
+        }
+        final List<Map.Entry<String, Double>> entries = new ArrayList<>(union.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        final List<String> reply = new ArrayList<>();
+        for (final Map.Entry<String, Double> entry : entries) {
+            reply.add(entry.getKey());
+            if (withScores) {
+                reply.add(formatDouble(entry.getValue()));
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * Method to answer ZRANGEBYLEX key min max, with the bounds '-', '+', '[member' or '(member' and no LIMIT.
+     */
+    private List<String> zRangeByLex(final List<String> args) {
+        final String min = args.get(1);
+        final String max = args.get(2);
+        return this.<Map<String, Double>>getOrEmpty(args.get(0), Map.of()).keySet().stream()
+                .filter(member -> min.equals("-")
+                        || (min.startsWith("[") ? member.compareTo(min.substring(1)) >= 0
+                                : member.compareTo(min.substring(1)) > 0))
+                .filter(member -> max.equals("+")
+                        || (max.startsWith("[") ? member.compareTo(max.substring(1)) <= 0
+                                : member.compareTo(max.substring(1)) < 0))
+                .sorted()
+                .toList();
+    }
+
+    private List<String> zRange(final List<String> args, final boolean reverse) {
+        final Map<String, Double> zSet = this.getOrEmpty(args.get(0), Map.of());
+        final List<Map.Entry<String, Double>> entries = new ArrayList<>(zSet.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        if (reverse) {
+            Collections.reverse(entries);
+        }
+        int start = Integer.parseInt(args.get(1));
+        int stop = Integer.parseInt(args.get(2));
+        if (start < 0) {
+            start = Math.max(0, entries.size() + start);
+        }
+        if (stop < 0) {
+            stop = entries.size() + stop;
+        }
+        stop = Math.min(stop, entries.size() - 1);
+        final boolean withScores = args.size() > 3 && args.get(3).equalsIgnoreCase("WITHSCORES");
+        final List<String> reply = new ArrayList<>();
+        for (int index = start; index <= stop; index++) {
+            reply.add(entries.get(index).getKey());
+            if (withScores) {
+                reply.add(formatDouble(entries.get(index).getValue()));
+            }
+        }
+        return reply;
+    }
+
+    private Set<String> union(final List<String> keys) {
+        final Set<String> union = new LinkedHashSet<>();
+        keys.forEach(key -> union.addAll(this.<Set<String>>getOrEmpty(key, Set.of())));
+        return union;
+    }
+
+    private boolean isExpired(final String key) {
+        final Long expiry = this.expiries.get(key);
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            this.expiries.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private Object get(final String key) {
+        if (this.isExpired(key)) {
+            this.data.remove(key);
+        }
+        return this.data.get(key);
+    }
+
+    private boolean delete(final String key) {
+        this.expiries.remove(key);
+        return this.data.remove(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrEmpty(final String key, final T empty) {
+        final Object value = this.get(key);
+        return value == null ? empty : (T) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrCreate(final String key, final Supplier<T> supplier) {
+        final Object value = this.get(key);
+        if (value != null) {
+            return (T) value;
+        }
+        final T created = supplier.get();
+        this.data.put(key, created);
+        return created;
+    }
+
+    private static String formatDouble(final double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value)
+                ? String.valueOf((long) value)
+                : String.valueOf(value);
+    }
+
+    private static List<String> readCommand(final InputStream in) throws IOException {
+        final String header = readLine(in);
+        if (!header.startsWith("*")) {
+            // Inline command, as sent by redis-cli or telnet.
+            return header.isBlank() ? List.of() : List.of(header.trim().split("\\s+"));
+        }
+        final int count = Integer.parseInt(header.substring(1));
+        final List<String> command = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            final String length = readLine(in);
+            final byte[] bulk = in.readNBytes(Integer.parseInt(length.substring(1)));
+            readLine(in);
+            command.add(new String(bulk, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int read;
+        while ((read = in.read()) != '\n') {
+            if (read == -1) {
+                throw new EOFException();
+            }
+            if (read != '\r') {
+                line.append((char) read);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void writeReply(final OutputStream out, final Object reply) throws IOException {
+        if (reply == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof Status status) {
+            out.write(("+" + status.value() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof RedisError error) {
+            out.write(("-" + error.getMessage() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof Long number) {
+            out.write((":" + number + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof String string) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof List<?> list) {
+            out.write(("*" + list.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (final Object element : list) {
+                writeReply(out, element);
+            }
+        } else {
+            throw new IllegalStateException("Unsupported reply: " + reply);
+        }
+    }
+
+    private record Status(String value) {
+
+        private static final Status OK = new Status("OK");
+    }
+
+    private static final class RedisError extends RuntimeException {
+
+        private RedisError(final String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.liftlab.redis;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.DashboardMetrics;
+import com.liftlab.service.DashboardService;
+import com.liftlab.service.MinuteBuckets;
+import com.liftlab.service.PageViewsRollingView;
+import com.liftlab.service.RedisCallExecutor;
+import com.liftlab.service.WindowPlanner;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests of the write and the read paths together, against a {@link LocalRedisCluster} of 3 nodes.
+ */
+public class TestLocalRedisCluster {
+
+    private static LocalRedisCluster localRedisCluster;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        localRedisCluster = new LocalRedisCluster(3);
+        connectionFactory = localRedisCluster.createConnectionFactory();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stop() throws IOException {
+        connectionFactory.destroy();
+        localRedisCluster.close();
+    }
+
+    @AfterEach
+    public void flush() {
+        // Flushes every node.
+        try (RedisConnection connection = connectionFactory.getClusterConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Test
+    public void testHashTaggedKeysShareASlotPerWindow() {
+        final RedisKeyConfig redisKeyConfig = hashTaggedRedisKeyConfig();
+        final List<String> buckets = MinuteBuckets.latest(LocalDateTime.parse("2025-08-07T23:59:30"), 5);
+        final List<String> rollups = List.of("5m:202508072355", "1h:202508072300", "1d:202508070000");
+
+        for (final String prefix : List.of(redisKeyConfig.getActiveUsersKey(), redisKeyConfig.getActiveUsersHllKey(),
+                redisKeyConfig.getUserSessionsKey("usr_1"), redisKeyConfig.getUserPagesKey("usr_1"),
+                redisKeyConfig.getPageVisitorsKey("/checkout/success"))) {
+            final Set<Integer> slots = buckets.stream().map(bucket -> prefix + ":" + bucket)
+                    .map(SlotHash::getSlot)
+                    .collect(Collectors.toSet());
+            rollups.forEach(rollup -> slots.add(SlotHash.getSlot(prefix + ":" + rollup)));
+            Assertions.assertEquals(1, slots.size(), prefix);
+        }
+        Assertions.assertEquals(SlotHash.getSlot(redisKeyConfig.getActiveUsersKey() + ":202508072359"),
+                SlotHash.getSlot(redisKeyConfig.getActiveUsersSnapshotKey() + ":0123456789abcdef"));
+        Assertions.assertEquals("{active_users}:202508072359", redisKeyConfig.getActiveUsersKey() + ":202508072359");
+        Assertions.assertEquals("user_sessions:{usr_1}", redisKeyConfig.getUserSessionsKey("usr_1"));
+
+        // Without hash tags the minutes of a window are spread over the slots.
+        Assertions.assertEquals("user_sessions:usr_1", TestUtils.getRedisKeyConfig().getUserSessionsKey("usr_1"));
+        Assertions.assertTrue(buckets.stream().map(bucket -> "active_users:" + bucket).map(SlotHash::getSlot)
+                .distinct().count() > 1);
+    }
+
+    @Test
+    public void testIngestedEventsAreServedWithHashTags() {
+        final RedisKeyConfig redisKeyConfig = hashTaggedRedisKeyConfig();
+        this.ingest(redisKeyConfig, 30);
+        final DashboardService dashboardService = dashboardService(redisKeyConfig);
+
+        final Map<String, Integer> sessionCounts = dashboardService.getUserDetails().getUserDetails().stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount));
+        Assertions.assertEquals(30, sessionCounts.size());
+        sessionCounts.forEach((userId, sessionCount) -> Assertions.assertEquals(
+                1 + Integer.parseInt(userId.substring("usr_".length())) % 2, sessionCount, userId));
+        Assertions.assertEquals(30, dashboardService.getActiveUsersCount(CountMode.EXACT).getActiveUsers());
+        Assertions.assertEquals(30, dashboardService.getActiveUsersCount(CountMode.APPROXIMATE).getActiveUsers());
+        Assertions.assertEquals(30, dashboardService.getActiveUsersCount(CountMode.APPROXIMATE, Duration.ofDays(1))
+                .getActiveUsers());
+        final List<PageViewCount> pageViews = dashboardService.getTopPages(5).getPageViews();
+        Assertions.assertEquals(List.of("/a", "/b"), pageViews.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(30L, 15L), pageViews.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(15, dashboardService.getPageVisitors("/b", Duration.ofDays(1)).getUniqueVisitors());
+        Assertions.assertEquals(List.of(1L, 1L), dashboardService.getUserTopPages("usr_7", 5, null).getPageViews()
+                .stream().map(PageViewCount::getCount).toList());
+
+        // The users and the page views are spread over the nodes.
+        Assertions.assertTrue(localRedisCluster.getNodes().stream().allMatch(node -> !node.keys().isEmpty()));
+    }
+
+    @Test
+    public void testMultiKeyCommandsFailAcrossSlotsWithoutHashTags() {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        this.ingest(redisKeyConfig, 5);
+        final DashboardService dashboardService = dashboardService(redisKeyConfig);
+
+        // The HyperLogLogs of the minutes of the window are in different slots.
+        Assertions.assertThrows(RuntimeException.class,
+                () -> dashboardService.getActiveUsersCount(CountMode.APPROXIMATE, Duration.ofMinutes(5)));
+    }
+
+    private void ingest(final RedisKeyConfig redisKeyConfig, final int users) {
+        final RedisEventSink redisEventSink = new RedisEventSink(redisTemplate, redisKeyConfig,
+                TestUtils.getIngestionConfig());
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int user = 0; user < users; user++) {
+            // Spread over the window, with one or two sessions per user.
+            final String timestamp = now.minusMinutes(user % 4).toString();
+            redisEventSink.accept(event(timestamp, "usr_" + user, "/a", "sess_" + user));
+            if (user % 2 == 1) {
+                redisEventSink.accept(event(timestamp, "usr_" + user, "/b", "sess_" + user + "_b"));
+            }
+        }
+        redisEventSink.flush();
+    }
+
+    private static RedisKeyConfig hashTaggedRedisKeyConfig() {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        ReflectionTestUtils.setField(redisKeyConfig, "hashTags", true);
+        return redisKeyConfig;
+    }
+
+    private static DashboardService dashboardService(final RedisKeyConfig redisKeyConfig) {
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "userSessionsBatchSize", 7);
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        return new DashboardService(redisTemplate, redisKeyConfig, dashboardOffsetConfig,
+                new PageViewsRollingView(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics),
+                Optional.empty(), Optional.empty(), dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig),
+                new RedisCallExecutor(dashboardOffsetConfig));
+    }
+
+    private static UserEvent event(final String timestamp, final String userId, final String pageUrl,
+                                   final String sessionId) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId(sessionId)
+                .build();
+    }
+}
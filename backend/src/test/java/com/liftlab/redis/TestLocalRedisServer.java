@@ -0,0 +1,180 @@
+package com.liftlab.redis;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserEvent;
+import com.liftlab.service.DashboardMetrics;
+import com.liftlab.service.DashboardService;
+import com.liftlab.service.PageViewsRollingView;
+import com.liftlab.service.RedisCallExecutor;
+import com.liftlab.service.WindowPlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Tests of the write and the read paths together, against {@link LocalRedisServer}.
+ */
+public class TestLocalRedisServer {
+
+    private static LocalRedisServer localRedisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        localRedisServer = new LocalRedisServer();
+        connectionFactory = localRedisServer.createConnectionFactory();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stop() throws IOException {
+        connectionFactory.destroy();
+        localRedisServer.close();
+    }
+
+    @Test
+    public void testIngestedEventsAreServed() {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        final RedisEventSink redisEventSink = new RedisEventSink(redisTemplate, redisKeyConfig,
+                TestUtils.getIngestionConfig());
+        final String now = OffsetDateTime.now(ZoneOffset.UTC).toString();
+        final String twoMinutesAgo = OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(2).toString();
+        redisEventSink.accept(event(now, "usr_1", "/a", "sess_1"));
+        redisEventSink.accept(event(now, "usr_1", "/b", "sess_2"));
+        redisEventSink.accept(event(twoMinutesAgo, "usr_2", "/a", "sess_3"));
+        redisEventSink.flush();
+
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        final DashboardService dashboardService = new DashboardService(redisTemplate, redisKeyConfig,
+                dashboardOffsetConfig,
+                new PageViewsRollingView(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics),
+                Optional.empty(), Optional.empty(), dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig),
+                new RedisCallExecutor(dashboardOffsetConfig));
+
+        Assertions.assertEquals(Map.of("usr_1", 2, "usr_2", 1), dashboardService.getUserDetails().getUserDetails()
+                .stream().collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        Assertions.assertEquals(2, dashboardService.getActiveUsersCount(CountMode.EXACT).getActiveUsers());
+        Assertions.assertEquals(2, dashboardService.getActiveUsersCount(CountMode.APPROXIMATE).getActiveUsers());
+        final List<PageViewCount> pageViews = dashboardService.getTopPages(5).getPageViews();
+        Assertions.assertEquals(List.of("/a", "/b"), pageViews.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(2L, 1L), pageViews.stream().map(PageViewCount::getCount).toList());
+
+        // The same answers over a day, from the rollups.
+        final Duration day = Duration.ofDays(1);
+        Assertions.assertEquals(Map.of("usr_1", 2, "usr_2", 1), dashboardService.getUserDetails(day).getUserDetails()
+                .stream().collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        Assertions.assertEquals(2, dashboardService.getActiveUsersCount(CountMode.APPROXIMATE, day).getActiveUsers());
+        Assertions.assertEquals(List.of(2L, 1L), dashboardService.getTopPages(5, day).getPageViews().stream()
+                .map(PageViewCount::getCount).toList());
+
+        // Unique visitors per page and top pages per user, from the minute keys and from the rollups.
+        for (final Duration window : Arrays.asList(null, day)) {
+            Assertions.assertEquals(2, dashboardService.getPageVisitors("/a", window).getUniqueVisitors());
+            Assertions.assertEquals(1, dashboardService.getPageVisitors("/b", window).getUniqueVisitors());
+            Assertions.assertEquals(0, dashboardService.getPageVisitors("/c", window).getUniqueVisitors());
+            Assertions.assertEquals(Map.of("/a", 1L, "/b", 1L), dashboardService.getUserTopPages("usr_1", 5, window)
+                    .getPageViews().stream().collect(Collectors.toMap(PageViewCount::getPageUrl,
+                            PageViewCount::getCount)));
+            // Ties in the order of ZREVRANGE.
+            Assertions.assertEquals(List.of("/b"), dashboardService.getUserTopPages("usr_1", 1, window)
+                    .getPageViews().stream().map(PageViewCount::getPageUrl).toList());
+            Assertions.assertTrue(dashboardService.getUserTopPages("usr_3", 5, window).getPageViews().isEmpty());
+        }
+        // No temporary key is created.
+        Assertions.assertTrue(localRedisServer.keys().stream().noneMatch(key -> key.contains(":union:")));
+    }
+
+    @Test
+    public void testConcurrentRedisCallsOverLatency() throws IOException {
+        try (LocalRedisServer slowRedisServer = new LocalRedisServer(Duration.ofMillis(5))) {
+            final LettuceConnectionFactory slowConnectionFactory = slowRedisServer.createConnectionFactory();
+            try {
+                final StringRedisTemplate slowRedisTemplate = new StringRedisTemplate(slowConnectionFactory);
+                final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+                final RedisEventSink redisEventSink = new RedisEventSink(slowRedisTemplate, redisKeyConfig,
+                        TestUtils.getIngestionConfig());
+                final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+                for (int user = 0; user < 40; user++) {
+                    for (int session = 0; session <= user % 3; session++) {
+                        redisEventSink.accept(event(now.toString(), "usr_" + user, "/a",
+                                "sess_" + user + "_" + session));
+                    }
+                }
+                redisEventSink.flush();
+
+                final DashboardOffsetConfig sequentialOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+                ReflectionTestUtils.setField(sequentialOffsetConfig, "userSessionsBatchSize", 3);
+                final DashboardOffsetConfig concurrentOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+                ReflectionTestUtils.setField(concurrentOffsetConfig, "userSessionsBatchSize", 3);
+                ReflectionTestUtils.setField(concurrentOffsetConfig, "redisCallsConcurrency", 4);
+                final RedisCallExecutor concurrentExecutor = new RedisCallExecutor(concurrentOffsetConfig);
+                try {
+                    final List<UserDetails> sequential = dashboardService(slowRedisTemplate, sequentialOffsetConfig,
+                            new RedisCallExecutor(sequentialOffsetConfig)).getUserDetails().getUserDetails();
+                    final List<UserDetails> concurrent = dashboardService(slowRedisTemplate, concurrentOffsetConfig,
+                            concurrentExecutor).getUserDetails().getUserDetails();
+
+                    Assertions.assertEquals(40, sequential.size());
+                    // Same users in the same order.
+                    Assertions.assertEquals(sequential.stream().map(UserDetails::toString).toList(),
+                            concurrent.stream().map(UserDetails::toString).toList());
+                    concurrent.forEach(userDetails -> Assertions.assertEquals(
+                            1 + Integer.parseInt(userDetails.getUserId().substring("usr_".length())) % 3,
+                            userDetails.getSessionCount()));
+                } finally {
+                    concurrentExecutor.destroy();
+                }
+            } finally {
+                slowConnectionFactory.destroy();
+            }
+        }
+    }
+
+    private static DashboardService dashboardService(final StringRedisTemplate redisTemplate,
+                                                     final DashboardOffsetConfig dashboardOffsetConfig,
+                                                     final RedisCallExecutor redisCallExecutor) {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        return new DashboardService(redisTemplate, redisKeyConfig, dashboardOffsetConfig,
+                new PageViewsRollingView(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics),
+                Optional.empty(), Optional.empty(), dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig), redisCallExecutor);
+    }
+
+    private static UserEvent event(final String timestamp, final String userId, final String pageUrl,
+                                   final String sessionId) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp)
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId(sessionId)
+                .build();
+    }
+}
@@ -1,19 +1,32 @@
 package com.liftlab.service;
 
 import com.flextrade.jfixture.JFixture;
-import com.google.common.collect.ImmutableSet;
 import com.liftlab.TestUtils;
 import com.liftlab.config.DashboardOffsetConfig;
 import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.config.SessionsLayout;
+import com.liftlab.index.ActiveUsersIndex;
+import com.liftlab.ingestion.sink.RedisEventSink;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
 import com.liftlab.models.UserDetailsResponse;
 import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.SummaryResponse;
 import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.HashOperations;
 
-import java.time.Duration;
 import java.util.Set;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeAll;
@@ -22,8 +35,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 public class TestDashboardService {
@@ -36,6 +63,17 @@ public class TestDashboardService {
 
     private DashboardService dashboardService;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private DashboardMetrics dashboardMetrics;
+
+    private WindowPlanner windowPlanner;
+
+    private RedisCallExecutor redisCallExecutor;
+
+    /** Users whose session pairs were read, once per bucket. */
+    private final List<String> pairReads = new ArrayList<>();
+
     @BeforeAll
     public static void setUp() {
         TestDashboardService.redisTemplate = Mockito.mock(StringRedisTemplate.class);
@@ -46,10 +84,25 @@ public class TestDashboardService {
 
     @BeforeEach
     public void init() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.dashboardMetrics = new DashboardMetrics(this.meterRegistry);
+        this.windowPlanner = new WindowPlanner(TestUtils.getIngestionConfig(),
+                TestDashboardService.dashboardOffsetConfig);
+        this.redisCallExecutor = new RedisCallExecutor(TestDashboardService.dashboardOffsetConfig);
         dashboardService = new DashboardService(
             TestDashboardService.redisTemplate,
             TestDashboardService.redisKeyConfig,
-            TestDashboardService.dashboardOffsetConfig
+            TestDashboardService.dashboardOffsetConfig,
+            new PageViewsRollingView(
+                TestDashboardService.redisTemplate,
+                TestDashboardService.redisKeyConfig,
+                TestDashboardService.dashboardOffsetConfig,
+                this.dashboardMetrics
+            ),
+            Optional.empty(), Optional.empty(),
+            this.dashboardMetrics,
+            this.windowPlanner,
+            this.redisCallExecutor
         );
 
     }
@@ -59,6 +112,8 @@ public class TestDashboardService {
         SetOperations<String, String> setOps = Mockito.mock(SetOperations.class);
         Mockito.when(redisTemplate.opsForSet()).thenReturn(setOps);
         Mockito.when(setOps.union(Mockito.anyCollection())).thenReturn(Set.of("user1", "user2"));
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenReturn(List.of(Set.of("session1"), Set.of("session1", "session2")));
 
         UserDetailsResponse response = dashboardService.getUserDetails();
         Assertions.assertNotNull(response);
@@ -66,34 +121,450 @@ public class TestDashboardService {
     }
 
     @Test
-    public void testGetTopPages() {
-        ZSetOperations<String, String> zestOps = Mockito.mock(ZSetOperations.class);
-        Mockito.when(redisTemplate.opsForZSet()).thenReturn(zestOps);
-        Mockito.doReturn(true).when(redisTemplate).delete(Mockito.anyString());
+    public void testGetUserDetailsInBatches() {
+        final StringRedisTemplate batchRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        final DashboardOffsetConfig batchOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(batchOffsetConfig, "userSessionsBatchSize", 2);
+        final DashboardService batchDashboardService =
+                new DashboardService(batchRedisTemplate, TestDashboardService.redisKeyConfig, batchOffsetConfig,
+                        Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        // Every pipelined SUNION returns as many sessions as the digit in the user id.
+        final RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        final SetOperations<String, String> pipelinedSetOps = Mockito.mock(SetOperations.class);
+        Mockito.when(operations.opsForSet()).thenReturn(pipelinedSetOps);
+        final List<Object> pipelineResults = new ArrayList<>();
+        Mockito.when(pipelinedSetOps.union(Mockito.anyCollection())).thenAnswer(invocation -> {
+            final Collection<String> keys = invocation.getArgument(0);
+            Assertions.assertEquals(5, keys.size());
+            final String userId = keys.iterator().next().split(":")[1];
+            final int sessions = Integer.parseInt(userId.substring("user".length()));
+            pipelineResults.add(IntStream.range(0, sessions).mapToObj(i -> "session" + i).collect(Collectors.toSet()));
+            return null;
+        });
+        Mockito.when(batchRedisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            pipelineResults.clear();
+            invocation.<SessionCallback<?>>getArgument(0).execute(operations);
+            return new ArrayList<>(pipelineResults);
+        });
+
+        final List<UserDetails> userDetails =
+                batchDashboardService.getUserDetails(List.of("user3", "user1", "user4", "user2", "user5"));
+
+        Mockito.verify(batchRedisTemplate, Mockito.times(3)).executePipelined(Mockito.any(SessionCallback.class));
+        Assertions.assertEquals(List.of("user3", "user1", "user4", "user2", "user5"),
+                userDetails.stream().map(UserDetails::getUserId).toList());
+        Assertions.assertEquals(List.of(3, 1, 4, 2, 5),
+                userDetails.stream().map(UserDetails::getSessionCount).toList());
+    }
+
+    @Test
+    public void testGetUserDetailsPages() {
+        final StringRedisTemplate pageRedisTemplate = this.mockSnapshotRedis(3L, Map.of(
+                "0", List.of("17", List.of("user1", "user2")),
+                "17", List.of("0", List.of("user3"))));
+        final DashboardService pageDashboardService = new DashboardService(pageRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        final UserDetailsResponse first = pageDashboardService.getUserDetails(2, null);
+        Assertions.assertEquals(List.of("user1", "user2"),
+                first.getUserDetails().stream().map(UserDetails::getUserId).toList());
+        Assertions.assertTrue(first.getNextCursor().matches("[0-9a-f]{32}:17"));
+
+        final UserDetailsResponse last = pageDashboardService.getUserDetails(2, first.getNextCursor());
+        Assertions.assertEquals(List.of("user3"), last.getUserDetails().stream().map(UserDetails::getUserId).toList());
+        Assertions.assertEquals(List.of(5), last.getUserDetails().stream().map(UserDetails::getSessionCount).toList());
+        Assertions.assertNull(last.getNextCursor());
+
+        // Both pages are read from the snapshot of the first page.
+        final ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(pageRedisTemplate, Mockito.times(2)).execute(Mockito.any(RedisScript.class), keys.capture(),
+                Mockito.any(Object[].class));
+        Assertions.assertEquals(List.of("active_users_snapshot:" + first.getNextCursor().split(":")[0]),
+                keys.getAllValues().get(1));
+        Assertions.assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+    }
+
+    @Test
+    public void testGetUserDetailsPageReadsThePairsOfItsUsers() {
+        final StringRedisTemplate pageRedisTemplate = this.mockSnapshotRedis(3L, Map.of(
+                "0", List.of("17", List.of("user1", "user2")),
+                "17", List.of("0", List.of("user3"))));
+        final DashboardService pageDashboardService = new DashboardService(pageRedisTemplate,
+                this.redisKeyConfig("per-bucket"), TestDashboardService.dashboardOffsetConfig,
+                Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        final UserDetailsResponse first = pageDashboardService.getUserDetails(2, null);
+        Assertions.assertEquals(List.of(3, 4), first.getUserDetails().stream()
+                .map(UserDetails::getSessionCount).toList());
+        // One range of pairs per user and bucket of the window.
+        Assertions.assertEquals(10, this.pairReads.size());
+        Assertions.assertEquals(Set.of("user1", "user2"), Set.copyOf(this.pairReads));
+
+        this.pairReads.clear();
+        final UserDetailsResponse last = pageDashboardService.getUserDetails(2, first.getNextCursor());
+        Assertions.assertEquals(List.of(5), last.getUserDetails().stream().map(UserDetails::getSessionCount).toList());
+        Assertions.assertEquals(Collections.nCopies(5, "user3"), this.pairReads);
+
+        // The pairs of the whole window are never read.
+        Mockito.verify(pageRedisTemplate, Mockito.never()).opsForZSet();
+        Mockito.verify(pageRedisTemplate, Mockito.never()).opsForSet();
+    }
+
+    @Test
+    public void testGetUserDetailsPageWithBadCursors() {
+        final StringRedisTemplate pageRedisTemplate = this.mockSnapshotRedis(0L, Map.of());
+        final DashboardService pageDashboardService = new DashboardService(pageRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        // No active users, no snapshot to scan.
+        final UserDetailsResponse empty = pageDashboardService.getUserDetails(2, null);
+        Assertions.assertTrue(empty.getUserDetails().isEmpty());
+        Assertions.assertNull(empty.getNextCursor());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> pageDashboardService.getUserDetails(2, "not-a-cursor"));
+        Assertions.assertThrows(SnapshotExpiredException.class,
+                () -> pageDashboardService.getUserDetails(2, "0123456789abcdef0123456789abcdef:17"));
+    }
+
+    @Test
+    public void testScanUserDetails() {
+        final StringRedisTemplate pageRedisTemplate = this.mockSnapshotRedis(4L, Map.of(
+                "0", List.of("5", List.of("user1", "user2")),
+                "5", List.of("9", List.of()),
+                "9", List.of("0", List.of("user3", "user4"))));
+        final DashboardService pageDashboardService = new DashboardService(pageRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        final List<List<String>> batches = new ArrayList<>();
+        pageDashboardService.scanUserDetails(userDetails ->
+                batches.add(userDetails.stream().map(UserDetails::getUserId).toList()));
+
+        Assertions.assertEquals(List.of(List.of("user1", "user2"), List.of("user3", "user4")), batches);
+    }
+
+    /**
+     * Method to mock the redis of the paginated active users.
+     * @param snapshotSize The number of users in the snapshot, as returned by SUNIONSTORE
+     * @param pages The SSCAN replies by cursor, the snapshot is expired for any other cursor
+     * @return The mocked template, where user N has N + 2 sessions, in both sessions layouts
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate mockSnapshotRedis(final long snapshotSize, final Map<String, List<Object>> pages) {
+        final StringRedisTemplate pageRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        final RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        final SetOperations<String, String> pipelinedSetOps = Mockito.mock(SetOperations.class);
+        final ZSetOperations<String, String> pipelinedZSetOps = Mockito.mock(ZSetOperations.class);
+        Mockito.when(operations.opsForSet()).thenReturn(pipelinedSetOps);
+        Mockito.when(operations.opsForZSet()).thenReturn(pipelinedZSetOps);
+        final List<Object> pipelineResults = new ArrayList<>();
+        Mockito.when(pipelinedZSetOps.rangeByLex(Mockito.anyString(), Mockito.any(Range.class))).thenAnswer(
+                invocation -> {
+                    final String pair = invocation.<Range<String>>getArgument(1).getLowerBound().getValue().get();
+                    final String userId = pair.substring(0, pair.length() - 1);
+                    this.pairReads.add(userId);
+                    final int sessions = Integer.parseInt(userId.substring("user".length())) + 2;
+                    pipelineResults.add(IntStream.range(0, sessions)
+                            .mapToObj(i -> SessionsLayout.pair(userId, "session" + i)).collect(Collectors.toSet()));
+                    return null;
+                });
+        Mockito.when(pipelinedSetOps.unionAndStore(Mockito.anyCollection(), Mockito.anyString())).thenAnswer(
+                invocation -> {
+                    pipelineResults.add(snapshotSize);
+                    pipelineResults.add(true);
+                    return null;
+                });
+        Mockito.when(pipelinedSetOps.union(Mockito.anyCollection())).thenAnswer(invocation -> {
+            final Collection<String> keys = invocation.getArgument(0);
+            final String userId = keys.iterator().next().split(":")[1];
+            final int sessions = Integer.parseInt(userId.substring("user".length())) + 2;
+            pipelineResults.add(IntStream.range(0, sessions).mapToObj(i -> "session" + i).collect(Collectors.toSet()));
+            return null;
+        });
+        Mockito.when(pageRedisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            pipelineResults.clear();
+            invocation.<SessionCallback<?>>getArgument(0).execute(operations);
+            return new ArrayList<>(pipelineResults);
+        });
+        Mockito.when(pageRedisTemplate.execute(Mockito.any(RedisScript.class), Mockito.anyList(),
+                Mockito.any(Object[].class))).thenAnswer(invocation -> pages.get(invocation.<String>getArgument(2)));
+        return pageRedisTemplate;
+    }
+
+    @Test
+    public void testMetrics() {
+        final StringRedisTemplate pageRedisTemplate = this.mockSnapshotRedis(3L, Map.of(
+                "0", List.of("0", List.of("user1", "user2", "user3"))));
+        final DashboardService pageDashboardService = new DashboardService(pageRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                Mockito.mock(PageViewsRollingView.class), Optional.empty(), Optional.empty(),
+                        this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        pageDashboardService.getUserDetails(10, null);
+
+        final String page = DashboardMetrics.ACTIVE_USERS_PAGE;
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.redis.command")
+                .tags("command", "pipeline:SUNIONSTORE", "endpoint", page).timer().count());
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.redis.command")
+                .tags("command", "EVAL:SSCAN", "endpoint", page).timer().count());
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.redis.command")
+                .tags("command", "pipeline:SUNION", "endpoint", page).timer().count());
+        Assertions.assertEquals(5, this.meterRegistry.get("dashboard.window.keys")
+                .tag("endpoint", page).gauge().value());
+        Assertions.assertEquals(3, this.meterRegistry.get("dashboard.union.cardinality")
+                .tag("endpoint", page).gauge().value());
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.redis.temp.keys")
+                .tag("endpoint", page).counter().count());
+    }
 
-        Mockito.doReturn(true).when(redisTemplate).expire(Mockito.anyString(), Mockito.any(Duration.class));
+    @Test
+    public void testActiveUsersCountModesReadTheirKeys() {
+        final Set<String> users = IntStream.range(0, 10_000).mapToObj(i -> "usr_" + i).collect(Collectors.toSet());
+        SetOperations<String, String> setOps = Mockito.mock(SetOperations.class);
+        Mockito.when(redisTemplate.opsForSet()).thenReturn(setOps);
+        Mockito.when(setOps.union(Mockito.anyCollection())).thenReturn(users);
+        HyperLogLogOperations<String, String> hllOps = Mockito.mock(HyperLogLogOperations.class);
+        Mockito.when(redisTemplate.opsForHyperLogLog()).thenReturn(hllOps);
+        // The accuracy of the estimate is the one of redis, only the routing and the fields are checked here.
+        Mockito.when(hllOps.size(Mockito.any(String[].class))).thenReturn(10_046L);
 
+        final ActiveUsersCountResponse exact = dashboardService.getActiveUsersCount(CountMode.EXACT);
+        final ActiveUsersCountResponse approximate = dashboardService.getActiveUsersCount(CountMode.APPROXIMATE);
 
+        Assertions.assertEquals(10_000, exact.getActiveUsers());
+        Assertions.assertEquals(0.0, exact.getStandardError());
+        Assertions.assertEquals(CountMode.EXACT, exact.getMode());
+        Assertions.assertEquals(CountMode.APPROXIMATE, approximate.getMode());
+        Assertions.assertEquals(10_046, approximate.getActiveUsers());
+        Assertions.assertEquals(0.0081, approximate.getStandardError());
+        Mockito.verify(setOps, Mockito.times(1)).union(Mockito.anyCollection());
 
-        Mockito.when(zestOps.unionAndStore(Mockito.anyString(), Mockito.anyCollection(), Mockito.anyString()))
-                .thenReturn(10L);
+        final ArgumentCaptor<String[]> hllKeys = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(hllOps).size(hllKeys.capture());
+        Assertions.assertEquals(5, hllKeys.getValue().length);
+        Assertions.assertTrue(Arrays.stream(hllKeys.getValue()).allMatch(key -> key.startsWith("active_users_hll:")));
+    }
 
-        ZSetOperations.TypedTuple<String> top1 = Mockito.mock(ZSetOperations.TypedTuple.class);
-        Mockito.when(top1.getValue()).thenReturn("/page1");
-        Mockito.when(top1.getScore()).thenReturn(5.0);
-        ZSetOperations.TypedTuple<String> top2 = Mockito.mock(ZSetOperations.TypedTuple.class);
-        Mockito.when(top1.getValue()).thenReturn("/page2");
-        Mockito.when(top1.getScore()).thenReturn(4.0);
+    @Test
+    public void testActiveUsersCountOverWindow() {
+        SetOperations<String, String> setOps = Mockito.mock(SetOperations.class);
+        Mockito.when(redisTemplate.opsForSet()).thenReturn(setOps);
+        Mockito.when(setOps.union(Mockito.anyCollection())).thenReturn(Set.of("user1", "user2", "user3"));
 
-        final Set<ZSetOperations.TypedTuple<String>> top = ImmutableSet.of(top1, top2);
+        final ActiveUsersCountResponse response = dashboardService.getActiveUsersCount(null, Duration.ofDays(1));
+        Assertions.assertEquals(CountMode.EXACT, response.getMode());
+        Assertions.assertEquals(3, response.getActiveUsers());
 
-        Mockito.when(zestOps.reverseRangeWithScores(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong()))
-                .thenReturn(top);
+        // A day is read from the rollups, not from 1440 minute buckets.
+        final ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(setOps).union(keys.capture());
+        Assertions.assertTrue(keys.getValue().size() <= 36);
+        Assertions.assertTrue(keys.getValue().stream().anyMatch(key -> key.startsWith("active_users:1d:")));
+        Assertions.assertTrue(keys.getValue().stream()
+                .allMatch(key -> key.matches("active_users:(5m:|1h:|1d:)?\\d{12}")));
+    }
+
+    @Test
+    public void testActiveUsersCountUsesConfiguredMode() {
+        SetOperations<String, String> setOps = Mockito.mock(SetOperations.class);
+        Mockito.when(redisTemplate.opsForSet()).thenReturn(setOps);
+        Mockito.when(setOps.union(Mockito.anyCollection())).thenReturn(Set.of("user1", "user2"));
+
+        final ActiveUsersCountResponse response = dashboardService.getActiveUsersCount();
+        Assertions.assertEquals(CountMode.EXACT, response.getMode());
+        Assertions.assertEquals(2, response.getActiveUsers());
+    }
+
+    @Test
+    public void testGetTopPages() {
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenReturn(List.of(
+                        Set.of(ZSetOperations.TypedTuple.of("/page1", 5.0)),
+                        Set.of(ZSetOperations.TypedTuple.of("/page2", 4.0))));
 
         PageViewsResponse response = dashboardService.getTopPages(2);
         Assertions.assertNotNull(response);
         Assertions.assertEquals(2, response.getPageViews().size());
-        
+        Assertions.assertEquals("/page1", response.getPageViews().get(0).getPageUrl());
+        Assertions.assertEquals(5, response.getPageViews().get(0).getCount());
+        Mockito.verify(redisTemplate, Mockito.never()).opsForZSet();
+    }
+
+    @Test
+    public void testGetSummaryReadsUsersAndPagesInOnePipeline() {
+        final StringRedisTemplate summaryRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        final DashboardService summaryDashboardService = new DashboardService(summaryRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                new PageViewsRollingView(summaryRedisTemplate, TestDashboardService.redisKeyConfig,
+                        TestDashboardService.dashboardOffsetConfig, this.dashboardMetrics),
+                Optional.empty(), Optional.empty(), this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+
+        // The active users are usr_1 and usr_2, with as many sessions as their digit, and every page views bucket
+        // has 2 views of /home and 1 of /cart.
+        final RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        final SetOperations<String, String> pipelinedSetOps = Mockito.mock(SetOperations.class);
+        final ZSetOperations<String, String> pipelinedZSetOps = Mockito.mock(ZSetOperations.class);
+        Mockito.when(operations.opsForSet()).thenReturn(pipelinedSetOps);
+        Mockito.when(operations.opsForZSet()).thenReturn(pipelinedZSetOps);
+        final List<Object> pipelineResults = new ArrayList<>();
+        final List<String> activeUsersKeys = new ArrayList<>();
+        final List<String> pageViewsKeys = new ArrayList<>();
+        Mockito.when(pipelinedSetOps.union(Mockito.anyCollection())).thenAnswer(invocation -> {
+            final Collection<String> keys = invocation.getArgument(0);
+            if (keys.iterator().next().startsWith("active_users:")) {
+                activeUsersKeys.addAll(keys);
+                pipelineResults.add(Set.of("usr_1", "usr_2"));
+            } else {
+                final String userId = keys.iterator().next().split(":")[1];
+                final int sessions = Integer.parseInt(userId.substring("usr_".length()));
+                pipelineResults.add(IntStream.range(0, sessions).mapToObj(i -> "session" + i)
+                        .collect(Collectors.toSet()));
+            }
+            return null;
+        });
+        Mockito.when(pipelinedZSetOps.rangeWithScores(Mockito.anyString(), Mockito.eq(0L), Mockito.eq(-1L)))
+                .thenAnswer(invocation -> {
+                    pageViewsKeys.add(invocation.getArgument(0));
+                    pipelineResults.add(Set.of(ZSetOperations.TypedTuple.of("/home", 2.0),
+                            ZSetOperations.TypedTuple.of("/cart", 1.0)));
+                    return null;
+                });
+        Mockito.when(summaryRedisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenAnswer(invocation -> {
+                    pipelineResults.clear();
+                    invocation.<SessionCallback<?>>getArgument(0).execute(operations);
+                    return new ArrayList<>(pipelineResults);
+                });
+
+        final SummaryResponse summary = summaryDashboardService.getSummary(1, null);
+
+        // One pipeline for the users and the pages, one for the sessions of the users.
+        Mockito.verify(summaryRedisTemplate, Mockito.times(2)).executePipelined(Mockito.any(SessionCallback.class));
+        Assertions.assertEquals(5, activeUsersKeys.size());
+        Assertions.assertEquals(15, pageViewsKeys.size());
+        Assertions.assertEquals("active_users:" + summary.getMinute(), activeUsersKeys.get(0));
+        Assertions.assertEquals("page_views:" + summary.getMinute(), pageViewsKeys.get(0));
+        Assertions.assertEquals(2, summary.getActiveUsers());
+        Assertions.assertEquals(3, summary.getSessions());
+        Assertions.assertEquals(Map.of("usr_1", 1, "usr_2", 2), summary.getUserDetails().stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        Assertions.assertEquals(1, summary.getPageViews().size());
+        Assertions.assertEquals("/home", summary.getPageViews().get(0).getPageUrl());
+        Assertions.assertEquals(30, summary.getPageViews().get(0).getCount());
+
+        // The replies refreshed the rolling view: the next summary reads the hot buckets, plus the bucket which got
+        // frozen if the minute rolled over, and the top pages agree with it.
+        final SummaryResponse next = summaryDashboardService.getSummary(1, null);
+        Assertions.assertTrue(pageViewsKeys.size() - 15 <= PageViewsRollingView.HOT_BUCKETS + 1);
+        Assertions.assertEquals("page_views:" + next.getMinute(), pageViewsKeys.get(15));
+        Assertions.assertEquals(30, next.getPageViews().get(0).getCount());
+        Assertions.assertEquals(next.getPageViews(), summaryDashboardService.getTopPages(1).getPageViews());
+    }
+
+    @Test
+    public void testSessionsLayoutMigration() throws IOException {
+        try (LocalRedisServer localRedisServer = new LocalRedisServer()) {
+            final LettuceConnectionFactory connectionFactory = localRedisServer.createConnectionFactory();
+            final StringRedisTemplate localRedisTemplate = new StringRedisTemplate(connectionFactory);
+            final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+            // The writers switch from per-user to per-bucket between two minutes, in the middle of sess_1.
+            final RedisEventSink perUserSink = new RedisEventSink(localRedisTemplate,
+                    this.redisKeyConfig("per-user"), TestUtils.getIngestionConfig());
+            perUserSink.accept(event(now.minusMinutes(2), "usr_1", "sess_1"));
+            perUserSink.accept(event(now.minusMinutes(2), "usr_2", "sess_2"));
+            perUserSink.flush();
+            final RedisEventSink perBucketSink = new RedisEventSink(localRedisTemplate,
+                    this.redisKeyConfig("per-bucket"), TestUtils.getIngestionConfig());
+            perBucketSink.accept(event(now.minusMinutes(1), "usr_1", "sess_1"));
+            perBucketSink.accept(event(now.minusMinutes(1), "usr_1", "sess_3"));
+            perBucketSink.flush();
+
+            Assertions.assertEquals(Map.of("usr_1", 2, "usr_2", 1),
+                    this.sessionCounts(localRedisTemplate, "migrating"));
+            Assertions.assertEquals(Map.of("usr_1", 2, "usr_2", 0),
+                    this.sessionCounts(localRedisTemplate, "per-bucket"));
+            Assertions.assertEquals(Map.of("usr_1", 1, "usr_2", 1),
+                    this.sessionCounts(localRedisTemplate, "per-user"));
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    public void testActiveUsersIndexAnswersTheConfiguredWindows() {
+        final StringRedisTemplate indexRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        final ActiveUsersIndex activeUsersIndex = Mockito.mock(ActiveUsersIndex.class);
+        final List<UserDetails> indexedUserDetails = List.of(
+                UserDetails.builder().withUserId("usr_1").withSessionCount(2).build());
+        Mockito.when(activeUsersIndex.getUserDetails()).thenReturn(Optional.of(indexedUserDetails));
+        Mockito.when(activeUsersIndex.getActiveUsersCount()).thenReturn(OptionalLong.of(1));
+        final DashboardService indexDashboardService = new DashboardService(indexRedisTemplate,
+                TestDashboardService.redisKeyConfig, TestDashboardService.dashboardOffsetConfig,
+                new PageViewsRollingView(indexRedisTemplate, TestDashboardService.redisKeyConfig,
+                        TestDashboardService.dashboardOffsetConfig, this.dashboardMetrics),
+                Optional.empty(), Optional.of(activeUsersIndex), this.dashboardMetrics, this.windowPlanner,
+                this.redisCallExecutor);
+
+        Assertions.assertEquals(indexedUserDetails, indexDashboardService.getUserDetails().getUserDetails());
+        Assertions.assertEquals(1, indexDashboardService.getActiveUsersCount(CountMode.EXACT).getActiveUsers());
+        final SummaryResponse summary = indexDashboardService.getSummary(5, null);
+        Assertions.assertEquals(indexedUserDetails, summary.getUserDetails());
+        Assertions.assertEquals(2, summary.getSessions());
+        // Redis is only read for the page views of the summary.
+        Mockito.verify(indexRedisTemplate, Mockito.never()).opsForSet();
+        Mockito.verify(indexRedisTemplate, Mockito.times(1)).executePipelined(Mockito.any(SessionCallback.class));
+
+        // The index only keeps the configured windows, and a window it dropped events of is read from redis.
+        final SetOperations<String, String> setOps = Mockito.mock(SetOperations.class);
+        Mockito.when(indexRedisTemplate.opsForSet()).thenReturn(setOps);
+        Mockito.when(setOps.union(Mockito.anyCollection())).thenReturn(Set.of("usr_1", "usr_2"));
+        Assertions.assertEquals(2, indexDashboardService.getActiveUsersCount(CountMode.EXACT, Duration.ofHours(1))
+                .getActiveUsers());
+        Mockito.when(activeUsersIndex.getActiveUsersCount()).thenReturn(OptionalLong.empty());
+        Assertions.assertEquals(2, indexDashboardService.getActiveUsersCount(CountMode.EXACT).getActiveUsers());
+    }
+
+    private Map<String, Integer> sessionCounts(final StringRedisTemplate localRedisTemplate, final String layout) {
+        final RedisKeyConfig layoutKeyConfig = this.redisKeyConfig(layout);
+        final DashboardService layoutDashboardService = new DashboardService(localRedisTemplate, layoutKeyConfig,
+                TestDashboardService.dashboardOffsetConfig,
+                new PageViewsRollingView(localRedisTemplate, layoutKeyConfig,
+                        TestDashboardService.dashboardOffsetConfig, this.dashboardMetrics),
+                Optional.empty(), Optional.empty(), this.dashboardMetrics, this.windowPlanner, this.redisCallExecutor);
+        final Map<String, Integer> sessionCounts = layoutDashboardService.getUserDetails().getUserDetails().stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount));
+        // The summary reads the same sessions, with the pairs in the pipeline of the active users.
+        Assertions.assertEquals(sessionCounts, layoutDashboardService.getSummary(5, null).getUserDetails().stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        // And so do the pages, which read the pairs of their users only.
+        Assertions.assertEquals(sessionCounts, layoutDashboardService.getUserDetails(sessionCounts.keySet()).stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        return sessionCounts;
+    }
+
+    private RedisKeyConfig redisKeyConfig(final String layout) {
+        final RedisKeyConfig layoutKeyConfig = TestUtils.getRedisKeyConfig();
+        ReflectionTestUtils.setField(layoutKeyConfig, "userSessionsLayout", layout);
+        return layoutKeyConfig;
+    }
+
+    private static UserEvent event(final OffsetDateTime time, final String userId, final String sessionId) {
+        return UserEvent.builder()
+                .withTimestamp(time.toString())
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl("/home")
+                .withSessionId(sessionId)
+                .build();
     }
 
     @Test
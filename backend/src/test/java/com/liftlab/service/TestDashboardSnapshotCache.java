@@ -0,0 +1,244 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class TestDashboardSnapshotCache {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MutableClock clock;
+
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    private DashboardSnapshotCache dashboardSnapshotCache;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.clock = new MutableClock(Instant.parse("2025-08-07T23:59:30Z"));
+        // 1 second, from TestUtils.
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(this.meterRegistry);
+        this.redisCircuitBreaker = new RedisCircuitBreaker(TestUtils.getDashboardOffsetKeyConfig(), dashboardMetrics,
+                this.clock);
+        this.dashboardSnapshotCache = new DashboardSnapshotCache(new ResponseEncoder(new ObjectMapper()),
+                TestUtils.getDashboardOffsetKeyConfig(), dashboardMetrics, this.redisCircuitBreaker, this.clock);
+    }
+
+    @Test
+    public void testSnapshotIsSharedUntilItExpires() {
+        final AtomicInteger computations = new AtomicInteger();
+
+        final DashboardSnapshotCache.Snapshot first = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", computations.incrementAndGet()));
+        this.clock.advance(Duration.ofMillis(999));
+        final DashboardSnapshotCache.Snapshot second = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", computations.incrementAndGet()));
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, computations.get());
+        Assertions.assertEquals("{\"pageViews\":[{\"pageUrl\":\"/home\",\"count\":1}]}",
+                new String(first.body(), StandardCharsets.UTF_8));
+
+        // Another offset or window is another snapshot.
+        this.dashboardSnapshotCache.get("page-views", null, 10, ResponseFormat.JSON, () -> pageViews("/home", 1));
+        this.dashboardSnapshotCache.get("page-views", Duration.ofHours(6), 5, ResponseFormat.JSON,
+                () -> pageViews("/home", 1));
+
+        this.clock.advance(Duration.ofMillis(1));
+        final DashboardSnapshotCache.Snapshot third = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", computations.incrementAndGet()));
+        Assertions.assertEquals(2, computations.get());
+        Assertions.assertNotEquals(first.etag(), third.etag());
+
+        Assertions.assertEquals(1, this.count("hit"));
+        Assertions.assertEquals(4, this.count("miss"));
+    }
+
+    @Test
+    public void testEtagOnlyDependsOnTheContent() {
+        final DashboardSnapshotCache.Snapshot first = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", 3));
+        this.clock.advance(Duration.ofSeconds(5));
+        final DashboardSnapshotCache.Snapshot second = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", 3));
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(first.etag(), second.etag());
+        Assertions.assertTrue(first.etag().matches("\"[0-9a-f]{32}\""), first.etag());
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        final int requests = 8;
+        final CountDownLatch computing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger computations = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(requests);
+        try {
+            final Future<DashboardSnapshotCache.Snapshot> leader = executorService.submit(() ->
+                    this.dashboardSnapshotCache.get("active-users", null, 0, ResponseFormat.JSON, () -> {
+                        computations.incrementAndGet();
+                        computing.countDown();
+                        try {
+                            Assertions.assertTrue(release.await(5, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return pageViews("/home", 1);
+                    }));
+            Assertions.assertTrue(computing.await(5, TimeUnit.SECONDS));
+
+            final List<Future<DashboardSnapshotCache.Snapshot>> followers = IntStream.range(1, requests)
+                    .mapToObj(request -> executorService.submit(() ->
+                            this.dashboardSnapshotCache.get("active-users", null, 0, ResponseFormat.JSON, () -> {
+                                computations.incrementAndGet();
+                                return pageViews("/other", 1);
+                            })))
+                    .toList();
+            // The followers are counted before they wait for the leader.
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (this.count("coalesced") < requests - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            final DashboardSnapshotCache.Snapshot snapshot = leader.get(5, TimeUnit.SECONDS);
+            for (final Future<DashboardSnapshotCache.Snapshot> follower : followers) {
+                Assertions.assertSame(snapshot, follower.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, computations.get());
+            Assertions.assertEquals(requests - 1, this.count("coalesced"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureIsNotCached() {
+        Assertions.assertThrows(IllegalStateException.class, () -> this.dashboardSnapshotCache.get("page-views",
+                null, 5, ResponseFormat.JSON, () -> {
+                    throw new IllegalStateException("redis down");
+                }));
+
+        final DashboardSnapshotCache.Snapshot snapshot = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", 1));
+        Assertions.assertNotNull(snapshot.etag());
+        Assertions.assertEquals(2, this.count("miss"));
+    }
+
+    @Test
+    public void testStaleSnapshotIsServedWhenRedisFails() {
+        final DashboardSnapshotCache.Snapshot fresh = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", 1));
+        this.clock.advance(Duration.ofSeconds(1));
+
+        final DashboardSnapshotCache.Snapshot stale = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> {
+                    throw new QueryTimeoutException("Redis command timed out");
+                });
+        Assertions.assertTrue(stale.stale());
+        Assertions.assertFalse(fresh.stale());
+        Assertions.assertEquals(fresh.etag(), stale.etag());
+        Assertions.assertEquals(fresh.createdAt(), stale.createdAt());
+        Assertions.assertEquals(1, this.count("stale"));
+
+        // Nothing to fall back on.
+        Assertions.assertThrows(QueryTimeoutException.class, () -> this.dashboardSnapshotCache.get("page-views",
+                null, 10, ResponseFormat.JSON, () -> {
+                    throw new QueryTimeoutException("Redis command timed out");
+                }));
+        // Too old to be served.
+        this.clock.advance(Duration.ofMinutes(5));
+        Assertions.assertThrows(QueryTimeoutException.class, () -> this.dashboardSnapshotCache.get("page-views",
+                null, 5, ResponseFormat.JSON, () -> {
+                    throw new QueryTimeoutException("Redis command timed out");
+                }));
+    }
+
+    @Test
+    public void testStaleSnapshotIsServedPastTheLatencyBudget() throws Exception {
+        this.dashboardSnapshotCache.get("page-views", null, 5, ResponseFormat.JSON, () -> pageViews("/home", 1));
+        this.clock.advance(Duration.ofSeconds(1));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final DashboardSnapshotCache.Snapshot stale = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> {
+                    try {
+                        Assertions.assertTrue(release.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return pageViews("/home", 2);
+                });
+        Assertions.assertTrue(stale.stale());
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        // The computation went on in the background, and refreshes the snapshot.
+        release.countDown();
+        final DashboardSnapshotCache.Snapshot refreshed = this.dashboardSnapshotCache.get("page-views", null, 5,
+                ResponseFormat.JSON, () -> pageViews("/home", 3));
+        Assertions.assertFalse(refreshed.stale());
+        Assertions.assertEquals("{\"pageViews\":[{\"pageUrl\":\"/home\",\"count\":2}]}",
+                new String(refreshed.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOpenCircuitBreakerServesStaleSnapshots() {
+        this.dashboardSnapshotCache.get("page-views", null, 5, ResponseFormat.JSON, () -> pageViews("/home", 1));
+        // 3 failures, from TestUtils.
+        for (int failure = 0; failure < 3; failure++) {
+            this.clock.advance(Duration.ofSeconds(1));
+            this.dashboardSnapshotCache.get("page-views", null, 5, ResponseFormat.JSON, () -> {
+                throw new RedisConnectionFailureException("Unable to connect to Redis");
+            });
+        }
+        Assertions.assertEquals(RedisCircuitBreaker.State.OPEN, this.redisCircuitBreaker.getState());
+
+        this.clock.advance(Duration.ofSeconds(1));
+        final AtomicInteger computations = new AtomicInteger();
+        Assertions.assertTrue(this.dashboardSnapshotCache.get("page-views", null, 5, ResponseFormat.JSON,
+                () -> pageViews("/home", computations.incrementAndGet())).stale());
+        Assertions.assertThrows(RedisUnavailableException.class, () -> this.dashboardSnapshotCache.get(
+                "active-users-count", null, "EXACT", ResponseFormat.JSON, computations::incrementAndGet));
+        Assertions.assertEquals(0, computations.get());
+    }
+
+    private double count(final String result) {
+        return this.meterRegistry.find("dashboard.snapshot.cache").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static PageViewsResponse pageViews(final String pageUrl, final int count) {
+        return PageViewsResponse.builder()
+                .withPageViews(ImmutableList.of(PageViewCount.builder()
+                        .withPageUrl(pageUrl)
+                        .withCount(count)
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,230 @@
+package com.liftlab.service;
+
+import com.liftlab.TestUtils;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.liftlab.config.StreamConfig;
+import com.liftlab.models.DashboardDelta;
+import com.liftlab.models.DashboardSnapshot;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.RankedPageView;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserDetailsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class TestDashboardStreamService {
+
+    private DashboardService dashboardService;
+
+    private StreamConfig streamConfig;
+
+    private RedisCallExecutor redisCallExecutor;
+
+    private ExecutorService senders;
+
+    @BeforeEach
+    public void init() {
+        this.dashboardService = Mockito.mock(DashboardService.class);
+        this.streamConfig = new StreamConfig();
+        ReflectionTestUtils.setField(this.streamConfig, "pageViewsOffset", 5);
+        ReflectionTestUtils.setField(this.streamConfig, "maxSkippedTicks", 2);
+        this.redisCallExecutor = new RedisCallExecutor(TestUtils.getDashboardOffsetKeyConfig());
+        this.senders = MoreExecutors.newDirectExecutorService();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        this.senders.shutdownNow();
+    }
+
+    @Test
+    public void testSnapshotThenDeltas() {
+        final DashboardStreamService streamService = new DashboardStreamService(this.dashboardService,
+                this.streamConfig, this.redisCallExecutor, this.senders);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        streamService.subscribe(subscriber);
+
+        this.dashboard(Map.of("usr_1", 1, "usr_2", 2), List.of(page("/a", 5), page("/b", 3), page("/c", 1)));
+        streamService.tick();
+        this.dashboard(Map.of("usr_1", 1, "usr_2", 3, "usr_3", 1), List.of(page("/a", 6), page("/b", 3)));
+        streamService.tick();
+        // Nothing changed, nothing is sent.
+        streamService.tick();
+
+        Assertions.assertEquals(List.of(DashboardStreamService.SNAPSHOT_EVENT, DashboardStreamService.DELTA_EVENT),
+                subscriber.names);
+        final DashboardSnapshot snapshot = (DashboardSnapshot) subscriber.events.get(0);
+        Assertions.assertEquals(2, snapshot.getUserDetails().size());
+        Assertions.assertEquals(3, snapshot.getPageViews().size());
+
+        final DashboardDelta delta = (DashboardDelta) subscriber.events.get(1);
+        Assertions.assertEquals(2, delta.getSequence());
+        Assertions.assertEquals(Map.of("usr_2", 3, "usr_3", 1), delta.getUserDetails().stream()
+                .collect(Collectors.toMap(UserDetails::getUserId, UserDetails::getSessionCount)));
+        Assertions.assertTrue(delta.getRemovedUserIds().isEmpty());
+        Assertions.assertEquals(List.of(0), delta.getPageViews().stream().map(RankedPageView::getRank).toList());
+        Assertions.assertEquals(6, delta.getPageViews().get(0).getCount());
+        Assertions.assertEquals(2, delta.getPageViewsSize());
+
+        // The dashboard is computed once per tick.
+        Mockito.verify(this.dashboardService, Mockito.times(3)).getUserDetails();
+    }
+
+    @Test
+    public void testLateSubscriberGetsSnapshotAndNoTickWithoutSubscribers() {
+        final DashboardStreamService streamService = new DashboardStreamService(this.dashboardService,
+                this.streamConfig, this.redisCallExecutor, this.senders);
+        streamService.tick();
+        Mockito.verifyNoInteractions(this.dashboardService);
+
+        final RecordingSubscriber first = new RecordingSubscriber();
+        streamService.subscribe(first);
+        this.dashboard(Map.of("usr_1", 1), List.of(page("/a", 1)));
+        streamService.tick();
+
+        final RecordingSubscriber second = new RecordingSubscriber();
+        streamService.subscribe(second);
+        Assertions.assertEquals(List.of(DashboardStreamService.SNAPSHOT_EVENT), second.names);
+
+        this.dashboard(Map.of(), List.of(page("/a", 1)));
+        streamService.tick();
+        Assertions.assertEquals(List.of("usr_1"), ((DashboardDelta) second.events.get(1)).getRemovedUserIds());
+        Assertions.assertEquals(first.events.get(1).toString(), second.events.get(1).toString());
+    }
+
+    @Test
+    public void testSlowSubscriberIsResyncedThenDropped() throws Exception {
+        this.senders = Executors.newSingleThreadExecutor();
+        final DashboardStreamService streamService = new DashboardStreamService(this.dashboardService,
+                this.streamConfig, this.redisCallExecutor, this.senders);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void send(final String name, final Object data) throws IOException {
+                if (this.names.isEmpty()) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                super.send(name, data);
+            }
+        };
+        streamService.subscribe(subscriber);
+
+        this.dashboard(Map.of("usr_1", 1), List.of(page("/a", 1)));
+        streamService.tick();
+        Assertions.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // Still busy with the first snapshot, this tick is skipped.
+        this.dashboard(Map.of("usr_1", 2), List.of(page("/a", 2)));
+        streamService.tick();
+        release.countDown();
+        this.awaitSenders();
+
+        this.dashboard(Map.of("usr_1", 3), List.of(page("/a", 3)));
+        streamService.tick();
+        this.awaitSenders();
+        // The skipped delta is never sent, a fresh snapshot is sent instead.
+        Assertions.assertEquals(List.of(DashboardStreamService.SNAPSHOT_EVENT, DashboardStreamService.SNAPSHOT_EVENT),
+                subscriber.names);
+        Assertions.assertEquals(3, ((DashboardSnapshot) subscriber.events.get(1)).getSequence());
+
+        // A subscriber which keeps skipping ticks is dropped.
+        final CountDownLatch stuck = new CountDownLatch(1);
+        final RecordingSubscriber stuckSubscriber = new RecordingSubscriber() {
+            @Override
+            public void send(final String name, final Object data) throws IOException {
+                try {
+                    stuck.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        streamService.subscribe(stuckSubscriber);
+        for (int tick = 0; tick < 3; tick++) {
+            streamService.tick();
+        }
+        Assertions.assertTrue(stuckSubscriber.closed);
+        Assertions.assertEquals(1, streamService.getSubscriberCount());
+        stuck.countDown();
+    }
+
+    @Test
+    public void testFailingSubscriberIsRemoved() {
+        final DashboardStreamService streamService = new DashboardStreamService(this.dashboardService,
+                this.streamConfig, this.redisCallExecutor, this.senders);
+        final RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void send(final String name, final Object data) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        streamService.subscribe(subscriber);
+        this.dashboard(Map.of("usr_1", 1), List.of());
+        streamService.tick();
+
+        Assertions.assertTrue(subscriber.closed);
+        Assertions.assertEquals(0, streamService.getSubscriberCount());
+    }
+
+    private void awaitSenders() throws Exception {
+        this.senders.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private void dashboard(final Map<String, Integer> sessionCounts, final List<PageViewCount> pageViews) {
+        Mockito.when(this.dashboardService.getUserDetails()).thenReturn(UserDetailsResponse.builder()
+                .withUserDetails(sessionCounts.entrySet().stream()
+                        .map(entry -> UserDetails.builder()
+                                .withUserId(entry.getKey())
+                                .withSessionCount(entry.getValue())
+                                .build())
+                        .toList())
+                .build());
+        Mockito.when(this.dashboardService.getTopPages(5)).thenReturn(PageViewsResponse.builder()
+                .withPageViews(pageViews)
+                .build());
+    }
+
+    private static PageViewCount page(final String pageUrl, final int count) {
+        return PageViewCount.builder().withPageUrl(pageUrl).withCount(count).build();
+    }
+
+    private static class RecordingSubscriber implements StreamSubscriber {
+
+        protected final List<String> names = new ArrayList<>();
+
+        protected final List<Object> events = new ArrayList<>();
+
+        protected volatile boolean closed;
+
+        @Override
+        public void send(final String name, final Object data) throws IOException {
+            this.names.add(name);
+            this.events.add(data);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.liftlab.service;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.models.PageViewCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class TestPageViewsRollingView {
+
+    private StringRedisTemplate redisTemplate;
+
+    private MutableClock clock;
+
+    private PageViewsRollingView pageViewsRollingView;
+
+    /** Page views by url per redis key. */
+    private final Map<String, Map<String, Double>> redis = new HashMap<>();
+
+    /** Keys read by every pipeline. */
+    private final List<List<String>> reads = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void init() {
+        this.redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        this.clock = new MutableClock(Instant.parse("2025-08-07T16:34:10Z"));
+
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsOffset", 4);
+        this.pageViewsRollingView = new PageViewsRollingView(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                dashboardOffsetConfig, new DashboardMetrics(new SimpleMeterRegistry()), this.clock);
+
+        final RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        final ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+        Mockito.when(operations.opsForZSet()).thenReturn(zSetOperations);
+        final List<String> keys = new ArrayList<>();
+        Mockito.when(zSetOperations.rangeWithScores(Mockito.anyString(), Mockito.eq(0L), Mockito.eq(-1L)))
+                .thenAnswer(invocation -> {
+                    keys.add(invocation.getArgument(0));
+                    return null;
+                });
+        Mockito.when(this.redisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            keys.clear();
+            invocation.<SessionCallback<?>>getArgument(0).execute(operations);
+            this.reads.add(List.copyOf(keys));
+            return keys.stream()
+                    .map(key -> this.redis.getOrDefault(key, Map.of()).entrySet().stream()
+                            .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey(), entry.getValue()))
+                            .collect(Collectors.toSet()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    public void testInitialBuildReadsWholeWindow() {
+        this.redis.put("page_views:202508071634", Map.of("/a", 1.0));
+        this.redis.put("page_views:202508071633", Map.of("/a", 2.0, "/b", 1.0));
+        this.redis.put("page_views:202508071632", Map.of("/b", 4.0));
+        this.redis.put("page_views:202508071631", Map.of("/c", 8.0));
+        this.redis.put("page_views:202508071630", Map.of("/d", 100.0));
+
+        final List<PageViewCount> top = this.pageViewsRollingView.getTopPages(3);
+
+        Assertions.assertEquals(List.of("/c", "/b", "/a"), top.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(8L, 5L, 3L), top.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(List.of(List.of("page_views:202508071634", "page_views:202508071633",
+                "page_views:202508071632", "page_views:202508071631")), this.reads);
+    }
+
+    @Test
+    public void testSnapshotIsSharedWithinStaleness() {
+        this.redis.put("page_views:202508071634", Map.of("/a", 1.0));
+        this.pageViewsRollingView.getTopPages(5);
+
+        this.redis.put("page_views:202508071634", Map.of("/a", 7.0));
+        this.clock.advance(Duration.ofSeconds(4));
+        Assertions.assertEquals(1, this.pageViewsRollingView.getTopPages(5).get(0).getCount());
+        Assertions.assertEquals(1, this.reads.size());
+
+        this.clock.advance(Duration.ofSeconds(1));
+        Assertions.assertEquals(7, this.pageViewsRollingView.getTopPages(5).get(0).getCount());
+        Assertions.assertEquals(2, this.reads.size());
+        Assertions.assertEquals(List.of("page_views:202508071634", "page_views:202508071633"), this.reads.get(1));
+    }
+
+    @Test
+    public void testMinuteBoundaryAppliesDeltas() {
+        this.redis.put("page_views:202508071634", Map.of("/a", 1.0));
+        this.redis.put("page_views:202508071633", Map.of("/b", 2.0));
+        this.redis.put("page_views:202508071632", Map.of("/a", 4.0));
+        this.redis.put("page_views:202508071631", Map.of("/b", 8.0));
+        this.pageViewsRollingView.getTopPages(5);
+
+        // The minute rolls over: 1633 gets frozen and 1631 leaves the window.
+        this.clock.advance(Duration.ofMinutes(1));
+        this.redis.put("page_views:202508071635", Map.of("/c", 16.0));
+        final List<PageViewCount> top = this.pageViewsRollingView.getTopPages(5);
+
+        Assertions.assertEquals(List.of("page_views:202508071635", "page_views:202508071634",
+                "page_views:202508071633"), this.reads.get(1));
+        Assertions.assertEquals(Map.of("/c", 16L, "/a", 5L, "/b", 2L),
+                top.stream().collect(Collectors.toMap(PageViewCount::getPageUrl, PageViewCount::getCount)));
+        Assertions.assertEquals("/c", top.get(0).getPageUrl());
+    }
+
+    @Test
+    public void testRefreshFromTheRepliesOfACallerIsShared() {
+        this.redis.put("page_views:202508071634", Map.of("/a", 1.0));
+        this.redis.put("page_views:202508071632", Map.of("/b", 4.0));
+
+        // The caller reads the buckets of the refresh in its own pipeline.
+        final PageViewsRollingView.Refresh refresh = this.pageViewsRollingView.planRefresh(
+                LocalDateTime.ofInstant(this.clock.instant(), ZoneOffset.UTC));
+        Assertions.assertEquals(List.of("202508071634", "202508071633", "202508071632", "202508071631"),
+                refresh.buckets());
+        final List<Object> replies = refresh.buckets().stream()
+                .map(bucket -> (Object) this.redis.getOrDefault("page_views:" + bucket, Map.of()).entrySet().stream()
+                        .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toSet()))
+                .toList();
+        final List<PageViewCount> top = this.pageViewsRollingView.getTopPagesOfRefresh(5, refresh, replies);
+        Assertions.assertEquals(List.of("/b", "/a"), top.stream().map(PageViewCount::getPageUrl).toList());
+
+        // The view answers the same top pages without reading redis, and holds the frozen buckets.
+        Assertions.assertEquals(top, this.pageViewsRollingView.getTopPages(5));
+        Assertions.assertTrue(this.reads.isEmpty());
+        Assertions.assertEquals(List.of("202508071634", "202508071633"), this.pageViewsRollingView.planRefresh(
+                LocalDateTime.ofInstant(this.clock.instant(), ZoneOffset.UTC)).buckets());
+
+        // A refresh planned before the minute rolled over does not take the view back.
+        this.clock.advance(Duration.ofMinutes(1));
+        this.pageViewsRollingView.getTopPages(5);
+        Assertions.assertEquals(List.of(List.of("page_views:202508071635", "page_views:202508071634",
+                "page_views:202508071633")), this.reads);
+        Assertions.assertEquals(this.pageViewsRollingView.getTopPages(5),
+                this.pageViewsRollingView.getTopPagesOfRefresh(5, refresh, replies));
+        Assertions.assertEquals(1, this.reads.size());
+    }
+
+    @Test
+    public void testTopPagesOfRollups() {
+        this.redis.put("page_views:1h:202508071500", Map.of("/a", 10.0, "/c", 2.0));
+        this.redis.put("page_views:5m:202508071630", Map.of("/b", 4.0, "/a", 1.0));
+
+        final List<PageViewCount> top = this.pageViewsRollingView.getTopPages(2,
+                List.of("1h:202508071500", "5m:202508071630"));
+
+        Assertions.assertEquals(List.of("/a", "/b"), top.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(11L, 4L), top.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(List.of(List.of("page_views:1h:202508071500", "page_views:5m:202508071630")),
+                this.reads);
+    }
+
+    @Test
+    public void testEmptyWindow() {
+        Assertions.assertTrue(this.pageViewsRollingView.getTopPages(5).isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package com.liftlab.service;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class TestRedisCallExecutor {
+
+    private RedisCallExecutor redisCallExecutor;
+
+    @AfterEach
+    public void shutdown() {
+        this.redisCallExecutor.destroy();
+    }
+
+    @Test
+    public void testSequentialByDefault() {
+        this.redisCallExecutor = new RedisCallExecutor(TestUtils.getDashboardOffsetKeyConfig());
+        final Thread caller = Thread.currentThread();
+        final List<Integer> results = this.redisCallExecutor.invokeAll(IntStream.range(0, 5)
+                .<Supplier<Integer>>mapToObj(call -> () -> {
+                    Assertions.assertSame(caller, Thread.currentThread());
+                    return call;
+                })
+                .toList());
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4), results);
+    }
+
+    @Test
+    public void testConcurrentKeepsTheOrderAndTheBound() {
+        this.redisCallExecutor = new RedisCallExecutor(concurrency(3));
+        // The first 3 calls only return once they all started, which needs them to run at once.
+        final CountDownLatch started = new CountDownLatch(3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<String> results = this.redisCallExecutor.invokeAll(IntStream.range(0, 20)
+                .<Supplier<String>>mapToObj(call -> () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Assertions.assertTrue(Thread.currentThread().isVirtual());
+                    try {
+                        started.countDown();
+                        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return "call" + call;
+                })
+                .toList());
+        Assertions.assertEquals(IntStream.range(0, 20).mapToObj(call -> "call" + call).toList(), results);
+        Assertions.assertEquals(3, maxRunning.get());
+    }
+
+    @Test
+    public void testFailureIsRethrown() {
+        this.redisCallExecutor = new RedisCallExecutor(concurrency(4));
+        final IllegalStateException failure = new IllegalStateException("redis is down");
+        final List<Supplier<Integer>> calls = IntStream.range(0, 10)
+                .<Supplier<Integer>>mapToObj(call -> () -> {
+                    if (call == 6) {
+                        throw failure;
+                    }
+                    return call;
+                })
+                .toList();
+        Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class,
+                () -> this.redisCallExecutor.invokeAll(calls)));
+    }
+
+    @Test
+    public void testInvokeBoth() {
+        this.redisCallExecutor = new RedisCallExecutor(concurrency(2));
+        final RedisCallExecutor.Pair<String, Integer> pair = this.redisCallExecutor.invokeBoth(() -> "users", () -> 5);
+        Assertions.assertEquals("users", pair.first());
+        Assertions.assertEquals(5, pair.second());
+    }
+
+    private static DashboardOffsetConfig concurrency(final int concurrency) {
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "redisCallsConcurrency", concurrency);
+        return dashboardOffsetConfig;
+    }
+}
@@ -0,0 +1,78 @@
+package com.liftlab.service;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class TestRedisCircuitBreaker {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MutableClock clock;
+
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.clock = new MutableClock(Instant.parse("2025-08-07T23:59:30Z"));
+        // 3 failures, 1 second slow calls and 5 seconds open, from TestUtils.
+        this.redisCircuitBreaker = new RedisCircuitBreaker(TestUtils.getDashboardOffsetKeyConfig(),
+                new DashboardMetrics(this.meterRegistry), this.clock);
+    }
+
+    @Test
+    public void testBreakerOpensAndRecovers() {
+        // Only consecutive redis failures count.
+        this.fail();
+        this.fail();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.redisCircuitBreaker.call(() -> {
+            throw new IllegalArgumentException("Invalid cursor");
+        }));
+        this.fail();
+        this.fail();
+        Assertions.assertEquals(RedisCircuitBreaker.State.CLOSED, this.redisCircuitBreaker.getState());
+        this.fail();
+        Assertions.assertEquals(RedisCircuitBreaker.State.OPEN, this.redisCircuitBreaker.getState());
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.circuit.breaker.state").gauge().value());
+
+        this.clock.advance(Duration.ofMillis(3500));
+        final RedisUnavailableException rejection = Assertions.assertThrows(RedisUnavailableException.class,
+                () -> this.redisCircuitBreaker.call(() -> "never"));
+        Assertions.assertEquals(2, rejection.getRetryAfterSeconds());
+        Assertions.assertEquals(1, this.meterRegistry.get("dashboard.circuit.breaker.rejections").counter().count());
+
+        // A failed trial opens it again, a successful one closes it.
+        this.clock.advance(Duration.ofMillis(1500));
+        this.fail();
+        Assertions.assertEquals(RedisCircuitBreaker.State.OPEN, this.redisCircuitBreaker.getState());
+        Assertions.assertThrows(RedisUnavailableException.class, () -> this.redisCircuitBreaker.call(() -> "never"));
+        this.clock.advance(Duration.ofSeconds(5));
+        Assertions.assertEquals("ok", this.redisCircuitBreaker.call(() -> "ok"));
+        Assertions.assertEquals(RedisCircuitBreaker.State.CLOSED, this.redisCircuitBreaker.getState());
+    }
+
+    @Test
+    public void testSlowCallsCountAsFailures() {
+        for (int call = 0; call < 3; call++) {
+            Assertions.assertEquals("slow", this.redisCircuitBreaker.call(() -> {
+                this.clock.advance(Duration.ofMillis(1001));
+                return "slow";
+            }));
+        }
+        Assertions.assertEquals(RedisCircuitBreaker.State.OPEN, this.redisCircuitBreaker.getState());
+    }
+
+    private void fail() {
+        Assertions.assertThrows(QueryTimeoutException.class, () -> this.redisCircuitBreaker.call(() -> {
+            throw new QueryTimeoutException("Redis command timed out");
+        }));
+    }
+}
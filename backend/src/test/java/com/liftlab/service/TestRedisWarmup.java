@@ -0,0 +1,53 @@
+package com.liftlab.service;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.redis.LocalRedisServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+public class TestRedisWarmup {
+
+    @Test
+    public void testWarmUpOpensTheConnections() throws IOException {
+        try (LocalRedisServer localRedisServer = new LocalRedisServer()) {
+            final LettuceConnectionFactory connectionFactory = localRedisServer.createConnectionFactory();
+            try {
+                final RedisWarmup redisWarmup = new RedisWarmup(new StringRedisTemplate(connectionFactory),
+                        TestUtils.getDashboardOffsetKeyConfig());
+                Assertions.assertTrue(redisWarmup.warmUp());
+            } finally {
+                connectionFactory.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void testWarmUpGivesUpAfterTheTimeout() throws IOException {
+        final LocalRedisServer localRedisServer = new LocalRedisServer();
+        final LettuceConnectionFactory connectionFactory = localRedisServer.createConnectionFactory();
+        // Nothing listens on the port any more.
+        localRedisServer.close();
+        try {
+            final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+            ReflectionTestUtils.setField(dashboardOffsetConfig, "warmupTimeoutMillis", 1200L);
+            final RedisWarmup redisWarmup = new RedisWarmup(new StringRedisTemplate(connectionFactory),
+                    dashboardOffsetConfig);
+            final long start = System.nanoTime();
+            Assertions.assertFalse(redisWarmup.warmUp());
+            Assertions.assertTrue(System.nanoTime() - start < 10_000_000_000L);
+
+            // Disabled.
+            ReflectionTestUtils.setField(dashboardOffsetConfig, "warmupTimeoutMillis", 0L);
+            Assertions.assertFalse(new RedisWarmup(new StringRedisTemplate(connectionFactory),
+                    dashboardOffsetConfig).warmUp());
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.liftlab.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.liftlab.models.ActiveUsersCountResponse;
+import com.liftlab.models.CountMode;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.PageViewsResponse;
+import com.liftlab.models.UserDetails;
+import com.liftlab.models.UserDetailsResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.InvalidMediaTypeException;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class TestResponseEncoder {
+
+    private final ResponseEncoder responseEncoder = new ResponseEncoder(new ObjectMapper());
+
+    @Test
+    public void testFormatOfAccept() {
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept(null));
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept("*/*"));
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept("application/json"));
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept("text/html"));
+        Assertions.assertEquals(ResponseFormat.CBOR, ResponseFormat.fromAccept("application/cbor"));
+        Assertions.assertEquals(ResponseFormat.CBOR, ResponseFormat.fromAccept("application/cbor, */*;q=0.8"));
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept("application/cbor;q=0.5, */*"));
+        Assertions.assertEquals(ResponseFormat.JSON, ResponseFormat.fromAccept("application/json, application/cbor"));
+        Assertions.assertThrows(InvalidMediaTypeException.class, () -> ResponseFormat.fromAccept("application/"));
+    }
+
+    @Test
+    public void testCborIsColumnar() throws Exception {
+        final UserDetailsResponse userDetailsResponse = UserDetailsResponse.builder()
+                .withUserDetails(List.of(userDetails("usr_1", 2), userDetails("usr_2", 1)))
+                .withNextCursor("abc:42")
+                .build();
+
+        final JsonNode users = new CBORMapper().readTree(
+                this.responseEncoder.encode(userDetailsResponse, ResponseFormat.CBOR));
+        Assertions.assertEquals("{\"userIds\":[\"usr_1\",\"usr_2\"],\"sessionCounts\":[2,1],\"nextCursor\":\"abc:42\"}",
+                users.toString());
+
+        final JsonNode pages = new CBORMapper().readTree(this.responseEncoder.encode(PageViewsResponse.builder()
+                .withPageViews(List.of(PageViewCount.builder().withPageUrl("/home").withCount(120).build()))
+                .build(), ResponseFormat.CBOR));
+        Assertions.assertEquals("{\"pageUrls\":[\"/home\"],\"counts\":[120]}", pages.toString());
+
+        // Without a list, the response is encoded as it is.
+        final JsonNode count = new CBORMapper().readTree(this.responseEncoder.encode(ActiveUsersCountResponse.builder()
+                .withActiveUsers(7)
+                .withMode(CountMode.EXACT)
+                .build(), ResponseFormat.CBOR));
+        Assertions.assertEquals(7, count.get("activeUsers").asInt());
+
+        // JSON is unchanged.
+        Assertions.assertEquals(new ObjectMapper().writeValueAsString(userDetailsResponse),
+                new String(this.responseEncoder.encode(userDetailsResponse, ResponseFormat.JSON)));
+    }
+
+    @Test
+    public void testCborIsSmallerForLargeResponses() throws Exception {
+        final UserDetailsResponse userDetailsResponse = UserDetailsResponse.builder()
+                .withUserDetails(IntStream.range(0, 10_000)
+                        .mapToObj(user -> userDetails("usr_" + user, 1 + user % 3))
+                        .toList())
+                .build();
+
+        final int json = this.responseEncoder.encode(userDetailsResponse, ResponseFormat.JSON).length;
+        final int cbor = this.responseEncoder.encode(userDetailsResponse, ResponseFormat.CBOR).length;
+        // About 40 bytes per user in JSON, the id and a byte of separators and count in CBOR.
+        Assertions.assertTrue(cbor * 3 < json, json + " bytes of JSON, " + cbor + " bytes of CBOR");
+    }
+
+    private static UserDetails userDetails(final String userId, final int sessionCount) {
+        return UserDetails.builder()
+                .withUserId(userId)
+                .withSessionCount(sessionCount)
+                .build();
+    }
+}
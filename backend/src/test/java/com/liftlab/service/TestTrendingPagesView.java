@@ -0,0 +1,170 @@
+package com.liftlab.service;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.models.TrendingPage;
+import com.liftlab.models.TrendingPagesResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class TestTrendingPagesView {
+
+    private MutableClock clock;
+
+    private TrendingPagesView trendingPagesView;
+
+    /** Page views by url per redis key. */
+    private final Map<String, Map<String, Double>> redis = new HashMap<>();
+
+    /** Keys read by every pipeline. */
+    private final List<List<String>> reads = new ArrayList<>();
+
+    /** Failure of the next pipeline, once. */
+    private RuntimeException failure;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void init() {
+        final StringRedisTemplate redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        this.clock = new MutableClock(Instant.parse("2025-08-07T16:34:10Z"));
+
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "trendingOffset", 2);
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "trendingMinViews", 2);
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        this.trendingPagesView = new TrendingPagesView(redisTemplate,
+                new PageViewsRollingView(redisTemplate, TestUtils.getRedisKeyConfig(), dashboardOffsetConfig,
+                        dashboardMetrics, this.clock),
+                dashboardOffsetConfig, TestUtils.getIngestionConfig(), dashboardMetrics, this.clock);
+
+        final RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        final ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+        Mockito.when(operations.opsForZSet()).thenReturn(zSetOperations);
+        final List<String> keys = new ArrayList<>();
+        Mockito.when(zSetOperations.rangeWithScores(Mockito.anyString(), Mockito.eq(0L), Mockito.eq(-1L)))
+                .thenAnswer(invocation -> {
+                    keys.add(invocation.getArgument(0));
+                    return null;
+                });
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            if (this.failure != null) {
+                final RuntimeException exception = this.failure;
+                this.failure = null;
+                throw exception;
+            }
+            keys.clear();
+            invocation.<SessionCallback<?>>getArgument(0).execute(operations);
+            this.reads.add(List.copyOf(keys));
+            return keys.stream()
+                    .map(key -> this.redis.getOrDefault(key, Map.of()).entrySet().stream()
+                            .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey(), entry.getValue()))
+                            .collect(Collectors.toSet()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    public void testSpikeOutranksSteadyPages() {
+        // Still written, ignored.
+        this.redis.put("page_views:202508071634", Map.of("/spike", 100.0));
+        this.redis.put("page_views:202508071633", Map.of("/spike", 100.0));
+        // Current window.
+        this.redis.put("page_views:202508071632", Map.of("/spike", 6.0, "/steady", 10.0));
+        this.redis.put("page_views:202508071631", Map.of("/spike", 2.0, "/steady", 10.0));
+        // Previous window.
+        this.redis.put("page_views:202508071630", Map.of("/steady", 10.0));
+        this.redis.put("page_views:202508071629", Map.of("/steady", 10.0, "/old", 5.0));
+
+        final TrendingPagesResponse trending = this.trendingPagesView.getTrendingPages(5);
+
+        Assertions.assertEquals("202508071632", trending.getMinute());
+        Assertions.assertEquals(2, trending.getWindowMinutes());
+        Assertions.assertEquals(List.of("/spike"), urls(trending));
+        Assertions.assertEquals(8, trending.getPages().get(0).getViews());
+        Assertions.assertEquals(0, trending.getPages().get(0).getPreviousViews());
+        Assertions.assertEquals(4.0, trending.getPages().get(0).getGrowth(), 1e-9);
+        Assertions.assertEquals(List.of(List.of("page_views:202508071632", "page_views:202508071631",
+                "page_views:202508071630", "page_views:202508071629")), this.reads);
+    }
+
+    @Test
+    public void testMinuteBoundaryReadsOnlyTheClosedBucket() {
+        this.redis.put("page_views:202508071632", Map.of("/spike", 6.0, "/steady", 10.0));
+        this.redis.put("page_views:202508071631", Map.of("/spike", 2.0, "/steady", 10.0));
+        this.redis.put("page_views:202508071630", Map.of("/steady", 10.0));
+        this.redis.put("page_views:202508071629", Map.of("/steady", 10.0));
+        this.trendingPagesView.getTrendingPages(5);
+        this.clock.advance(Duration.ofSeconds(30));
+        this.trendingPagesView.getTrendingPages(5);
+        Assertions.assertEquals(1, this.reads.size());
+
+        // 1633 closes, 1631 moves to the previous window and 1629 leaves it.
+        this.clock.advance(Duration.ofMinutes(1));
+        this.redis.put("page_views:202508071633", Map.of("/spike", 1.0, "/steady", 30.0, "/new", 1.0));
+        final TrendingPagesResponse trending = this.trendingPagesView.getTrendingPages(5);
+
+        Assertions.assertEquals(List.of("page_views:202508071633"), this.reads.get(1));
+        Assertions.assertEquals(List.of("/spike", "/steady"), urls(trending));
+        Assertions.assertEquals(Map.of("/spike", 2.5, "/steady", 1.0), trending.getPages().stream()
+                .collect(Collectors.toMap(TrendingPage::getPageUrl, TrendingPage::getGrowth)));
+        Assertions.assertEquals(20, trending.getPages().get(1).getPreviousViews());
+        Assertions.assertEquals(List.of("/spike"), urls(this.trendingPagesView.getTrendingPages(1)));
+    }
+
+    @Test
+    public void testRankingIsComputedOncePerMinute() {
+        this.redis.put("page_views:202508071632", Map.of("/spike", 6.0));
+        final TrendingPagesResponse first = this.trendingPagesView.getTrendingPages(5);
+        this.clock.advance(Duration.ofSeconds(40));
+        final TrendingPagesResponse second = this.trendingPagesView.getTrendingPages(5);
+
+        Assertions.assertEquals("202508071632", second.getMinute());
+        Assertions.assertSame(first.getPages(), second.getPages());
+
+        this.clock.advance(Duration.ofSeconds(10));
+        Assertions.assertNotSame(first.getPages(), this.trendingPagesView.getTrendingPages(5).getPages());
+    }
+
+    @Test
+    public void testFailedRefreshDoesNotCountTwice() {
+        this.redis.put("page_views:202508071632", Map.of("/spike", 6.0, "/steady", 10.0));
+        this.redis.put("page_views:202508071631", Map.of("/spike", 2.0, "/steady", 10.0));
+        this.redis.put("page_views:202508071630", Map.of("/steady", 10.0));
+        this.redis.put("page_views:202508071629", Map.of("/steady", 10.0));
+        this.trendingPagesView.getTrendingPages(5);
+
+        // The read of the bucket which closed fails once.
+        this.clock.advance(Duration.ofMinutes(1));
+        this.redis.put("page_views:202508071633", Map.of("/spike", 1.0, "/steady", 30.0, "/new", 1.0));
+        this.failure = new IllegalStateException("redis down");
+        Assertions.assertThrows(IllegalStateException.class, () -> this.trendingPagesView.getTrendingPages(5));
+        final TrendingPagesResponse trending = this.trendingPagesView.getTrendingPages(5);
+
+        // The same ranking as without the failure.
+        Assertions.assertEquals(Map.of("/spike", 2.5, "/steady", 1.0), trending.getPages().stream()
+                .collect(Collectors.toMap(TrendingPage::getPageUrl, TrendingPage::getGrowth)));
+        Assertions.assertEquals(20, trending.getPages().get(1).getPreviousViews());
+        Assertions.assertEquals(40, trending.getPages().get(1).getViews());
+    }
+
+    private static List<String> urls(final TrendingPagesResponse trending) {
+        return trending.getPages().stream().map(TrendingPage::getPageUrl).toList();
+    }
+}
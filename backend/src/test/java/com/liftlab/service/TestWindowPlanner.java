@@ -0,0 +1,107 @@
+package com.liftlab.service;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.KeyFamily;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TestWindowPlanner {
+
+    private static final LocalDateTime NOW = LocalDateTime.parse("2025-08-07T16:34:30");
+
+    private WindowPlanner windowPlanner;
+
+    @BeforeEach
+    public void init() {
+        this.windowPlanner = new WindowPlanner(TestUtils.getIngestionConfig(), TestUtils.getDashboardOffsetKeyConfig());
+    }
+
+    @Test
+    public void testShortWindows() {
+        Assertions.assertEquals(List.of("5m:202508071630"), this.plan(NOW, Duration.ofMinutes(5)));
+        Assertions.assertEquals(List.of("202508071632", "202508071633", "202508071634", "5m:202508071635"),
+                this.plan(NOW.plusMinutes(2), Duration.ofMinutes(5)));
+        Assertions.assertEquals(List.of("202508071634"), this.plan(NOW, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testLongWindowsUseRollups() {
+        Assertions.assertEquals(List.of("5m:202508071535", "5m:202508071540", "5m:202508071545", "5m:202508071550",
+                "5m:202508071555", "1h:202508071600"), this.plan(NOW, Duration.ofHours(1)));
+
+        final List<String> day = this.plan(NOW, Duration.ofDays(1));
+        Assertions.assertEquals(List.of("5m:202508061635", "5m:202508061640", "5m:202508061645", "5m:202508061650",
+                "5m:202508061655", "1h:202508061700", "1h:202508061800", "1h:202508061900", "1h:202508062000",
+                "1h:202508062100", "1h:202508062200", "1h:202508062300", "1d:202508070000"), day);
+
+        // The 5 minute buckets of a week ago expired, the window starts at the hour.
+        final List<String> week = this.plan(NOW, Duration.ofDays(7));
+        Assertions.assertEquals(15, week.size());
+        Assertions.assertEquals("1h:202507311600", week.get(0));
+        Assertions.assertEquals("1d:202508070000", week.get(week.size() - 1));
+    }
+
+    @Test
+    public void testFamiliesWithoutRollupsAreReadFromTheMinuteBuckets() {
+        // The user sessions have no rollups by default, a day of them is the minute buckets still retained.
+        Assertions.assertEquals(List.of("202508071630", "202508071631", "202508071632", "202508071633",
+                "202508071634"), this.windowPlanner.plan(NOW, Duration.ofDays(1), 5, KeyFamily.USER_SESSIONS));
+        Assertions.assertEquals(List.of("202508071633", "202508071634"),
+                this.windowPlanner.plan(NOW, Duration.ofMinutes(2), 5, KeyFamily.USER_PAGES));
+    }
+
+    @Test
+    public void testBucketsCoverTheWindowWithoutOverlapping() {
+        for (int offset = 0; offset < 60; offset += 7) {
+            final LocalDateTime now = NOW.plusMinutes(offset);
+            final LocalDateTime end = Granularity.MINUTE.truncate(now);
+            for (int windowMinutes = 1; windowMinutes <= 1440; windowMinutes += 13) {
+                final List<String> buckets = this.plan(now, Duration.ofMinutes(windowMinutes));
+                Assertions.assertTrue(buckets.size() <= 36, "Too many buckets: " + buckets);
+
+                final LocalDateTime start = end.minusMinutes(windowMinutes - 1);
+                LocalDateTime next = null;
+                for (final String bucket : buckets) {
+                    final Granularity granularity = granularity(bucket);
+                    final LocalDateTime bucketStart = MinuteBuckets.parse(bucket.substring(granularity.getPrefix()
+                            .length()));
+                    if (next == null) {
+                        Assertions.assertFalse(bucketStart.isAfter(start), "Window starts late: " + buckets);
+                    } else {
+                        Assertions.assertEquals(next, bucketStart, "Gap or overlap: " + buckets);
+                    }
+                    next = bucketStart.plusMinutes(granularity.getMinutes());
+                }
+                Assertions.assertTrue(next.isAfter(end), "Window ends early: " + buckets);
+            }
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Assertions.assertEquals(Duration.ofMinutes(90), this.windowPlanner.parse("90m"));
+        Assertions.assertEquals(Duration.ofHours(6), this.windowPlanner.parse("6h"));
+        Assertions.assertEquals(Duration.ofDays(7), this.windowPlanner.parse("7d"));
+        for (final String window : new String[] {"0m", "1y", "-1h", "h", "8d", "", null}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> this.windowPlanner.parse(window), window);
+        }
+    }
+
+    private List<String> plan(final LocalDateTime now, final Duration window) {
+        return this.windowPlanner.plan(now, window, 5, KeyFamily.ACTIVE_USERS);
+    }
+
+    private static Granularity granularity(final String bucket) {
+        for (final Granularity granularity : Granularity.ROLLUPS) {
+            if (bucket.startsWith(granularity.getPrefix())) {
+                return granularity;
+            }
+        }
+        return Granularity.MINUTE;
+    }
+}
@@ -0,0 +1,79 @@
+package com.liftlab.session;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TestSessionTable {
+
+    private static final Comparator<long[]> ORDER = Arrays::compare;
+
+    @Test
+    public void testTouchAndEvict() {
+        final SessionTable sessionTable = new SessionTable(4);
+        sessionTable.touch(42L, 1_000L);
+        sessionTable.touch(42L, 500L);
+        sessionTable.touch(42L, 3_000L);
+        sessionTable.touch(0L, 2_000L);
+        Assertions.assertEquals(2, sessionTable.size());
+
+        Assertions.assertEquals(List.of(List.of(2_000L, 2_000L, 1L)), evict(sessionTable, 2_500L).stream()
+                .map(session -> Arrays.stream(session).boxed().toList()).toList());
+        Assertions.assertEquals(1, sessionTable.size());
+        Assertions.assertArrayEquals(new long[]{500L, 3_000L, 3}, evict(sessionTable, Long.MAX_VALUE).getFirst());
+        Assertions.assertEquals(0, sessionTable.size());
+    }
+
+    @Test
+    public void testMatchesAMapUnderCollisionsAndGrowth() {
+        final SessionTable sessionTable = new SessionTable(16);
+        final Map<Long, long[]> expected = new HashMap<>();
+        final Random random = new Random(7);
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            now += random.nextInt(10);
+            // Every key has its home in the first or the last slot, so the runs are long and wrap around.
+            final int session = random.nextInt(2_000);
+            final long key = ((long) session << 12) | (session % 2 == 0 ? 0 : 0xFFF);
+            sessionTable.touch(key, now);
+            final long time = now;
+            expected.merge(key, new long[]{now, now, 1}, (previous, event) ->
+                    new long[]{Math.min(previous[0], time), Math.max(previous[1], time), previous[2] + 1});
+            if (step % 500 == 499) {
+                final long before = now - 2_000;
+                final List<long[]> evicted = new ArrayList<>();
+                expected.values().removeIf(state -> state[1] < before && evicted.add(state));
+                final List<long[]> closed = evict(sessionTable, before);
+                evicted.sort(ORDER);
+                closed.sort(ORDER);
+                Assertions.assertEquals(evicted.size(), closed.size());
+                for (int index = 0; index < closed.size(); index++) {
+                    Assertions.assertArrayEquals(evicted.get(index), closed.get(index));
+                }
+                Assertions.assertEquals(expected.size(), sessionTable.size());
+            }
+        }
+        final List<long[]> remaining = evict(sessionTable, Long.MAX_VALUE);
+        final List<long[]> open = new ArrayList<>(expected.values());
+        remaining.sort(ORDER);
+        open.sort(ORDER);
+        Assertions.assertEquals(open.size(), remaining.size());
+        for (int index = 0; index < open.size(); index++) {
+            Assertions.assertArrayEquals(open.get(index), remaining.get(index));
+        }
+    }
+
+    private static List<long[]> evict(final SessionTable sessionTable, final long beforeMillis) {
+        final List<long[]> closed = new ArrayList<>();
+        sessionTable.evict(beforeMillis, (firstMillis, lastMillis, pageViews) ->
+                closed.add(new long[]{firstMillis, lastMillis, pageViews}));
+        return closed;
+    }
+}
@@ -0,0 +1,131 @@
+package com.liftlab.session;
+
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.config.RedisKeyConfig;
+import com.liftlab.models.SessionStatsResponse;
+import com.liftlab.models.UserEvent;
+import com.liftlab.redis.LocalRedisServer;
+import com.liftlab.service.DashboardMetrics;
+import com.liftlab.service.DashboardService;
+import com.liftlab.service.Granularity;
+import com.liftlab.service.PageViewsRollingView;
+import com.liftlab.service.RedisCallExecutor;
+import com.liftlab.service.WindowPlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tests of the sessionization of the events and of the session stats read path, against a local redis.
+ */
+public class TestSessionizer {
+
+    private LocalRedisServer localRedisServer;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+
+    private Sessionizer sessionizer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.localRedisServer = new LocalRedisServer();
+        this.connectionFactory = this.localRedisServer.createConnectionFactory();
+        this.redisTemplate = new StringRedisTemplate(this.connectionFactory);
+        this.sessionizer = new Sessionizer(this.redisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.connectionFactory.destroy();
+        this.localRedisServer.close();
+    }
+
+    @Test
+    public void testSessionsCloseAfterTheInactivityTimeout() {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        // Two page views two minutes apart, a bounce, and the same session id for another user.
+        this.sessionizer.accept(event(now.minusMinutes(40), "usr_1", "sess_1", "/a"));
+        this.sessionizer.accept(event(now.minusMinutes(38), "usr_1", "sess_1", "/b"));
+        this.sessionizer.accept(event(now.minusMinutes(39), "usr_2", "sess_1", "/a"));
+        this.sessionizer.accept(event(now.minusMinutes(20), "usr_3", "sess_3", "/a"));
+        this.sessionizer.flush();
+        Assertions.assertEquals(3, this.sessionizer.getOpenSessions());
+        Assertions.assertTrue(this.localRedisServer.keys().isEmpty());
+
+        // The event time moves on, the sessions idle for 30 minutes are closed.
+        this.sessionizer.accept(event(now, "usr_3", "sess_3", "/b"));
+        this.sessionizer.flush();
+        Assertions.assertEquals(1, this.sessionizer.getOpenSessions());
+
+        // sess_1 of usr_1 closes at -8 minutes, sess_1 of usr_2 at -9 minutes.
+        final String minute = Granularity.MINUTE.bucket(now.minusMinutes(8).toLocalDateTime());
+        Assertions.assertEquals(Map.of("sessions", "1", "duration_ms", "120000", "page_views", "2", "bounces", "0"),
+                this.redisTemplate.<String, String>opsForHash().entries("session_stats:" + minute));
+
+        final SessionStatsResponse sessionStats = dashboardService(this.redisTemplate).getSessionStats(null);
+        Assertions.assertEquals(2, sessionStats.getSessions());
+        Assertions.assertEquals(60.0, sessionStats.getAverageDurationSeconds(), 1e-9);
+        Assertions.assertEquals(1.5, sessionStats.getPagesPerSession(), 1e-9);
+        Assertions.assertEquals(0.5, sessionStats.getBounceRate(), 1e-9);
+        Assertions.assertEquals(2, dashboardService(this.redisTemplate).getSessionStats(Duration.ofDays(1))
+                .getSessions());
+        Assertions.assertEquals(0, dashboardService(this.redisTemplate).getSessionStats(Duration.ofMinutes(5))
+                .getSessions());
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() {
+        final StringRedisTemplate failingRedisTemplate = Mockito.spy(this.redisTemplate);
+        Mockito.doThrow(new IllegalStateException("redis down")).doCallRealMethod()
+                .when(failingRedisTemplate).executePipelined(Mockito.any(SessionCallback.class));
+        final Sessionizer failingSessionizer = new Sessionizer(failingRedisTemplate, TestUtils.getRedisKeyConfig(),
+                TestUtils.getIngestionConfig());
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        failingSessionizer.accept(event(now.minusMinutes(40), "usr_1", "sess_1", "/a"));
+        failingSessionizer.accept(event(now, "usr_2", "sess_2", "/a"));
+
+        Assertions.assertThrows(IllegalStateException.class, failingSessionizer::flush);
+        Assertions.assertEquals(1, failingSessionizer.getOpenSessions());
+        failingSessionizer.flush();
+        Assertions.assertEquals(1, dashboardService(this.redisTemplate).getSessionStats(null).getSessions());
+    }
+
+    private static DashboardService dashboardService(final StringRedisTemplate redisTemplate) {
+        final RedisKeyConfig redisKeyConfig = TestUtils.getRedisKeyConfig();
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        final DashboardMetrics dashboardMetrics = new DashboardMetrics(new SimpleMeterRegistry());
+        return new DashboardService(redisTemplate, redisKeyConfig, dashboardOffsetConfig,
+                new PageViewsRollingView(redisTemplate, redisKeyConfig, dashboardOffsetConfig, dashboardMetrics),
+                Optional.empty(), Optional.empty(), dashboardMetrics,
+                new WindowPlanner(TestUtils.getIngestionConfig(), dashboardOffsetConfig),
+                new RedisCallExecutor(dashboardOffsetConfig));
+    }
+
+    private static UserEvent event(final OffsetDateTime timestamp, final String userId, final String sessionId,
+                                   final String pageUrl) {
+        return UserEvent.builder()
+                .withTimestamp(timestamp.toString())
+                .withUserId(userId)
+                .withEventType("page_view")
+                .withPageUrl(pageUrl)
+                .withSessionId(sessionId)
+                .build();
+    }
+}
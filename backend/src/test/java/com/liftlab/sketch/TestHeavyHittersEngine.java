@@ -0,0 +1,86 @@
+package com.liftlab.sketch;
+
+import com.liftlab.MutableClock;
+import com.liftlab.TestUtils;
+import com.liftlab.config.DashboardOffsetConfig;
+import com.liftlab.models.PageViewCount;
+import com.liftlab.models.UserEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class TestHeavyHittersEngine {
+
+    private MutableClock clock;
+
+    private HeavyHittersEngine heavyHittersEngine;
+
+    @BeforeEach
+    public void init() {
+        this.clock = new MutableClock(Instant.parse("2025-08-07T16:34:10Z"));
+        final DashboardOffsetConfig dashboardOffsetConfig = TestUtils.getDashboardOffsetKeyConfig();
+        ReflectionTestUtils.setField(dashboardOffsetConfig, "pageViewsOffset", 3);
+        this.heavyHittersEngine = new HeavyHittersEngine(dashboardOffsetConfig, TestUtils.getSketchConfig(),
+                this.clock);
+    }
+
+    @Test
+    public void testTopPagesOfTheWindow() {
+        this.view("2025-08-07T16:34:01Z", "/a", 1);
+        this.view("2025-08-07T16:33:01Z", "/a", 2);
+        this.view("2025-08-07T16:33:30Z", "/b", 4);
+        this.view("2025-08-07T16:32:59Z", "/c", 8);
+        // Out of the window.
+        this.view("2025-08-07T16:31:59Z", "/d", 100);
+        this.view("2025-08-07T16:35:00Z", "/d", 100);
+
+        Assertions.assertTrue(this.heavyHittersEngine.getTopPages(5).isEmpty());
+        this.heavyHittersEngine.flush();
+
+        final List<PageViewCount> top = this.heavyHittersEngine.getTopPages(2);
+        Assertions.assertEquals(List.of("/c", "/b"), top.stream().map(PageViewCount::getPageUrl).toList());
+        Assertions.assertEquals(List.of(8L, 4L), top.stream().map(PageViewCount::getCount).toList());
+        Assertions.assertEquals(3, this.heavyHittersEngine.getTopPages(5).size());
+    }
+
+    @Test
+    public void testMinuteLeavesTheWindow() {
+        this.view("2025-08-07T16:34:01Z", "/a", 3);
+        this.view("2025-08-07T16:32:01Z", "/c", 8);
+        this.heavyHittersEngine.flush();
+        Assertions.assertEquals("/c", this.heavyHittersEngine.getTopPages(1).get(0).getPageUrl());
+
+        // No flush since the minute rolled over, 1632 is dropped on read.
+        this.clock.advance(Duration.ofMinutes(1));
+        Assertions.assertEquals(Map.of("/a", 3L), this.counts());
+
+        // The slot of 1632 is reused by 1635.
+        this.view("2025-08-07T16:35:05Z", "/b", 1);
+        this.heavyHittersEngine.flush();
+        Assertions.assertEquals(Map.of("/a", 3L, "/b", 1L), this.counts());
+    }
+
+    private Map<String, Long> counts() {
+        return this.heavyHittersEngine.getTopPages(10).stream()
+                .collect(Collectors.toMap(PageViewCount::getPageUrl, PageViewCount::getCount));
+    }
+
+    private void view(final String timestamp, final String pageUrl, final int times) {
+        for (int view = 0; view < times; view++) {
+            this.heavyHittersEngine.accept(UserEvent.builder()
+                    .withTimestamp(timestamp)
+                    .withUserId("usr_" + view)
+                    .withEventType("page_view")
+                    .withPageUrl(pageUrl)
+                    .withSessionId("sess_" + view)
+                    .build());
+        }
+    }
+}
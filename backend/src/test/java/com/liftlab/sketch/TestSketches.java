@@ -0,0 +1,90 @@
+package com.liftlab.sketch;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TestSketches {
+
+    /** Zipf like page views: page i is viewed about 1 / (i + 1) as often as page 0. */
+    private static Map<String, Long> pageViews(final int pages, final int views, final long seed) {
+        final double[] cumulative = new double[pages];
+        double total = 0;
+        for (int page = 0; page < pages; page++) {
+            total += 1.0 / (page + 1);
+            cumulative[page] = total;
+        }
+        final Random random = new Random(seed);
+        final Map<String, Long> counts = new HashMap<>();
+        for (int view = 0; view < views; view++) {
+            final double target = random.nextDouble() * total;
+            int page = 0;
+            while (cumulative[page] < target) {
+                page++;
+            }
+            counts.merge("/page/" + page, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testCountMinSketchErrorBound() {
+        final double epsilon = 0.001;
+        final Map<String, Long> counts = pageViews(10_000, 200_000, 7);
+        final CountMinSketch sketch = new CountMinSketch(CountMinSketch.width(epsilon), CountMinSketch.depth(0.01));
+        counts.forEach(sketch::add);
+
+        final long maxError = (long) (epsilon * sketch.getTotalCount());
+        long outOfBound = 0;
+        for (final Map.Entry<String, Long> count : counts.entrySet()) {
+            final long estimate = sketch.estimate(count.getKey());
+            Assertions.assertTrue(estimate >= count.getValue());
+            if (estimate - count.getValue() > maxError) {
+                outOfBound++;
+            }
+        }
+        Assertions.assertEquals(200_000, sketch.getTotalCount());
+        Assertions.assertTrue(outOfBound <= counts.size() * 0.01, "Out of bound estimates: " + outOfBound);
+    }
+
+    @Test
+    public void testCountMinSketchMerge() {
+        final CountMinSketch first = new CountMinSketch(272, 5);
+        final CountMinSketch second = new CountMinSketch(272, 5);
+        first.add("/a", 3);
+        second.add("/a", 4);
+        second.add("/b", 1);
+
+        first.merge(second);
+
+        Assertions.assertTrue(first.estimate("/a") >= 7);
+        Assertions.assertTrue(first.estimate("/b") >= 1);
+        Assertions.assertEquals(8, first.getTotalCount());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> first.merge(new CountMinSketch(100, 5)));
+    }
+
+    @Test
+    public void testSpaceSavingKeepsHeavyHitters() {
+        final Map<String, Long> counts = pageViews(10_000, 200_000, 11);
+        final SpaceSaving spaceSaving = new SpaceSaving(200);
+        counts.forEach(spaceSaving::offer);
+
+        final List<SpaceSaving.Counter> top = spaceSaving.top(10);
+        Assertions.assertEquals(200, spaceSaving.size());
+        Assertions.assertEquals("/page/0", top.get(0).getItem());
+        for (final SpaceSaving.Counter counter : top) {
+            final long count = counts.get(counter.getItem());
+            Assertions.assertTrue(counter.getCount() >= count);
+            Assertions.assertTrue(counter.getCount() - counter.getError() <= count);
+        }
+        // Every page above N / capacity views has a counter.
+        final Set<String> items = Sets.newHashSet(spaceSaving.items());
+        counts.forEach((pageUrl, count) -> Assertions.assertTrue(count <= 200_000 / 200 || items.contains(pageUrl)));
+    }
+}
@@ -13,7 +13,7 @@ import {
 import { useEffect, useState } from "react";
 import { type PageView } from "@/model/PageView";
 import { type UserDetails } from "@/model/UserDetails";
-import { getPageViews, getUserDetails } from "@/services/DashboardApi";
+import { subscribeDashboard } from "@/services/DashboardApi";
 
 
 
@@ -28,30 +28,19 @@ const Dashboard = () => {
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
-    const fetchData = async () => {
-      try {
-        const { pageViews } = await getPageViews();
-        setPageViews(pageViews);
-  
-        const { userDetails } = await getUserDetails();
-        setUserDetails(userDetails);
-        setuserCount(userDetails.length);
-        setSessionCount(
-          userDetails.reduce((total, user) => total + user.sessionCount, 0)
-        );
-      } finally {
-        setLoading(false);
-      }
-    };
-  
-    // fetch immediately
-    fetchData();
-  
-    // set interval for 30 seconds
-    const intervalId = setInterval(fetchData, 30000);
-  
+    // the server pushes a snapshot, then the changes of every tick
+    const unsubscribe = subscribeDashboard(({ pageViews, userDetails }) => {
+      setPageViews(pageViews);
+      setUserDetails(userDetails);
+      setuserCount(userDetails.length);
+      setSessionCount(
+        userDetails.reduce((total, user) => total + user.sessionCount, 0)
+      );
+      setLoading(false);
+    });
+
     // cleanup
-    return () => clearInterval(intervalId);
+    return unsubscribe;
   }, []);
 
   return (
@@ -0,0 +1,20 @@
+import { type PageView } from "@/model/PageView";
+import { type UserDetails } from "@/model/UserDetails";
+
+export interface DashboardSnapshot {
+    sequence: number
+    userDetails: UserDetails[]
+    pageViews: PageView[]
+}
+
+export interface RankedPageView extends PageView {
+    rank: number
+}
+
+export interface DashboardDelta {
+    sequence: number
+    userDetails: UserDetails[]
+    removedUserIds: string[]
+    pageViews: RankedPageView[]
+    pageViewsSize: number
+}
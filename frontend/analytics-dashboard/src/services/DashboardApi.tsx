@@ -1,5 +1,6 @@
 import { type PageViewsResponse } from "@/model/PageView";
 import { type UserDetailsResponse } from "@/model/UserDetails";
+import { type DashboardDelta, type DashboardSnapshot } from "@/model/DashboardStream";
 
 
 
@@ -33,3 +34,47 @@ export const getUserDetails = async (): Promise<UserDetailsResponse> => {
 
 
 
+
+
+export const applyDelta = (snapshot: DashboardSnapshot, delta: DashboardDelta): DashboardSnapshot => {
+
+  const removed = new Set(delta.removedUserIds);
+  const changed = new Map(delta.userDetails.map((user) => [user.userId, user]));
+  const userDetails = snapshot.userDetails
+    .filter((user) => !removed.has(user.userId) && !changed.has(user.userId))
+    .concat(delta.userDetails);
+
+  const pageViews = snapshot.pageViews.slice(0, delta.pageViewsSize);
+  delta.pageViews.forEach(({ rank, pageUrl, count }) => {
+    pageViews[rank] = { pageUrl, count };
+  });
+
+  return { sequence: delta.sequence, userDetails, pageViews };
+};
+
+
+
+// Subscribes to the dashboard stream: a full snapshot first, then only the changes.
+// The browser reconnects on its own, and the server sends a new snapshot on reconnect.
+export const subscribeDashboard = (onUpdate: (snapshot: DashboardSnapshot) => void): (() => void) => {
+
+  const url = '/api/v1/dashboard/stream'
+
+  const eventSource = new EventSource(url);
+  let current: DashboardSnapshot | null = null;
+
+  eventSource.addEventListener("snapshot", (event) => {
+    current = JSON.parse((event as MessageEvent).data) as DashboardSnapshot;
+    onUpdate(current);
+  });
+
+  eventSource.addEventListener("delta", (event) => {
+    if (current === null) {
+      return;
+    }
+    current = applyDelta(current, JSON.parse((event as MessageEvent).data) as DashboardDelta);
+    onUpdate(current);
+  });
+
+  return () => eventSource.close();
+}